@@ -0,0 +1,26 @@
+#!/bin/sh
+# Builds build/chess.jar (classes plus piece images) and an AppCDS archive of the
+# classes the GUI loads up to its first frame, then prints how to launch with it.
+#
+#   scripts/build-cds.sh            # needs a JDK 13+ and a display
+#   java -XX:SharedArchiveFile=build/chess.jsa -cp build/chess.jar chess.gui.ChessGUI
+#
+# CDS only maps classes from jar files, so the classes are packaged first. The archive
+# must be rebuilt whenever the jar or the JDK changes (the JVM then ignores it with a
+# warning and starts normally).
+set -e
+cd "$(dirname "$0")/.."
+
+rm -rf build/classes
+mkdir -p build/classes
+javac -d build/classes $(find src -name '*.java')
+jar cf build/chess.jar -C build/classes . -C assets pieces
+
+# One training run: the GUI exits after its first painted frame (-Dchess.startup.exit)
+# and the JVM dumps every class it loaded into the archive.
+java -XX:ArchiveClassesAtExit=build/chess.jsa -Dchess.startup.exit=true \
+    -cp build/chess.jar chess.gui.ChessGUI
+
+echo "Archive: build/chess.jsa"
+echo "Run:     java -XX:SharedArchiveFile=build/chess.jsa -cp build/chess.jar chess.gui.ChessGUI"
+echo "Compare: java -cp build/chess.jar chess.gui.StartupBenchmark 10 build/chess.jsa"
@@ -0,0 +1,71 @@
+package chess.engine;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link NnueKernel} on the Java Vector API: as many accumulator entries per instruction
+ * as the CPU's widest vectors hold (8 ints with AVX2, 16 with AVX-512).
+ * <p>
+ * Lives apart from src because it needs {@code jdk.incubator.vector} to compile and run:
+ * <pre>
+ *   javac --add-modules jdk.incubator.vector -cp out -d out src-vector/chess/engine/*.java
+ *   java --add-modules jdk.incubator.vector -cp out chess.engine.UciEngine
+ * </pre>
+ * Without it, {@link NnueAccumulator} uses {@link ScalarNnueKernel}.
+ */
+final class VectorNnueKernel implements NnueKernel {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public void add(int[] acc, int[] weights, int offset) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(acc.length); i < bound; i += SPECIES.length()) {
+            IntVector.fromArray(SPECIES, acc, i)
+                .add(IntVector.fromArray(SPECIES, weights, offset + i))
+                .intoArray(acc, i);
+        }
+        for (; i < acc.length; i++) {
+            acc[i] += weights[offset + i];
+        }
+    }
+
+    @Override
+    public void subtract(int[] acc, int[] weights, int offset) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(acc.length); i < bound; i += SPECIES.length()) {
+            IntVector.fromArray(SPECIES, acc, i)
+                .sub(IntVector.fromArray(SPECIES, weights, offset + i))
+                .intoArray(acc, i);
+        }
+        for (; i < acc.length; i++) {
+            acc[i] -= weights[offset + i];
+        }
+    }
+
+    @Override
+    public int output(int[] us, int[] them, int[] weights) {
+        int hidden = us.length;
+        IntVector sum = IntVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(hidden); i < bound; i += SPECIES.length()) {
+            IntVector own = IntVector.fromArray(SPECIES, us, i).max(0).min(NnueNetwork.QA);
+            IntVector other = IntVector.fromArray(SPECIES, them, i).max(0).min(NnueNetwork.QA);
+            sum = sum.add(own.mul(IntVector.fromArray(SPECIES, weights, i)))
+                .add(other.mul(IntVector.fromArray(SPECIES, weights, hidden + i)));
+        }
+        int total = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < hidden; i++) {
+            total += Math.min(Math.max(us[i], 0), NnueNetwork.QA) * weights[i];
+            total += Math.min(Math.max(them[i], 0), NnueNetwork.QA) * weights[hidden + i];
+        }
+        return total;
+    }
+
+    @Override
+    public String name() {
+        return "vector (" + SPECIES.length() + " ints)";
+    }
+}
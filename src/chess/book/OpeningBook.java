@@ -0,0 +1,183 @@
+package chess.book;
+
+import chess.core.ChessBoard;
+import chess.core.Move;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+/**
+ * Read-only opening book backed by a memory-mapped file.
+ * <p>
+ * File layout: a 16-byte header (magic, version, entry count) followed by fixed
+ * 16-byte entries sorted by position hash, best weight first within a position:
+ * <pre>
+ *   bytes  0..7   Zobrist hash of the position (ChessBoard.getZobristHash)
+ *   bytes  8..9   move: origin | destination &lt;&lt; 6 | promotion &lt;&lt; 12 (see {@link Move})
+ *   bytes 10..11  weight (unsigned)
+ *   bytes 12..15  number of games the move was played in
+ * </pre>
+ * Probes binary-search the mapping directly: nothing is copied onto the heap, and a
+ * lookup touches about log2(entries) cache lines.
+ * <p>
+ * Usage: {@code java chess.book.OpeningBook <file.book>} prints the book moves of the
+ * starting position and the average probe time.
+ */
+public class OpeningBook implements AutoCloseable {
+
+    static final int MAGIC = 0x4348424B; // "CHBK"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int ENTRY_SIZE = 16;
+    static final int MOVE_MASK = 0x7FFF;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final int entryCount;
+
+    /**
+     * Maps a book file.
+     * @param file A file produced by {@link OpeningBookBuilder}
+     * @throws IOException if the file cannot be read or is not a book
+     */
+    public OpeningBook(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        if (channel.size() > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException("Book files larger than 2 GB are not supported: " + file);
+        }
+        map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+        if (map.capacity() < HEADER_SIZE || map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException("Not an opening book (or wrong version): " + file);
+        }
+        long count = map.getLong(8);
+        long entryBytes = map.capacity() - HEADER_SIZE;
+        if (entryBytes % ENTRY_SIZE != 0 || count != entryBytes / ENTRY_SIZE) {
+            channel.close();
+            throw new IOException("Truncated opening book: header says " + count + " entries, file has "
+                + map.capacity() + " bytes: " + file);
+        }
+        entryCount = (int) count;
+    }
+
+    public static void main(String[] args) throws IOException {
+        try (OpeningBook book = new OpeningBook(Paths.get(args[0]))) {
+            long hash = new ChessBoard().getZobristHash();
+            System.out.println(book.entryCount + " entries; start position:");
+            for (int i = book.find(hash); i >= 0 && i < book.entryCount && book.hashAt(i) == hash; i++) {
+                System.out.printf("  %s weight=%d count=%d%n",
+                    Move.toString(book.moveAt(i)), book.weightAt(i), book.countAt(i));
+            }
+
+            SplittableRandom random = new SplittableRandom(1);
+            int probes = 2_000_000;
+            long sink = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < probes; i++) {
+                // Mix hits and misses
+                long key = (i & 1) == 0 ? book.hashAt(random.nextInt(Math.max(1, book.entryCount))) : random.nextLong();
+                sink += book.bestMove(key);
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%.1f ns per probe (%d)%n", (double) elapsed / probes, sink & 1);
+        }
+    }
+
+    /** @return Number of entries in the book. */
+    public int size() {
+        return entryCount;
+    }
+
+    /**
+     * Finds the first entry of a position.
+     * @param hash Zobrist hash of the position
+     * @return The entry index, or -1 if the position is not in the book
+     */
+    public int find(long hash) {
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (hashAt(mid) < hash) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < entryCount && hashAt(low) == hash ? low : -1;
+    }
+
+    /**
+     * @param hash Zobrist hash of the position
+     * @return The book move with the highest weight, or {@link Move#NONE}
+     */
+    public int bestMove(long hash) {
+        int index = find(hash);
+        return index < 0 ? Move.NONE : moveAt(index);
+    }
+
+    /**
+     * Picks one of the position's book moves at random, proportionally to weight.
+     * @param hash Zobrist hash of the position
+     * @param random Source of randomness
+     * @return The chosen move, or {@link Move#NONE} if the position is not in the book
+     */
+    public int pickMove(long hash, SplittableRandom random) {
+        int first = find(hash);
+        if (first < 0) return Move.NONE;
+
+        int end = first;
+        long totalWeight = 0;
+        while (end < entryCount && hashAt(end) == hash) {
+            totalWeight += weightAt(end);
+            end++;
+        }
+        if (totalWeight == 0) return moveAt(first);
+
+        long pick = random.nextLong(totalWeight);
+        for (int i = first; i < end; i++) {
+            pick -= weightAt(i);
+            if (pick < 0) return moveAt(i);
+        }
+        return moveAt(first);
+    }
+
+    /**
+     * @param board The current position
+     * @return The best book move for it, or {@link Move#NONE}
+     */
+    public int probe(ChessBoard board) {
+        return bestMove(board.getZobristHash());
+    }
+
+    /** @return The position hash of entry i. */
+    public long hashAt(int i) {
+        return map.getLong(HEADER_SIZE + i * ENTRY_SIZE);
+    }
+
+    /** @return The packed move of entry i. */
+    public int moveAt(int i) {
+        return map.getShort(HEADER_SIZE + i * ENTRY_SIZE + 8) & MOVE_MASK;
+    }
+
+    /** @return The weight of entry i. */
+    public int weightAt(int i) {
+        return map.getShort(HEADER_SIZE + i * ENTRY_SIZE + 10) & 0xFFFF;
+    }
+
+    /** @return How many games played entry i's move. */
+    public int countAt(int i) {
+        return map.getInt(HEADER_SIZE + i * ENTRY_SIZE + 12);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close(); // The mapping itself is released when it is garbage collected
+    }
+}
@@ -0,0 +1,175 @@
+package chess.book;
+
+import chess.core.ChessBoard;
+import chess.core.Color;
+import chess.core.Move;
+import chess.core.Notation;
+import chess.util.PgnReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles PGN games into an {@link OpeningBook} file.
+ * <p>
+ * Every game is replayed on a {@link ChessBoard} for its first {@code maxPlies} half-moves.
+ * For each (position hash, move) pair the builder counts how often it was played and
+ * accumulates a weight from the game results: 2 for a win of the side that played it,
+ * 1 for a draw or unknown result, 0 for a loss. Entries are then sorted by hash (and by
+ * weight within a hash) and written as fixed 16-byte records.
+ * <p>
+ * Replay of a game stops at the first move that does not resolve to a legal move (a typo
+ * in the PGN, or an ambiguous SAN); such games count as truncated.
+ * <p>
+ * Usage: {@code java chess.book.OpeningBookBuilder <out.book> <games.pgn>... [--plies N] [--min-count N]}
+ */
+public class OpeningBookBuilder {
+
+    // hash -> (15-bit move -> {weight, count})
+    private final Map<Long, Map<Integer, int[]>> stats = new HashMap<>();
+    private final int maxPlies;
+    private int gamesRead;
+    private int gamesTruncated;
+
+    /**
+     * @param maxPlies Number of half-moves per game to put in the book
+     */
+    public OpeningBookBuilder(int maxPlies) {
+        this.maxPlies = maxPlies;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: OpeningBookBuilder <out.book> <games.pgn>... [--plies N] [--min-count N]");
+            System.exit(1);
+        }
+        int plies = 24;
+        int minCount = 1;
+        Path out = Paths.get(args[0]);
+        List<Path> inputs = new ArrayList<>();
+
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--plies")) plies = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--min-count")) minCount = Integer.parseInt(args[++i]);
+            else inputs.add(Paths.get(args[i]));
+        }
+
+        OpeningBookBuilder builder = new OpeningBookBuilder(plies);
+        for (Path input : inputs) {
+            builder.addPgn(input);
+        }
+        int written = builder.write(out, minCount);
+        System.out.println("Games: " + builder.gamesRead + " (" + builder.gamesTruncated
+            + " stopped early), positions: " + builder.stats.size() + ", entries written: " + written);
+    }
+
+    /** Adds every game of a PGN file. */
+    public void addPgn(Path pgn) throws IOException {
+        try (PgnReader reader = new PgnReader(Files.newBufferedReader(pgn, StandardCharsets.ISO_8859_1))) {
+            PgnReader.Game game;
+            while ((game = reader.next()) != null) {
+                addGame(game);
+            }
+        }
+    }
+
+    /** Replays the opening of one game into the statistics. */
+    public void addGame(PgnReader.Game game) {
+        gamesRead++;
+        String result = game.getResult();
+        ChessBoard board = new ChessBoard();
+
+        int plies = Math.min(maxPlies, game.getMoves().size());
+        for (int ply = 0; ply < plies; ply++) {
+            int move = Notation.parseSan(board, game.getMoves().get(ply));
+            if (move == Move.NONE) {
+                gamesTruncated++;
+                return;
+            }
+
+            Color mover = board.getCurrentTurn();
+            int[] entry = stats
+                .computeIfAbsent(board.getZobristHash(), h -> new HashMap<>())
+                .computeIfAbsent(move & OpeningBook.MOVE_MASK, m -> new int[2]);
+            entry[0] += resultWeight(result, mover);
+            entry[1]++;
+
+            board.makeMove(move);
+        }
+    }
+
+    /**
+     * Writes the book file.
+     * @param out Destination file (overwritten)
+     * @param minCount Moves played fewer times than this are left out
+     * @return Number of entries written
+     */
+    public int write(Path out, int minCount) throws IOException {
+        // Flatten into parallel primitive arrays, then sort an index over them
+        int total = 0;
+        for (Map<Integer, int[]> moves : stats.values()) total += moves.size();
+        long[] hashes = new long[total];
+        int[] moves = new int[total];
+        int[] weights = new int[total];
+        int[] counts = new int[total];
+
+        int n = 0;
+        for (Map.Entry<Long, Map<Integer, int[]>> position : stats.entrySet()) {
+            for (Map.Entry<Integer, int[]> move : position.getValue().entrySet()) {
+                if (move.getValue()[1] < minCount) continue;
+                hashes[n] = position.getKey();
+                moves[n] = move.getKey();
+                weights[n] = Math.min(move.getValue()[0], 0xFFFF);
+                counts[n] = move.getValue()[1];
+                n++;
+            }
+        }
+
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> {
+            int byHash = Long.compare(hashes[a], hashes[b]);
+            return byHash != 0 ? byHash : Integer.compare(weights[b], weights[a]);
+        });
+
+        try (FileChannel channel = FileChannel.open(out, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocate(64 * 1024);
+            buf.putInt(OpeningBook.MAGIC).putInt(OpeningBook.VERSION).putLong(n);
+
+            for (int i = 0; i < n; i++) {
+                if (buf.remaining() < OpeningBook.ENTRY_SIZE) {
+                    drain(buf, channel);
+                }
+                int e = order[i];
+                buf.putLong(hashes[e]).putShort((short) moves[e]).putShort((short) weights[e]).putInt(counts[e]);
+            }
+            drain(buf, channel);
+        }
+        return n;
+    }
+
+    private static void drain(ByteBuffer buf, FileChannel channel) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+        buf.clear();
+    }
+
+    private static int resultWeight(String result, Color mover) {
+        if (result.equals("1-0")) return mover == Color.WHITE ? 2 : 0;
+        if (result.equals("0-1")) return mover == Color.BLACK ? 2 : 0;
+        return 1;
+    }
+}
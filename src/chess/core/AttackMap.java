@@ -0,0 +1,234 @@
+package chess.core;
+
+import java.util.Arrays;
+
+/**
+ * Who attacks what in one position: per side and square, the number of attackers and
+ * the least valuable of them, plus the pieces each side would lose to a capture.
+ * <p>
+ * The map is built from a {@link BoardSnapshot} in a single pass over the pieces: each
+ * piece's attack set comes from precomputed step tables (pawns, Knights, Kings) or a
+ * walk along its rays to the first blocker (sliders), and is added to the per-square
+ * counts. That replaces 64 calls of {@link ChessBoard#isSquareAttacked} per side with
+ * one sweep, and the result is immutable, so it can be built on any thread and cached
+ * under the snapshot's {@link #getZobristHash() hash} for as long as the position stands.
+ * <p>
+ * A piece is "hanging" when the other side wins material by starting a capture
+ * sequence on its square. Sequences are judged by static exchange evaluation (SEE):
+ * both sides capture with their least valuable attacker, sliders behind the capturer
+ * join in (x-rays), and either side may stop when going on would lose. Like any SEE it
+ * ignores pins, checks and promotions.
+ */
+public final class AttackMap {
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64]; // [color][square]
+    private static final int[][] STRAIGHT = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    private static final int[][] DIAGONAL = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+    private static final int NONE = -1;
+
+    static {
+        int[][] knight = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+        int[][] king = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+        for (int square = 0; square < 64; square++) {
+            int row = square >> 3;
+            int col = square & 7;
+            KNIGHT_ATTACKS[square] = steps(row, col, knight);
+            KING_ATTACKS[square] = steps(row, col, king);
+            for (Color color : Color.values()) {
+                int dir = color.getDirection();
+                PAWN_ATTACKS[color.ordinal()][square] = steps(row, col, new int[][] {{dir, -1}, {dir, 1}});
+            }
+        }
+    }
+
+    private final long zobristHash;
+    private final long[] attacked = new long[2];        // [color] bitboard of attacked squares
+    private final byte[] counts = new byte[128];        // [color * 64 + square]
+    private final byte[] lowest = new byte[128];        // PieceType ordinal of the cheapest attacker, or NONE
+    private final long[] hanging = new long[2];         // [color] pieces of that color the other side wins
+
+    private AttackMap(BoardSnapshot position) {
+        this.zobristHash = position.getZobristHash();
+        Arrays.fill(lowest, (byte) NONE);
+        long occupied = position.getOccupancy();
+
+        long pieces = occupied;
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            Color color = position.getColor(from);
+            PieceType type = position.getPieceType(from);
+            int offset = color.ordinal() * 64;
+            long targets = attacks(type, color, from, occupied);
+            attacked[color.ordinal()] |= targets;
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                counts[offset + to]++;
+                // Higher ordinal = cheaper piece (KING first, PAWN last)
+                if (type.ordinal() > lowest[offset + to]) lowest[offset + to] = (byte) type.ordinal();
+            }
+        }
+
+        long victims = occupied & ~position.getPieces(Color.WHITE, PieceType.KING)
+            & ~position.getPieces(Color.BLACK, PieceType.KING);
+        while (victims != 0) {
+            int square = Long.numberOfTrailingZeros(victims);
+            victims &= victims - 1;
+            Color owner = position.getColor(square);
+            if (counts[owner.opposite().ordinal() * 64 + square] > 0 && exchange(position, square) > 0) {
+                hanging[owner.ordinal()] |= 1L << square;
+            }
+        }
+    }
+
+    /**
+     * Builds the map of a position.
+     * @param position Any snapshot; the map keeps no reference to it
+     */
+    public static AttackMap of(BoardSnapshot position) {
+        return new AttackMap(position);
+    }
+
+    /** @return Hash of the position the map describes, for caching. */
+    public long getZobristHash() {
+        return zobristHash;
+    }
+
+    // --- Attacks ---
+
+    /** @return Whether any piece of {@code attacker} attacks the square. */
+    public boolean isAttacked(Color attacker, int square) {
+        return (attacked[attacker.ordinal()] & (1L << square)) != 0;
+    }
+
+    /** @return Bitboard of the squares {@code attacker} attacks. */
+    public long getAttackedSquares(Color attacker) {
+        return attacked[attacker.ordinal()];
+    }
+
+    /** @return How many pieces of {@code attacker} attack the square (x-rays not counted). */
+    public int getAttackerCount(Color attacker, int square) {
+        return counts[attacker.ordinal() * 64 + square];
+    }
+
+    /** @return The type of the cheapest piece of {@code attacker} attacking the square, or null. */
+    public PieceType getLowestAttacker(Color attacker, int square) {
+        int ordinal = lowest[attacker.ordinal() * 64 + square];
+        return ordinal == NONE ? null : PieceType.values()[ordinal];
+    }
+
+    // --- Threats ---
+
+    /** @return Bitboard of the pieces of {@code owner} the other side wins material against. */
+    public long getHangingPieces(Color owner) {
+        return hanging[owner.ordinal()];
+    }
+
+    /** @return Whether the piece on the square (if any) is hanging. */
+    public boolean isHanging(int square) {
+        return ((hanging[0] | hanging[1]) & (1L << square)) != 0;
+    }
+
+    /**
+     * Static exchange evaluation of capturing the piece on a square.
+     * @param position The position
+     * @param square An occupied square
+     * @return The material (in {@link PieceType#getValue()} units) the side not owning the
+     *         piece wins by capturing first, as played out by both sides; negative if the
+     *         capture loses material, 0 if the piece is not attacked at all
+     */
+    public static int exchange(BoardSnapshot position, int square) {
+        PieceType target = position.getPieceType(square);
+        if (target == null) throw new IllegalArgumentException("No piece on square " + square);
+        int[] gain = new int[32];
+        long occupied = position.getOccupancy();
+        Color side = position.getColor(square).opposite();
+
+        long from = leastValuable(position, side, attackersTo(position, square, occupied) & position.getPieces(side));
+        if (from == 0) return 0;
+        gain[0] = target.getValue();
+        PieceType capturer = position.getPieceType(Long.numberOfTrailingZeros(from));
+        int depth = 0;
+        while (from != 0) {
+            depth++;
+            gain[depth] = capturer.getValue() - gain[depth - 1]; // What the reply would win
+            occupied ^= from; // Also uncovers sliders behind the capturer
+            side = side.opposite();
+            from = leastValuable(position, side, attackersTo(position, square, occupied) & occupied & position.getPieces(side));
+            if (from != 0) capturer = position.getPieceType(Long.numberOfTrailingZeros(from));
+        }
+        while (--depth > 0) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+        }
+        return gain[0];
+    }
+
+    // --- Internals ---
+
+    // Squares a piece attacks; sliders stop at (and include) the first occupied square
+    private static long attacks(PieceType type, Color color, int from, long occupied) {
+        switch (type) {
+            case PAWN: return PAWN_ATTACKS[color.ordinal()][from];
+            case KNIGHT: return KNIGHT_ATTACKS[from];
+            case KING: return KING_ATTACKS[from];
+            case BISHOP: return rays(from, occupied, DIAGONAL);
+            case ROOK: return rays(from, occupied, STRAIGHT);
+            default: return rays(from, occupied, STRAIGHT) | rays(from, occupied, DIAGONAL);
+        }
+    }
+
+    // Pieces of both colors attacking a square, given which squares are still occupied
+    private static long attackersTo(BoardSnapshot position, int square, long occupied) {
+        long straight = rays(square, occupied, STRAIGHT);
+        long diagonal = rays(square, occupied, DIAGONAL);
+        long whitePawns = position.getPieces(Color.WHITE, PieceType.PAWN);
+        long blackPawns = position.getPieces(Color.BLACK, PieceType.PAWN);
+        return (PAWN_ATTACKS[Color.BLACK.ordinal()][square] & whitePawns)
+            | (PAWN_ATTACKS[Color.WHITE.ordinal()][square] & blackPawns)
+            | (KNIGHT_ATTACKS[square] & pieces(position, PieceType.KNIGHT))
+            | (KING_ATTACKS[square] & pieces(position, PieceType.KING))
+            | (straight & (pieces(position, PieceType.ROOK) | pieces(position, PieceType.QUEEN)))
+            | (diagonal & (pieces(position, PieceType.BISHOP) | pieces(position, PieceType.QUEEN)));
+    }
+
+    // The single bit of the cheapest piece among the candidates, or 0
+    private static long leastValuable(BoardSnapshot position, Color side, long candidates) {
+        PieceType[] types = PieceType.values();
+        for (int i = types.length - 1; i >= 0; i--) {
+            long match = candidates & position.getPieces(side, types[i]);
+            if (match != 0) return match & -match;
+        }
+        return 0;
+    }
+
+    private static long pieces(BoardSnapshot position, PieceType type) {
+        return position.getPieces(Color.WHITE, type) | position.getPieces(Color.BLACK, type);
+    }
+
+    private static long rays(int from, long occupied, int[][] directions) {
+        long result = 0;
+        for (int[] dir : directions) {
+            int row = (from >> 3) + dir[0];
+            int col = (from & 7) + dir[1];
+            while (Position.isValid(row, col)) {
+                long bit = 1L << (row * 8 + col);
+                result |= bit;
+                if ((occupied & bit) != 0) break;
+                row += dir[0];
+                col += dir[1];
+            }
+        }
+        return result;
+    }
+
+    private static long steps(int row, int col, int[][] offsets) {
+        long result = 0;
+        for (int[] off : offsets) {
+            if (Position.isValid(row + off[0], col + off[1])) result |= 1L << ((row + off[0]) * 8 + col + off[1]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,24 @@
+package chess.core;
+
+/**
+ * Receives every lasting change of a {@link ChessBoard}'s pieces, as it happens.
+ * <p>
+ * All such changes go through {@link ChessBoard#setPiece}, so a listener sees each move
+ * played or taken back (castling, en passant and promotion included) as a few removals
+ * and additions, and can keep state derived from the pieces up to date incrementally
+ * instead of rescanning the board. The squares a move is tested on for legality are
+ * changed in place and not reported.
+ * <p>
+ * Calls come on the thread changing the board, in the middle of a move, and must be quick.
+ */
+public interface BoardListener {
+
+    /** A piece was put on an empty square (or on one whose piece was just reported removed). */
+    void pieceAdded(Color color, PieceType type, int square);
+
+    /** A piece left a square. */
+    void pieceRemoved(Color color, PieceType type, int square);
+
+    /** All pieces were removed at once, before a new position is set up. */
+    void boardCleared();
+}
@@ -0,0 +1,217 @@
+package chess.core;
+
+/**
+ * An immutable view of a position, for readers on other threads (rendering, spectators,
+ * analysis) that must not touch the mutable {@link ChessBoard} of a running game.
+ * <p>
+ * A snapshot is a handful of primitive words: one occupancy bitboard per color and per
+ * piece type (bit {@code sq} = square index, 0 = a8), plus the side to move, castling
+ * rights, en passant square, clocks and hash. {@link ChessBoard#snapshot()} copies them
+ * from bitboards the board keeps up to date on every change, so taking one costs about as
+ * much as allocating a small object. Because all fields are final, a snapshot handed over
+ * through an {@code AtomicReference} (or any other safe publication) is seen completely
+ * and consistently, without locks.
+ */
+public final class BoardSnapshot {
+
+    private final long whitePieces;
+    private final long blackPieces;
+    private final long kings;
+    private final long queens;
+    private final long rooks;
+    private final long bishops;
+    private final long knights;
+    private final long pawns;
+    private final long zobristHash;
+    private final Color sideToMove;
+    private final CastlingRules castlingRules;
+    private final int castlingRights;
+    private final int enPassantSquare;
+    private final int halfmoveClock;
+    private final int fullmoveNumber;
+    private final int plyCount;
+    private final int lastMove;
+
+    BoardSnapshot(long[] colorBits, long[] typeBits, long zobristHash, Color sideToMove, CastlingRules castlingRules,
+                  int castlingRights, int enPassantSquare, int halfmoveClock, int fullmoveNumber, int plyCount,
+                  int lastMove) {
+        this.whitePieces = colorBits[Color.WHITE.ordinal()];
+        this.blackPieces = colorBits[Color.BLACK.ordinal()];
+        this.kings = typeBits[PieceType.KING.ordinal()];
+        this.queens = typeBits[PieceType.QUEEN.ordinal()];
+        this.rooks = typeBits[PieceType.ROOK.ordinal()];
+        this.bishops = typeBits[PieceType.BISHOP.ordinal()];
+        this.knights = typeBits[PieceType.KNIGHT.ordinal()];
+        this.pawns = typeBits[PieceType.PAWN.ordinal()];
+        this.zobristHash = zobristHash;
+        this.sideToMove = sideToMove;
+        this.castlingRules = castlingRules;
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        this.plyCount = plyCount;
+        this.lastMove = lastMove;
+    }
+
+    // --- Squares ---
+
+    /** @return The type of the piece on the square, or null if it is empty. */
+    public PieceType getPieceType(int square) {
+        long bit = 1L << square;
+        if ((getOccupancy() & bit) == 0) return null;
+        if ((pawns & bit) != 0) return PieceType.PAWN;
+        if ((knights & bit) != 0) return PieceType.KNIGHT;
+        if ((bishops & bit) != 0) return PieceType.BISHOP;
+        if ((rooks & bit) != 0) return PieceType.ROOK;
+        if ((queens & bit) != 0) return PieceType.QUEEN;
+        return PieceType.KING;
+    }
+
+    /** @return The color of the piece on the square, or null if it is empty. */
+    public Color getColor(int square) {
+        long bit = 1L << square;
+        if ((whitePieces & bit) != 0) return Color.WHITE;
+        if ((blackPieces & bit) != 0) return Color.BLACK;
+        return null;
+    }
+
+    /** @return Bitboard of all occupied squares. */
+    public long getOccupancy() {
+        return whitePieces | blackPieces;
+    }
+
+    /** @return Bitboard of the squares occupied by one side. */
+    public long getPieces(Color color) {
+        return color == Color.WHITE ? whitePieces : blackPieces;
+    }
+
+    /** @return Bitboard of one side's pieces of one type. */
+    public long getPieces(Color color, PieceType type) {
+        return getPieces(color) & typeBits(type);
+    }
+
+    /** @return Square index of the King of the given color, or -1 if there is none. */
+    public int getKingSquare(Color color) {
+        long king = getPieces(color, PieceType.KING);
+        return king == 0 ? -1 : Long.numberOfTrailingZeros(king);
+    }
+
+    // --- Game state ---
+
+    public Color getSideToMove() {
+        return sideToMove;
+    }
+
+    /** @return Standard or Chess960 castling, and the castling files. */
+    public CastlingRules getCastlingRules() {
+        return castlingRules;
+    }
+
+    /** @return A mask of the ChessBoard.CASTLE_* bits. */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /** @return The en passant target square, or -1. */
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /** @return Moves played on the board the snapshot was taken from. */
+    public int getPlyCount() {
+        return plyCount;
+    }
+
+    /** @return The move that led to this position, or {@link Move#NONE}. */
+    public int getLastMove() {
+        return lastMove;
+    }
+
+    /** @return Same as {@link ChessBoard#getZobristHash()} at the time of the snapshot. */
+    public long getZobristHash() {
+        return zobristHash;
+    }
+
+    // --- Conversion ---
+
+    /**
+     * Builds a new mutable board holding this position (without the move history),
+     * e.g. for an analysis thread.
+     */
+    public ChessBoard toBoard() {
+        ChessBoard board = ChessBoard.empty();
+        long occupied = getOccupancy();
+        while (occupied != 0) {
+            int square = Long.numberOfTrailingZeros(occupied);
+            occupied &= occupied - 1;
+            PieceType type = getPieceType(square);
+            Color color = getColor(square);
+            Position pos = Position.of(square);
+            Piece piece = Piece.create(type, color, pos);
+            int startRow = color == Color.WHITE ? 6 : 1;
+            piece.setHasMoved(type == PieceType.PAWN && square >> 3 != startRow);
+            board.setPiece(piece, pos);
+        }
+        board.setCurrentTurn(sideToMove);
+        board.setCastlingRules(castlingRules);
+        board.setCastlingRights(castlingRights);
+        board.setEnPassantSquare(enPassantSquare);
+        board.setHalfmoveClock(halfmoveClock);
+        board.setFullmoveNumber(fullmoveNumber);
+        return board;
+    }
+
+    private long typeBits(PieceType type) {
+        switch (type) {
+            case KING: return kings;
+            case QUEEN: return queens;
+            case ROOK: return rooks;
+            case BISHOP: return bishops;
+            case KNIGHT: return knights;
+            default: return pawns;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof BoardSnapshot)) return false;
+        BoardSnapshot other = (BoardSnapshot) o;
+        return whitePieces == other.whitePieces && blackPieces == other.blackPieces
+            && kings == other.kings && queens == other.queens && rooks == other.rooks
+            && bishops == other.bishops && knights == other.knights && pawns == other.pawns
+            && sideToMove == other.sideToMove && castlingRules.equals(other.castlingRules)
+            && castlingRights == other.castlingRights
+            && enPassantSquare == other.enPassantSquare && halfmoveClock == other.halfmoveClock
+            && fullmoveNumber == other.fullmoveNumber;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(zobristHash);
+    }
+
+    /** Same layout as {@link ChessBoard#toString()}. */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(" a b c d e f g h\n");
+        for (int row = 0; row < 8; row++) {
+            sb.append(8 - row).append(" ");
+            for (int col = 0; col < 8; col++) {
+                PieceType type = getPieceType(row * 8 + col);
+                sb.append(type == null ? ". " : type.getShortName() + " ");
+            }
+            sb.append(8 - row).append("\n");
+        }
+        sb.append(" a b c d e f g h\n");
+        return sb.toString();
+    }
+}
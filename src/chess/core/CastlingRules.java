@@ -0,0 +1,225 @@
+package chess.core;
+
+import java.util.List;
+
+/**
+ * Where castling starts from, per game: the King's file and the files of the two
+ * castling Rooks (the same for both colors). After castling the King always stands on
+ * the c- or g-file and the Rook next to it on the d- or f-file, as in standard chess.
+ * <p>
+ * Standard chess uses {@link #STANDARD}; a Chess960 (Fischer random) game gets its
+ * own table from {@link #chess960(int, int, int)}. The two kinds are separate
+ * subclasses, so a board only ever calls the code of its own variant and standard
+ * games run the same castling code as before Chess960 existed. Playing and taking
+ * back castling is table-driven and shared.
+ * <p>
+ * Castling moves are encoded differently, as in UCI: in standard chess as the King's
+ * two-square step ("e1g1"), in Chess960 as the King moving onto its own Rook ("e1h1"),
+ * since there the King may move one square or not at all.
+ */
+public abstract class CastlingRules {
+
+    /** Standard chess: King on the e-file, Rooks in the corners. */
+    public static final CastlingRules STANDARD = new Standard();
+
+    // The ten ways to put two Knights on five free files, in Scharnagl order
+    private static final int[][] KNIGHT_FILES = {
+        {0, 1}, {0, 2}, {0, 3}, {0, 4}, {1, 2}, {1, 3}, {1, 4}, {2, 3}, {2, 4}, {3, 4}
+    };
+
+    final int kingCol;
+    final int[] rookCols; // [0] = queen side, [1] = king side
+    final long[] castlingKeys = new long[16]; // Zobrist key per mask of CASTLE_* rights
+
+    private CastlingRules(int kingCol, int queenRookCol, int kingRookCol) {
+        this.kingCol = kingCol;
+        this.rookCols = new int[] {queenRookCol, kingRookCol};
+    }
+
+    /**
+     * @param kingCol Start file of the Kings (0 = a-file)
+     * @param queenRookCol Start file of the Rooks castling towards the a-file
+     * @param kingRookCol Start file of the Rooks castling towards the h-file
+     * @return The rules of a Chess960 game with this back rank
+     * @throws IllegalArgumentException unless the King stands between the Rooks
+     */
+    public static CastlingRules chess960(int kingCol, int queenRookCol, int kingRookCol) {
+        if (queenRookCol < 0 || queenRookCol >= kingCol || kingCol >= kingRookCol || kingRookCol > 7) {
+            throw new IllegalArgumentException("King must start between the castling Rooks: "
+                + queenRookCol + " " + kingCol + " " + kingRookCol);
+        }
+        return new Chess960(kingCol, queenRookCol, kingRookCol);
+    }
+
+    // Chess960 rules read from a FEN, where files without a castling right are only placeholders
+    static CastlingRules forFiles(int kingCol, int queenRookCol, int kingRookCol) {
+        return new Chess960(kingCol, queenRookCol, kingRookCol);
+    }
+
+    /**
+     * Computes the back rank of a Chess960 start position from its number in the standard
+     * (Scharnagl) numbering; 518 is the standard chess layout.
+     * @param number 0..959
+     * @return The piece types of files a to h
+     */
+    public static PieceType[] chess960Layout(int number) {
+        if (number < 0 || number > 959) throw new IllegalArgumentException("Chess960 position out of range: " + number);
+        PieceType[] rank = new PieceType[8];
+        rank[(number % 4) * 2 + 1] = PieceType.BISHOP; // Light squares: b, d, f, h
+        number /= 4;
+        rank[(number % 4) * 2] = PieceType.BISHOP; // Dark squares: a, c, e, g
+        number /= 4;
+        placeOnFreeFile(rank, number % 6, PieceType.QUEEN);
+        number /= 6;
+        int[] knights = KNIGHT_FILES[number];
+        placeOnFreeFile(rank, knights[1], PieceType.KNIGHT); // Higher first, so the lower index still counts
+        placeOnFreeFile(rank, knights[0], PieceType.KNIGHT);
+        placeOnFreeFile(rank, 0, PieceType.ROOK);
+        placeOnFreeFile(rank, 0, PieceType.KING);
+        placeOnFreeFile(rank, 0, PieceType.ROOK);
+        return rank;
+    }
+
+    private static void placeOnFreeFile(PieceType[] rank, int freeIndex, PieceType type) {
+        for (int col = 0; col < 8; col++) {
+            if (rank[col] == null && freeIndex-- == 0) {
+                rank[col] = type;
+                return;
+            }
+        }
+    }
+
+    /** @return Whether castling follows the Chess960 rules and move encoding. */
+    public abstract boolean isChess960();
+
+    /** @return Start file of the Kings. */
+    public int getKingColumn() {
+        return kingCol;
+    }
+
+    /** @return Start file of the Rook castling towards the h-file (true) or a-file (false). */
+    public int getRookColumn(boolean kingSide) {
+        return rookCols[kingSide ? 1 : 0];
+    }
+
+    /**
+     * @param color The side castling
+     * @param kingSide Towards the h-file (O-O) or the a-file (O-O-O)
+     * @return The castling move in this variant's encoding, without flags
+     */
+    public abstract int castlingMove(Color color, boolean kingSide);
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof CastlingRules)) return false;
+        CastlingRules other = (CastlingRules) o;
+        return isChess960() == other.isChess960() && kingCol == other.kingCol
+            && rookCols[0] == other.rookCols[0] && rookCols[1] == other.rookCols[1];
+    }
+
+    @Override
+    public int hashCode() {
+        return (isChess960() ? 512 : 0) + kingCol + rookCols[0] * 8 + rookCols[1] * 64;
+    }
+
+    @Override
+    public String toString() {
+        return isChess960() ? "Chess960 " + (char) ('a' + rookCols[0]) + (char) ('a' + kingCol)
+            + (char) ('a' + rookCols[1]) : "Standard";
+    }
+
+    // --- Hooks for ChessBoard and King ---
+
+    /** @return Whether a King move, given by squares only, is a castling move. */
+    abstract boolean isCastling(ChessBoard board, Piece king, int from, int to);
+
+    /** Adds the destinations (in this variant's encoding) of every castling move possible now. */
+    abstract void addCastlingMoves(ChessBoard board, King king, List<Position> moves);
+
+    /** Standard chess; the checks live in King, where they always were. */
+    private static final class Standard extends CastlingRules {
+
+        Standard() {
+            super(4, 0, 7);
+            for (int rights = 0; rights < 16; rights++) {
+                castlingKeys[rights] = Zobrist.castlingKey(rights);
+            }
+        }
+
+        @Override
+        public boolean isChess960() {
+            return false;
+        }
+
+        @Override
+        public int castlingMove(Color color, boolean kingSide) {
+            int backRank = color == Color.WHITE ? 7 : 0;
+            return Move.of(backRank * 8 + 4, backRank * 8 + (kingSide ? 6 : 2));
+        }
+
+        @Override
+        boolean isCastling(ChessBoard board, Piece king, int from, int to) {
+            return Math.abs((to & 7) - (from & 7)) == 2;
+        }
+
+        @Override
+        void addCastlingMoves(ChessBoard board, King king, List<Position> moves) {
+            king.addStandardCastlingMoves(board, moves);
+        }
+    }
+
+    /** Chess960: any start files, and the King moves onto the Rook's square. */
+    private static final class Chess960 extends CastlingRules {
+
+        // A right is keyed by its Rook's file, so castling with different Rooks (or with
+        // the other encoding of standard chess) never hashes alike
+        Chess960(int kingCol, int queenRookCol, int kingRookCol) {
+            super(kingCol, queenRookCol, kingRookCol);
+            for (int rights = 0; rights < 16; rights++) {
+                for (int bit = 0; bit < 4; bit++) {
+                    boolean kingSide = (bit & 1) == 0; // Bits 0 and 2 are the king-side rights
+                    if ((rights & (1 << bit)) != 0) {
+                        castlingKeys[rights] ^= Zobrist.chess960CastlingKey(bit, getRookColumn(kingSide));
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean isChess960() {
+            return true;
+        }
+
+        @Override
+        public int castlingMove(Color color, boolean kingSide) {
+            int backRank = color == Color.WHITE ? 7 : 0;
+            return Move.of(backRank * 8 + kingCol, backRank * 8 + getRookColumn(kingSide));
+        }
+
+        // Only castling puts a King onto a piece of its own color
+        @Override
+        boolean isCastling(ChessBoard board, Piece king, int from, int to) {
+            Piece target = board.getPiece(Position.of(to));
+            return target != null && target.getColor() == king.getColor();
+        }
+
+        @Override
+        void addCastlingMoves(ChessBoard board, King king, List<Position> moves) {
+            int backRank = king.getColor() == Color.WHITE ? 7 : 0;
+            Position kingPos = king.getPosition();
+            if (kingPos.getRow() != backRank || kingPos.getCol() != kingCol) return;
+
+            for (int side = 0; side < 2; side++) {
+                int rookCol = rookCols[side];
+                Piece rook = board.getPiece(Position.of(backRank * 8 + rookCol));
+                if (!(rook instanceof Rook) || rook.hasMoved() || rook.getColor() != king.getColor()) continue;
+
+                int kingTo = side == 1 ? 6 : 2;
+                int rookTo = side == 1 ? 5 : 3;
+                if (board.canCastle(backRank, kingCol, kingTo, rookCol, rookTo, king.getColor())) {
+                    moves.add(Position.of(backRank * 8 + rookCol));
+                }
+            }
+        }
+    }
+}
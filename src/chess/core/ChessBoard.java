@@ -1,16 +1,78 @@
 package chess.core;
 
+import chess.util.Metrics;
+import chess.util.MoveEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
-
 /**
  * The central Model class. Manages the 8x8 grid, tracks piece positions,
  * and evalutes game-state logic (like Checks and Attacks).
  */
 public class ChessBoard {
 
+    // Offsets used to look for attackers around a square
+    private static final int[][] KNIGHT_OFFSETS = {
+        {-2, -1}, {-2, 1}, {-1, -2}, {-1, 2},
+        {1, -2}, {1, 2}, {2, -1}, {2, 1}
+    };
+    private static final int[][] KING_OFFSETS = {
+        {-1, -1}, {-1, 0}, {-1, 1},
+        { 0, -1},          { 0, 1},
+        { 1, -1}, { 1, 0}, { 1, 1}
+    };
+    private static final int[][] STRAIGHT_DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    private static final int[][] DIAGONAL_DIRECTIONS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+
+    // Castling-rights bits, see getCastlingRights()
+    public static final int CASTLE_WHITE_KING_SIDE = 1;
+    public static final int CASTLE_WHITE_QUEEN_SIDE = 2;
+    public static final int CASTLE_BLACK_KING_SIDE = 4;
+    public static final int CASTLE_BLACK_QUEEN_SIDE = 8;
+
+    // Plies without a capture or pawn move after which the game is drawn
+    private static final int FIFTY_MOVE_PLIES = 100;
+
+    /** Upper bound on the number of legal moves in any position (the record is 218). */
+    public static final int MAX_MOVES = 256;
+
+    private static final PieceType[] PROMOTION_TYPES = {
+        PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT
+    };
+
+    private static final PieceType[] STANDARD_LAYOUT = {
+        PieceType.ROOK, PieceType.KNIGHT, PieceType.BISHOP, PieceType.QUEEN,
+        PieceType.KING, PieceType.BISHOP, PieceType.KNIGHT, PieceType.ROOK
+    };
+
     private final Piece[][] board; // 8x8 grid of pieces
     private Color currentTurn = Color.WHITE;
+    private CastlingRules castling = CastlingRules.STANDARD; // Per game: standard or Chess960
+
+    // --- Incrementally maintained state (see setPiece, makeMove) ---
+    private long placementHash; // Zobrist keys of all pieces and the side to move
+    private final int[][] pieceCounts = new int[2][PieceType.values().length]; // [color][type]
+    private final long[] colorBits = new long[2]; // Occupied squares per color, bit = square index
+    private final long[] typeBits = new long[PieceType.values().length]; // Occupied squares per type
+    private final int[][] pieceSquares = new int[2][64]; // [color][i]: squares of that side's pieces, unordered
+    private final int[] pieceListSize = new int[2];
+    private final int[] pieceListIndex = new int[64]; // Square -> its index in its side's pieceSquares
+    private final int[] kingSquares = {-1, -1}; // [color], or -1 without a King
+    private int halfmoveClock;
+    private int fullmoveNumber = 1;
+    private int enPassantSquare = -1; // Square a pawn may capture en passant on, or -1
+    private BoardListener listener; // Told about every setPiece, or null
+
+    // --- One entry per ply played with makeMove, so it can be taken back ---
+    private int[] undoMoves = new int[64]; // With their special-move flags
+    private Piece[] undoPieces = new Piece[64];
+    private Piece[] undoCaptured = new Piece[64];
+    private int[] undoEnPassant = new int[64];
+    private boolean[] undoHasMoved = new boolean[64];
+    private int[] undoHalfmoveClocks = new int[64];
+    private long[] positionHistory = new long[64]; // Hash of the position each move was played in
+    private int plyCount;
 
     /**
      * Creates a new empty chessboard and populates it with the standard starting layout.
@@ -20,41 +82,78 @@ public class ChessBoard {
         setupStartingPosition();
     }
 
+    // Creates a board without any pieces
+    private ChessBoard(boolean populate) {
+        board = new Piece[8][8];
+        if (populate) setupStartingPosition();
+    }
+
+    /**
+     * Creates an empty board (White to move), for code that builds a position
+     * square by square, e.g. decoders of stored games.
+     * @return A board with no pieces on it
+     */
+    public static ChessBoard empty() {
+        return new ChessBoard(false);
+    }
+
     /**
      * Places all pieces in their standard starting layout.
      * This method clears the board first.
     */
     public void setupStartingPosition() {
         clearBoard();
+        setupPieces(STANDARD_LAYOUT);
+    }
+
+    /**
+     * Places the pieces of a Chess960 start position and switches the board to the
+     * Chess960 castling rules. This method clears the board first.
+     * @param number The position's number, 0..959 (518 is the standard layout)
+     */
+    public void setupChess960(int number) {
+        PieceType[] layout = CastlingRules.chess960Layout(number);
+        clearBoard();
+        setupPieces(layout);
+        int kingCol = Arrays.asList(layout).indexOf(PieceType.KING);
+        setCastlingRules(CastlingRules.chess960(kingCol,
+            Arrays.asList(layout).indexOf(PieceType.ROOK), Arrays.asList(layout).lastIndexOf(PieceType.ROOK)));
+    }
 
+    // Both back ranks from a layout (files a to h), and the pawns in front of them
+    private void setupPieces(PieceType[] layout) {
         // Black pieces
-        setupRank(0, Color.BLACK);
+        setupRank(0, Color.BLACK, layout);
         for (int i = 0; i < 8; i++) {
-            board[1][i] = new Pawn(Color.BLACK, new Position(1, i));
+            setPiece(new Pawn(Color.BLACK, new Position(1, i)), Position.of(8 + i));
         }
 
         //White Pieces
-        setupRank(7, Color.WHITE);
+        setupRank(7, Color.WHITE, layout);
         for (int i = 0; i < 8; i++) {
-            board[6][i] = new Pawn(Color.WHITE, new Position(6, i));
+            setPiece(new Pawn(Color.WHITE, new Position(6, i)), Position.of(48 + i));
         }
     }
 
     //
-    private void setupRank(int row, Color color) {
-        board[row][0] = new Rook(color, new Position(row, 0));
-        board[row][1] = new Knight(color, new Position(row, 1));
-        board[row][2] = new Bishop(color, new Position(row, 2));
-        board[row][3] = new Queen(color, new Position(row, 3));
-        board[row][4] = new King(color, new Position(row, 4));
-        board[row][5] = new Bishop(color, new Position(row, 5));
-        board[row][6] = new Knight(color, new Position(row, 6));
-        board[row][7] = new Rook(color, new Position(row, 7));
+    private void setupRank(int row, Color color, PieceType[] layout) {
+        for (int col = 0; col < 8; col++) {
+            setPiece(Piece.create(layout[col], color, new Position(row, col)), Position.of(row * 8 + col));
+        }
     }
 
     /**
-     * Removes all pieces from the board.
-     * Called internally before re-initialization.
+     * Empties the board for reuse with another position: no pieces, White to move,
+     * no move history. Saves allocating a board per position in bulk work.
+     */
+    public void clear() {
+        currentTurn = Color.WHITE;
+        clearBoard();
+    }
+
+    /**
+     * Removes all pieces from the board and forgets the move history; castling goes
+     * back to the standard rules. Called internally before re-initialization.
     */
     private void clearBoard() {
         for (int row = 0; row < 8; row++) {
@@ -62,6 +161,22 @@ public class ChessBoard {
                 board[row][col] = null;
             }
         }
+        for (int[] counts : pieceCounts) {
+            Arrays.fill(counts, 0);
+        }
+        Arrays.fill(colorBits, 0);
+        Arrays.fill(typeBits, 0);
+        Arrays.fill(pieceListSize, 0);
+        Arrays.fill(kingSquares, -1);
+        Arrays.fill(undoPieces, null);
+        Arrays.fill(undoCaptured, null);
+        castling = CastlingRules.STANDARD;
+        placementHash = currentTurn == Color.BLACK ? Zobrist.SIDE_TO_MOVE : 0;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        enPassantSquare = -1;
+        plyCount = 0;
+        if (listener != null) listener.boardCleared();
     }
 
     /**
@@ -77,27 +192,128 @@ public class ChessBoard {
     /**
      * Places a piece on a specific square.
      * This overwrites whatever was on that square.
+     * <p>
+     * Every lasting change of the grid goes through here, which keeps the hash, the
+     * material counts, the occupancy bitboards, the piece lists and the King squares
+     * up to date, and tells the listener.
      * 
      * @param piece The piece to place
      * @param pos The target position
      */
     public void setPiece(Piece piece, Position pos) {
+        int row = pos.getRow();
+        int col = pos.getCol();
+        long bit = 1L << (row * 8 + col);
+        Piece old = board[row][col];
+        if (old != null) {
+            placementHash ^= Zobrist.pieceKey(old.getColor(), old.getType(), row * 8 + col);
+            pieceCounts[old.getColor().ordinal()][old.getType().ordinal()]--;
+            colorBits[old.getColor().ordinal()] &= ~bit;
+            typeBits[old.getType().ordinal()] &= ~bit;
+            removeFromPieceList(old, row * 8 + col);
+            if (listener != null) listener.pieceRemoved(old.getColor(), old.getType(), row * 8 + col);
+        }
         if (piece != null) {
             piece.setPosition(pos);
+            placementHash ^= Zobrist.pieceKey(piece.getColor(), piece.getType(), row * 8 + col);
+            pieceCounts[piece.getColor().ordinal()][piece.getType().ordinal()]++;
+            colorBits[piece.getColor().ordinal()] |= bit;
+            typeBits[piece.getType().ordinal()] |= bit;
+            addToPieceList(piece, row * 8 + col);
+            if (listener != null) listener.pieceAdded(piece.getColor(), piece.getType(), row * 8 + col);
+        }
+        board[row][col] = piece;
+    }
+
+    // Appends the square to its side's list; a King also becomes that side's King square
+    private void addToPieceList(Piece piece, int square) {
+        int color = piece.getColor().ordinal();
+        int index = pieceListSize[color]++;
+        pieceSquares[color][index] = square;
+        pieceListIndex[square] = index;
+        if (piece.getType() == PieceType.KING) kingSquares[color] = square;
+    }
+
+    // Moves the list's last square into the hole, so removal is O(1) too
+    private void removeFromPieceList(Piece piece, int square) {
+        int color = piece.getColor().ordinal();
+        int index = pieceListIndex[square];
+        int last = pieceSquares[color][--pieceListSize[color]];
+        pieceSquares[color][index] = last;
+        pieceListIndex[last] = index;
+        if (square == kingSquares[color]) kingSquares[color] = findKingSquare(color);
+    }
+
+    // Only needed for positions with more than one King of a side (e.g. set up square by square)
+    private int findKingSquare(int color) {
+        for (int i = 0; i < pieceListSize[color]; i++) {
+            int square = pieceSquares[color][i];
+            if ((typeBits[PieceType.KING.ordinal()] & 1L << square) != 0) return square;
         }
-        board[pos.getRow()][pos.getCol()] = piece;
+        return -1;
+    }
+
+    /**
+     * @param color The side
+     * @return How many pieces the side has, i.e. the length of its piece list
+     */
+    public int getPieceListSize(Color color) {
+        return pieceListSize[color.ordinal()];
+    }
+
+    /**
+     * Reads a side's piece list: the squares of its pieces, in no particular order.
+     * Iterating it costs O(pieces) rather than a scan of all 64 squares. The order
+     * changes as pieces are placed and removed, so don't change the board while iterating.
+     * @param color The side
+     * @param index 0 to {@link #getPieceListSize} - 1
+     * @return The square index (a8 = 0) of one of the side's pieces
+     */
+    public int getPieceSquare(Color color, int index) {
+        return pieceSquares[color.ordinal()][index];
+    }
+
+    /**
+     * @param color The side
+     * @return The square index of the side's King (a8 = 0), or -1 if it has none
+     */
+    public int getKingSquare(Color color) {
+        return kingSquares[color.ordinal()];
+    }
+
+    /**
+     * Registers the one listener that is told about every change of the pieces from now
+     * on (see {@link BoardListener}); it is not told about the pieces already placed.
+     * @param listener The listener, or null to remove it
+     */
+    public void setListener(BoardListener listener) {
+        this.listener = listener;
     }
 
     /** 
      * Executes a move on the board.
      * Handles standard moves, caaptures, and special logic like Castling.
+     * <p>
+     * This only changes the grid: the turn, the clocks and the position history are
+     * left alone, and en passant and promotion are not applied. To play a move in a
+     * game use {@link #makeMove(int)}.
      */
     public void movePiece(Position from, Position to) {
+        if (!Metrics.ENABLED) {
+            shiftPiece(from, to);
+            return;
+        }
+        long start = System.nanoTime();
+        shiftPiece(from, to);
+        Metrics.record(Metrics.Op.MOVE_PIECE, start);
+    }
+
+    private void shiftPiece(Position from, Position to) {
         Piece piece = getPiece(from);
         if (piece == null) return;
 
         // --- Special Logic: Castling ---
-        if (piece instanceof King && Math.abs(to.getCol() - from.getCol()) == 2) {
+        if (piece instanceof King && castling.isCastling(this, piece, from.getIndex(), to.getIndex())) {
             executeCastlingMove((King) piece, from, to);
         } else {
             // Standard Move/Capture
@@ -109,7 +325,185 @@ public class ChessBoard {
     }
 
     /**
-     * Helper to move the a Rook when a King castles
+     * Plays a move for the side to move and switches the turn. The move is recorded so
+     * that {@link #unmakeMove()} can take it back and repetitions can be detected.
+     * <p>
+     * Castling, en passant and promotion are applied as well. Moves given by squares
+     * only are recognized from the position, and a pawn reaching the last rank without
+     * a promotion piece becomes a Queen.
+     * The move is not validated, see {@link #generateLegalMoves(int[])}.
+     * @param move A packed move (see {@link Move})
+     */
+    public void makeMove(int move) {
+        if (!Metrics.ENABLED) {
+            playMove(move);
+            return;
+        }
+        MoveEvent event = new MoveEvent();
+        event.begin();
+        long start = System.nanoTime();
+        playMove(move);
+        Metrics.record(Metrics.Op.MAKE_MOVE, start);
+        if (event.shouldCommit()) {
+            event.move = Move.toString(move);
+            event.ply = plyCount;
+            event.commit();
+        }
+    }
+
+    private void playMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        Piece piece = board[from >> 3][from & 7];
+        if (piece == null) return;
+
+        move = withSpecialFlags(piece, move);
+        int capturedSquare = Move.isEnPassant(move) ? enPassantVictim(from, to) : to;
+        // A Chess960 castling move targets the King's own Rook, which is not captured
+        Piece captured = Move.isCastling(move) ? null : board[capturedSquare >> 3][capturedSquare & 7];
+
+        if (plyCount == undoMoves.length) growHistory();
+        undoMoves[plyCount] = move;
+        undoPieces[plyCount] = piece;
+        undoCaptured[plyCount] = captured;
+        undoHasMoved[plyCount] = piece.hasMoved();
+        undoHalfmoveClocks[plyCount] = halfmoveClock;
+        undoEnPassant[plyCount] = enPassantSquare;
+        positionHistory[plyCount] = getZobristHash();
+        plyCount++;
+
+        halfmoveClock = captured != null || piece.getType() == PieceType.PAWN ? 0 : halfmoveClock + 1;
+        enPassantSquare = -1;
+
+        if (Move.isEnPassant(move)) setPiece(null, Position.of(capturedSquare));
+        shiftPiece(Position.of(from), Position.of(to));
+
+        PieceType promotion = Move.promotion(move);
+        if (promotion != null) {
+            Piece promoted = Piece.create(promotion, piece.getColor(), Position.of(to));
+            promoted.setHasMoved(true); // A promoted Rook never grants castling
+            setPiece(promoted, Position.of(to));
+        } else if (piece.getType() == PieceType.PAWN && Math.abs(to - from) == 16) {
+            markEnPassant(from, to);
+        }
+
+        if (piece.getColor() == Color.BLACK) fullmoveNumber++;
+        switchTurn();
+    }
+
+    // Adds the castling/en passant flags of a move given by squares only, and makes
+    // a promotion without a piece a Queen promotion
+    private int withSpecialFlags(Piece piece, int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        if (piece.getType() == PieceType.KING && castling.isCastling(this, piece, from, to)) {
+            return move | Move.FLAG_CASTLING;
+        }
+        if (piece.getType() != PieceType.PAWN) return move;
+
+        if (to == enPassantSquare && (to & 7) != (from & 7)) {
+            return move | Move.FLAG_EN_PASSANT;
+        }
+        int lastRow = piece.getColor() == Color.WHITE ? 0 : 7;
+        if (to >> 3 == lastRow && Move.promotion(move) == null) {
+            return Move.of(from, to, PieceType.QUEEN);
+        }
+        return move;
+    }
+
+    // The pawn taken en passant stands beside the capturer: its row, the target's column
+    private static int enPassantVictim(int from, int to) {
+        return (from & ~7) | (to & 7);
+    }
+
+    // After a double step, remembers the skipped square, but only if an enemy pawn
+    // could take on it; otherwise equal positions would hash differently
+    private void markEnPassant(int from, int to) {
+        Color mover = board[to >> 3][to & 7].getColor();
+        int row = to >> 3;
+        int col = to & 7;
+        if (isPieceAt(row, col - 1, mover.opposite(), PieceType.PAWN)
+                || isPieceAt(row, col + 1, mover.opposite(), PieceType.PAWN)) {
+            enPassantSquare = (from + to) / 2;
+        }
+    }
+
+    /**
+     * Takes back the last move played with {@link #makeMove(int)}.
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void unmakeMove() {
+        if (plyCount == 0) {
+            throw new IllegalStateException("No move to take back");
+        }
+        plyCount--;
+        int move = undoMoves[plyCount];
+        int from = Move.from(move);
+        int to = Move.to(move);
+        Piece piece = undoPieces[plyCount];
+
+        switchTurn();
+        if (piece.getColor() == Color.BLACK) fullmoveNumber--;
+        if (Move.isCastling(move)) {
+            // Castling needs an unmoved Rook, so it goes back unmoved. Both pieces are
+            // lifted first: in Chess960 either may return to where the other stands.
+            int row = from >> 3;
+            boolean isKingSide = (to & 7) > (from & 7);
+            Position rookFrom = Position.of(row * 8 + castling.getRookColumn(isKingSide));
+            Position rookTo = Position.of(row * 8 + (isKingSide ? 5 : 3));
+            Position kingTo = Position.of(row * 8 + (isKingSide ? 6 : 2));
+            Piece rook = getPiece(rookTo);
+            setPiece(null, rookTo);
+            setPiece(null, kingTo);
+            setPiece(rook, rookFrom);
+            setPiece(piece, Position.of(from));
+            if (rook != null) rook.setHasMoved(false);
+        } else {
+            setPiece(null, Position.of(to));
+            setPiece(piece, Position.of(from));
+        }
+        Piece captured = undoCaptured[plyCount];
+        if (captured != null) {
+            setPiece(captured, Position.of(Move.isEnPassant(move) ? enPassantVictim(from, to) : to));
+        }
+        piece.setHasMoved(undoHasMoved[plyCount]);
+        halfmoveClock = undoHalfmoveClocks[plyCount];
+        enPassantSquare = undoEnPassant[plyCount];
+        undoPieces[plyCount] = null; // Don't keep captured or promoted pieces reachable
+        undoCaptured[plyCount] = null;
+    }
+
+    private void growHistory() {
+        int capacity = undoMoves.length * 2;
+        undoMoves = Arrays.copyOf(undoMoves, capacity);
+        undoPieces = Arrays.copyOf(undoPieces, capacity);
+        undoCaptured = Arrays.copyOf(undoCaptured, capacity);
+        undoEnPassant = Arrays.copyOf(undoEnPassant, capacity);
+        undoHasMoved = Arrays.copyOf(undoHasMoved, capacity);
+        undoHalfmoveClocks = Arrays.copyOf(undoHalfmoveClocks, capacity);
+        positionHistory = Arrays.copyOf(positionHistory, capacity);
+    }
+
+    /** @return Number of moves played with makeMove that can still be taken back. */
+    public int getPlyCount() {
+        return plyCount;
+    }
+
+    /**
+     * Captures the current position as an immutable value that other threads may read
+     * without locking. Cheap: the occupancy bitboards are kept up to date by setPiece,
+     * so only a few words are copied.
+     * @return A snapshot of the position; later changes of this board don't affect it
+     */
+    public BoardSnapshot snapshot() {
+        return new BoardSnapshot(colorBits, typeBits, getZobristHash(), currentTurn, castling, getCastlingRights(),
+            enPassantSquare, halfmoveClock, fullmoveNumber, plyCount,
+            plyCount > 0 ? undoMoves[plyCount - 1] : Move.NONE);
+    }
+
+    /**
+     * Helper to move the a Rook when a King castles. The Rook's start file comes from
+     * the castling rules; King and Rook always end on the c/d or g/f files.
      * @param pos
      * @return
      */
@@ -117,71 +511,270 @@ public class ChessBoard {
         int row = from.getRow();
         boolean isKingSide = to.getCol() > from.getCol();
 
-        int rookFromCol = isKingSide ? 7 : 0;
+        int rookFromCol = castling.getRookColumn(isKingSide);
         int rookToCol = isKingSide ? 5 : 3;
 
         Position rookFrom = new Position(row, rookFromCol);
         Position rookTo = new Position(row, rookToCol);
+        Position kingTo = new Position(row, isKingSide ? 6 : 2);
         Piece rook = getPiece(rookFrom);
 
-        // Move King
+        // Lift both first: in Chess960 either may land where the other stood
         setPiece(null, from);
-        setPiece(king, to);
+        setPiece(null, rookFrom);
+
+        // Move King
+        setPiece(king, kingTo);
 
         // Move Rook
-        setPiece(null, rookFrom);
         setPiece(rook, rookTo);
         if (rook != null) rook.setHasMoved(true);
     }
 
+    /**
+     * Checks the board side of a Chess960 castling move: apart from the King and the
+     * castling Rook, every square between and including their start and target files
+     * must be empty, and no square the King stands on or crosses may be attacked.
+     * Attacks are tested with both pieces lifted, so a Rook that shielded the King's
+     * path does not hide a check.
+     */
+    boolean canCastle(int row, int kingCol, int kingTo, int rookCol, int rookTo, Color color) {
+        Piece king = board[row][kingCol];
+        Piece rook = board[row][rookCol];
+        board[row][kingCol] = null;
+        board[row][rookCol] = null;
+
+        boolean legal = true;
+        int first = Math.min(Math.min(kingCol, kingTo), Math.min(rookCol, rookTo));
+        int last = Math.max(Math.max(kingCol, kingTo), Math.max(rookCol, rookTo));
+        for (int col = first; col <= last && legal; col++) {
+            legal = board[row][col] == null;
+        }
+        for (int col = Math.min(kingCol, kingTo); col <= Math.max(kingCol, kingTo) && legal; col++) {
+            legal = !isSquareAttacked(Position.of(row * 8 + col), color.opposite());
+        }
+
+        board[row][rookCol] = rook;
+        board[row][kingCol] = king;
+        return legal;
+    }
+
     /**
      * Checks if a square is being attacked by any piece of the specified color.
      * Crucial for King safety and Castling rules.
-     * @param pos
-     * @return atackerColor
+     * <p>
+     * Works backwards from the target square (pawn diagonals, knight jumps, king steps
+     * and the sliding rays) instead of generating every enemy piece's moves, so it never
+     * recurses into castling logic and costs at most a few dozen square lookups.
+     * @param pos The square to test
+     * @param attackerColor The side whose attacks are considered
+     * @return true if any piece of attackerColor attacks pos
      */
     public boolean isSquareAttacked(Position pos, Color attackerColor) {
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
+        if (!Metrics.ENABLED) return hasAttacker(pos, attackerColor);
+        long start = System.nanoTime();
+        boolean attacked = hasAttacker(pos, attackerColor);
+        Metrics.record(Metrics.Op.SQUARE_ATTACKED, start);
+        return attacked;
+    }
+
+    private boolean hasAttacker(Position pos, Color attackerColor) {
+        int row = pos.getRow();
+        int col = pos.getCol();
+
+        // Pawns: an attacking pawn sits one row "behind" the square from its own point of view
+        int pawnRow = row - attackerColor.getDirection();
+        if (isPieceAt(pawnRow, col - 1, attackerColor, PieceType.PAWN)
+                || isPieceAt(pawnRow, col + 1, attackerColor, PieceType.PAWN)) {
+            return true;
+        }
+
+        for (int[] off : KNIGHT_OFFSETS) {
+            if (isPieceAt(row + off[0], col + off[1], attackerColor, PieceType.KNIGHT)) return true;
+        }
+
+        // Kings only attack adjacent squares (castling is never an attack)
+        for (int[] off : KING_OFFSETS) {
+            if (isPieceAt(row + off[0], col + off[1], attackerColor, PieceType.KING)) return true;
+        }
+
+        return isAttackedAlongRays(row, col, attackerColor, STRAIGHT_DIRECTIONS, PieceType.ROOK)
+            || isAttackedAlongRays(row, col, attackerColor, DIAGONAL_DIRECTIONS, PieceType.BISHOP);
+    }
+
+    /**
+     * Walks each ray from (row, col) to the first occupied square and checks whether
+     * it holds a slider of the given type (or a Queen) belonging to attackerColor.
+     */
+    private boolean isAttackedAlongRays(int row, int col, Color attackerColor, int[][] directions, PieceType slider) {
+        for (int[] dir : directions) {
+            int r = row + dir[0];
+            int c = col + dir[1];
+            while (Position.isValid(r, c)) {
                 Piece piece = board[r][c];
-                if (piece != null && piece.getColor() == attackerColor) {
-                    // Get raw moves for this piece
-                    // Note: This could cause recursion if not careful,
-                    // but since we only check physical paths, it works.
-                    List<Position> moves = piece.getLegalMoves(this);
-                    if (moves.contains(pos)) return true;
+                if (piece != null) {
+                    if (piece.getColor() == attackerColor
+                            && (piece.getType() == slider || piece.getType() == PieceType.QUEEN)) {
+                        return true;
+                    }
+                    break; // Ray is blocked
                 }
+                r += dir[0];
+                c += dir[1];
             }
         }
         return false;
     }
 
+    // True if (row, col) is on the board and holds a piece of the given color and type
+    private boolean isPieceAt(int row, int col, Color color, PieceType type) {
+        if (!Position.isValid(row, col)) return false;
+        Piece piece = board[row][col];
+        return piece != null && piece.getColor() == color && piece.getType() == type;
+    }
+
     /**
-     * Checks if the King of the specified color is in check.
-     * @param color
-     * @return true if the King of the specified color is in check
+     * Calculates the fully legal moves of the piece standing on a square, i.e. its raw
+     * moves minus the ones that would leave its own King in check.
+     * @param from The square of the piece to move
+     * @return The legal destinations (empty if the square is empty)
      */
-    public boolean isKingInCheck(Color color) {
-        Position kingPos = findKing(color);
-        if (kingPos == null) return false; // Should not happen in real chess
-        return isSquareAttacked(kingPos, color.opposite());
+    public List<Position> getLegalMoves(Position from) {
+        if (!Metrics.ENABLED) return legalDestinations(from);
+        long start = System.nanoTime();
+        List<Position> legal = legalDestinations(from);
+        Metrics.record(Metrics.Op.LEGAL_MOVES, start);
+        return legal;
+    }
+
+    private List<Position> legalDestinations(Position from) {
+        Piece piece = getPiece(from);
+        List<Position> legal = new ArrayList<>();
+        if (piece == null) return legal;
+
+        for (Position to : piece.getLegalMoves(this)) {
+            if (!leavesKingInCheck(piece, from, to)) {
+                legal.add(to);
+            }
+        }
+        return legal;
     }
 
     /**
-     * Finds the position of the King of the specified color.
-     * @param color The color of the King to find
-     * @return the Position of the King, or null if not found
+     * Generates every legal move of the side to move as packed moves, with their
+     * special-move flags; a promotion yields one move per promotion piece.
+     * @param moves Receives the moves; {@link #MAX_MOVES} entries always suffice
+     * @return The number of moves written
      */
-    private Position findKing(Color color) {
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                Piece p = board[r][c];
-                if (p instanceof King && p.getColor() == color) {
-                    return p.getPosition();
+    public int generateLegalMoves(int[] moves) {
+        if (!Metrics.ENABLED) return generateMoves(moves);
+        long start = System.nanoTime();
+        int count = generateMoves(moves);
+        Metrics.record(Metrics.Op.GENERATE_MOVES, start);
+        return count;
+    }
+
+    private int generateMoves(int[] moves) {
+        int count = 0;
+        int[] squares = pieceSquares[currentTurn.ordinal()];
+        for (int i = 0; i < pieceListSize[currentTurn.ordinal()]; i++) {
+            int sq = squares[i];
+            Piece piece = board[sq >> 3][sq & 7];
+
+            Position from = piece.getPosition();
+            for (Position to : piece.getLegalMoves(this)) {
+                if (leavesKingInCheck(piece, from, to)) continue;
+
+                int move = withSpecialFlags(piece, Move.of(sq, to.getIndex()));
+                if (Move.promotion(move) == null) {
+                    moves[count++] = move;
+                } else {
+                    for (PieceType type : PROMOTION_TYPES) {
+                        moves[count++] = Move.of(sq, to.getIndex(), type);
+                    }
                 }
             }
         }
-        return null;
+        return count;
+    }
+
+    /**
+     * Looks a move up among the legal moves of the side to move, e.g. to validate input.
+     * @param move A packed move; flags are ignored, and a pawn move onto the last rank
+     *             without a promotion piece stands for the Queen promotion
+     * @return The matching legal move with its flags, or {@link Move#NONE}
+     */
+    public int findLegalMove(int move) {
+        int wanted = Move.withoutFlags(move);
+        int queening = Move.of(Move.from(move), Move.to(move), PieceType.QUEEN);
+        int[] moves = new int[MAX_MOVES];
+        int count = generateLegalMoves(moves);
+        for (int i = 0; i < count; i++) {
+            int candidate = Move.withoutFlags(moves[i]);
+            if (candidate == wanted || (Move.promotion(move) == null && candidate == queening)) {
+                return moves[i];
+            }
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * Validates a move for the side to move: there must be a piece of the current
+     * turn on "from", "to" must be one of its raw moves, and the move must not leave
+     * its own King in check.
+     * @param from The origin square
+     * @param to The destination square
+     * @return true if the move may be played now
+     */
+    public boolean isLegalMove(Position from, Position to) {
+        Piece piece = getPiece(from);
+        if (piece == null || piece.getColor() != currentTurn) return false;
+        if (!piece.getLegalMoves(this).contains(to)) return false;
+        return !leavesKingInCheck(piece, from, to);
+    }
+
+    /**
+     * Temporarily plays a move, tests the mover's King, and restores the board.
+     * Castling squares are already verified by King, so only the King step is simulated.
+     * An en passant capture also lifts the taken pawn, which may uncover a check
+     * along the rank.
+     */
+    private boolean leavesKingInCheck(Piece piece, Position from, Position to) {
+        Piece captured = getPiece(to);
+        // Chess960 castling (onto the own Rook) was checked in full by CastlingRules
+        if (captured != null && captured.getColor() == piece.getColor()) return false;
+        boolean enPassant = piece.getType() == PieceType.PAWN && captured == null
+            && to.getCol() != from.getCol();
+        Piece victim = null;
+
+        board[from.getRow()][from.getCol()] = null;
+        board[to.getRow()][to.getCol()] = piece;
+        piece.setPosition(to);
+        if (enPassant) {
+            victim = board[from.getRow()][to.getCol()];
+            board[from.getRow()][to.getCol()] = null;
+        }
+
+        // The King's cached square is only updated by setPiece; a King step moves it here
+        int kingSquare = piece.getType() == PieceType.KING ? to.getIndex() : kingSquares[piece.getColor().ordinal()];
+        boolean inCheck = kingSquare >= 0 && isSquareAttacked(Position.of(kingSquare), piece.getColor().opposite());
+
+        if (enPassant) board[from.getRow()][to.getCol()] = victim;
+        piece.setPosition(from);
+        board[from.getRow()][from.getCol()] = piece;
+        board[to.getRow()][to.getCol()] = captured;
+        return inCheck;
+    }
+
+    /**
+     * Checks if the King of the specified color is in check.
+     * @param color
+     * @return true if the King of the specified color is in check
+     */
+    public boolean isKingInCheck(Color color) {
+        int kingSquare = kingSquares[color.ordinal()];
+        if (kingSquare < 0) return false; // Should not happen in real chess
+        return isSquareAttacked(Position.of(kingSquare), color.opposite());
     }
 
     /**
@@ -193,14 +786,320 @@ public class ChessBoard {
         return getPiece(pos) != null;
     }
 
+    /**
+     * Derives the castling rights from the movement history: a side may still castle
+     * towards a corner if its King and that side's castling Rook are unmoved on their
+     * home squares (see {@link CastlingRules}).
+     * (Whether castling is possible right now also depends on the path, see King.)
+     * @return A mask of the CASTLE_* bits
+     */
+    public int getCastlingRights() {
+        int rights = 0;
+        int kingSide = castling.getRookColumn(true);
+        int queenSide = castling.getRookColumn(false);
+        if (hasCastlingRight(Color.WHITE, kingSide)) rights |= CASTLE_WHITE_KING_SIDE;
+        if (hasCastlingRight(Color.WHITE, queenSide)) rights |= CASTLE_WHITE_QUEEN_SIDE;
+        if (hasCastlingRight(Color.BLACK, kingSide)) rights |= CASTLE_BLACK_KING_SIDE;
+        if (hasCastlingRight(Color.BLACK, queenSide)) rights |= CASTLE_BLACK_QUEEN_SIDE;
+        return rights;
+    }
+
+    /**
+     * Sets the castling rights of a position built square by square (e.g. from FEN):
+     * Kings and Rooks on their home squares are marked unmoved exactly where a right
+     * needs them. Rights whose pieces are missing are dropped.
+     * @param rights A mask of the CASTLE_* bits
+     */
+    public void setCastlingRights(int rights) {
+        int whiteRights = rights & (CASTLE_WHITE_KING_SIDE | CASTLE_WHITE_QUEEN_SIDE);
+        int blackRights = rights & (CASTLE_BLACK_KING_SIDE | CASTLE_BLACK_QUEEN_SIDE);
+        int kingCol = castling.getKingColumn();
+        int kingSide = castling.getRookColumn(true);
+        int queenSide = castling.getRookColumn(false);
+        markHomePiece(7, kingCol, Color.WHITE, PieceType.KING, whiteRights != 0);
+        markHomePiece(7, kingSide, Color.WHITE, PieceType.ROOK, (rights & CASTLE_WHITE_KING_SIDE) != 0);
+        markHomePiece(7, queenSide, Color.WHITE, PieceType.ROOK, (rights & CASTLE_WHITE_QUEEN_SIDE) != 0);
+        markHomePiece(0, kingCol, Color.BLACK, PieceType.KING, blackRights != 0);
+        markHomePiece(0, kingSide, Color.BLACK, PieceType.ROOK, (rights & CASTLE_BLACK_KING_SIDE) != 0);
+        markHomePiece(0, queenSide, Color.BLACK, PieceType.ROOK, (rights & CASTLE_BLACK_QUEEN_SIDE) != 0);
+    }
+
+    /** @return Where castling starts from in this game; standard chess unless set otherwise. */
+    public CastlingRules getCastlingRules() {
+        return castling;
+    }
+
+    /**
+     * Selects the castling rules of the game, e.g. Chess960. Call it after placing the
+     * pieces and before {@link #setCastlingRights(int)}; {@link #clear()} and the setup
+     * methods reset it.
+     * @param rules The rules
+     */
+    public void setCastlingRules(CastlingRules rules) {
+        castling = rules;
+    }
+
+    private void markHomePiece(int row, int col, Color color, PieceType type, boolean unmoved) {
+        Piece piece = board[row][col];
+        if (piece != null && piece.getColor() == color && piece.getType() == type) {
+            piece.setHasMoved(!unmoved);
+        }
+    }
+
+    private boolean hasCastlingRight(Color color, int rookCol) {
+        int backRank = color == Color.WHITE ? 7 : 0;
+        Piece king = board[backRank][castling.getKingColumn()];
+        Piece rook = board[backRank][rookCol];
+        return king instanceof King && king.getColor() == color && !king.hasMoved()
+            && rook instanceof Rook && rook.getColor() == color && !rook.hasMoved();
+    }
+
+    /**
+     * Returns the Zobrist hash of the position (placement, side to move, castling rights
+     * and en passant file).
+     * Equal positions always give equal hashes, so it can key books, caches and
+     * repetition checks.
+     * <p>
+     * Piece and turn keys are kept up to date on every change; only the castling key is
+     * looked up here, because castling rights also change through Piece.setHasMoved.
+     * @return The 64-bit position hash
+     */
+    public long getZobristHash() {
+        long hash = placementHash ^ castling.castlingKeys[getCastlingRights()];
+        return enPassantSquare < 0 ? hash : hash ^ Zobrist.enPassantKey(enPassantSquare & 7);
+    }
+
+    // --- Game status ---
+
+    /**
+     * Determines whether the game is over, and why. Cheap enough to call after every move:
+     * material and repetition come from incrementally kept state, and the mate test stops
+     * at the first legal move it finds.
+     * @return The status for the side to move
+     */
+    public GameStatus getGameStatus() {
+        // Positions without mating material can't be mates, and a repeated position
+        // can't be one either (the game would have ended the first time)
+        if (isInsufficientMaterial()) return GameStatus.INSUFFICIENT_MATERIAL;
+        if (isThreefoldRepetition()) return GameStatus.THREEFOLD_REPETITION;
+        if (!hasAnyLegalMove()) {
+            return isKingInCheck(currentTurn) ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+        }
+        // Mate on the hundredth ply still counts, so this comes last
+        if (halfmoveClock >= FIFTY_MOVE_PLIES) return GameStatus.FIFTY_MOVE_RULE;
+        return GameStatus.ONGOING;
+    }
+
+    /**
+     * Checks whether the side to move has at least one legal move, stopping at the first.
+     * @return false on checkmate or stalemate
+     */
+    public boolean hasAnyLegalMove() {
+        int[] squares = pieceSquares[currentTurn.ordinal()];
+        for (int i = 0; i < pieceListSize[currentTurn.ordinal()]; i++) {
+            int sq = squares[i];
+            if (hasLegalStep(board[sq >> 3][sq & 7], sq)) return true;
+        }
+        // Castling can be the only legal move (a Chess960 King that stays on its square);
+        // only then are the King's moves, castling included, listed in full
+        int kingSquare = kingSquares[currentTurn.ordinal()];
+        if (kingSquare < 0) return false;
+        Piece king = board[kingSquare >> 3][kingSquare & 7];
+        if (king.hasMoved()) return false;
+        for (Position to : king.getLegalMoves(this)) {
+            if (!leavesKingInCheck(king, king.getPosition(), to)) return true;
+        }
+        return false;
+    }
+
+    // Whether the piece on sq has a legal move other than castling; allocates nothing
+    private boolean hasLegalStep(Piece piece, int sq) {
+        int row = sq >> 3;
+        int col = sq & 7;
+        switch (piece.getType()) {
+            case PAWN:
+                int forward = row + piece.getColor().getDirection();
+                if (!Position.isValid(forward, col)) return false;
+                if (board[forward][col] == null) {
+                    if (isLegalStep(piece, sq, forward, col)) return true;
+                    int twoSteps = forward + piece.getColor().getDirection();
+                    if (!piece.hasMoved() && Position.isValid(twoSteps, col) && board[twoSteps][col] == null
+                            && isLegalStep(piece, sq, twoSteps, col)) {
+                        return true;
+                    }
+                }
+                for (int side = -1; side <= 1; side += 2) {
+                    int c = col + side;
+                    if (!Position.isValid(forward, c)) continue;
+                    Piece target = board[forward][c];
+                    boolean capture = target != null ? target.getColor() != piece.getColor()
+                        : forward * 8 + c == enPassantSquare;
+                    if (capture && isLegalStep(piece, sq, forward, c)) return true;
+                }
+                return false;
+            case KNIGHT:
+                return hasLegalJump(piece, sq, KNIGHT_OFFSETS);
+            case KING:
+                return hasLegalJump(piece, sq, KING_OFFSETS);
+            case BISHOP:
+                return hasLegalSlide(piece, sq, DIAGONAL_DIRECTIONS);
+            case ROOK:
+                return hasLegalSlide(piece, sq, STRAIGHT_DIRECTIONS);
+            case QUEEN:
+                return hasLegalSlide(piece, sq, STRAIGHT_DIRECTIONS) || hasLegalSlide(piece, sq, DIAGONAL_DIRECTIONS);
+            default:
+                return false;
+        }
+    }
+
+    private boolean hasLegalJump(Piece piece, int sq, int[][] offsets) {
+        for (int[] off : offsets) {
+            int r = (sq >> 3) + off[0];
+            int c = (sq & 7) + off[1];
+            if (Position.isValid(r, c) && isLegalStep(piece, sq, r, c)) return true;
+        }
+        return false;
+    }
+
+    private boolean hasLegalSlide(Piece piece, int sq, int[][] directions) {
+        for (int[] dir : directions) {
+            int r = (sq >> 3) + dir[0];
+            int c = (sq & 7) + dir[1];
+            while (Position.isValid(r, c)) {
+                if (isLegalStep(piece, sq, r, c)) return true;
+                if (board[r][c] != null) break; // Ray is blocked
+                r += dir[0];
+                c += dir[1];
+            }
+        }
+        return false;
+    }
+
+    // A step onto an empty or enemy square that does not leave the own King in check
+    private boolean isLegalStep(Piece piece, int sq, int row, int col) {
+        Piece target = board[row][col];
+        if (target != null && target.getColor() == piece.getColor()) return false;
+        return !leavesKingInCheck(piece, Position.of(sq), Position.of(row * 8 + col));
+    }
+
+    /**
+     * Checks whether the current position occurred (with the same side to move) at least
+     * twice before. Only plies since the last capture or pawn move can repeat, and only
+     * every second one has the same side to move, so at most 50 hashes are compared.
+     * @return true if the position has now appeared three times
+     */
+    public boolean isThreefoldRepetition() {
+        return hasOccurred(2);
+    }
+
+    /**
+     * Checks whether the current position occurred before at all. Searches treat this as
+     * a draw: if repeating is good for one side, it can repeat again.
+     * @return true if the position has appeared at least twice
+     */
+    public boolean isRepetition() {
+        return hasOccurred(1);
+    }
+
+    // True if the current position is found at least "times" times among earlier positions
+    private boolean hasOccurred(int times) {
+        long hash = getZobristHash();
+        int oldest = Math.max(0, plyCount - halfmoveClock);
+        int seen = 0;
+        for (int i = plyCount - 2; i >= oldest; i -= 2) {
+            if (positionHistory[i] == hash && ++seen == times) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether neither side can possibly mate: no pawns, rooks or queens, and either
+     * a single knight at most, or no knights and all bishops on squares of one color.
+     * @return true if the game is a dead draw by material
+     */
+    public boolean isInsufficientMaterial() {
+        int knights = 0;
+        int bishops = 0;
+        for (int[] counts : pieceCounts) {
+            if (counts[PieceType.PAWN.ordinal()] > 0 || counts[PieceType.ROOK.ordinal()] > 0
+                    || counts[PieceType.QUEEN.ordinal()] > 0) {
+                return false;
+            }
+            knights += counts[PieceType.KNIGHT.ordinal()];
+            bishops += counts[PieceType.BISHOP.ordinal()];
+        }
+        if (knights + bishops <= 1) return true;
+        if (knights > 0) return false;
+        return bishopsOnOneSquareColor();
+    }
+
+    // Only reached with bishops and kings left, so the scan is rare
+    private boolean bishopsOnOneSquareColor() {
+        int squareColors = 0; // bit 0 = light squares, bit 1 = dark squares
+        for (int r = 0; r < 8; r++) {
+            for (int c = 0; c < 8; c++) {
+                if (board[r][c] instanceof Bishop) squareColors |= 1 << ((r + c) & 1);
+            }
+        }
+        return squareColors != 3;
+    }
+
+    /**
+     * @param color The side
+     * @param type The piece type
+     * @return How many such pieces are on the board
+     */
+    public int getPieceCount(Color color, PieceType type) {
+        return pieceCounts[color.ordinal()][type.ordinal()];
+    }
+
+    /** @return Plies since the last capture or pawn move (the fifty-move counter). */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    // Set the fifty-move counter (used when restoring a stored position)
+    public void setHalfmoveClock(int plies) {
+        halfmoveClock = plies;
+    }
+
+    /** @return The move number as written in FEN: 1 at the start, +1 after each Black move. */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    // Set the move number (used when restoring a stored position)
+    public void setFullmoveNumber(int number) {
+        fullmoveNumber = number;
+    }
+
+    /**
+     * @return The square index (row * 8 + col) a pawn of the side to move may capture
+     *         en passant on, or -1
+     */
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    // Set the en passant square, -1 for none (used when restoring a stored position)
+    public void setEnPassantSquare(int square) {
+        enPassantSquare = square;
+    }
+
     // Get color of current turn
     public Color getCurrentTurn() {
         return currentTurn; 
     }
 
+    // Set the side to move (used when restoring a stored position)
+    public void setCurrentTurn(Color color) {
+        if (color != currentTurn) switchTurn();
+    }
+
     // Switch turn to the other player
     public void switchTurn() {
         currentTurn = currentTurn.opposite();
+        placementHash ^= Zobrist.SIDE_TO_MOVE;
     }
 
     
@@ -0,0 +1,177 @@
+package chess.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes a {@link ChessBoard} into a fixed 32-byte record and back.
+ * <p>
+ * Layout (all multi-byte values big-endian):
+ * <pre>
+ *   bytes  0..7   occupancy bitmask, bit i = square i (i = row * 8 + col)
+ *   bytes  8..23  one 4-bit piece code per occupied square, in square order
+ *                 (high nibble first): bit 3 = black, bits 0..2 = PieceType ordinal + 1
+ *   byte  24      bit 0 = black to move, bits 1..4 = castling rights
+ *                 (white king-side, white queen-side, black king-side, black queen-side)
+ *   byte  25      en passant file + 1 (0 = none)
+ *   byte  26      halfmove clock (plies since the last capture or pawn move, capped at 255)
+ *   bytes 27..28  0 for standard chess; for Chess960 bit 15 set, bits 0..2 the King's
+ *                 file, bits 3..5 and 6..8 the queen-side and king-side Rook files
+ *   bytes 29..30  fullmove number (capped at 65535)
+ *   byte  31      reserved, always 0
+ * </pre>
+ * A legal position never has more than 32 pieces, so the nibble area always suffices.
+ * <p>
+ * The encoding keeps everything a FEN holds: placement, side to move, castling rights
+ * (derived from whether Kings and Rooks have moved), the en passant file, the
+ * fifty-move counter and the fullmove number. Pawn "hasMoved" flags are restored from
+ * their rank; the flag of other pieces has no effect on play and is not stored.
+ */
+public final class CompactBoardCodec {
+
+    /** Size of one encoded position in bytes. */
+    public static final int ENCODED_SIZE = 32;
+
+    private static final int PIECES_OFFSET = 8;
+    private static final int FLAGS_OFFSET = 24;
+    private static final int EN_PASSANT_OFFSET = 25;
+    private static final int HALFMOVE_CLOCK_OFFSET = 26;
+    private static final int CASTLING_FILES_OFFSET = 27;
+    private static final int FULLMOVE_OFFSET = 29;
+    private static final int CHESS960 = 0x8000;
+    private static final int MAX_PIECES = 32;
+
+    private static final int BLACK_TO_MOVE = 1;
+
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private CompactBoardCodec() {
+    }
+
+    /**
+     * @param board The position to encode.
+     * @return A new 32-byte array holding the encoded position.
+     */
+    public static byte[] encode(ChessBoard board) {
+        byte[] out = new byte[ENCODED_SIZE];
+        encode(board, ByteBuffer.wrap(out), 0);
+        return out;
+    }
+
+    /**
+     * Writes the encoded position at an absolute offset; the buffer's position is not changed.
+     * @param board The position to encode.
+     * @param buf Destination buffer with at least {@link #ENCODED_SIZE} bytes after offset.
+     * @param offset Absolute index of the first byte.
+     * @throws IllegalArgumentException if the board holds more than 32 pieces
+     */
+    public static void encode(ChessBoard board, ByteBuffer buf, int offset) {
+        long occupancy = 0;
+        byte[] nibbles = new byte[MAX_PIECES / 2];
+        int count = 0;
+
+        for (int sq = 0; sq < 64; sq++) {
+            Piece piece = board.getPiece(new Position(sq >> 3, sq & 7));
+            if (piece == null) continue;
+            if (count == MAX_PIECES) {
+                throw new IllegalArgumentException("Cannot encode more than " + MAX_PIECES + " pieces");
+            }
+
+            occupancy |= 1L << sq;
+            int code = pieceCode(piece);
+            nibbles[count >> 1] |= (count & 1) == 0 ? code << 4 : code;
+            count++;
+        }
+
+        // Castling bits are the board's CASTLE_* mask shifted past the turn bit
+        int flags = board.getCurrentTurn() == Color.BLACK ? BLACK_TO_MOVE : 0;
+        flags |= board.getCastlingRights() << 1;
+
+        buf.putLong(offset, occupancy);
+        for (int i = 0; i < nibbles.length; i++) {
+            buf.put(offset + PIECES_OFFSET + i, nibbles[i]);
+        }
+        buf.put(offset + FLAGS_OFFSET, (byte) flags);
+        for (int i = EN_PASSANT_OFFSET; i < ENCODED_SIZE; i++) {
+            buf.put(offset + i, (byte) 0);
+        }
+        buf.put(offset + EN_PASSANT_OFFSET, (byte) (board.getEnPassantSquare() < 0 ? 0 : (board.getEnPassantSquare() & 7) + 1));
+        buf.put(offset + HALFMOVE_CLOCK_OFFSET, (byte) Math.min(board.getHalfmoveClock(), 255));
+        CastlingRules castling = board.getCastlingRules();
+        if (castling.isChess960()) {
+            buf.putShort(offset + CASTLING_FILES_OFFSET, (short) (CHESS960 | castling.getKingColumn()
+                | castling.getRookColumn(false) << 3 | castling.getRookColumn(true) << 6));
+        }
+        buf.putShort(offset + FULLMOVE_OFFSET, (short) Math.min(board.getFullmoveNumber(), 0xFFFF));
+    }
+
+    /**
+     * @param encoded A 32-byte record produced by {@link #encode(ChessBoard)}.
+     * @return A new board holding the decoded position.
+     */
+    public static ChessBoard decode(byte[] encoded) {
+        return decode(ByteBuffer.wrap(encoded), 0);
+    }
+
+    /**
+     * Reads an encoded position at an absolute offset; the buffer's position is not changed.
+     * @param buf Source buffer.
+     * @param offset Absolute index of the first byte.
+     * @return A new board holding the decoded position.
+     */
+    public static ChessBoard decode(ByteBuffer buf, int offset) {
+        ChessBoard board = ChessBoard.empty();
+
+        long occupancy = buf.getLong(offset);
+        int flags = buf.get(offset + FLAGS_OFFSET);
+        int count = 0;
+
+        while (occupancy != 0) {
+            int sq = Long.numberOfTrailingZeros(occupancy);
+            occupancy &= occupancy - 1;
+
+            int packed = buf.get(offset + PIECES_OFFSET + (count >> 1));
+            int code = (count & 1) == 0 ? (packed >> 4) & 0xF : packed & 0xF;
+            count++;
+
+            Color color = (code & 8) != 0 ? Color.BLACK : Color.WHITE;
+            PieceType type = TYPES[(code & 7) - 1];
+            Position pos = new Position(sq >> 3, sq & 7);
+            Piece piece = Piece.create(type, color, pos);
+            piece.setHasMoved(initialHasMoved(piece));
+            board.setPiece(piece, pos);
+        }
+
+        // The stored bits are the board's CASTLE_* mask, relative to the castling files
+        int files = buf.getShort(offset + CASTLING_FILES_OFFSET);
+        if ((files & CHESS960) != 0) {
+            board.setCastlingRules(CastlingRules.forFiles(files & 7, (files >> 3) & 7, (files >> 6) & 7));
+        }
+        board.setCastlingRights((flags >> 1) & 0xF);
+
+        Color turn = (flags & BLACK_TO_MOVE) != 0 ? Color.BLACK : Color.WHITE;
+        board.setCurrentTurn(turn);
+
+        // The en passant square lies behind the pawn that just moved: rank 6 when
+        // White is to move, rank 3 when Black is
+        int enPassantFile = buf.get(offset + EN_PASSANT_OFFSET) - 1;
+        if (enPassantFile >= 0) {
+            board.setEnPassantSquare((turn == Color.WHITE ? 2 : 5) * 8 + enPassantFile);
+        }
+        board.setHalfmoveClock(buf.get(offset + HALFMOVE_CLOCK_OFFSET) & 0xFF);
+        board.setFullmoveNumber(buf.getShort(offset + FULLMOVE_OFFSET) & 0xFFFF);
+        return board;
+    }
+
+    private static int pieceCode(Piece piece) {
+        int code = piece.getType().ordinal() + 1;
+        return piece.getColor() == Color.BLACK ? code | 8 : code;
+    }
+
+    // Pawns have moved iff they left their start rank; Kings and Rooks get their
+    // flags from the castling bits (ChessBoard.setCastlingRights); the rest never matter.
+    private static boolean initialHasMoved(Piece piece) {
+        if (piece.getType() != PieceType.PAWN) return false;
+        int startRow = piece.getColor() == Color.WHITE ? 6 : 1;
+        return piece.getPosition().getRow() != startRow;
+    }
+}
@@ -0,0 +1,291 @@
+package chess.core;
+
+/**
+ * Conversion between boards and Forsyth-Edwards Notation, e.g.
+ * "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1".
+ * <p>
+ * The en passant field is kept as given; the board itself only sets one after a
+ * double step that an enemy pawn can actually capture.
+ * <p>
+ * Chess960 positions are read in X-FEN (KQkq meaning the outermost Rook) and
+ * Shredder-FEN (the castling Rooks' files, e.g. "HAha"), and written in Shredder-FEN.
+ * A position is Chess960 if its castling field names files, if a King with castling
+ * rights is off the e-file, or if the caller asks for it.
+ */
+public final class Fen {
+
+    /** The standard starting position. */
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private Fen() {
+    }
+
+    /**
+     * Builds a board from a FEN string. The clock fields may be omitted.
+     * @param fen The position
+     * @return A new board holding it
+     * @throws IllegalArgumentException if the text is not valid FEN
+     */
+    public static ChessBoard parse(String fen) {
+        return parse(fen, false);
+    }
+
+    /**
+     * Builds a board from a FEN string, optionally forcing the Chess960 castling rules
+     * (e.g. for a Chess960 game that happens to start from the standard layout).
+     * @param fen The position
+     * @param chess960 true to always use the Chess960 rules
+     * @return A new board holding it
+     * @throws IllegalArgumentException if the text is not valid FEN
+     */
+    public static ChessBoard parse(String fen, boolean chess960) {
+        ChessBoard board = ChessBoard.empty();
+        setup(board, fen, chess960);
+        return board;
+    }
+
+    /**
+     * Sets up an existing board from a FEN string, replacing its position and history.
+     * @param board The board to reuse; after an exception its contents are undefined
+     * @param fen The position
+     * @throws IllegalArgumentException if the text is not valid FEN
+     */
+    public static void setup(ChessBoard board, String fen) {
+        setup(board, fen, false);
+    }
+
+    /**
+     * Sets up an existing board from a FEN string, replacing its position and history.
+     * @param board The board to reuse; after an exception its contents are undefined
+     * @param fen The position
+     * @param chess960 true to always use the Chess960 castling rules
+     * @throws IllegalArgumentException if the text is not valid FEN
+     */
+    public static void setup(ChessBoard board, String fen, boolean chess960) {
+        // Scanned in place rather than split into Strings: bulk tools set up millions of positions
+        int placementStart = skipBlanks(fen, 0);
+        int placementEnd = fieldEnd(fen, placementStart);
+        int sideStart = skipBlanks(fen, placementEnd);
+        int sideEnd = fieldEnd(fen, sideStart);
+        int castlingStart = skipBlanks(fen, sideEnd);
+        int castlingEnd = fieldEnd(fen, castlingStart);
+        int enPassantStart = skipBlanks(fen, castlingEnd);
+        int enPassantEnd = fieldEnd(fen, enPassantStart);
+        if (enPassantStart == enPassantEnd) {
+            throw new IllegalArgumentException("FEN needs at least 4 fields: " + fen);
+        }
+
+        board.clear();
+        parsePlacement(board, fen, placementStart, placementEnd);
+
+        if (sideEnd - sideStart == 1 && fen.charAt(sideStart) == 'w') {
+            board.setCurrentTurn(Color.WHITE);
+        } else if (sideEnd - sideStart == 1 && fen.charAt(sideStart) == 'b') {
+            board.setCurrentTurn(Color.BLACK);
+        } else {
+            throw new IllegalArgumentException("Bad side to move in FEN: " + fen);
+        }
+
+        setupCastling(board, fen, castlingStart, castlingEnd, chess960);
+        if (enPassantEnd - enPassantStart != 1 || fen.charAt(enPassantStart) != '-') {
+            board.setEnPassantSquare(new Position(fen.substring(enPassantStart, enPassantEnd)).getIndex());
+        }
+
+        int halfmoveStart = skipBlanks(fen, enPassantEnd);
+        int halfmoveEnd = fieldEnd(fen, halfmoveStart);
+        int fullmoveStart = skipBlanks(fen, halfmoveEnd);
+        int fullmoveEnd = fieldEnd(fen, fullmoveStart);
+        if (halfmoveEnd > halfmoveStart) board.setHalfmoveClock(parseCounter(fen, halfmoveStart, halfmoveEnd));
+        if (fullmoveEnd > fullmoveStart) board.setFullmoveNumber(parseCounter(fen, fullmoveStart, fullmoveEnd));
+    }
+
+    /**
+     * @param board The position to describe
+     * @return The full six-field FEN string
+     */
+    public static String toFen(ChessBoard board) {
+        StringBuilder sb = new StringBuilder();
+        for (int row = 0; row < 8; row++) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                Piece piece = board.getPiece(Position.of(row * 8 + col));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) sb.append(empty);
+                empty = 0;
+                sb.append(letterFor(piece));
+            }
+            if (empty > 0) sb.append(empty);
+            if (row < 7) sb.append('/');
+        }
+
+        sb.append(board.getCurrentTurn() == Color.WHITE ? " w " : " b ");
+
+        int rights = board.getCastlingRights();
+        CastlingRules castling = board.getCastlingRules();
+        if (rights == 0) sb.append('-');
+        if ((rights & ChessBoard.CASTLE_WHITE_KING_SIDE) != 0) sb.append(castlingLetter(castling, true, 'K', 'A'));
+        if ((rights & ChessBoard.CASTLE_WHITE_QUEEN_SIDE) != 0) sb.append(castlingLetter(castling, false, 'Q', 'A'));
+        if ((rights & ChessBoard.CASTLE_BLACK_KING_SIDE) != 0) sb.append(castlingLetter(castling, true, 'k', 'a'));
+        if ((rights & ChessBoard.CASTLE_BLACK_QUEEN_SIDE) != 0) sb.append(castlingLetter(castling, false, 'q', 'a'));
+
+        int enPassant = board.getEnPassantSquare();
+        sb.append(' ').append(enPassant < 0 ? "-" : Position.of(enPassant).toAlgebraic());
+        sb.append(' ').append(board.getHalfmoveClock());
+        sb.append(' ').append(board.getFullmoveNumber());
+        return sb.toString();
+    }
+
+    private static void parsePlacement(ChessBoard board, String fen, int start, int end) {
+        int row = 0;
+        int col = 0;
+        for (int i = start; i < end; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (col != 8) throw badRank(fen, start, end, row);
+                row++;
+                col = 0;
+                if (row > 7) throw new IllegalArgumentException("FEN needs 8 ranks: " + fen);
+                continue;
+            }
+            if (c >= '1' && c <= '8') {
+                col += c - '0';
+                continue;
+            }
+            PieceType type = typeFor(Character.toUpperCase(c));
+            if (type == null || col > 7) throw badRank(fen, start, end, row);
+
+            Color color = Character.isUpperCase(c) ? Color.WHITE : Color.BLACK;
+            Position pos = Position.of(row * 8 + col);
+            Piece piece = Piece.create(type, color, pos);
+            // Pawns off their start rank have moved; Kings and Rooks get their
+            // flags from the castling field
+            int startRow = color == Color.WHITE ? 6 : 1;
+            piece.setHasMoved(type == PieceType.PAWN && row != startRow);
+            board.setPiece(piece, pos);
+            col++;
+        }
+        if (row != 7) throw new IllegalArgumentException("FEN needs 8 ranks: " + fen);
+        if (col != 8) throw badRank(fen, start, end, row);
+    }
+
+    private static IllegalArgumentException badRank(String fen, int start, int end, int row) {
+        String[] ranks = fen.substring(start, end).split("/", -1);
+        String rank = row < ranks.length ? ranks[row] : "";
+        return new IllegalArgumentException("Bad rank '" + rank + "' in FEN: " + fen);
+    }
+
+    // Standard chess writes KQkq, Chess960 the Rook files (Shredder-FEN)
+    private static char castlingLetter(CastlingRules castling, boolean kingSide, char standard, char fileA) {
+        return castling.isChess960() ? (char) (fileA + castling.getRookColumn(kingSide)) : standard;
+    }
+
+    // Reads the castling field and selects the castling rules it implies. Rights whose
+    // King or Rook is missing are dropped.
+    private static void setupCastling(ChessBoard board, String fen, int start, int end, boolean chess960) {
+        int rights = 0;
+        int kingCol = -1;
+        int[] rookCols = {-1, -1}; // Queen side, king side
+        boolean files = false; // Shredder-FEN letters, or KQkq with a King off the e-file
+
+        if (end - start != 1 || fen.charAt(start) != '-') {
+            for (int i = start; i < end; i++) {
+                char c = fen.charAt(i);
+                Color color = Character.isUpperCase(c) ? Color.WHITE : Color.BLACK;
+                char letter = Character.toUpperCase(c);
+                int row = color == Color.WHITE ? 7 : 0;
+                int king = findOnRank(board, row, color, PieceType.KING, 0, 8);
+
+                boolean kingSide;
+                int rookCol;
+                if (letter == 'K' || letter == 'Q') {
+                    kingSide = letter == 'K';
+                    if (!chess960 && (king == 4 || king < 0)) {
+                        rookCol = kingSide ? 7 : 0;
+                    } else {
+                        // X-FEN: the outermost Rook on that side of the King
+                        rookCol = kingSide ? findOnRank(board, row, color, PieceType.ROOK, 7, king)
+                                           : findOnRank(board, row, color, PieceType.ROOK, 0, king);
+                        files = true;
+                    }
+                } else if (letter >= 'A' && letter <= 'H') {
+                    rookCol = letter - 'A';
+                    kingSide = rookCol > king;
+                    files = true;
+                } else {
+                    throw new IllegalArgumentException("Bad castling field in FEN: " + fen);
+                }
+                if (king < 0 || rookCol < 0) continue;
+
+                int side = kingSide ? 1 : 0;
+                if ((kingCol >= 0 && kingCol != king) || (rookCols[side] >= 0 && rookCols[side] != rookCol)) {
+                    throw new IllegalArgumentException("Inconsistent castling files in FEN: " + fen);
+                }
+                kingCol = king;
+                rookCols[side] = rookCol;
+                rights |= color == Color.WHITE
+                    ? (kingSide ? ChessBoard.CASTLE_WHITE_KING_SIDE : ChessBoard.CASTLE_WHITE_QUEEN_SIDE)
+                    : (kingSide ? ChessBoard.CASTLE_BLACK_KING_SIDE : ChessBoard.CASTLE_BLACK_QUEEN_SIDE);
+            }
+        }
+
+        if (chess960 || files) {
+            // Unknown files only matter for rights the position doesn't have
+            board.setCastlingRules(CastlingRules.forFiles(kingCol >= 0 ? kingCol : 4,
+                rookCols[0] >= 0 ? rookCols[0] : 0, rookCols[1] >= 0 ? rookCols[1] : 7));
+        }
+        board.setCastlingRights(rights);
+    }
+
+    // Column of the first piece of a type and color on a rank, scanning from 'from'
+    // towards (not including) 'to'; -1 if there is none
+    private static int findOnRank(ChessBoard board, int row, Color color, PieceType type, int from, int to) {
+        int step = to > from ? 1 : -1;
+        for (int col = from; col != to && col >= 0 && col <= 7; col += step) {
+            Piece piece = board.getPiece(Position.of(row * 8 + col));
+            if (piece != null && piece.getColor() == color && piece.getType() == type) return col;
+        }
+        return -1;
+    }
+
+    private static int parseCounter(String fen, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = fen.charAt(i);
+            if (c < '0' || c > '9' || value > 100_000) {
+                throw new IllegalArgumentException("Bad move counters in FEN: " + fen);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int skipBlanks(String text, int pos) {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+        return pos;
+    }
+
+    private static int fieldEnd(String text, int pos) {
+        while (pos < text.length() && !Character.isWhitespace(text.charAt(pos))) pos++;
+        return pos;
+    }
+
+    private static char letterFor(Piece piece) {
+        char letter = piece.getType().getShortName().charAt(0);
+        return piece.getColor() == Color.WHITE ? letter : Character.toLowerCase(letter);
+    }
+
+    private static PieceType typeFor(char letter) {
+        switch (letter) {
+            case 'K': return PieceType.KING;
+            case 'Q': return PieceType.QUEEN;
+            case 'R': return PieceType.ROOK;
+            case 'B': return PieceType.BISHOP;
+            case 'N': return PieceType.KNIGHT;
+            case 'P': return PieceType.PAWN;
+            default: return null;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package chess.core;
+
+/**
+ * The state of a game as seen from the side to move, see {@link ChessBoard#getGameStatus()}.
+ */
+public enum GameStatus {
+    ONGOING("Game in progress"),
+    CHECKMATE("Checkmate"),
+    STALEMATE("Stalemate"),
+    THREEFOLD_REPETITION("Draw by repetition"),
+    FIFTY_MOVE_RULE("Draw by fifty-move rule"),
+    INSUFFICIENT_MATERIAL("Draw by insufficient material");
+
+    private final String description;
+
+    // Constructor
+    GameStatus(String description) {
+        this.description = description;
+    }
+
+    /**
+     * @return true for every status except {@link #ONGOING}.
+     */
+    public boolean isGameOver() {
+        return this != ONGOING;
+    }
+
+    /**
+     * @return A short human-readable text, e.g. "Checkmate".
+     */
+    public String getDescription() {
+        return description;
+    }
+}
@@ -63,14 +63,21 @@ public class King extends Piece {
 
     /**
      * Adds castling moves (King-side and Queen-side) if they are legal based on
-     * piece positions and movement history.
+     * piece positions and movement history. Where the pieces start and how the moves
+     * are encoded depends on the game's {@link CastlingRules}.
      */
     private void addCastlingMoves(ChessBoard board, List<Position> moves) {
         // Castling requires King and Rook to be unmoved.
         if (this.hasMoved()) {
             return;
         }
+        board.getCastlingRules().addCastlingMoves(board, this, moves);
+    }
 
+    /**
+     * Castling in standard chess (see {@link CastlingRules#STANDARD}).
+     */
+    void addStandardCastlingMoves(ChessBoard board, List<Position> moves) {
         // Castling logic relies on the King's starting postion (e1 for white, e8 for black)
         // Row 7 (index) is White's back rank. Row 0 is Black's back rank.
         int backRank = (this.color == Color.WHITE) ? 7 : 0;
@@ -82,6 +89,13 @@ public class King extends Piece {
 
         // --- King-side Castling (Short Castling) ---
         // Positions: f1/f8 (col 5), g1/g8 (col 6), h1/h8 (Rook, col 7)
+        if (canCastle(board, backRank, 7, 5, 6)) {
+            // Target square for King is g1/g8
+            moves.add(new Position(backRank, 6));
+        }
+
+        // --- Queen-side Castling (Long Castling) ---
+        // Positions: d1/d8 (col 3), c1/c8 (col 2), b1/b8 (col 1), a1/a8 (Rook, col 0)
         if (canCastle(board, backRank, 0, 1, 3)) {
             // 0 = Rook Col, 1,2,3 = empty path
             // Target square for King is c1/c8
@@ -120,9 +134,10 @@ public class King extends Piece {
             }
 
             // 3. CRUCIAL CHECK: The squares the King passes throguh cannot be attacked.
-            // We will NEED to implement ChessBoard.isSquareAttacked(Position, Color) next.
-            // For now, assume this method exists and handles the check safety:
-            if (board.isSquareAttacked(pathPos, this.color.opposite())) {
+            // Only the King's own path counts: b1/b8 must be empty for long castling
+            // but may be attacked, since only the Rook crosses it.
+            if (Math.abs(col - position.getCol()) <= 2
+                    && board.isSquareAttacked(pathPos, this.color.opposite())) {
                 return false; // Path is under attack
             }
         }
@@ -0,0 +1,278 @@
+package chess.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of legal moves per position, for callers that ask about the same
+ * position again and again (the GUI on every click, server clients listing and
+ * validating moves).
+ * <p>
+ * Entries are keyed by {@link ChessBoard#getZobristHash()}, which covers everything
+ * legality depends on: placement, side to move, castling rights and the en passant
+ * square. A move changes the hash, so the old entry simply stops matching; there is
+ * nothing to invalidate explicitly. An entry is an array of 64 bitmasks, one per origin
+ * square, with bit {@code to} set for every legal destination, so validating a move
+ * is one array read and one bit test.
+ * <p>
+ * When full, the CLOCK algorithm picks the victim: a hand sweeps the slots, sparing
+ * (and clearing the mark of) every entry used since its last pass. Entries are never
+ * modified after insertion, so arrays handed out stay valid after eviction.
+ * <p>
+ * All methods are thread-safe. The legal moves of a missing position are computed
+ * outside the lock.
+ */
+public class LegalMoveCache {
+
+    private final int capacity;
+    private final long[] keys;       // Position hash per slot
+    private final long[][] entries;  // Destination masks per slot, null = free
+    private final boolean[] referenced;
+    private int hand;                // Next slot the CLOCK hand looks at
+    private int size;
+
+    // Open-addressed index: hash -> slot + 1 (0 = empty), linear probing
+    private final int[] index;
+    private final int indexMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity Maximum number of positions kept (each takes about 600 bytes)
+     */
+    public LegalMoveCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.keys = new long[capacity];
+        this.entries = new long[capacity][];
+        this.referenced = new boolean[capacity];
+        int indexSize = Integer.highestOneBit(capacity * 2 - 1) << 1; // Load factor <= 0.5
+        this.index = new int[indexSize];
+        this.indexMask = indexSize - 1;
+    }
+
+    /**
+     * Returns the legal destinations of every square for the side to move.
+     * @param board The position; it is only read
+     * @return 64 bitmasks indexed by origin square; must not be modified
+     */
+    public long[] getMoveMasks(ChessBoard board) {
+        long hash = board.getZobristHash();
+        synchronized (this) {
+            int slot = find(hash);
+            if (slot >= 0) {
+                referenced[slot] = true;
+                hits.increment();
+                return entries[slot];
+            }
+        }
+        misses.increment();
+
+        long[] masks = computeMasks(board);
+        synchronized (this) {
+            if (find(hash) < 0) insert(hash, masks); // Another thread may have added it meanwhile
+        }
+        return masks;
+    }
+
+    /**
+     * @param board The position
+     * @param from Origin square index
+     * @return Bitmask of the legal destinations of the piece on from (bit i = square i)
+     */
+    public long getDestinations(ChessBoard board, int from) {
+        return getMoveMasks(board)[from];
+    }
+
+    /**
+     * Validates a move for the side to move with a single lookup.
+     * @param board The position
+     * @param move A packed move; flags are ignored, a promotion piece is only accepted
+     *             on a pawn move to the last rank, and may be left out there (Queen)
+     * @return true if the move is legal
+     */
+    public boolean isLegal(ChessBoard board, int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        if ((getMoveMasks(board)[from] & (1L << to)) == 0) return false;
+
+        PieceType promotion = Move.promotion(move);
+        return promotion == null || (isPromotionMove(board, from, to)
+            && promotion != PieceType.KING && promotion != PieceType.PAWN);
+    }
+
+    /**
+     * @param board The position
+     * @param from The square of the piece to move
+     * @return The legal destinations, like {@link ChessBoard#getLegalMoves(Position)}
+     *         for a piece of the side to move (empty for any other square)
+     */
+    public List<Position> getLegalMoves(ChessBoard board, Position from) {
+        List<Position> moves = new ArrayList<>();
+        long mask = getMoveMasks(board)[from.getIndex()];
+        while (mask != 0) {
+            moves.add(Position.of(Long.numberOfTrailingZeros(mask)));
+            mask &= mask - 1;
+        }
+        return moves;
+    }
+
+    /**
+     * Lists the legal moves of the side to move as packed moves without special-move
+     * flags (ChessBoard.makeMove recognizes them); promotions appear once per piece.
+     * @param board The position
+     * @param moves Receives the moves; {@link ChessBoard#MAX_MOVES} entries suffice
+     * @return The number of moves written
+     */
+    public int getLegalMoves(ChessBoard board, int[] moves) {
+        long[] masks = getMoveMasks(board);
+        int count = 0;
+        for (int from = 0; from < 64; from++) {
+            long mask = masks[from];
+            while (mask != 0) {
+                int to = Long.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+                if (isPromotionMove(board, from, to)) {
+                    moves[count++] = Move.of(from, to, PieceType.QUEEN);
+                    moves[count++] = Move.of(from, to, PieceType.ROOK);
+                    moves[count++] = Move.of(from, to, PieceType.BISHOP);
+                    moves[count++] = Move.of(from, to, PieceType.KNIGHT);
+                } else {
+                    moves[count++] = Move.of(from, to);
+                }
+            }
+        }
+        return count;
+    }
+
+    // --- Metrics ---
+
+    /** @return Lookups answered from the cache. */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /** @return Lookups that had to generate the moves. */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /** @return Entries dropped to make room. */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /** @return Share of lookups answered from the cache, 0..1 (0 before the first lookup). */
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /** @return Number of cached positions. */
+    public synchronized int size() {
+        return size;
+    }
+
+    /** @return Maximum number of cached positions. */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /** Drops every entry (the metrics are kept). */
+    public synchronized void clear() {
+        Arrays.fill(entries, null);
+        Arrays.fill(referenced, false);
+        Arrays.fill(index, 0);
+        size = 0;
+        hand = 0;
+    }
+
+    // --- Internals ---
+
+    private static long[] computeMasks(ChessBoard board) {
+        long[] masks = new long[64];
+        int[] moves = new int[ChessBoard.MAX_MOVES];
+        int count = board.generateLegalMoves(moves);
+        for (int i = 0; i < count; i++) {
+            masks[Move.from(moves[i])] |= 1L << Move.to(moves[i]);
+        }
+        return masks;
+    }
+
+    private static boolean isPromotionMove(ChessBoard board, int from, int to) {
+        Piece piece = board.getPiece(Position.of(from));
+        return piece != null && piece.getType() == PieceType.PAWN && (to >> 3 == 0 || to >> 3 == 7);
+    }
+
+    // Caller holds the lock. Returns the slot holding hash, or -1
+    private int find(long hash) {
+        for (int i = home(hash); index[i] != 0; i = (i + 1) & indexMask) {
+            int slot = index[i] - 1;
+            if (keys[slot] == hash) return slot;
+        }
+        return -1;
+    }
+
+    // Caller holds the lock and has checked that hash is absent
+    private void insert(long hash, long[] masks) {
+        int slot;
+        if (size < capacity) {
+            slot = size++;
+        } else {
+            slot = nextVictim();
+            unindex(keys[slot]);
+            evictions.increment();
+        }
+        keys[slot] = hash;
+        entries[slot] = masks;
+        referenced[slot] = false; // Earns its mark on the first hit
+
+        int i = home(hash);
+        while (index[i] != 0) {
+            i = (i + 1) & indexMask;
+        }
+        index[i] = slot + 1;
+    }
+
+    // CLOCK: skip (and unmark) recently used slots until an unmarked one comes up
+    private int nextVictim() {
+        while (referenced[hand]) {
+            referenced[hand] = false;
+            hand = (hand + 1) % capacity;
+        }
+        int victim = hand;
+        hand = (hand + 1) % capacity;
+        return victim;
+    }
+
+    // Removes hash from the index, shifting later entries of the probe run back so
+    // that no lookup stops early at the hole
+    private void unindex(long hash) {
+        int i = home(hash);
+        while (keys[index[i] - 1] != hash) {
+            i = (i + 1) & indexMask;
+        }
+        int hole = i;
+        for (int j = (hole + 1) & indexMask; index[j] != 0; j = (j + 1) & indexMask) {
+            int want = home(keys[index[j] - 1]);
+            // Move j into the hole unless its home lies cyclically in (hole, j]
+            boolean stays = hole <= j ? (hole < want && want <= j) : (hole < want || want <= j);
+            if (!stays) {
+                index[hole] = index[j];
+                hole = j;
+            }
+        }
+        index[hole] = 0;
+    }
+
+    private int home(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & indexMask;
+    }
+}
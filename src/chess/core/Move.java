@@ -0,0 +1,131 @@
+package chess.core;
+
+/**
+ * Packs a move into a single int, so move lists, journals and histories can store
+ * moves without allocating objects.
+ * <p>
+ * Layout:
+ * <pre>
+ *   bits  0..5   origin square index (row * 8 + col)
+ *   bits  6..11  destination square index
+ *   bits 12..14  promotion piece (PieceType ordinal + 1, 0 = none)
+ *   bit  15      castling (the King's two-square move; the Rook moves with it)
+ *   bit  16      en passant capture
+ * </pre>
+ * The value 0 (a8 to a8) is never a real move and is used as "no move".
+ * <p>
+ * The flag bits are set by the board's move generator. Moves built from just the
+ * squares (e.g. typed by a user) work as well: ChessBoard.makeMove recognizes castling
+ * and en passant from the position. Stored moves (books) may drop the flags with
+ * {@link #withoutFlags(int)}.
+ */
+public final class Move {
+
+    /** Marker for "no move". */
+    public static final int NONE = 0;
+
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int TO_SHIFT = 6;
+    private static final int PROMOTION_SHIFT = 12;
+    private static final int PROMOTION_MASK = 0x7;
+
+    /** Set on a King's castling move. */
+    public static final int FLAG_CASTLING = 1 << 15;
+    /** Set on an en passant capture. */
+    public static final int FLAG_EN_PASSANT = 1 << 16;
+    private static final int FLAGS_MASK = FLAG_CASTLING | FLAG_EN_PASSANT;
+
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private Move() {
+    }
+
+    /**
+     * @param from Origin square index (0..63)
+     * @param to Destination square index (0..63)
+     * @return The packed move
+     */
+    public static int of(int from, int to) {
+        return from | (to << TO_SHIFT);
+    }
+
+    /** @return The packed move from one Position to another. */
+    public static int of(Position from, Position to) {
+        return of(from.getIndex(), to.getIndex());
+    }
+
+    /**
+     * @param from Origin square index
+     * @param to Destination square index
+     * @param promotion The piece a pawn promotes to
+     * @return The packed promotion move
+     */
+    public static int of(int from, int to, PieceType promotion) {
+        return of(from, to) | ((promotion.ordinal() + 1) << PROMOTION_SHIFT);
+    }
+
+    /** @return The origin square index. */
+    public static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    /** @return The destination square index. */
+    public static int to(int move) {
+        return (move >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    /** @return The promotion piece, or null for non-promotions. */
+    public static PieceType promotion(int move) {
+        int code = (move >>> PROMOTION_SHIFT) & PROMOTION_MASK;
+        return code == 0 ? null : TYPES[code - 1];
+    }
+
+    /** @return true if the move carries {@link #FLAG_CASTLING}. */
+    public static boolean isCastling(int move) {
+        return (move & FLAG_CASTLING) != 0;
+    }
+
+    /** @return true if the move carries {@link #FLAG_EN_PASSANT}. */
+    public static boolean isEnPassant(int move) {
+        return (move & FLAG_EN_PASSANT) != 0;
+    }
+
+    /** @return The move with only its squares and promotion piece. */
+    public static int withoutFlags(int move) {
+        return move & ~FLAGS_MASK;
+    }
+
+    /**
+     * Parses coordinate notation such as "e2e4" or "e7e8q" (the format of {@link #toString(int)}).
+     * @param text The move text
+     * @return The packed move, without special-move flags
+     * @throws IllegalArgumentException if the text is not a coordinate move
+     */
+    public static int parse(String text) {
+        if (text.length() != 4 && text.length() != 5) {
+            throw new IllegalArgumentException("Invalid move: " + text);
+        }
+        int from = new Position(text.substring(0, 2)).getIndex();
+        int to = new Position(text.substring(2, 4)).getIndex();
+        if (text.length() == 4) return of(from, to);
+
+        for (PieceType type : TYPES) {
+            if (type != PieceType.KING && type != PieceType.PAWN
+                    && type.getShortName().equalsIgnoreCase(text.substring(4))) {
+                return of(from, to, type);
+            }
+        }
+        throw new IllegalArgumentException("Invalid promotion piece: " + text);
+    }
+
+    /**
+     * Formats a move in coordinate notation, e.g. "e2e4" or "e7e8q".
+     * @param move The packed move
+     * @return The move text
+     */
+    public static String toString(int move) {
+        String text = Position.of(from(move)).toAlgebraic() + Position.of(to(move)).toAlgebraic();
+        PieceType promotion = promotion(move);
+        return promotion == null ? text : text + promotion.getShortName().toLowerCase();
+    }
+}
@@ -0,0 +1,170 @@
+package chess.core;
+
+import chess.util.IntList;
+import java.util.Arrays;
+
+/**
+ * The moves of a game played on a {@link ChessBoard}, with undo and redo.
+ * <p>
+ * Moves are stored as packed ints (with their flags) in an {@link IntList}; a cursor
+ * separates the moves on the board from the ones that were taken back and can be
+ * redone. Undo and redo are one {@code unmakeMove} / {@code makeMove} each. Playing a
+ * new move after an undo drops the redo tail.
+ * <p>
+ * Move text is only built when asked for. SAN is rendered on a private replay board
+ * and cached per ply, so a long game costs one string per move that was ever
+ * displayed or exported, and nothing otherwise.
+ * <p>
+ * Not thread-safe: use it from the thread that owns the board.
+ */
+public class MoveHistory {
+
+    private final ChessBoard board;
+    private String startFen;
+    private final IntList moves = new IntList(64);
+    private int current; // Moves played on the board; moves[current..] can be redone
+
+    // --- Lazily rendered SAN ---
+    private String[] san = new String[64];
+    private ChessBoard replay; // Created on first use; sits at ply replay.getPlyCount()
+
+    /**
+     * Starts recording on a board; its current position is the start of the history.
+     * @param board The board moves are played on
+     */
+    public MoveHistory(ChessBoard board) {
+        this.board = board;
+        this.startFen = Fen.toFen(board);
+    }
+
+    /**
+     * Plays a move and records it, discarding any moves that could be redone.
+     * @param move A packed move; flags are filled in, and a pawn reaching the last rank
+     *             without a promotion piece promotes to a Queen
+     * @return false if the move is illegal (nothing changes then)
+     */
+    public boolean play(int move) {
+        int legal = board.findLegalMove(move);
+        if (legal == Move.NONE) return false;
+        truncate(current);
+        board.makeMove(legal);
+        moves.add(legal);
+        current++;
+        if (san.length < current) san = Arrays.copyOf(san, san.length * 2);
+        return true;
+    }
+
+    public boolean canUndo() {
+        return current > 0;
+    }
+
+    public boolean canRedo() {
+        return current < moves.size();
+    }
+
+    /**
+     * Takes the last played move back; it stays available for {@link #redo()}.
+     * @return false if there was nothing to undo
+     */
+    public boolean undo() {
+        if (!canUndo()) return false;
+        board.unmakeMove();
+        current--;
+        return true;
+    }
+
+    /**
+     * Plays the next move that was taken back.
+     * @return false if there was nothing to redo
+     */
+    public boolean redo() {
+        if (!canRedo()) return false;
+        board.makeMove(moves.get(current++));
+        return true;
+    }
+
+    /** @return FEN of the position the history starts from. */
+    public String getStartFen() {
+        return startFen;
+    }
+
+    /** @return Number of moves on the board (the cursor). */
+    public int getCurrentPly() {
+        return current;
+    }
+
+    /** @return Number of recorded moves, including the ones that can be redone. */
+    public int size() {
+        return moves.size();
+    }
+
+    /** @return The packed move of a ply (0-based), with its flags. */
+    public int getMove(int ply) {
+        return moves.get(ply);
+    }
+
+    /** @return The move of a ply in coordinate notation, e.g. "e2e4". */
+    public String getLan(int ply) {
+        return Move.toString(moves.get(ply));
+    }
+
+    /**
+     * @param ply 0-based ply, below {@link #size()}
+     * @return The move of that ply in SAN, e.g. "Nf3"
+     */
+    public String getSan(int ply) {
+        if (ply < 0 || ply >= moves.size()) throw new IndexOutOfBoundsException("Ply " + ply + ", size " + moves.size());
+        if (san[ply] == null) {
+            if (replay == null) replay = Fen.parse(startFen);
+            while (replay.getPlyCount() > ply) {
+                replay.unmakeMove();
+            }
+            while (replay.getPlyCount() < ply) {
+                replay.makeMove(moves.get(replay.getPlyCount()));
+            }
+            san[ply] = Notation.toSan(replay, moves.get(ply));
+        }
+        return san[ply];
+    }
+
+    /**
+     * Formats the moves on the board as a PGN movetext, e.g. "1. e4 e5 2. Nf3".
+     * @return The movetext, empty at the start position
+     */
+    public String toMovetext() {
+        StringBuilder sb = new StringBuilder(current * 5);
+        int fullmove = Integer.parseInt(startFen.substring(startFen.lastIndexOf(' ') + 1));
+        boolean whiteFirst = startFen.contains(" w ");
+        for (int ply = 0; ply < current; ply++) {
+            boolean white = (ply % 2 == 0) == whiteFirst;
+            if (ply > 0) sb.append(' ');
+            if (white) {
+                sb.append(fullmove).append(". ");
+            } else if (ply == 0) {
+                sb.append(fullmove).append("... ");
+            }
+            sb.append(getSan(ply));
+            if (!white) fullmove++;
+        }
+        return sb.toString();
+    }
+
+    /** Forgets all moves and starts over from the board's current position. */
+    public void clear() {
+        truncate(0);
+        current = 0;
+        startFen = Fen.toFen(board);
+        replay = null;
+    }
+
+    // Drops the moves from ply on, with their rendered text and any replay past them
+    private void truncate(int ply) {
+        Arrays.fill(san, ply, moves.size(), null);
+        moves.truncate(ply);
+        if (replay != null) {
+            while (replay.getPlyCount() > ply) {
+                replay.unmakeMove();
+            }
+        }
+    }
+}
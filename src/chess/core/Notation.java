@@ -0,0 +1,176 @@
+package chess.core;
+
+/**
+ * Conversion between packed moves and move text (SAN, e.g. "Nf3", "exd5", "O-O").
+ */
+public final class Notation {
+
+    private Notation() {
+    }
+
+    /**
+     * Resolves a SAN move against the position, for the side to move.
+     * Check/mate markers and annotations ("+", "#", "!", "?") are ignored.
+     * @param board The position the move is played in
+     * @param san The move text
+     * @return The packed move, or {@link Move#NONE} if no legal move matches
+     */
+    public static int parseSan(ChessBoard board, String san) {
+        String text = stripSuffixes(san);
+        if (text.isEmpty()) return Move.NONE;
+
+        Color side = board.getCurrentTurn();
+
+        // --- Castling (encoded as the game's rules want it) ---
+        if (text.equals("O-O") || text.equals("0-0")) {
+            return legalCastling(board, board.getCastlingRules().castlingMove(side, true));
+        }
+        if (text.equals("O-O-O") || text.equals("0-0-0")) {
+            return legalCastling(board, board.getCastlingRules().castlingMove(side, false));
+        }
+
+        // --- Promotion suffix: "e8=Q" or "e8Q" ---
+        PieceType promotion = null;
+        int last = text.length() - 1;
+        if (Character.isUpperCase(text.charAt(last))) {
+            if (last < 2) return Move.NONE; // "Q", "=Q": no square before the piece
+            promotion = pieceTypeFor(text.charAt(last));
+            text = text.substring(0, text.charAt(last - 1) == '=' ? last - 1 : last);
+        }
+
+        // --- Moving piece, disambiguation and target square ---
+        PieceType type = PieceType.PAWN;
+        int start = 0;
+        if (Character.isUpperCase(text.charAt(0))) {
+            type = pieceTypeFor(text.charAt(0));
+            start = 1;
+        }
+        if (type == null || text.length() - start < 2) return Move.NONE;
+
+        String targetText = text.substring(text.length() - 2);
+        if (!isSquare(targetText)) return Move.NONE;
+        Position target = new Position(targetText);
+        String hint = text.substring(start, text.length() - 2).replace("x", "");
+
+        int found = Move.NONE;
+        for (int i = 0; i < board.getPieceListSize(side); i++) {
+            int sq = board.getPieceSquare(side, i);
+            Position from = Position.of(sq);
+            Piece piece = board.getPiece(from);
+            if (piece.getType() != type) continue;
+            if (!matchesHint(from, hint)) continue;
+
+            if (board.getLegalMoves(from).contains(target)) {
+                if (found != Move.NONE) return Move.NONE; // Ambiguous
+                found = promotion == null ? Move.of(sq, target.getIndex()) : Move.of(sq, target.getIndex(), promotion);
+            }
+        }
+        return found;
+    }
+
+    // The castling move if it is legal now, else Move.NONE (also when another piece,
+    // e.g. a Rook on the King's square, could make the same squares' move)
+    private static int legalCastling(ChessBoard board, int castling) {
+        int legal = board.findLegalMove(castling);
+        return Move.isCastling(legal) ? legal : Move.NONE;
+    }
+
+    /**
+     * Renders a legal move in SAN, including the disambiguation, capture, promotion and
+     * check ("+") or mate ("#") markers. The move is briefly played and taken back.
+     * @param board The position the move is played in; unchanged on return
+     * @param move A legal move of the side to move, with or without its flags
+     * @return The SAN text, e.g. "Nbd7", "exd6", "e8=Q+", "O-O"
+     * @throws IllegalArgumentException if the move is not legal in the position
+     */
+    public static String toSan(ChessBoard board, int move) {
+        int legal = board.findLegalMove(move);
+        if (legal == Move.NONE) throw new IllegalArgumentException("Illegal move: " + Move.toString(move));
+        int[] moves = new int[ChessBoard.MAX_MOVES];
+        int count = board.generateLegalMoves(moves);
+
+        int from = Move.from(legal);
+        int to = Move.to(legal);
+        Piece piece = board.getPiece(Position.of(from));
+        StringBuilder sb = new StringBuilder(8);
+
+        if ((legal & Move.FLAG_CASTLING) != 0) {
+            sb.append((to & 7) > (from & 7) ? "O-O" : "O-O-O");
+        } else {
+            boolean capture = board.getPiece(Position.of(to)) != null || (legal & Move.FLAG_EN_PASSANT) != 0;
+            if (piece.getType() == PieceType.PAWN) {
+                if (capture) sb.append((char) ('a' + (from & 7)));
+            } else {
+                sb.append(piece.getType().getShortName());
+                appendDisambiguation(sb, board, moves, count, legal, piece.getType());
+            }
+            if (capture) sb.append('x');
+            sb.append(Position.of(to).toAlgebraic());
+            if (Move.promotion(legal) != null) sb.append('=').append(Move.promotion(legal).getShortName());
+        }
+
+        board.makeMove(legal);
+        if (board.isKingInCheck(board.getCurrentTurn())) {
+            sb.append(board.hasAnyLegalMove() ? '+' : '#');
+        }
+        board.unmakeMove();
+        return sb.toString();
+    }
+
+    // Adds the origin file, rank or square when another piece of the same type can reach the target
+    private static void appendDisambiguation(StringBuilder sb, ChessBoard board, int[] moves, int count,
+                                             int move, PieceType type) {
+        int from = Move.from(move);
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (int i = 0; i < count; i++) {
+            int other = Move.from(moves[i]);
+            if (other == from || Move.to(moves[i]) != Move.to(move)) continue;
+            if (board.getPiece(Position.of(other)).getType() != type) continue;
+            ambiguous = true;
+            sameFile |= (other & 7) == (from & 7);
+            sameRank |= (other >> 3) == (from >> 3);
+        }
+        if (!ambiguous) return;
+        String square = Position.of(from).toAlgebraic();
+        if (!sameFile) {
+            sb.append(square.charAt(0));
+        } else if (!sameRank) {
+            sb.append(square.charAt(1));
+        } else {
+            sb.append(square);
+        }
+    }
+
+    private static String stripSuffixes(String san) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        return san.substring(0, end);
+    }
+
+    // The disambiguation hint may name the origin file, rank, or both
+    private static boolean matchesHint(Position from, String hint) {
+        for (int i = 0; i < hint.length(); i++) {
+            char c = hint.charAt(i);
+            if (c >= 'a' && c <= 'h' && from.getCol() != c - 'a') return false;
+            if (c >= '1' && c <= '8' && from.getRow() != 8 - (c - '0')) return false;
+        }
+        return true;
+    }
+
+    private static boolean isSquare(String text) {
+        char file = text.charAt(0);
+        char rank = text.charAt(1);
+        return file >= 'a' && file <= 'h' && rank >= '1' && rank <= '8';
+    }
+
+    private static PieceType pieceTypeFor(char letter) {
+        for (PieceType type : PieceType.values()) {
+            if (type.getShortName().charAt(0) == letter) return type;
+        }
+        return null;
+    }
+}
@@ -6,9 +6,11 @@ import java.util.List;
 /**
  * Represents a Pawn chess Piece.
  * <p>
- * Implements basic pawn movement: 1-square forward, 2-square initial move, and  1-square diagonal capture.
+ * Implements basic pawn movement: 1-square forward, 2-square initial move, and  1-square diagonal capture,
+ * including the en passant capture onto ChessBoard.getEnPassantSquare().
  * <p>
- * NOT handled: en passant and promotion.
+ * Promotion is a property of the move, not of the destination square: moves onto the last rank are
+ * listed here once, and ChessBoard.generateLegalMoves / makeMove supply the promotion piece.
  */
 public class Pawn extends Piece {
 
@@ -32,19 +34,17 @@ public class Pawn extends Piece {
         // ------------------------------------------------------------
         
         int oneStepRow = row + direction;
-        Position oneStepPos = new Position(oneStepRow, col);
 
         // Check 1: Single forward step
-        if (Position.isValid(oneStepRow, col) && !board.isOccupied(oneStepPos)) {
-            moves.add(oneStepPos);
+        if (Position.isValid(oneStepRow, col) && !board.isOccupied(Position.of(oneStepRow * 8 + col))) {
+            moves.add(Position.of(oneStepRow * 8 + col));
 
             // Check 2: Double forward step (only if on starting rank AND single step is empty)
             if (!this.hasMoved) {
                 int twoStepRow = row + 2 * direction;
-                Position twoStepPos = new Position(twoStepRow, col);
 
-                if (Position.isValid(twoStepRow, col) && !board.isOccupied(twoStepPos)) {
-                    moves.add(twoStepPos);
+                if (Position.isValid(twoStepRow, col) && !board.isOccupied(Position.of(twoStepRow * 8 + col))) {
+                    moves.add(Position.of(twoStepRow * 8 + col));
                 }
             }
         }
@@ -65,11 +65,14 @@ public class Pawn extends Piece {
             int targetCol = col + offset[1];
 
             if (Position.isValid(targetRow, targetCol)) {
-                Position targetPos = new Position(targetRow, targetCol);
+                Position targetPos = Position.of(targetRow * 8 + targetCol);
                 Piece target = board.getPiece(targetPos);
 
-                // A diagonal move is legal ONLY if it is a capture
-                if (isOpponent(target)) {
+                // A diagonal move is legal ONLY if it is a capture (the en passant
+                // square is empty, the captured pawn stands beside this one; only the
+                // side to move may take it, not the side that made the double step)
+                if (isOpponent(target) || (targetPos.getIndex() == board.getEnPassantSquare()
+                        && color == board.getCurrentTurn())) {
                     moves.add(targetPos);
                 }
             }
@@ -0,0 +1,79 @@
+package chess.core;
+
+/**
+ * Move-generation check: counts the leaf nodes of the legal move tree ("perft") for
+ * well-known positions and compares them with the published numbers. Any bug in
+ * castling (standard or Chess960), en passant, promotion or check legality changes
+ * these counts.
+ * <p>
+ * Run with {@code java chess.core.PerftTest [maxDepth]}; the exit status is 1 on a mismatch.
+ */
+public class PerftTest {
+
+    // FEN, then the expected node counts for depth 1, 2, 3, ...
+    private static final Object[][] CASES = {
+        {Fen.START_POSITION, new long[] {20, 400, 8902, 197281, 4865609}},
+        // "Kiwipete": castling both ways, pins, en passant, promotions
+        {"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", new long[] {48, 2039, 97862, 4085603}},
+        // En passant that would expose the King along the rank
+        {"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", new long[] {14, 191, 2812, 43238, 674624}},
+        // Promotions and under-promotions, castling out of check
+        {"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", new long[] {6, 264, 9467, 422333}},
+        {"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", new long[] {44, 1486, 62379, 2103487}},
+        // Chess960 (Shredder-FEN castling files): King and Rook on arbitrary files
+        {"bqnb1rkr/pp3ppp/3ppn2/2p5/5P2/P2P4/NPP1P1PP/BQ1BNRKR w HFhf - 2 9", new long[] {21, 528, 12189, 326672}},
+        {"2nnrbkr/p1qppppp/8/1ppb4/6PP/3PP3/PPP2P2/BQNNRBKR w HEhe - 1 9", new long[] {21, 807, 18002, 667366}},
+        {"b1q1rrkb/pppppppp/3nn3/8/P7/1PPP4/4PPPP/BQNNRKRB w GE - 1 9", new long[] {20, 479, 10471, 273318}},
+    };
+
+    public static void main(String[] args) {
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : Integer.MAX_VALUE;
+        int failures = 0;
+
+        for (Object[] testCase : CASES) {
+            String fen = (String) testCase[0];
+            long[] expected = (long[]) testCase[1];
+            ChessBoard board = Fen.parse(fen);
+            long hashBefore = board.getZobristHash();
+            System.out.println(fen);
+
+            for (int depth = 1; depth <= Math.min(expected.length, maxDepth); depth++) {
+                long start = System.nanoTime();
+                long nodes = perft(board, depth, new int[depth][ChessBoard.MAX_MOVES]);
+                long millis = (System.nanoTime() - start) / 1_000_000;
+
+                boolean ok = nodes == expected[depth - 1];
+                if (!ok) failures++;
+                System.out.printf("  depth %d: %,d nodes (expected %,d) %d ms %s%n",
+                    depth, nodes, expected[depth - 1], millis, ok ? "OK" : "FAIL");
+            }
+
+            // make/unmake must leave the position exactly as it was
+            if (board.getZobristHash() != hashBefore || !Fen.toFen(board).equals(Fen.toFen(Fen.parse(fen)))) {
+                failures++;
+                System.out.println("  FAIL: board not restored after perft");
+            }
+        }
+
+        System.out.println(failures == 0 ? "All perft counts match" : failures + " perft failure(s)");
+        if (failures > 0) System.exit(1);
+    }
+
+    /**
+     * Counts leaf nodes below the position.
+     * @param moveBuffers One move buffer per remaining ply, so the walk allocates no arrays
+     */
+    static long perft(ChessBoard board, int depth, int[][] moveBuffers) {
+        int[] moves = moveBuffers[depth - 1];
+        int count = board.generateLegalMoves(moves);
+        if (depth == 1) return count;
+
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            nodes += perft(board, depth - 1, moveBuffers);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+}
@@ -27,6 +27,25 @@ public abstract class Piece {
         this.hasMoved = false;
     }
 
+    /**
+     * Factory for building a piece from its type, e.g. when decoding a stored position.
+     * @param type The kind of piece to create.
+     * @param color The piece color.
+     * @param position The board position of the new piece.
+     * @return A new piece of the matching subclass.
+     */
+    public static Piece create(PieceType type, Color color, Position position) {
+        switch (type) {
+            case KING:   return new King(color, position);
+            case QUEEN:  return new Queen(color, position);
+            case ROOK:   return new Rook(color, position);
+            case BISHOP: return new Bishop(color, position);
+            case KNIGHT: return new Knight(color, position);
+            case PAWN:   return new Pawn(color, position);
+            default:     throw new IllegalArgumentException("Unknown piece type: " + type);
+        }
+    }
+
     /** @return The piece's color. */
     public Color getColor() {
         return color;
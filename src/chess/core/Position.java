@@ -14,6 +14,14 @@ import java.util.Objects;
 
 public final class Position {
 
+    // One shared instance per square, see of(int)
+    private static final Position[] SQUARES = new Position[64];
+    static {
+        for (int i = 0; i < 64; i++) {
+            SQUARES[i] = new Position(i >> 3, i & 7);
+        }
+    }
+
     private final int row;
     private final int col;
 
@@ -56,6 +64,17 @@ public final class Position {
         return row >= 0 && row <= 7 && col >= 0 && col <= 7;
     }
 
+    /**
+     * Returns the shared Position for a square index, avoiding an allocation.
+     * @param index 0 to 63, i.e. row * 8 + col (0 = a8, 63 = h1)
+     * @return the cached Position for that square
+     */
+    public static Position of(int index) {
+        return SQUARES[index];
+    }
+
+    /** @return the square index row * 8 + col (0 = a8, 63 = h1) */
+    public int getIndex() { return row * 8 + col; }
     /** @return the row index */
     public int getRow() { return row; }
     /** @return the column index */
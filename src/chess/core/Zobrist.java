@@ -0,0 +1,87 @@
+package chess.core;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing of positions.
+ * <p>
+ * A position's hash is the XOR of one key per (color, piece type, square), plus keys
+ * for the side to move, the castling rights and the en passant file. Keys come from a fixed seed, so hashes
+ * are stable across runs and files keyed by them (e.g. opening books) stay valid.
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x5EED_C4E5_5B0A_4D11L;
+
+    private static final long[] PIECE_KEYS = new long[2 * 6 * 64];
+    private static final long[] CASTLING_KEYS = new long[16];
+    private static final long[] EN_PASSANT_KEYS = new long[8];
+    private static final long[] CHESS960_CASTLING_KEYS = new long[4 * 8];
+
+    /** XORed in when Black is to move. */
+    public static final long SIDE_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < PIECE_KEYS.length; i++) {
+            PIECE_KEYS[i] = random.nextLong();
+        }
+        // Each single right has its own key; a combination is the XOR of its parts
+        long[] single = new long[4];
+        for (int i = 0; i < 4; i++) {
+            single[i] = random.nextLong();
+        }
+        for (int mask = 0; mask < 16; mask++) {
+            for (int i = 0; i < 4; i++) {
+                if ((mask & (1 << i)) != 0) CASTLING_KEYS[mask] ^= single[i];
+            }
+        }
+        SIDE_TO_MOVE = random.nextLong();
+        // Drawn last so the keys above keep their values
+        for (int file = 0; file < 8; file++) {
+            EN_PASSANT_KEYS[file] = random.nextLong();
+        }
+        for (int i = 0; i < CHESS960_CASTLING_KEYS.length; i++) {
+            CHESS960_CASTLING_KEYS[i] = random.nextLong();
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * @param color Piece color
+     * @param type Piece type
+     * @param square Square index (row * 8 + col)
+     * @return The key for that piece standing on that square
+     */
+    public static long pieceKey(Color color, PieceType type, int square) {
+        return PIECE_KEYS[(color.ordinal() * 6 + type.ordinal()) * 64 + square];
+    }
+
+    /**
+     * @param rights Mask of ChessBoard.CASTLE_* bits
+     * @return The key for that combination of castling rights
+     */
+    public static long castlingKey(int rights) {
+        return CASTLING_KEYS[rights];
+    }
+
+    /**
+     * Chess960 castling rights are keyed by the file of their Rook (see CastlingRules).
+     * @param right Bit index of the right in the ChessBoard.CASTLE_* mask (0..3)
+     * @param rookFile Column of the castling Rook
+     * @return The key for that right with that Rook
+     */
+    public static long chess960CastlingKey(int right, int rookFile) {
+        return CHESS960_CASTLING_KEYS[right * 8 + rookFile];
+    }
+
+    /**
+     * @param file Column (0..7) of the square a pawn may capture en passant on
+     * @return The key for that en passant file
+     */
+    public static long enPassantKey(int file) {
+        return EN_PASSANT_KEYS[file];
+    }
+}
@@ -0,0 +1,240 @@
+package chess.engine;
+
+import chess.core.ChessBoard;
+import chess.core.Fen;
+import chess.core.Move;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Scores large sets of FEN positions in parallel, by static evaluation (depth 0) or by
+ * a fixed-depth search.
+ * <p>
+ * Input is read in chunks of {@link #CHUNK_SIZE} lines; each chunk is a fork/join task
+ * that splits itself down to {@link #LEAF_SIZE} positions, so idle threads steal work
+ * from busy ones even when some positions take much longer to search than others.
+ * Every pool thread sets positions up on its own reused board (and searches with its own
+ * Engine and table), so nothing is allocated per position beyond the input line. Results
+ * are written in input order while later chunks are still being evaluated; at most a
+ * few chunks per thread are in flight, so memory stays bounded for any input size.
+ * <p>
+ * Output: one line per input line, {@code <fen> TAB <score>} with the score in centipawns
+ * from the side to move ({@code #N} / {@code #-N} for a found mate), plus
+ * {@code TAB <best move>} when searching. Invalid lines yield {@code <fen> TAB error: ...}.
+ * <p>
+ * Usage: {@code java chess.engine.BatchEvaluator <input|-> <output|-> [depth] [threads]}
+ * (defaults: depth 0, one thread per core).
+ */
+public class BatchEvaluator {
+
+    public static final int CHUNK_SIZE = 8192;
+    public static final int LEAF_SIZE = 64;
+    private static final int SEARCH_HASH_MB = 2; // Per thread
+
+    private final int depth;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<Worker> workers;
+
+    /**
+     * @param depth 0 for static evaluation, otherwise the search depth in plies
+     * @param threads Parallelism
+     */
+    public BatchEvaluator(int depth, int threads) {
+        this.depth = depth;
+        this.pool = new ForkJoinPool(threads);
+        this.workers = ThreadLocal.withInitial(() -> new Worker(depth));
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: java chess.engine.BatchEvaluator <input|-> <output|-> [depth] [threads]");
+            System.exit(2);
+        }
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        BatchEvaluator evaluator = new BatchEvaluator(depth, threads);
+        long start = System.nanoTime();
+        long count;
+        try (BufferedReader in = args[0].equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8);
+             Writer out = args[1].equals("-")
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                : Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+            count = evaluator.evaluate(in, out);
+        } finally {
+            evaluator.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("Evaluated %,d positions in %.2f s (%,.0f positions/sec, depth %d, %d threads)%n",
+            count, seconds, count / seconds, depth, threads);
+    }
+
+    /**
+     * Evaluates every FEN line of the input (blank lines are skipped) and writes the
+     * results in the same order.
+     * @return The number of positions written
+     */
+    public long evaluate(BufferedReader in, Writer out) throws IOException {
+        int maxInFlight = pool.getParallelism() * 2 + 1;
+        Deque<Chunk> inFlight = new ArrayDeque<>();
+        long count = 0;
+
+        Chunk chunk;
+        while ((chunk = readChunk(in)) != null) {
+            pool.execute(chunk);
+            inFlight.addLast(chunk);
+            if (inFlight.size() >= maxInFlight) {
+                count += inFlight.removeFirst().writeTo(out);
+            }
+        }
+        while (!inFlight.isEmpty()) {
+            count += inFlight.removeFirst().writeTo(out);
+        }
+        out.flush();
+        return count;
+    }
+
+    /** Stops the pool threads. */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private Chunk readChunk(BufferedReader in) throws IOException {
+        List<String> lines = new ArrayList<>(CHUNK_SIZE);
+        String line;
+        while (lines.size() < CHUNK_SIZE && (line = in.readLine()) != null) {
+            line = line.trim();
+            if (!line.isEmpty()) lines.add(line);
+        }
+        return lines.isEmpty() ? null : new Chunk(lines.toArray(new String[0]));
+    }
+
+    // --- Tasks ---
+
+    /** The results of one chunk of input lines; evaluated by a fork/join tree of Ranges. */
+    private final class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final String[] fens;
+        final int[] scores;
+        final int[] bestMoves;
+        final String[] errors;
+
+        Chunk(String[] fens) {
+            this.fens = fens;
+            this.scores = new int[fens.length];
+            this.bestMoves = new int[fens.length];
+            this.errors = new String[fens.length];
+        }
+
+        @Override
+        protected void compute() {
+            new Range(this, 0, fens.length).compute();
+        }
+
+        // Waits for the chunk, then writes its lines
+        int writeTo(Writer out) throws IOException {
+            join();
+            StringBuilder sb = new StringBuilder(64);
+            for (int i = 0; i < fens.length; i++) {
+                sb.setLength(0);
+                sb.append(fens[i]).append('\t');
+                if (errors[i] != null) {
+                    sb.append("error: ").append(errors[i]);
+                } else {
+                    appendScore(sb, scores[i]);
+                    if (depth > 0) sb.append('\t').append(bestMoves[i] == Move.NONE ? "-" : Move.toString(bestMoves[i]));
+                }
+                sb.append('\n');
+                out.append(sb);
+            }
+            return fens.length;
+        }
+    }
+
+    /** A slice of a chunk; splits in halves until small enough to evaluate directly. */
+    private final class Range extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Chunk chunk;
+        private final int from;
+        private final int to;
+
+        Range(Chunk chunk, int from, int to) {
+            this.chunk = chunk;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_SIZE) {
+                int middle = (from + to) >>> 1;
+                ForkJoinTask.invokeAll(new Range(chunk, from, middle), new Range(chunk, middle, to));
+                return;
+            }
+            Worker worker = workers.get();
+            for (int i = from; i < to; i++) {
+                try {
+                    worker.evaluate(chunk.fens[i], chunk.scores, chunk.bestMoves, i);
+                } catch (IllegalArgumentException e) {
+                    chunk.errors[i] = e.getMessage();
+                }
+            }
+        }
+    }
+
+    /** Per-thread state: the reused board, and an engine when searching. */
+    private static final class Worker {
+        private final ChessBoard board = ChessBoard.empty();
+        private final Engine engine;
+        private final SearchLimits limits;
+        private final int[] noMoves = new int[0];
+
+        Worker(int depth) {
+            if (depth > 0) {
+                engine = new Engine(SEARCH_HASH_MB);
+                limits = SearchLimits.depth(depth);
+            } else {
+                engine = null;
+                limits = null;
+            }
+        }
+
+        void evaluate(String fen, int[] scores, int[] bestMoves, int index) {
+            if (engine == null) {
+                Fen.setup(board, fen);
+                scores[index] = Evaluator.evaluate(board);
+                return;
+            }
+            SearchInfo info = engine.search(fen, noMoves, 0, limits, null);
+            scores[index] = info.getScore();
+            bestMoves[index] = info.getBestMove();
+        }
+    }
+
+    private static void appendScore(StringBuilder sb, int score) {
+        if (Math.abs(score) >= Searcher.MATE_BOUND) {
+            int mateIn = score > 0 ? (Searcher.MATE - score + 1) / 2 : -(Searcher.MATE + score) / 2;
+            sb.append('#').append(mateIn);
+        } else {
+            sb.append(score);
+        }
+    }
+}
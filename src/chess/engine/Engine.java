@@ -0,0 +1,323 @@
+package chess.engine;
+
+import chess.core.ChessBoard;
+import chess.core.Move;
+import chess.util.Metrics;
+import chess.util.SearchEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Iterative-deepening search over a shared transposition table.
+ * <p>
+ * The calling thread runs the main search; with more than one thread configured, helper
+ * threads search the same position on their own boards at the same time (every second
+ * helper one ply deeper), filling the shared table ("lazy SMP"). Only the main thread's
+ * iterations are reported. A search ends when a limit is reached or {@link #stop()}
+ * is called; the best move of the last completed iteration is the result.
+ * <p>
+ * Under a clock ({@link SearchLimits#withClock}) a {@link TimeManager} decides after each
+ * iteration whether another one is worth starting. A pondering search has no time limit
+ * until {@link #ponderHit()}; the table and the tree searched so far carry over.
+ * <p>
+ * With {@link SearchLimits#withMultiPv} above 1, every iteration searches the root once
+ * per line, each time without the best moves of the lines before it, and reports each
+ * line on its own.
+ * <p>
+ * One search runs at a time. {@link #stop()} and {@link #ponderHit()} may be called from any thread.
+ */
+public class Engine {
+
+    /** Called after every completed iteration (every completed line, in multi-PV) of the main thread. */
+    public interface SearchListener {
+        void onIteration(SearchInfo info);
+    }
+
+    public static final int DEFAULT_HASH_MB = 16;
+    public static final int MAX_THREADS = 256;
+
+    private final TranspositionTable table;
+    private int threads = 1;
+    private ExecutorService helpers;
+    private volatile boolean chess960; // Chess960 castling rules for every position
+    private volatile NnueNetwork network; // Evaluates instead of Evaluator, if set
+
+    // State of the running search
+    private volatile boolean stopped;
+    private volatile Searcher[] searchers = new Searcher[0]; // Kept for reuse between searches
+    private final int[] rootMoves = new int[ChessBoard.MAX_MOVES];
+    private long startNanos;
+    private volatile long clockStartNanos; // When the time budget started (ponderhit, when pondering)
+    private volatile long deadlineNanos;   // 0 = no time limit
+    private volatile long budgetMillis;    // Hard time limit from clockStartNanos, 0 = none
+    private volatile boolean pondering;    // No time limit until ponderHit()
+    private TimeManager timeManager;       // Budgets a search under a clock, or null
+    private long nodeLimit;      // 0 = no node limit
+
+    /** Creates an engine with a {@value #DEFAULT_HASH_MB} MB transposition table. */
+    public Engine() {
+        this(DEFAULT_HASH_MB);
+    }
+
+    /**
+     * Creates an engine with a transposition table of the given size, e.g. a small one
+     * for one of many engines searching side by side.
+     * @param hashMegabytes Table size in MB (at least 1)
+     */
+    public Engine(int hashMegabytes) {
+        table = new TranspositionTable(Math.max(1, hashMegabytes));
+    }
+
+    /** Resizes the transposition table, dropping its contents. */
+    public synchronized void setHashMegabytes(int megabytes) {
+        table.resize(Math.max(1, megabytes));
+    }
+
+    /** Sets the number of search threads (1 = no helpers). */
+    public synchronized void setThreads(int count) {
+        threads = Math.max(1, Math.min(count, MAX_THREADS));
+        if (helpers != null) {
+            helpers.shutdownNow();
+            helpers = null;
+        }
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Selects Chess960 castling (King takes own Rook encoding) for all positions, even
+     * those with a standard back rank. Without it only FENs that name castling files,
+     * or have a castling King off the e-file, are read as Chess960.
+     */
+    public synchronized void setChess960(boolean enabled) {
+        chess960 = enabled;
+    }
+
+    public boolean isChess960() {
+        return chess960;
+    }
+
+    /**
+     * Evaluates positions with a neural network instead of {@link Evaluator}; every
+     * searcher keeps its own {@link NnueAccumulator} on its board. The table is cleared,
+     * since its scores came from the other evaluation.
+     * @param network The network, or null for the built-in evaluation
+     */
+    public synchronized void setNetwork(NnueNetwork network) {
+        this.network = network;
+        table.clear();
+    }
+
+    public NnueNetwork getNetwork() {
+        return network;
+    }
+
+    /** Forgets everything learned in earlier searches. */
+    public synchronized void newGame() {
+        table.clear();
+    }
+
+    /** Asks the running search (if any) to finish; it returns its best move so far. */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Tells a pondering search that the expected move was played: from now on it runs
+     * against its time budget, keeping everything it found while pondering.
+     * May be called from any thread.
+     * @return false if no search is pondering (none yet, or it has ended), so callers
+     *         racing the start of a search can retry
+     */
+    public boolean ponderHit() {
+        if (!pondering) return false;
+        long now = System.nanoTime();
+        clockStartNanos = now;
+        deadlineNanos = budgetMillis > 0 ? now + budgetMillis * 1_000_000 : 0;
+        pondering = false;
+        return true;
+    }
+
+    /** Releases the helper threads. */
+    public synchronized void shutdown() {
+        stop();
+        if (helpers != null) helpers.shutdownNow();
+        helpers = null;
+    }
+
+    /**
+     * Searches a position given as a start position plus the moves played from it; the
+     * moves are replayed so that repetitions of earlier positions are recognized.
+     * @param fen The start position
+     * @param moves Legal packed moves from fen, e.g. from {@link ChessBoard#findLegalMove}
+     * @param moveCount Number of moves to use from the array
+     * @param limits When to stop
+     * @param listener Receives every completed iteration, or null
+     * @return The last completed iteration (depth 0 and no move if there is no legal move;
+     *         then the score says whether it is mate or stalemate)
+     */
+    public synchronized SearchInfo search(String fen, int[] moves, int moveCount,
+                                          SearchLimits limits, SearchListener listener) {
+        long start = System.nanoTime();
+        stopped = false;
+        startNanos = start;
+        clockStartNanos = start;
+        timeManager = limits.createTimeManager();
+        budgetMillis = limits.getMoveTimeMillis() > 0 ? limits.getMoveTimeMillis()
+            : timeManager != null ? timeManager.getMaximumMillis() : 0;
+        pondering = limits.isPonder();
+        deadlineNanos = budgetMillis > 0 && !pondering ? start + budgetMillis * 1_000_000 : 0;
+        nodeLimit = limits.getNodes();
+        int maxDepth = limits.getDepth() > 0 ? Math.min(limits.getDepth(), Searcher.MAX_PLY - 1) : Searcher.MAX_PLY - 1;
+
+        if (searchers.length != threads) {
+            Searcher[] resized = new Searcher[threads];
+            for (int i = 0; i < threads; i++) {
+                resized[i] = i < searchers.length ? searchers[i] : new Searcher(this, table);
+            }
+            searchers = resized;
+        }
+        Searcher[] all = searchers;
+        for (Searcher searcher : all) {
+            searcher.reset(fen, moves, moveCount);
+        }
+
+        List<Future<?>> running = startHelpers(all, maxDepth);
+        SearchInfo result;
+        try {
+            result = iterate(all[0], maxDepth, limits.getMultiPv(), listener);
+        } finally {
+            stopped = true;
+            pondering = false;
+            for (Future<?> helper : running) {
+                awaitQuietly(helper);
+            }
+        }
+
+        if (Metrics.ENABLED) {
+            Metrics.record(Metrics.Op.SEARCH, start);
+            SearchEvent event = new SearchEvent();
+            event.depth = result.getDepth();
+            event.nodes = result.getNodes();
+            event.bestMove = Move.toString(result.getBestMove());
+            event.score = result.getScore();
+            event.commit();
+        }
+        return result;
+    }
+
+    // --- Called by the searchers ---
+
+    boolean isStopped() {
+        return stopped;
+    }
+
+    /** Sets the stop flag once the time or node budget is used up. */
+    void checkLimits() {
+        if (deadlineNanos != 0 && System.nanoTime() >= deadlineNanos) stopped = true;
+        if (nodeLimit != 0 && totalNodes() >= nodeLimit) stopped = true;
+    }
+
+    // --- Internals ---
+
+    private SearchInfo iterate(Searcher main, int maxDepth, int multiPv, SearchListener listener) {
+        ChessBoard board = main.getBoard();
+        int rootCount = board.generateLegalMoves(rootMoves);
+        if (rootCount == 0) {
+            int score = board.isKingInCheck(board.getCurrentTurn()) ? -Searcher.MATE : 0;
+            return new SearchInfo(0, score, 0, 0, new int[0], 0);
+        }
+        SearchInfo last = new SearchInfo(0, 0, 0, 0, new int[0], 0);
+        int lines = Math.min(multiPv, rootCount);
+        int[] lineMoves = new int[lines]; // First moves of the lines found in this iteration
+
+        iterations:
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            for (int line = 0; line < lines; line++) {
+                int score = main.searchRoot(depth, lineMoves, line);
+                if (score == Integer.MIN_VALUE) {
+                    // Stopped midway; before the first iteration completes any legal move beats none
+                    if (last.getDepth() == 0) {
+                        int move = line == 0 && main.getRootBestMove() != Move.NONE ? main.getRootBestMove() : rootMoves[0];
+                        last = info(main, 0, 0, move, 1);
+                    }
+                    break iterations;
+                }
+                lineMoves[line] = main.getRootBestMove();
+                SearchInfo info = info(main, depth, score, lineMoves[line], line + 1);
+                if (line == 0) last = info;
+                if (listener != null) listener.onIteration(info);
+            }
+
+            int score = last.getScore();
+            if (Math.abs(score) >= Searcher.MATE_BOUND && Searcher.MATE - Math.abs(score) <= depth) break; // Forced mate fully seen
+            if (outOfTime(last) && !pondering) break;
+            if (stopped) break;
+        }
+        return last;
+    }
+
+    // Whether the next iteration should not be started for lack of time
+    private boolean outOfTime(SearchInfo last) {
+        long elapsed = System.nanoTime() - clockStartNanos;
+        if (timeManager != null) {
+            // Called while pondering too, so it sees how stable the search has been
+            return timeManager.shouldStop(elapsed / 1_000_000, last.getBestMove(), last.getScore());
+        }
+        return deadlineNanos != 0 && elapsed > (deadlineNanos - clockStartNanos) / 2; // Next iteration would not finish
+    }
+
+    private SearchInfo info(Searcher main, int depth, int score, int bestMove, int line) {
+        long millis = (System.nanoTime() - startNanos) / 1_000_000;
+        int[] pv = main.principalVariation(bestMove, Math.max(depth, 1));
+        return new SearchInfo(depth, score, totalNodes(), millis, pv, table.hashfull(), line);
+    }
+
+    private long totalNodes() {
+        long sum = 0;
+        for (Searcher searcher : searchers) {
+            sum += searcher.getNodes();
+        }
+        return sum;
+    }
+
+    private List<Future<?>> startHelpers(Searcher[] all, int maxDepth) {
+        List<Future<?>> running = new ArrayList<>();
+        if (all.length == 1) return running;
+        if (helpers == null) {
+            AtomicInteger counter = new AtomicInteger();
+            helpers = Executors.newFixedThreadPool(threads - 1, task -> {
+                Thread thread = new Thread(task, "chess-search-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        for (int i = 1; i < all.length; i++) {
+            Searcher helper = all[i];
+            int offset = i % 2; // Spread the helpers over two depths
+            running.add(helpers.submit(() -> {
+                for (int depth = 1 + offset; depth <= maxDepth && !stopped; depth++) {
+                    helper.searchRoot(depth);
+                }
+            }));
+        }
+        return running;
+    }
+
+    private static void awaitQuietly(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search thread failed", e.getCause());
+        }
+    }
+}
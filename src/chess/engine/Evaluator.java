@@ -0,0 +1,136 @@
+package chess.engine;
+
+import chess.core.ChessBoard;
+import chess.core.Color;
+import chess.core.PieceType;
+import chess.core.Position;
+
+/**
+ * Static evaluation: material plus piece-square tables, in centipawns.
+ * <p>
+ * Tables are written from White's point of view with a8 first, which matches the
+ * board's square index (row * 8 + col, row 0 = rank 8); Black pieces read the
+ * vertically mirrored square ({@code sq ^ 56}). The King blends a middlegame and an
+ * endgame table by the amount of non-pawn material left.
+ */
+public final class Evaluator {
+
+    /** Centipawn values by PieceType ordinal (King, Queen, Rook, Bishop, Knight, Pawn). */
+    public static final int[] PIECE_VALUES = {0, 900, 500, 330, 320, 100};
+
+    // Game phase weight per piece type; 24 = all pieces on the board
+    private static final int[] PHASE_WEIGHTS = {0, 4, 2, 1, 1, 0};
+    private static final int MAX_PHASE = 24;
+
+    private static final int[] PAWN_TABLE = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+         50,  50,  50,  50,  50,  50,  50,  50,
+         10,  10,  20,  30,  30,  20,  10,  10,
+          5,   5,  10,  25,  25,  10,   5,   5,
+          0,   0,   0,  20,  20,   0,   0,   0,
+          5,  -5, -10,   0,   0, -10,  -5,   5,
+          5,  10,  10, -20, -20,  10,  10,   5,
+          0,   0,   0,   0,   0,   0,   0,   0
+    };
+    private static final int[] KNIGHT_TABLE = {
+        -50, -40, -30, -30, -30, -30, -40, -50,
+        -40, -20,   0,   0,   0,   0, -20, -40,
+        -30,   0,  10,  15,  15,  10,   0, -30,
+        -30,   5,  15,  20,  20,  15,   5, -30,
+        -30,   0,  15,  20,  20,  15,   0, -30,
+        -30,   5,  10,  15,  15,  10,   5, -30,
+        -40, -20,   0,   5,   5,   0, -20, -40,
+        -50, -40, -30, -30, -30, -30, -40, -50
+    };
+    private static final int[] BISHOP_TABLE = {
+        -20, -10, -10, -10, -10, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,  10,  10,   5,   0, -10,
+        -10,   5,   5,  10,  10,   5,   5, -10,
+        -10,   0,  10,  10,  10,  10,   0, -10,
+        -10,  10,  10,  10,  10,  10,  10, -10,
+        -10,   5,   0,   0,   0,   0,   5, -10,
+        -20, -10, -10, -10, -10, -10, -10, -20
+    };
+    private static final int[] ROOK_TABLE = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+          5,  10,  10,  10,  10,  10,  10,   5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+          0,   0,   0,   5,   5,   0,   0,   0
+    };
+    private static final int[] QUEEN_TABLE = {
+        -20, -10, -10,  -5,  -5, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,   5,   5,   5,   0, -10,
+         -5,   0,   5,   5,   5,   5,   0,  -5,
+          0,   0,   5,   5,   5,   5,   0,  -5,
+        -10,   5,   5,   5,   5,   5,   0, -10,
+        -10,   0,   5,   0,   0,   0,   0, -10,
+        -20, -10, -10,  -5,  -5, -10, -10, -20
+    };
+    private static final int[] KING_MIDDLEGAME_TABLE = {
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -20, -30, -30, -40, -40, -30, -30, -20,
+        -10, -20, -20, -20, -20, -20, -20, -10,
+         20,  20,   0,   0,   0,   0,  20,  20,
+         20,  30,  10,   0,   0,  10,  30,  20
+    };
+    private static final int[] KING_ENDGAME_TABLE = {
+        -50, -40, -30, -20, -20, -30, -40, -50,
+        -30, -20, -10,   0,   0, -10, -20, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -30,   0,   0,   0,   0, -30, -30,
+        -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    // By PieceType ordinal; the King is handled separately
+    private static final int[][] TABLES = {null, QUEEN_TABLE, ROOK_TABLE, BISHOP_TABLE, KNIGHT_TABLE, PAWN_TABLE};
+
+    private Evaluator() {
+    }
+
+    /**
+     * @param board The position
+     * @return The score in centipawns from the point of view of the side to move
+     */
+    public static int evaluate(ChessBoard board) {
+        int phase = 0;
+        for (PieceType type : PieceType.values()) {
+            int count = board.getPieceCount(Color.WHITE, type) + board.getPieceCount(Color.BLACK, type);
+            phase += count * PHASE_WEIGHTS[type.ordinal()];
+        }
+        phase = Math.min(phase, MAX_PHASE);
+
+        int score = sideScore(board, Color.WHITE, phase) - sideScore(board, Color.BLACK, phase); // White's view
+        return board.getCurrentTurn() == Color.WHITE ? score : -score;
+    }
+
+    // Material and piece-square values of one side's pieces, walked via its piece list
+    private static int sideScore(ChessBoard board, Color color, int phase) {
+        boolean white = color == Color.WHITE;
+        int score = 0;
+        for (int i = 0; i < board.getPieceListSize(color); i++) {
+            int sq = board.getPieceSquare(color, i);
+            int tableSquare = white ? sq : sq ^ 56;
+            PieceType pieceType = board.getPiece(Position.of(sq)).getType();
+            int type = pieceType.ordinal();
+            if (pieceType == PieceType.KING) {
+                score += (KING_MIDDLEGAME_TABLE[tableSquare] * phase
+                    + KING_ENDGAME_TABLE[tableSquare] * (MAX_PHASE - phase)) / MAX_PHASE;
+            } else {
+                score += PIECE_VALUES[type] + TABLES[type][tableSquare];
+            }
+        }
+        return score;
+    }
+}
@@ -0,0 +1,413 @@
+package chess.engine;
+
+import chess.core.ChessBoard;
+import chess.core.Fen;
+import chess.core.Move;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Proves or refutes "mate in N" with depth-first proof-number search (df-pn).
+ * <p>
+ * The attacker (the side to move at the root) only tries checking moves, found by playing
+ * each legal move and asking {@link ChessBoard#isKingInCheck}; the defender tries every
+ * legal move. A proof number counts how many leaves still have to be proven for a
+ * mate, a disproof number how many for an escape; df-pn always descends into the child
+ * with the smallest number and backs up only when a threshold is exceeded, so it goes
+ * deep quickly along forcing lines where alpha-beta would search every move to full
+ * depth. The numbers live in the solver's own hash table, keyed by position and remaining
+ * depth, which keeps the search graph free of cycles.
+ * <p>
+ * Mate in 1, 2, ... N are tried in turn, so a found mate is the shortest one. A solver is
+ * not thread-safe; {@link #main} runs one per worker thread over a file of puzzles.
+ * <p>
+ * Usage: {@code java chess.engine.MateSolver <puzzles> [maxNodes] [threads]}, where
+ * every line is {@code <fen>;<N>} or EPD with a {@code dm N;} operation.
+ */
+public class MateSolver {
+
+    /** Outcome of a solve. */
+    public enum Result {
+        MATE, NO_MATE, UNKNOWN
+    }
+
+    /** What {@link #solve} found. */
+    public static final class Solution {
+        private final Result result;
+        private final int mateIn;
+        private final int[] line;
+        private final long nodes;
+
+        Solution(Result result, int mateIn, int[] line, long nodes) {
+            this.result = result;
+            this.mateIn = mateIn;
+            this.line = line;
+            this.nodes = nodes;
+        }
+
+        public Result getResult() {
+            return result;
+        }
+
+        /** @return Moves to mate when the result is MATE. */
+        public int getMateIn() {
+            return mateIn;
+        }
+
+        /** @return The mating line (may be cut short if table entries were overwritten); do not modify. */
+        public int[] getLine() {
+            return line;
+        }
+
+        /** @return The key move, or {@link Move#NONE}. */
+        public int getMove() {
+            return line.length > 0 ? line[0] : Move.NONE;
+        }
+
+        /** @return Nodes searched. */
+        public long getNodes() {
+            return nodes;
+        }
+    }
+
+    public static final int DEFAULT_TABLE_BITS = 20; // 1M entries, 16 MB
+    private static final int INF = 100_000_000;
+    private static final int MAX_PLIES = 63;
+
+    // Mixed into the position hash so that the same position with a different number of
+    // moves left is a different node
+    private static final long[] DEPTH_KEYS = new long[MAX_PLIES + 1];
+    static {
+        SplittableRandom random = new SplittableRandom(0x6D617465L);
+        for (int i = 0; i < DEPTH_KEYS.length; i++) {
+            DEPTH_KEYS[i] = random.nextLong();
+        }
+    }
+
+    // Hash table: key and packed (phi, delta); always-replace
+    private final long[] keys;
+    private final long[] values;
+    private final int mask;
+
+    private final int[][] moves = new int[MAX_PLIES + 1][ChessBoard.MAX_MOVES];
+    private final long[][] childKeys = new long[MAX_PLIES + 1][ChessBoard.MAX_MOVES];
+    private final int[] lineMoves = new int[ChessBoard.MAX_MOVES];
+    private ChessBoard board;
+    private long nodes;
+    private long maxNodes;
+
+    public MateSolver() {
+        this(DEFAULT_TABLE_BITS);
+    }
+
+    /** @param tableBits log2 of the number of table entries (16 bytes each) */
+    public MateSolver(int tableBits) {
+        keys = new long[1 << tableBits];
+        values = new long[1 << tableBits];
+        mask = (1 << tableBits) - 1;
+    }
+
+    /**
+     * Looks for a mate in at most mateIn moves for the side to move.
+     * @param position The position; it is searched in place and restored
+     * @param mateIn Maximum number of attacker moves
+     * @param nodeLimit Give up (UNKNOWN) after this many nodes
+     */
+    public Solution solve(ChessBoard position, int mateIn, long nodeLimit) {
+        if (mateIn < 1 || 2 * mateIn - 1 > MAX_PLIES) {
+            throw new IllegalArgumentException("Mate depth out of range: " + mateIn);
+        }
+        board = position;
+        nodes = 0;
+        maxNodes = nodeLimit;
+        // The table is kept between puzzles: an entry describes a position with a given
+        // number of moves left, whatever the puzzle it was reached from
+
+        for (int n = 1; n <= mateIn; n++) {
+            int plies = 2 * n - 1;
+            long rootKey = nodeKey(plies);
+            mid(0, plies, rootKey, INF, INF);
+            long entry = probe(rootKey);
+            if (phi(entry) == 0) {
+                return new Solution(Result.MATE, n, mainLine(plies), nodes);
+            }
+            if (delta(entry) != 0) break; // Neither proven nor refuted: out of nodes
+            if (n == mateIn) return new Solution(Result.NO_MATE, 0, new int[0], nodes);
+        }
+        return new Solution(Result.UNKNOWN, 0, new int[0], nodes);
+    }
+
+    // --- df-pn ---
+    //
+    // Numbers are kept from the point of view of the side to move at a node: phi = 0 means
+    // it wins (the attacker mates, or the defender escapes), delta = 0 means it loses.
+    // At a node, phi = min(delta of the children) and delta = sum(phi of the children).
+
+    private void mid(int ply, int remaining, long key, int thPhi, int thDelta) {
+        nodes++;
+        boolean attacker = ply % 2 == 0;
+        int[] list = moves[ply];
+        int count;
+
+        if (attacker) {
+            count = checkingMoves(list);
+            if (count == 0) { // No check left: no mate along this line
+                store(key, INF, 0);
+                return;
+            }
+        } else {
+            count = board.generateLegalMoves(list);
+            if (count == 0) {
+                if (board.isKingInCheck(board.getCurrentTurn())) {
+                    store(key, INF, 0); // Mated
+                } else {
+                    store(key, 0, INF); // Stalemate
+                }
+                return;
+            }
+            if (remaining == 0) { // Out of moves without being mated
+                store(key, 0, INF);
+                return;
+            }
+        }
+
+        long[] children = childKeys[ply];
+        for (int i = 0; i < count; i++) {
+            board.makeMove(list[i]);
+            children[i] = nodeKey(remaining - 1);
+            board.unmakeMove();
+        }
+
+        while (true) {
+            int phi = INF;
+            int delta = 0;
+            int best = -1;
+            int bestPhi = 0;
+            int secondDelta = INF;
+            for (int i = 0; i < count; i++) {
+                long entry = probe(children[i]);
+                int childPhi = entry == 0 ? 1 : phi(entry);
+                int childDelta = entry == 0 ? 1 : delta(entry);
+                delta = Math.min(INF, delta + childPhi);
+                if (childDelta < phi) {
+                    secondDelta = phi;
+                    phi = childDelta;
+                    best = i;
+                    bestPhi = childPhi;
+                } else if (childDelta < secondDelta) {
+                    secondDelta = childDelta;
+                }
+            }
+            if (phi >= thPhi || delta >= thDelta || nodes >= maxNodes) {
+                store(key, phi, delta);
+                return;
+            }
+
+            int childThPhi = thDelta + bestPhi - delta;
+            int childThDelta = Math.min(thPhi, secondDelta + 1);
+            board.makeMove(list[best]);
+            mid(ply + 1, remaining - 1, children[best], childThPhi, childThDelta);
+            board.unmakeMove();
+        }
+    }
+
+    private int checkingMoves(int[] list) {
+        int count = board.generateLegalMoves(list);
+        int checks = 0;
+        for (int i = 0; i < count; i++) {
+            int move = list[i];
+            board.makeMove(move);
+            boolean check = board.isKingInCheck(board.getCurrentTurn());
+            board.unmakeMove();
+            if (check) list[checks++] = move;
+        }
+        return checks;
+    }
+
+    // Follows the proof: the attacker takes the fastest mate, the defender the reply that
+    // holds out longest. Sub-proofs at smaller depths are mostly table hits.
+    private int[] mainLine(int plies) {
+        long budget = maxNodes;
+        maxNodes = Long.MAX_VALUE; // Everything below is part of a proven tree
+        int[] line = new int[plies];
+        int length = 0;
+        int remaining = plies;
+        while (remaining > 0) {
+            boolean attacker = length % 2 == 0;
+            int[] list = lineMoves;
+            int count = attacker ? checkingMoves(list) : board.generateLegalMoves(list);
+            int chosen = Move.NONE;
+            int chosenRemaining = attacker ? Integer.MAX_VALUE : -1;
+            for (int i = 0; i < count; i++) {
+                board.makeMove(list[i]);
+                int needed = pliesToMate(length + 1, remaining - 1, !attacker);
+                board.unmakeMove();
+                boolean better = attacker ? needed >= 0 && needed < chosenRemaining : needed > chosenRemaining;
+                if (better) {
+                    chosen = list[i];
+                    chosenRemaining = needed;
+                }
+            }
+            if (chosen == Move.NONE) break;
+            line[length++] = chosen;
+            board.makeMove(chosen);
+            remaining = chosenRemaining;
+        }
+        for (int i = 0; i < length; i++) {
+            board.unmakeMove();
+        }
+        maxNodes = budget;
+        return Arrays.copyOf(line, length);
+    }
+
+    // Smallest number of plies left (at most max) with which the attacker still mates from
+    // the current position, or -1
+    private int pliesToMate(int ply, int max, boolean attackerToMove) {
+        for (int remaining = attackerToMove ? 1 : 0; remaining <= max; remaining += 2) {
+            long key = nodeKey(remaining);
+            mid(ply, remaining, key, INF, INF);
+            long entry = probe(key);
+            if (attackerToMove ? phi(entry) == 0 : delta(entry) == 0) return remaining;
+        }
+        return -1;
+    }
+
+    // --- Table ---
+
+    private long nodeKey(int remaining) {
+        long key = board.getZobristHash() ^ DEPTH_KEYS[remaining];
+        return key == 0 ? 1 : key; // 0 marks an empty slot
+    }
+
+    private long probe(long key) {
+        int i = (int) (key ^ (key >>> 32)) & mask;
+        return keys[i] == key ? values[i] : 0;
+    }
+
+    private void store(long key, int phi, int delta) {
+        int i = (int) (key ^ (key >>> 32)) & mask;
+        keys[i] = key;
+        values[i] = ((long) phi << 32) | (delta & 0xFFFFFFFFL) | (1L << 63);
+    }
+
+    private static int phi(long entry) {
+        return (int) ((entry >>> 32) & 0x7FFFFFFF);
+    }
+
+    private static int delta(long entry) {
+        return (int) entry;
+    }
+
+    // --- Batch ---
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: java chess.engine.MateSolver <puzzles> [maxNodes] [threads]");
+            System.exit(2);
+        }
+        long maxNodes = args.length > 1 ? Long.parseLong(args[1]) : 5_000_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        List<String> lines = readPuzzles(args[0]);
+
+        String[] output = new String[lines.size()];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger mates = new AtomicInteger();
+        long[] nodesPerWorker = new long[threads];
+        long start = System.nanoTime();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int w = 0; w < threads; w++) {
+            int worker = w;
+            workers.add(pool.submit(() -> {
+                MateSolver solver = new MateSolver();
+                ChessBoard board = ChessBoard.empty();
+                int i;
+                while ((i = next.getAndIncrement()) < lines.size()) {
+                    output[i] = solveLine(solver, board, lines.get(i), maxNodes, mates);
+                    nodesPerWorker[worker] += solver.nodes;
+                }
+            }));
+        }
+        try {
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Solver failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        for (String line : output) {
+            System.out.println(line);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long totalNodes = Arrays.stream(nodesPerWorker).sum();
+        System.out.printf("Mates: %d of %d puzzles, %.2f s, %,.0f puzzles/sec, %,.0f nodes/sec (%d threads)%n",
+            mates.get(), lines.size(), seconds, lines.size() / seconds, totalNodes / seconds, threads);
+    }
+
+    private static List<String> readPuzzles(String file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) lines.add(line);
+        }
+        return lines;
+    }
+
+    // "<fen>;<N>" or EPD "<4 fields> ... dm N; ..." -> "<input>;<verdict>;<line>;<nodes>"
+    private static String solveLine(MateSolver solver, ChessBoard board, String line, long maxNodes,
+                                    AtomicInteger mates) {
+        try {
+            String fen;
+            int mateIn;
+            int dm = line.indexOf(" dm ");
+            if (dm >= 0) {
+                String[] fields = line.split("\\s+");
+                fen = String.join(" ", Arrays.copyOf(fields, 4));
+                mateIn = Integer.parseInt(line.substring(dm + 4).split(";")[0].trim());
+            } else {
+                int separator = line.lastIndexOf(';');
+                if (separator < 0) throw new IllegalArgumentException("Missing ';<N>'");
+                fen = line.substring(0, separator);
+                mateIn = Integer.parseInt(line.substring(separator + 1).trim());
+            }
+            Fen.setup(board, fen);
+            Solution solution = solver.solve(board, mateIn, maxNodes);
+
+            StringBuilder sb = new StringBuilder(line).append(';');
+            switch (solution.getResult()) {
+                case MATE:
+                    mates.incrementAndGet();
+                    sb.append("mate ").append(solution.getMateIn()).append(';');
+                    for (int i = 0; i < solution.getLine().length; i++) {
+                        if (i > 0) sb.append(' ');
+                        sb.append(Move.toString(solution.getLine()[i]));
+                    }
+                    break;
+                case NO_MATE:
+                    sb.append("no mate;");
+                    break;
+                default:
+                    sb.append("unknown;");
+                    break;
+            }
+            return sb.append(';').append(solution.getNodes()).toString();
+        } catch (IllegalArgumentException e) {
+            return line + ";error: " + e.getMessage();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package chess.engine;
+
+import chess.core.BoardListener;
+import chess.core.ChessBoard;
+import chess.core.Color;
+import chess.core.PieceType;
+import chess.core.Position;
+import java.util.Arrays;
+
+/**
+ * The first layer of an {@link NnueNetwork} for one board, kept up to date as pieces
+ * move, plus the rest of the network to turn it into a score.
+ * <p>
+ * Attached to a board as its {@link BoardListener}, the accumulator adds a weight row
+ * for every piece placed and subtracts one for every piece removed, for both sides'
+ * views. A quiet move thus costs 2 x 2 row updates (captures, castling and promotion a
+ * few more), where a refresh costs one per piece, and {@link ChessBoard#unmakeMove}
+ * reverses the updates exactly, since the arithmetic is on ints.
+ * <p>
+ * The row updates and the output layer run on an {@link NnueKernel}: the Vector API one
+ * if it was built and {@code jdk.incubator.vector} is loaded, else the scalar one.
+ * {@code -Dchess.nnue.scalar=true} forces the scalar kernel. Not thread-safe: one per board.
+ */
+public final class NnueAccumulator implements BoardListener {
+
+    private static final NnueKernel KERNEL = createKernel();
+
+    private final NnueNetwork network;
+    private final int[] weights;
+    private final int[][] acc; // [color ordinal][i], from that side's view
+
+    public NnueAccumulator(NnueNetwork network) {
+        this.network = network;
+        this.weights = network.getInputWeights();
+        this.acc = new int[2][network.getHiddenSize()];
+        boardCleared();
+    }
+
+    /** @return The network evaluated. */
+    public NnueNetwork getNetwork() {
+        return network;
+    }
+
+    /** @return Which kernel evaluates, e.g. "scalar" or "vector (8 ints)". */
+    public static String kernelName() {
+        return KERNEL.name();
+    }
+
+    /**
+     * Makes this the board's listener and loads its current pieces.
+     */
+    public void attach(ChessBoard board) {
+        board.setListener(this);
+        refresh(board);
+    }
+
+    /** Rebuilds both accumulators from the pieces on the board. */
+    public void refresh(ChessBoard board) {
+        boardCleared();
+        for (Color color : Color.values()) {
+            for (int i = 0; i < board.getPieceListSize(color); i++) {
+                int sq = board.getPieceSquare(color, i);
+                pieceAdded(color, board.getPiece(Position.of(sq)).getType(), sq);
+            }
+        }
+    }
+
+    /**
+     * @param sideToMove The side the score is for
+     * @return The evaluation in centipawns, from the point of view of sideToMove
+     */
+    public int evaluate(Color sideToMove) {
+        int[] us = acc[sideToMove.ordinal()];
+        int[] them = acc[sideToMove.opposite().ordinal()];
+        long out = network.getOutputBias() + (long) KERNEL.output(us, them, network.getOutputWeights());
+        return (int) (out * NnueNetwork.SCALE / (NnueNetwork.QA * NnueNetwork.QB));
+    }
+
+    /** @return Whether both accumulators hold the same values as other's. */
+    public boolean matches(NnueAccumulator other) {
+        return Arrays.equals(acc[0], other.acc[0]) && Arrays.equals(acc[1], other.acc[1]);
+    }
+
+    // --- BoardListener ---
+
+    @Override
+    public void pieceAdded(Color color, PieceType type, int square) {
+        int hidden = network.getHiddenSize();
+        KERNEL.add(acc[0], weights, NnueNetwork.feature(Color.WHITE, color, type, square) * hidden);
+        KERNEL.add(acc[1], weights, NnueNetwork.feature(Color.BLACK, color, type, square) * hidden);
+    }
+
+    @Override
+    public void pieceRemoved(Color color, PieceType type, int square) {
+        int hidden = network.getHiddenSize();
+        KERNEL.subtract(acc[0], weights, NnueNetwork.feature(Color.WHITE, color, type, square) * hidden);
+        KERNEL.subtract(acc[1], weights, NnueNetwork.feature(Color.BLACK, color, type, square) * hidden);
+    }
+
+    @Override
+    public void boardCleared() {
+        int[] biases = network.getInputBiases();
+        System.arraycopy(biases, 0, acc[0], 0, biases.length);
+        System.arraycopy(biases, 0, acc[1], 0, biases.length);
+    }
+
+    // --- Internals ---
+
+    private static NnueKernel createKernel() {
+        if (!Boolean.getBoolean("chess.nnue.scalar")) {
+            try {
+                return (NnueKernel) Class.forName("chess.engine.VectorNnueKernel").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Not built, or the incubator module is not loaded: fall back
+            }
+        }
+        return new ScalarNnueKernel();
+    }
+}
@@ -0,0 +1,28 @@
+package chess.engine;
+
+/**
+ * The arithmetic of NNUE evaluation over whole accumulators, so it can be done lane by
+ * lane in SIMD registers where the JVM offers them.
+ * <p>
+ * {@link ScalarNnueKernel} is plain Java and always available. VectorNnueKernel (in
+ * src-vector, built with {@code --add-modules jdk.incubator.vector}) uses the Java
+ * Vector API; {@link NnueAccumulator} picks it when it is on the class path and the
+ * module is present at run time. Both compute exactly the same results.
+ */
+interface NnueKernel {
+
+    /** acc[i] += weights[offset + i] for every i of acc. */
+    void add(int[] acc, int[] weights, int offset);
+
+    /** acc[i] -= weights[offset + i] for every i of acc. */
+    void subtract(int[] acc, int[] weights, int offset);
+
+    /**
+     * @return sum over i of crelu(us[i]) * weights[i] + crelu(them[i]) * weights[H + i],
+     *         with crelu(x) = min(max(x, 0), {@link NnueNetwork#QA}) and H = us.length
+     */
+    int output(int[] us, int[] them, int[] weights);
+
+    /** @return A short description for logs, e.g. "scalar". */
+    String name();
+}
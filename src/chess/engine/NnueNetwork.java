@@ -0,0 +1,237 @@
+package chess.engine;
+
+import chess.core.ChessBoard;
+import chess.core.Color;
+import chess.core.Fen;
+import chess.core.PieceType;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * The weights of an efficiently updatable neural network (NNUE) evaluation.
+ * <p>
+ * Layout "768 -> H x 2 -> 1": every piece is one of 768 input features (its color as
+ * seen from a side, its type, its square), and each side has its own first layer
+ * output, the accumulator, of H values. The output layer reads both accumulators
+ * through a clipped ReLU, the side to move's first:
+ * <pre>
+ *   acc[side][i] = inputBias[i] + sum over pieces f of inputWeight[f(side)][i]
+ *   out = outputBias + sum_i crelu(acc[us][i]) * w[i] + sum_i crelu(acc[them][i]) * w[H + i]
+ *   score = out * SCALE / (QA * QB)  centipawns, for the side to move
+ * </pre>
+ * where crelu(x) = min(max(x, 0), QA). Because the accumulator is a plain sum over the
+ * pieces, a move only adds and subtracts a few weight rows; see {@link NnueAccumulator}.
+ * <p>
+ * A feature seen from White is {@code own * 384 + type * 64 + square}, with own = 0 for
+ * White's pieces, type the PieceType ordinal and square the board's index (a8 = 0).
+ * Black sees the board mirrored: own = 0 for Black's pieces and square ^ 56.
+ * <p>
+ * File format (big-endian, like the other data files): int magic "CNUE", int version,
+ * int H, int 0; then as shorts the input weights (768 rows of H, row by feature), the H
+ * input biases and the 2H output weights; then the output bias as an int. Weights are
+ * quantized: the first layer by QA, the output layer by QB.
+ * <p>
+ * Instances are immutable and shared by all searchers.
+ */
+public final class NnueNetwork {
+
+    public static final int INPUTS = 2 * 6 * 64;
+    /** First layer quantization; also the upper clip of the activation. */
+    public static final int QA = 255;
+    /** Output layer quantization. */
+    public static final int QB = 64;
+    /** Converts the network output to centipawns. */
+    public static final int SCALE = 400;
+
+    static final int MAGIC = 0x434E5545; // "CNUE"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    private static final int MAX_HIDDEN = 4096;
+
+    private final int hidden;
+    // Widened to ints on load: the accumulators are int arrays, so no lane ever overflows
+    private final int[] inputWeights;  // [feature * hidden + i]
+    private final int[] inputBiases;   // [i]
+    private final int[] outputWeights; // [i] side to move, [hidden + i] the other side
+    private final int outputBias;
+
+    private NnueNetwork(int hidden, int[] inputWeights, int[] inputBiases, int[] outputWeights, int outputBias) {
+        this.hidden = hidden;
+        this.inputWeights = inputWeights;
+        this.inputBiases = inputBiases;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+    }
+
+    /**
+     * Reads a network file.
+     * @throws IOException if the file cannot be read or is not a network of this version
+     */
+    public static NnueNetwork load(Path file) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buf.remaining() < HEADER_SIZE || buf.getInt() != MAGIC) {
+            throw new IOException(file + " is not a network file");
+        }
+        int version = buf.getInt();
+        if (version != VERSION) throw new IOException(file + ": unsupported version " + version);
+        int hidden = buf.getInt();
+        buf.getInt();
+        if (hidden <= 0 || hidden > MAX_HIDDEN) throw new IOException(file + ": bad layer size " + hidden);
+        long expected = HEADER_SIZE + 2L * ((long) INPUTS * hidden + hidden + 2 * hidden) + 4;
+        if (buf.capacity() != expected) {
+            throw new IOException(file + ": " + buf.capacity() + " bytes, expected " + expected);
+        }
+        int[] inputWeights = readShorts(buf, INPUTS * hidden);
+        int[] inputBiases = readShorts(buf, hidden);
+        int[] outputWeights = readShorts(buf, 2 * hidden);
+        return new NnueNetwork(hidden, inputWeights, inputBiases, outputWeights, buf.getInt());
+    }
+
+    /**
+     * Creates a network with small random weights: it plays nonsense, but exercises the
+     * whole pipeline (file, accumulators, kernels) when no trained network is at hand.
+     */
+    public static NnueNetwork random(int hidden, long seed) {
+        Random random = new Random(seed);
+        int[] inputWeights = new int[INPUTS * hidden];
+        for (int i = 0; i < inputWeights.length; i++) {
+            inputWeights[i] = random.nextInt(65) - 32;
+        }
+        int[] inputBiases = new int[hidden];
+        for (int i = 0; i < hidden; i++) {
+            inputBiases[i] = random.nextInt(QA);
+        }
+        int[] outputWeights = new int[2 * hidden];
+        for (int i = 0; i < outputWeights.length; i++) {
+            outputWeights[i] = random.nextInt(129) - 64;
+        }
+        return new NnueNetwork(hidden, inputWeights, inputBiases, outputWeights, 0);
+    }
+
+    /** Writes the network in the file format described above. */
+    public void write(Path file) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + 2 * (inputWeights.length + hidden + 2 * hidden) + 4);
+        buf.putInt(MAGIC).putInt(VERSION).putInt(hidden).putInt(0);
+        writeShorts(buf, inputWeights);
+        writeShorts(buf, inputBiases);
+        writeShorts(buf, outputWeights);
+        buf.putInt(outputBias);
+        Files.write(file, buf.array());
+    }
+
+    /** @return H, the size of each side's accumulator. */
+    public int getHiddenSize() {
+        return hidden;
+    }
+
+    /**
+     * @param perspective The side whose accumulator the feature belongs to
+     * @return Index of the piece's feature, 0 to 767
+     */
+    public static int feature(Color perspective, Color color, PieceType type, int square) {
+        int own = color == perspective ? 0 : 1;
+        int oriented = perspective == Color.WHITE ? square : square ^ 56;
+        return own * 384 + type.ordinal() * 64 + oriented;
+    }
+
+    // --- Read by NnueAccumulator ---
+
+    int[] getInputWeights() {
+        return inputWeights;
+    }
+
+    int[] getInputBiases() {
+        return inputBiases;
+    }
+
+    int[] getOutputWeights() {
+        return outputWeights;
+    }
+
+    int getOutputBias() {
+        return outputBias;
+    }
+
+    // --- Tool ---
+
+    /**
+     * Writes a random network, or checks a network against the board: plays random games
+     * with an attached {@link NnueAccumulator}, compares it after every move and take-back
+     * with one rebuilt from scratch, and times incremental against full evaluation.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 2 && args[0].equals("random")) {
+            int hidden = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+            long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+            random(hidden, seed).write(Paths.get(args[1]));
+            System.out.println("Wrote random " + INPUTS + " -> " + hidden + " x 2 -> 1 network to " + args[1]);
+            return;
+        }
+        if (args.length < 1) {
+            System.err.println("Usage: NnueNetwork <net.nnue> [games] | NnueNetwork random <out.nnue> [hidden] [seed]");
+            System.exit(1);
+        }
+        NnueNetwork network = load(Paths.get(args[0]));
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        System.out.println("Network " + INPUTS + " -> " + network.hidden + " x 2 -> 1, kernel " + NnueAccumulator.kernelName());
+
+        Random random = new Random(7);
+        ChessBoard board = ChessBoard.empty();
+        NnueAccumulator incremental = new NnueAccumulator(network);
+        incremental.attach(board);
+        NnueAccumulator rebuilt = new NnueAccumulator(network);
+        int[] moves = new int[ChessBoard.MAX_MOVES];
+        long positions = 0;
+        long mismatches = 0;
+        long incrementalNanos = 0;
+        long rebuildNanos = 0;
+        int sink = 0;
+        for (int game = 0; game < games; game++) {
+            Fen.setup(board, Fen.START_POSITION, false);
+            int plies = 0;
+            while (plies < 200) {
+                int count = board.generateLegalMoves(moves);
+                if (count == 0) break;
+                long start = System.nanoTime();
+                board.makeMove(moves[random.nextInt(count)]);
+                sink += incremental.evaluate(board.getCurrentTurn());
+                incrementalNanos += System.nanoTime() - start;
+                start = System.nanoTime();
+                rebuilt.refresh(board);
+                sink += rebuilt.evaluate(board.getCurrentTurn());
+                rebuildNanos += System.nanoTime() - start;
+                if (!incremental.matches(rebuilt)) mismatches++;
+                positions++;
+                plies++;
+            }
+            while (plies-- > 0) { // Take-backs must restore the accumulators exactly
+                board.unmakeMove();
+                rebuilt.refresh(board);
+                if (!incremental.matches(rebuilt)) mismatches++;
+            }
+        }
+        System.out.printf("%d positions, %d mismatches (checksum %d)%n", positions, mismatches, sink);
+        System.out.printf("make move + incremental evaluate %.0f ns, refresh + evaluate %.0f ns%n",
+            (double) incrementalNanos / positions, (double) rebuildNanos / positions);
+    }
+
+    // --- Internals ---
+
+    private static int[] readShorts(ByteBuffer buf, int count) {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = buf.getShort();
+        }
+        return values;
+    }
+
+    private static void writeShorts(ByteBuffer buf, int[] values) {
+        for (int value : values) {
+            buf.putShort((short) value);
+        }
+    }
+}
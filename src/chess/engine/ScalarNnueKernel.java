@@ -0,0 +1,37 @@
+package chess.engine;
+
+/**
+ * {@link NnueKernel} in plain Java loops (which the JIT may still auto-vectorize).
+ */
+final class ScalarNnueKernel implements NnueKernel {
+
+    @Override
+    public void add(int[] acc, int[] weights, int offset) {
+        for (int i = 0; i < acc.length; i++) {
+            acc[i] += weights[offset + i];
+        }
+    }
+
+    @Override
+    public void subtract(int[] acc, int[] weights, int offset) {
+        for (int i = 0; i < acc.length; i++) {
+            acc[i] -= weights[offset + i];
+        }
+    }
+
+    @Override
+    public int output(int[] us, int[] them, int[] weights) {
+        int hidden = us.length;
+        int sum = 0;
+        for (int i = 0; i < hidden; i++) {
+            sum += Math.min(Math.max(us[i], 0), NnueNetwork.QA) * weights[i];
+            sum += Math.min(Math.max(them[i], 0), NnueNetwork.QA) * weights[hidden + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,90 @@
+package chess.engine;
+
+import chess.core.Move;
+
+/**
+ * The result of one completed iteration of a search: score, principal variation and
+ * the work it took. Immutable.
+ */
+public final class SearchInfo {
+
+    private final int depth;
+    private final int score;
+    private final long nodes;
+    private final long timeMillis;
+    private final int[] pv;
+    private final int hashfull;
+    private final int multiPv;
+
+    public SearchInfo(int depth, int score, long nodes, long timeMillis, int[] pv, int hashfull) {
+        this(depth, score, nodes, timeMillis, pv, hashfull, 1);
+    }
+
+    /**
+     * @param multiPv Rank of the line among the root moves searched, 1 = best
+     */
+    public SearchInfo(int depth, int score, long nodes, long timeMillis, int[] pv, int hashfull, int multiPv) {
+        this.depth = depth;
+        this.score = score;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+        this.pv = pv;
+        this.hashfull = hashfull;
+        this.multiPv = multiPv;
+    }
+
+    /** @return The iteration depth in plies. */
+    public int getDepth() {
+        return depth;
+    }
+
+    /** @return Centipawns from the side to move, or a mate score (see {@link #isMate()}). */
+    public int getScore() {
+        return score;
+    }
+
+    /** @return true if the score announces a forced mate for either side. */
+    public boolean isMate() {
+        return Math.abs(score) >= Searcher.MATE_BOUND;
+    }
+
+    /** @return Moves to mate: positive if the side to move mates, negative if it gets mated. */
+    public int getMateIn() {
+        return score > 0 ? (Searcher.MATE - score + 1) / 2 : -(Searcher.MATE + score) / 2;
+    }
+
+    /** @return Nodes searched by all threads so far. */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /** @return Time since the search started. */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /** @return Nodes per second over the whole search. */
+    public long getNodesPerSecond() {
+        return timeMillis == 0 ? nodes * 1000 : nodes * 1000 / timeMillis;
+    }
+
+    /** @return Principal variation as packed moves; do not modify. */
+    public int[] getPv() {
+        return pv;
+    }
+
+    /** @return The first move of the principal variation, or {@link Move#NONE}. */
+    public int getBestMove() {
+        return pv.length > 0 ? pv[0] : Move.NONE;
+    }
+
+    /** @return Transposition table fill in per mille. */
+    public int getHashfull() {
+        return hashfull;
+    }
+
+    /** @return Rank of this line when several are searched (1 = the best line). */
+    public int getMultiPv() {
+        return multiPv;
+    }
+}
@@ -0,0 +1,118 @@
+package chess.engine;
+
+/**
+ * When a search has to stop: any combination of a depth, a node budget and a time
+ * budget. An unset limit (0) does not apply; with none set the search runs until stopped.
+ * The time budget is either fixed or comes from a clock (see {@link TimeManager}).
+ * Also how many best lines to report ("MultiPV", 1 by default), and whether the search
+ * ponders: thinks on the opponent's time, with the clock only running once
+ * {@link Engine#ponderHit()} says the expected move was played.
+ */
+public final class SearchLimits {
+
+    private int depth;
+    private long nodes;
+    private long moveTimeMillis;
+    private int multiPv = 1;
+    private long clockMillis;
+    private long incrementMillis;
+    private int movesToGo;
+    private long overheadMillis = TimeManager.DEFAULT_OVERHEAD_MILLIS;
+    private boolean ponder;
+
+    /** @return Limits that never stop the search on their own ("go infinite"). */
+    public static SearchLimits infinite() {
+        return new SearchLimits();
+    }
+
+    /** @return Limits that stop after the given iteration depth. */
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits().withDepth(depth);
+    }
+
+    /** @return Limits that stop after the given time. */
+    public static SearchLimits moveTime(long millis) {
+        return new SearchLimits().withMoveTime(millis);
+    }
+
+    public SearchLimits withDepth(int depth) {
+        this.depth = depth;
+        return this;
+    }
+
+    public SearchLimits withNodes(long nodes) {
+        this.nodes = nodes;
+        return this;
+    }
+
+    public SearchLimits withMoveTime(long millis) {
+        this.moveTimeMillis = millis;
+        return this;
+    }
+
+    /** Reports the best {@code lines} root moves with their own scores, instead of just the best one. */
+    public SearchLimits withMultiPv(int lines) {
+        this.multiPv = Math.max(1, lines);
+        return this;
+    }
+
+    /**
+     * Lets a {@link TimeManager} budget the move from the clock; ignored when a fixed
+     * move time is set.
+     * @param remainingMillis Time left on the engine's clock
+     * @param incrementMillis Time added per move
+     * @param movesToGo Moves until the next time control, or 0 for sudden death
+     */
+    public SearchLimits withClock(long remainingMillis, long incrementMillis, int movesToGo) {
+        this.clockMillis = remainingMillis;
+        this.incrementMillis = incrementMillis;
+        this.movesToGo = movesToGo;
+        return this;
+    }
+
+    /** Time kept back from clock budgets for delays outside the search. */
+    public SearchLimits withMoveOverhead(long millis) {
+        this.overheadMillis = Math.max(0, millis);
+        return this;
+    }
+
+    /** Searches on the opponent's time: no time limit applies until {@link Engine#ponderHit()}. */
+    public SearchLimits withPonder(boolean ponder) {
+        this.ponder = ponder;
+        return this;
+    }
+
+    /** @return Maximum iteration depth, or 0 for none. */
+    public int getDepth() {
+        return depth;
+    }
+
+    /** @return Maximum number of nodes over all threads, or 0 for none. */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /** @return Maximum thinking time in milliseconds, or 0 for none. */
+    public long getMoveTimeMillis() {
+        return moveTimeMillis;
+    }
+
+    /**
+     * @return A time manager for the clock, or null if there is no clock or a fixed move
+     *         time overrides it
+     */
+    public TimeManager createTimeManager() {
+        if (clockMillis <= 0 || moveTimeMillis > 0) return null;
+        return new TimeManager(clockMillis, incrementMillis, movesToGo, overheadMillis);
+    }
+
+    /** @return Whether the search starts out pondering. */
+    public boolean isPonder() {
+        return ponder;
+    }
+
+    /** @return Number of lines to report per iteration (at least 1). */
+    public int getMultiPv() {
+        return multiPv;
+    }
+}
@@ -0,0 +1,325 @@
+package chess.engine;
+
+import chess.core.ChessBoard;
+import chess.core.Fen;
+import chess.core.Move;
+import chess.core.Piece;
+import chess.core.PieceType;
+import chess.core.Position;
+import java.util.Arrays;
+
+/**
+ * Alpha-beta search of one thread over its own board.
+ * <p>
+ * Negamax with a transposition table, check extension, killer moves and a quiescence
+ * search over captures and promotions. Moves are tried in the order: table move,
+ * captures by MVV-LVA (most valuable victim, least valuable attacker), promotions,
+ * killers, the rest. Nothing is allocated per node: every ply has its own move and
+ * ordering buffer.
+ * <p>
+ * Several Searchers can share one {@link TranspositionTable} ("lazy SMP"): they search
+ * the same position independently and profit from each other's table entries.
+ */
+final class Searcher {
+
+    static final int MATE = 30000;
+    static final int MAX_PLY = 128;
+    /** Scores at or beyond this are mates (mate in at most MAX_PLY plies). */
+    static final int MATE_BOUND = MATE - MAX_PLY;
+    static final int INFINITY = MATE + 1;
+
+    private static final int CHECK_INTERVAL = 1023; // Limits are checked every 1024 nodes
+
+    private final Engine engine;
+    private final ChessBoard board;
+    private final TranspositionTable table;
+    private NnueAccumulator nnue; // Listens to the board while the engine has a network
+
+    private final int[][] moves = new int[MAX_PLY][ChessBoard.MAX_MOVES];
+    private final int[][] order = new int[MAX_PLY][ChessBoard.MAX_MOVES];
+    private final int[][] killers = new int[MAX_PLY][2];
+
+    private long nodes;
+    private int rootBestMove;
+    private int[] excludedRootMoves = new int[0]; // Multi-PV: lines already found this iteration
+    private int excludedCount;
+
+    Searcher(Engine engine, TranspositionTable table) {
+        this.engine = engine;
+        this.board = ChessBoard.empty();
+        this.table = table;
+    }
+
+    /**
+     * Prepares a new search, reusing the board and buffers.
+     * @param fen The start position
+     * @param played Moves played from it (replayed so that repetitions are seen)
+     * @param count Number of moves
+     */
+    void reset(String fen, int[] played, int count) {
+        NnueNetwork network = engine.getNetwork();
+        if (network == null) {
+            nnue = null;
+            board.setListener(null);
+        } else if (nnue == null || nnue.getNetwork() != network) {
+            nnue = new NnueAccumulator(network);
+            board.setListener(nnue); // Fen.setup below loads the pieces
+        }
+        Fen.setup(board, fen, engine.isChess960());
+        for (int i = 0; i < count; i++) {
+            board.makeMove(played[i]);
+        }
+        for (int[] pair : killers) {
+            Arrays.fill(pair, Move.NONE);
+        }
+        nodes = 0;
+    }
+
+    /** @return The board searched; between searches it holds the root position. */
+    ChessBoard getBoard() {
+        return board;
+    }
+
+    /** @return Nodes visited so far; read by other threads without synchronization. */
+    long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Searches the root to a fixed depth.
+     * @return The score, or {@link Integer#MIN_VALUE} if the search was stopped midway
+     */
+    int searchRoot(int depth) {
+        return searchRoot(depth, excludedRootMoves, 0);
+    }
+
+    /**
+     * Searches the root to a fixed depth without some of the root moves, to find the
+     * next best line for multi-PV.
+     * @param excluded Root moves to leave out
+     * @param count Number of moves to use from the array
+     * @return The score, or {@link Integer#MIN_VALUE} if the search was stopped midway
+     */
+    int searchRoot(int depth, int[] excluded, int count) {
+        rootBestMove = Move.NONE;
+        excludedRootMoves = excluded;
+        excludedCount = count;
+        int score = search(depth, -INFINITY, INFINITY, 0);
+        excludedCount = 0;
+        return engine.isStopped() ? Integer.MIN_VALUE : score;
+    }
+
+    /** @return The best move found by the last {@link #searchRoot} call. */
+    int getRootBestMove() {
+        return rootBestMove;
+    }
+
+    /**
+     * Follows the table moves from the root.
+     * @param first The root move (the table entry may have been overwritten by now)
+     */
+    int[] principalVariation(int first, int maxLength) {
+        int[] pv = new int[maxLength];
+        int length = 0;
+        int move = first;
+        while (length < maxLength && move != Move.NONE && board.findLegalMove(move) == move) {
+            pv[length++] = move;
+            board.makeMove(move);
+            if (board.isRepetition()) break;
+            move = TranspositionTable.move(table.probe(board.getZobristHash()));
+        }
+        for (int i = 0; i < length; i++) {
+            board.unmakeMove();
+        }
+        return Arrays.copyOf(pv, length);
+    }
+
+    private int search(int depth, int alpha, int beta, int ply) {
+        if ((++nodes & CHECK_INTERVAL) == 0) engine.checkLimits();
+        if (engine.isStopped()) return 0;
+
+        if (ply > 0 && isDraw()) return 0;
+        if (ply >= MAX_PLY - 1) return evaluate();
+
+        boolean inCheck = board.isKingInCheck(board.getCurrentTurn());
+        if (inCheck) depth++;
+        if (depth <= 0) return quiesce(alpha, beta, ply);
+
+        // --- Transposition table ---
+        long hash = board.getZobristHash();
+        long entry = table.probe(hash);
+        int tableMove = Move.NONE;
+        if (entry != 0) {
+            tableMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                    || (bound == TranspositionTable.LOWER && score >= beta)
+                    || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        int[] list = moves[ply];
+        int count = board.generateLegalMoves(list);
+        if (count == 0) return inCheck ? -MATE + ply : 0;
+        scoreMoves(list, count, ply, tableMove);
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = Move.NONE;
+        for (int i = 0; i < count; i++) {
+            int move = pickNext(list, order[ply], i, count);
+            if (ply == 0 && excludedCount > 0 && isExcluded(move)) continue;
+            boolean quiet = isQuiet(move);
+            board.makeMove(move);
+            int score = -search(depth - 1, -beta, -alpha, ply + 1);
+            board.unmakeMove();
+            if (engine.isStopped()) return 0;
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (ply == 0) rootBestMove = move;
+                if (score > alpha) alpha = score;
+            }
+            if (alpha >= beta) {
+                if (quiet) addKiller(move, ply);
+                break;
+            }
+        }
+
+        // A root searched without some moves must not teach the table a worse best move
+        if (ply > 0 || excludedCount == 0) {
+            int bound = bestScore >= beta ? TranspositionTable.LOWER
+                : bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+            table.store(hash, bestMove, toTable(bestScore, ply), depth, bound);
+        }
+        return bestScore;
+    }
+
+    private boolean isExcluded(int move) {
+        for (int i = 0; i < excludedCount; i++) {
+            if (excludedRootMoves[i] == move) return true;
+        }
+        return false;
+    }
+
+    // A network's score is kept clear of the mate range, whatever its weights
+    private int evaluate() {
+        if (nnue == null) return Evaluator.evaluate(board);
+        return Math.max(-MATE_BOUND + 1, Math.min(nnue.evaluate(board.getCurrentTurn()), MATE_BOUND - 1));
+    }
+
+    // Captures and promotions only, until the position is quiet
+    private int quiesce(int alpha, int beta, int ply) {
+        if ((++nodes & CHECK_INTERVAL) == 0) engine.checkLimits();
+        if (engine.isStopped()) return 0;
+
+        int standPat = evaluate();
+        if (standPat >= beta || ply >= MAX_PLY - 1) return standPat;
+        if (standPat > alpha) alpha = standPat;
+
+        int[] list = moves[ply];
+        int count = board.generateLegalMoves(list);
+        int tactical = 0;
+        for (int i = 0; i < count; i++) {
+            if (!isQuiet(list[i])) list[tactical++] = list[i];
+        }
+        scoreMoves(list, tactical, ply, Move.NONE);
+
+        for (int i = 0; i < tactical; i++) {
+            int move = pickNext(list, order[ply], i, tactical);
+            board.makeMove(move);
+            int score = -quiesce(-beta, -alpha, ply + 1);
+            board.unmakeMove();
+            if (engine.isStopped()) return 0;
+
+            if (score >= beta) return score;
+            if (score > alpha) alpha = score;
+        }
+        return alpha;
+    }
+
+    private boolean isDraw() {
+        return board.getHalfmoveClock() >= 100 || board.isRepetition() || board.isInsufficientMaterial();
+    }
+
+    // --- Move ordering ---
+
+    private void scoreMoves(int[] list, int count, int ply, int tableMove) {
+        int[] scores = order[ply];
+        for (int i = 0; i < count; i++) {
+            int move = list[i];
+            int score;
+            if (move == tableMove) {
+                score = 1_000_000;
+            } else if (isCapture(move)) {
+                Piece attacker = board.getPiece(Position.of(Move.from(move)));
+                score = 100_000 + victimValue(move) * 10 - Evaluator.PIECE_VALUES[attacker.getType().ordinal()] / 100;
+            } else if (Move.promotion(move) != null) {
+                score = 90_000 + Evaluator.PIECE_VALUES[Move.promotion(move).ordinal()];
+            } else if (move == killers[ply][0]) {
+                score = 80_000;
+            } else if (move == killers[ply][1]) {
+                score = 70_000;
+            } else {
+                score = 0;
+            }
+            scores[i] = score;
+        }
+    }
+
+    // Selection sort step: swaps the best remaining move into index and returns it
+    private static int pickNext(int[] list, int[] scores, int index, int count) {
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (scores[i] > scores[best]) best = i;
+        }
+        int move = list[best];
+        list[best] = list[index];
+        list[index] = move;
+        int score = scores[best];
+        scores[best] = scores[index];
+        scores[index] = score;
+        return move;
+    }
+
+    private void addKiller(int move, int ply) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+    }
+
+    // Chess960 castling moves the King onto its own Rook: not a capture
+    private boolean isCapture(int move) {
+        if (Move.isEnPassant(move)) return true;
+        return !Move.isCastling(move) && board.getPiece(Position.of(Move.to(move))) != null;
+    }
+
+    private boolean isQuiet(int move) {
+        return !isCapture(move) && Move.promotion(move) == null;
+    }
+
+    private int victimValue(int move) {
+        if (Move.isEnPassant(move)) return Evaluator.PIECE_VALUES[PieceType.PAWN.ordinal()];
+        return Evaluator.PIECE_VALUES[board.getPiece(Position.of(Move.to(move))).getType().ordinal()];
+    }
+
+    // --- Mate scores are stored relative to the node, not the root ---
+
+    private static int toTable(int score, int ply) {
+        if (score >= MATE_BOUND) return score + ply;
+        if (score <= -MATE_BOUND) return score - ply;
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE_BOUND) return score - ply;
+        if (score <= -MATE_BOUND) return score + ply;
+        return score;
+    }
+}
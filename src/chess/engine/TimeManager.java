@@ -0,0 +1,86 @@
+package chess.engine;
+
+/**
+ * Decides how long one move may take when the engine plays under a clock.
+ * <p>
+ * Two budgets come from the remaining time, the increment and the moves left until
+ * the next time control (an estimate of {@value #DEFAULT_MOVES_TO_GO} for sudden death):
+ * <ul>
+ *   <li>the optimum, an even share of the time plus most of the increment, which a
+ *       calm search should use;</li>
+ *   <li>the maximum, a hard deadline several optima long (but never more than a fifth
+ *       of the clock), for positions where the search keeps changing its mind.</li>
+ * </ul>
+ * After every iteration {@link #shouldStop} weighs the optimum by how unstable the
+ * search is: each change of the best move raises the budget (the effect fades over
+ * the next iterations), as does a score that fell against the last iteration. A new
+ * iteration is only started when it can be expected to finish within that budget.
+ * <p>
+ * The move overhead is kept back from every budget for the time lost between engine
+ * and clock (process, GUI, network). One instance per search; not thread-safe.
+ */
+public final class TimeManager {
+
+    public static final int DEFAULT_MOVES_TO_GO = 30;
+    public static final long DEFAULT_OVERHEAD_MILLIS = 30;
+
+    private static final int MAX_MOVES_TO_GO = 50;
+    private static final int MAXIMUM_FACTOR = 5;        // maximum = optimum * 5 ...
+    private static final int MAXIMUM_CLOCK_SHARE = 5;   // ... but at most remaining / 5
+    private static final int SCORE_DROP = 30;           // Centipawns that count as a fall
+
+    private final long optimumMillis;
+    private final long maximumMillis;
+
+    private int lastBestMove;
+    private int lastScore;
+    private double instability; // Best move changes, fading by half per iteration
+    private int iterations;
+
+    /**
+     * @param remainingMillis Time left on the engine's clock
+     * @param incrementMillis Time added per move
+     * @param movesToGo Moves until the next time control, or 0 for sudden death
+     * @param overheadMillis Time lost per move outside the search
+     */
+    public TimeManager(long remainingMillis, long incrementMillis, int movesToGo, long overheadMillis) {
+        long usable = Math.max(1, remainingMillis - overheadMillis);
+        int moves = movesToGo > 0 ? Math.min(movesToGo, MAX_MOVES_TO_GO) : DEFAULT_MOVES_TO_GO;
+        // With one move to go all of it may be spent; otherwise keep some for the rest
+        long optimum = usable / (moves == 1 ? 1 : moves + 1) + incrementMillis * 3 / 4;
+        long maximum = moves == 1 ? usable : Math.min(optimum * MAXIMUM_FACTOR, usable / MAXIMUM_CLOCK_SHARE + incrementMillis);
+        this.maximumMillis = Math.max(1, Math.min(maximum, usable));
+        this.optimumMillis = Math.max(1, Math.min(optimum, maximumMillis));
+    }
+
+    /** @return The time a stable search should take. */
+    public long getOptimumMillis() {
+        return optimumMillis;
+    }
+
+    /** @return The hard limit: the search is stopped here even midway through an iteration. */
+    public long getMaximumMillis() {
+        return maximumMillis;
+    }
+
+    /**
+     * Called after every completed iteration.
+     * @param elapsedMillis Time searched so far
+     * @param bestMove The iteration's best move
+     * @param score Its score for the side to move
+     * @return true if the next iteration should not be started
+     */
+    public boolean shouldStop(long elapsedMillis, int bestMove, int score) {
+        instability /= 2;
+        if (iterations > 0 && bestMove != lastBestMove) instability += 1;
+        double factor = 1 + instability;
+        if (iterations > 0 && score <= lastScore - SCORE_DROP) factor *= 1.5;
+        lastBestMove = bestMove;
+        lastScore = score;
+        iterations++;
+
+        long budget = Math.min((long) (optimumMillis * factor), maximumMillis);
+        // The next iteration takes about as long as all before it together, or longer
+        return elapsedMillis * 2 > budget;
+    }
+}
@@ -0,0 +1,331 @@
+package chess.engine;
+
+import chess.core.ChessBoard;
+import chess.core.Color;
+import chess.core.Fen;
+import chess.core.GameStatus;
+import chess.core.Move;
+import chess.core.Notation;
+import chess.util.PgnReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Self-play match between two engine settings ("A" and "B", each a node budget per
+ * move), for measuring strength and throughput regressions.
+ * <p>
+ * Games run concurrently, one per worker thread; every worker owns its two Engines
+ * and its board, so nothing is shared between games. Each opening is played twice with
+ * colors reversed. Openings come from a file (one FEN per line, or the first
+ * {@link #OPENING_PLIES} plies of every game of a .pgn file) in shuffled order, or, without
+ * a file, from random legal moves out of the start position.
+ * <p>
+ * Besides the rules (mate, stalemate, repetition, fifty moves, material) games are
+ * adjudicated: a loss once both engines agree for {@link #RESIGN_MOVES} moves that one
+ * side is down {@link #RESIGN_SCORE} centipawns, a draw once both scores stay within
+ * {@link #DRAW_SCORE} for {@link #DRAW_MOVES} moves after move {@link #DRAW_MIN_MOVE}, and a
+ * draw at {@link #MAX_PLIES}. The report gives A's Elo difference with a 95% error margin,
+ * the aggregate nodes per second of all workers and games per minute.
+ * <p>
+ * Usage: {@code java chess.engine.Tournament [games] [nodesA] [nodesB] [workers] [openings.fen|.pgn]}
+ * (defaults: 100 games, 20000 vs 10000 nodes, one worker per core, random openings).
+ */
+public class Tournament {
+
+    public static final int OPENING_PLIES = 8;
+    private static final int RANDOM_OPENING_PLIES = 4;
+
+    public static final int RESIGN_SCORE = 1000;
+    public static final int RESIGN_MOVES = 4;
+    public static final int DRAW_SCORE = 10;
+    public static final int DRAW_MOVES = 8;
+    public static final int DRAW_MIN_MOVE = 40;
+    public static final int MAX_PLIES = 400;
+
+    private static final int HASH_MB = 8; // Per engine; two engines per worker
+    private static final double SCORE_EPSILON = 1e-6; // Keeps Elo interval bounds finite
+
+    private final SearchLimits limitsA;
+    private final SearchLimits limitsB;
+    private final List<String> openings;
+
+    // Results from A's point of view
+    private final LongAdder wins = new LongAdder();
+    private final LongAdder draws = new LongAdder();
+    private final LongAdder losses = new LongAdder();
+    private final LongAdder adjudicated = new LongAdder();
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder plies = new LongAdder();
+
+    /**
+     * @param limitsA Search limits per move of engine A
+     * @param limitsB Search limits per move of engine B
+     * @param openings Start positions as FEN; game pair i uses openings[i % size]
+     */
+    public Tournament(SearchLimits limitsA, SearchLimits limitsB, List<String> openings) {
+        if (openings.isEmpty()) throw new IllegalArgumentException("No openings");
+        this.limitsA = limitsA;
+        this.limitsB = limitsB;
+        this.openings = openings;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        long nodesA = args.length > 1 ? Long.parseLong(args[1]) : 20_000;
+        long nodesB = args.length > 2 ? Long.parseLong(args[2]) : 10_000;
+        int workers = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        List<String> openings = args.length > 4
+            ? loadOpenings(Paths.get(args[4]), new Random(1))
+            : randomOpenings((games + 1) / 2, new SplittableRandom(1));
+
+        System.out.printf("A: %,d nodes/move, B: %,d nodes/move, %d games, %d workers, %d openings%n",
+            nodesA, nodesB, games, workers, openings.size());
+        Tournament tournament = new Tournament(new SearchLimits().withNodes(nodesA),
+            new SearchLimits().withNodes(nodesB), openings);
+        tournament.run(games, workers);
+    }
+
+    /** Plays the games and prints progress and the final report. */
+    public void run(int games, int workers) throws InterruptedException {
+        AtomicInteger nextGame = new AtomicInteger();
+        AtomicInteger finished = new AtomicInteger();
+        long start = System.nanoTime();
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        List<Future<?>> running = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            running.add(pool.submit(() -> {
+                Engine engineA = newEngine();
+                Engine engineB = newEngine();
+                int game;
+                while ((game = nextGame.getAndIncrement()) < games) {
+                    playGame(game, engineA, engineB);
+                    int done = finished.incrementAndGet();
+                    if (done % Math.max(1, games / 10) == 0 && done < games) {
+                        System.out.printf("  %d/%d games: %s%n", done, games, score());
+                    }
+                }
+                engineA.shutdown();
+                engineB.shutdown();
+            }));
+        }
+        try {
+            for (Future<?> worker : running) {
+                worker.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Game failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(report(seconds));
+    }
+
+    /**
+     * Plays one game; even games give A the white pieces, odd games replay the same
+     * opening with colors reversed.
+     */
+    void playGame(int game, Engine engineA, Engine engineB) {
+        String fen = openings.get((game / 2) % openings.size());
+        boolean aIsWhite = game % 2 == 0;
+        engineA.newGame();
+        engineB.newGame();
+
+        ChessBoard board = Fen.parse(fen);
+        int[] moves = new int[MAX_PLIES];
+        int count = 0;
+        int resignStreak = 0;
+        boolean resignWhiteWins = false;
+        int drawStreak = 0;
+        double resultForWhite = 0.5;
+
+        while (true) {
+            GameStatus status = board.getGameStatus();
+            if (status == GameStatus.CHECKMATE) {
+                resultForWhite = board.getCurrentTurn() == Color.WHITE ? 0 : 1;
+                break;
+            }
+            if (status.isGameOver() || count == MAX_PLIES) break;
+
+            boolean whiteToMove = board.getCurrentTurn() == Color.WHITE;
+            boolean aToMove = whiteToMove == aIsWhite;
+            SearchInfo info = (aToMove ? engineA : engineB).search(fen, moves, count,
+                aToMove ? limitsA : limitsB, null);
+            nodes.add(info.getNodes());
+            int move = info.getBestMove();
+            if (move == Move.NONE) break;
+
+            // --- Adjudication (scores are from the side to move) ---
+            int score = info.getScore();
+            boolean whiteWins = (score > 0) == whiteToMove;
+            if (Math.abs(score) < RESIGN_SCORE) {
+                resignStreak = 0;
+            } else {
+                resignStreak = resignStreak > 0 && whiteWins == resignWhiteWins ? resignStreak + 1 : 1;
+                resignWhiteWins = whiteWins;
+            }
+            if (resignStreak >= 2 * RESIGN_MOVES) { // Both engines, RESIGN_MOVES moves each
+                resultForWhite = whiteWins ? 1 : 0;
+                adjudicated.increment();
+                break;
+            }
+            drawStreak = board.getFullmoveNumber() >= DRAW_MIN_MOVE && Math.abs(score) <= DRAW_SCORE ? drawStreak + 1 : 0;
+            if (drawStreak >= 2 * DRAW_MOVES) {
+                adjudicated.increment();
+                break;
+            }
+
+            board.makeMove(move);
+            moves[count++] = move;
+        }
+
+        plies.add(count);
+        double resultForA = aIsWhite ? resultForWhite : 1 - resultForWhite;
+        if (resultForA == 1) {
+            wins.increment();
+        } else if (resultForA == 0) {
+            losses.increment();
+        } else {
+            draws.increment();
+        }
+    }
+
+    // --- Report ---
+
+    private String score() {
+        long w = wins.sum();
+        long d = draws.sum();
+        long l = losses.sum();
+        long n = w + d + l;
+        double points = w + d / 2.0;
+        String elo;
+        if (n == 0) {
+            elo = "";
+        } else if (points == 0 || points == n) { // A clean sweep has no finite Elo estimate
+            elo = " Elo undefined";
+        } else {
+            elo = String.format(" Elo %+.1f +/- %.1f", eloDifference(points / n), eloMargin(w, d, l));
+        }
+        return String.format("+%d =%d -%d (%.1f%%)%s", w, d, l, n == 0 ? 0 : 100 * points / n, elo);
+    }
+
+    private String report(double seconds) {
+        long games = wins.sum() + draws.sum() + losses.sum();
+        return String.format("Result A vs B: %s%n", score())
+            + String.format("Games: %d (%d adjudicated), %.1f plies/game%n", games, adjudicated.sum(),
+                games == 0 ? 0 : (double) plies.sum() / games)
+            + String.format("Throughput: %,.0f nodes/sec (all workers), %.1f games/min, %.1f s",
+                nodes.sum() / seconds, games * 60 / seconds, seconds);
+    }
+
+    /**
+     * @param score Points per game, 0..1
+     * @return The Elo difference that predicts this score (infinite at 0 or 1)
+     */
+    public static double eloDifference(double score) {
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    /**
+     * Half the width of the 95% confidence interval of the Elo difference, from the
+     * standard error of the per-game score (1, 1/2 or 0).
+     */
+    public static double eloMargin(long wins, long draws, long losses) {
+        long n = wins + draws + losses;
+        if (n < 2) return Double.POSITIVE_INFINITY;
+        double mean = (wins + draws / 2.0) / n;
+        double variance = (wins * sq(1 - mean) + draws * sq(0.5 - mean) + losses * sq(mean)) / n;
+        double error = Math.sqrt(variance / n) * 1.96;
+        // Both bounds stay inside (0, 1), where the Elo difference is finite
+        double low = clampScore(mean - error);
+        double high = clampScore(mean + error);
+        return (eloDifference(high) - eloDifference(low)) / 2;
+    }
+
+    private static double clampScore(double score) {
+        return Math.min(Math.max(score, SCORE_EPSILON), 1 - SCORE_EPSILON);
+    }
+
+    private static double sq(double x) {
+        return x * x;
+    }
+
+    // --- Openings ---
+
+    /**
+     * Loads openings from a file: a .pgn file contributes the position after the first
+     * {@link #OPENING_PLIES} plies of each game, any other file one FEN (or EPD) per line.
+     * @return The openings in shuffled order
+     */
+    public static List<String> loadOpenings(Path file, Random random) throws IOException {
+        List<String> openings = new ArrayList<>();
+        if (file.toString().toLowerCase().endsWith(".pgn")) {
+            try (PgnReader reader = new PgnReader(Files.newBufferedReader(file, StandardCharsets.ISO_8859_1))) {
+                PgnReader.Game game;
+                while ((game = reader.next()) != null) {
+                    String start = game.getTag("FEN");
+                    ChessBoard board = Fen.parse(start != null ? start : Fen.START_POSITION);
+                    int length = Math.min(OPENING_PLIES, game.getMoves().size());
+                    int ply = 0;
+                    while (ply < length) {
+                        int move = Notation.parseSan(board, game.getMoves().get(ply));
+                        if (move == Move.NONE) break;
+                        board.makeMove(move);
+                        ply++;
+                    }
+                    if (ply == length) openings.add(Fen.toFen(board));
+                }
+            }
+        } else {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                String[] fields = line.trim().split("\\s+");
+                if (fields.length < 4 || line.startsWith("#")) continue;
+                // EPD lines carry operations instead of the clocks; then only the position fields are kept
+                boolean clocks = fields.length >= 6 && fields[4].matches("\\d+") && fields[5].matches("\\d+");
+                String fen = String.join(" ", Arrays.copyOf(fields, clocks ? 6 : 4));
+                Fen.parse(fen); // Fail early on a bad line
+                openings.add(fen);
+            }
+        }
+        if (openings.isEmpty()) throw new IllegalArgumentException("No openings in " + file);
+        Collections.shuffle(openings, random);
+        return openings;
+    }
+
+    /** @return Positions after a few random legal plies from the start, none of them over. */
+    public static List<String> randomOpenings(int count, SplittableRandom random) {
+        List<String> openings = new ArrayList<>();
+        int[] moves = new int[ChessBoard.MAX_MOVES];
+        while (openings.size() < count) {
+            ChessBoard board = new ChessBoard();
+            for (int ply = 0; ply < RANDOM_OPENING_PLIES; ply++) {
+                int n = board.generateLegalMoves(moves);
+                board.makeMove(moves[random.nextInt(n)]); // Never runs out this early
+            }
+            if (!board.getGameStatus().isGameOver()) openings.add(Fen.toFen(board));
+        }
+        return openings;
+    }
+
+    private static Engine newEngine() {
+        return new Engine(HASH_MB);
+    }
+}
@@ -0,0 +1,119 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+/**
+ * Shared hash table of search results, keyed by Zobrist hash.
+ * <p>
+ * One entry is two longs: the key XOR the data, and the data. Threads read and write
+ * entries without locks; a torn entry (key from one write, data from another) fails the
+ * XOR check and is treated as a miss, which is all a search needs.
+ * <p>
+ * Data layout:
+ * <pre>
+ *   bits  0..19  best move (packed, see chess.core.Move)
+ *   bits 20..35  score + 32768
+ *   bits 36..43  depth
+ *   bits 44..45  bound (EXACT, LOWER, UPPER)
+ *   bit  46      always set, so a stored entry is never 0
+ * </pre>
+ */
+public final class TranspositionTable {
+
+    public static final int EXACT = 0;
+    public static final int LOWER = 1; // Score is at least this (fail high)
+    public static final int UPPER = 2; // Score is at most this (fail low)
+
+    private static final long PRESENT = 1L << 46;
+
+    private long[] keys;
+    private long[] data;
+    private int mask;
+
+    /**
+     * @param megabytes Table size; rounded down to a power of two number of entries
+     */
+    public TranspositionTable(int megabytes) {
+        resize(megabytes);
+    }
+
+    /** Reallocates the table (dropping all entries) for a new size in megabytes. */
+    public void resize(int megabytes) {
+        long entries = Math.max(1024, (long) megabytes * 1024 * 1024 / 16);
+        int size = Integer.highestOneBit((int) Math.min(entries, 1 << 30));
+        keys = new long[size];
+        data = new long[size];
+        mask = size - 1;
+    }
+
+    /** Forgets all entries, e.g. for a new game. */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(data, 0);
+    }
+
+    /**
+     * @param hash Position hash
+     * @return The entry's data, or 0 if the position is not stored
+     */
+    public long probe(long hash) {
+        int i = (int) hash & mask;
+        long entry = data[i];
+        return (keys[i] ^ entry) == hash ? entry : 0;
+    }
+
+    /**
+     * Stores a result. An entry for the same position is only replaced by an equally
+     * deep or deeper search and keeps its move if the new result has none; entries for
+     * other positions are always replaced.
+     */
+    public void store(long hash, int move, int score, int depth, int bound) {
+        int i = (int) hash & mask;
+        long old = data[i];
+        if ((keys[i] ^ old) == hash) {
+            if (depth(old) > depth) return;
+            if (move == 0) move = move(old);
+        }
+
+        long entry = (move & 0xFFFFFL)
+            | ((long) (score + 32768) & 0xFFFF) << 20
+            | ((long) Math.min(depth, 255)) << 36
+            | ((long) bound) << 44
+            | PRESENT;
+        data[i] = entry;
+        keys[i] = hash ^ entry;
+    }
+
+    /** @return Number of entries. */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /** @return Entries in use per thousand, sampled from the first 1000 slots (UCI "hashfull"). */
+    public int hashfull() {
+        int used = 0;
+        int sample = Math.min(1000, data.length);
+        for (int i = 0; i < sample; i++) {
+            if (data[i] != 0) used++;
+        }
+        return used * 1000 / sample;
+    }
+
+    // --- Decoding entry data ---
+
+    public static int move(long entry) {
+        return (int) (entry & 0xFFFFF);
+    }
+
+    public static int score(long entry) {
+        return (int) ((entry >>> 20) & 0xFFFF) - 32768;
+    }
+
+    public static int depth(long entry) {
+        return (int) ((entry >>> 36) & 0xFF);
+    }
+
+    public static int bound(long entry) {
+        return (int) ((entry >>> 44) & 0x3);
+    }
+}
@@ -0,0 +1,359 @@
+package chess.engine;
+
+import chess.core.ChessBoard;
+import chess.core.Color;
+import chess.core.Fen;
+import chess.core.Move;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * UCI (Universal Chess Interface) front-end: reads commands from stdin and answers on
+ * stdout, so the engine can be driven by chess GUIs and benchmark harnesses
+ * (cutechess-cli, fastchess, ...).
+ * <p>
+ * Supported: {@code uci}, {@code isready}, {@code ucinewgame},
+ * {@code setoption name Hash|Threads|MultiPV value N}, {@code setoption name UCI_Chess960 value true|false},
+ * {@code setoption name EvalFile value <net.nnue>} (an {@link NnueNetwork}; {@code <empty>} for the built-in evaluation),
+ * {@code position startpos|fen ... [moves ...]},
+ * {@code setoption name Move Overhead value MS},
+ * {@code go [depth N] [nodes N] [movetime MS] [wtime MS btime MS winc MS binc MS movestogo N] [infinite] [ponder]},
+ * {@code ponderhit}, {@code stop} and {@code quit}. Every completed iteration is reported as
+ * {@code info depth .. [multipv K] score .. nodes .. nps .. time .. hashfull .. pv ..}.
+ * <p>
+ * Clock times are budgeted by a {@link TimeManager}. With {@code go ponder} the engine
+ * thinks on the opponent's time; {@code ponderhit} turns that search into the real one,
+ * with the clock starting then. {@code bestmove} names the expected reply as {@code ponder}.
+ * <p>
+ * The search runs on its own thread so that {@code stop} is read while it thinks.
+ * Commands are parsed by {@link UciTokenizer} without allocation; only FEN strings and
+ * option names become Strings.
+ * <p>
+ * Run with {@code java chess.engine.UciEngine}.
+ */
+public class UciEngine {
+
+    private static final String NAME = "Java Chess";
+    private static final int MAX_HASH_MB = 4096;
+    private static final int MAX_MULTI_PV = 256;
+    private static final int MAX_MOVE_OVERHEAD = 5000;
+
+    private final UciTokenizer input;
+    private final PrintStream out;
+    private final Engine engine = new Engine();
+
+    // Current position: start FEN plus the (flagged) moves played from it, mirrored on board
+    private String positionFen = Fen.START_POSITION;
+    private int[] positionMoves = new int[256];
+    private int moveCount;
+    private ChessBoard board = Fen.parse(Fen.START_POSITION);
+
+    private Thread searchThread;
+    private volatile boolean stopRequested;
+    private volatile boolean waitingForStop; // "go infinite": bestmove only after "stop"
+    private volatile boolean pondering;      // "go ponder": bestmove only after "ponderhit" or "stop"
+    private int multiPv = 1;
+    private long moveOverhead = TimeManager.DEFAULT_OVERHEAD_MILLIS;
+    private final StringBuilder line = new StringBuilder(256); // Reused for info lines
+
+    public UciEngine(UciTokenizer input, PrintStream out) {
+        this.input = input;
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        new UciEngine(new UciTokenizer(System.in), System.out).run();
+    }
+
+    /**
+     * Processes commands until "quit" or the end of the input; at the end of the input a
+     * running search (unless infinite) is allowed to finish, so piped scripts work.
+     */
+    public void run() throws IOException {
+        boolean quit = false;
+        try {
+            while (input.nextLine()) {
+                input.next();
+                if (input.is("uci")) {
+                    send("id name " + NAME);
+                    send("id author Java Chess contributors");
+                    send("option name Hash type spin default " + Engine.DEFAULT_HASH_MB + " min 1 max " + MAX_HASH_MB);
+                    send("option name Threads type spin default 1 min 1 max " + Engine.MAX_THREADS);
+                    send("option name UCI_Chess960 type check default false");
+                    send("option name MultiPV type spin default 1 min 1 max " + MAX_MULTI_PV);
+                    send("option name EvalFile type string default <empty>");
+                    send("option name Ponder type check default false");
+                    send("option name Move Overhead type spin default " + TimeManager.DEFAULT_OVERHEAD_MILLIS
+                        + " min 0 max " + MAX_MOVE_OVERHEAD);
+                    send("uciok");
+                } else if (input.is("isready")) {
+                    send("readyok");
+                } else if (input.is("ucinewgame")) {
+                    stopSearch();
+                    engine.newGame();
+                } else if (input.is("setoption")) {
+                    stopSearch();
+                    setOption();
+                } else if (input.is("position")) {
+                    stopSearch();
+                    position();
+                } else if (input.is("go")) {
+                    stopSearch();
+                    go();
+                } else if (input.is("ponderhit")) {
+                    ponderHit();
+                } else if (input.is("stop")) {
+                    stopSearch();
+                } else if (input.is("quit")) {
+                    quit = true;
+                    break;
+                }
+                // Unknown commands are ignored, as the protocol asks
+            }
+        } finally {
+            if (!quit) awaitSearch();
+            stopSearch();
+            engine.shutdown();
+        }
+    }
+
+    // --- Commands ---
+
+    // setoption name <id> [value <x>]
+    private void setOption() {
+        if (!input.next() || !input.is("name") || !input.next()) return;
+        String name = input.textUntil("value");
+        if (!input.is("value") || !input.next()) return;
+
+        if (name.equalsIgnoreCase("Hash")) {
+            engine.setHashMegabytes(Math.max(1, Math.min(input.intValue(), MAX_HASH_MB)));
+        } else if (name.equalsIgnoreCase("Threads")) {
+            engine.setThreads(input.intValue());
+        } else if (name.equalsIgnoreCase("MultiPV")) {
+            multiPv = Math.max(1, Math.min(input.intValue(), MAX_MULTI_PV));
+        } else if (name.equalsIgnoreCase("UCI_Chess960")) {
+            engine.setChess960(input.is("true"));
+            // Castling moves are encoded differently now; GUIs send the position again
+            board = Fen.parse(positionFen, engine.isChess960());
+            moveCount = 0;
+        } else if (name.equalsIgnoreCase("Move Overhead")) {
+            moveOverhead = Math.max(0, Math.min(input.intValue(), MAX_MOVE_OVERHEAD));
+        } else if (name.equalsIgnoreCase("Ponder")) {
+            // Only tells whether the GUI will send "go ponder"; nothing to prepare
+        } else if (name.equalsIgnoreCase("EvalFile")) {
+            loadNetwork(input.text());
+        } else {
+            send("info string unknown option " + name);
+        }
+    }
+
+    private void loadNetwork(String file) {
+        if (file.equals("<empty>")) {
+            engine.setNetwork(null);
+            return;
+        }
+        try {
+            NnueNetwork network = NnueNetwork.load(Paths.get(file));
+            engine.setNetwork(network);
+            send("info string loaded network " + file + " (" + network.getHiddenSize() + " hidden, "
+                + NnueAccumulator.kernelName() + " kernel)");
+        } catch (IOException | InvalidPathException e) {
+            send("info string cannot load network: " + e.getClass().getSimpleName() + " " + e.getMessage());
+        }
+    }
+
+    // position startpos|fen <fen> [moves <m1> ...]; when only moves were appended to the
+    // previous position (the usual case during a game), just those are played
+    private void position() {
+        if (!input.next()) return;
+        String fen;
+        if (input.is("startpos")) {
+            fen = Fen.START_POSITION;
+            input.next();
+        } else if (input.is("fen") && input.next()) {
+            fen = input.textUntil("moves");
+        } else {
+            return;
+        }
+
+        if (!fen.equals(positionFen)) {
+            try {
+                board = Fen.parse(fen, engine.isChess960());
+            } catch (IllegalArgumentException e) {
+                send("info string invalid fen: " + e.getMessage());
+                return;
+            }
+            positionFen = fen;
+            moveCount = 0;
+        }
+
+        int played = 0; // Moves of the command matched or played so far
+        if (input.is("moves")) {
+            while (input.next()) {
+                int move = input.move();
+                if (played < moveCount && Move.withoutFlags(positionMoves[played]) == move) {
+                    played++;
+                    continue;
+                }
+                rewindTo(played);
+                int legal = move == Move.NONE ? Move.NONE : board.findLegalMove(move);
+                if (legal == Move.NONE) {
+                    send("info string illegal move " + input.text());
+                    return;
+                }
+                board.makeMove(legal);
+                if (moveCount == positionMoves.length) positionMoves = Arrays.copyOf(positionMoves, moveCount * 2);
+                positionMoves[moveCount++] = legal;
+                played++;
+            }
+        }
+        rewindTo(played);
+    }
+
+    private void rewindTo(int count) {
+        while (moveCount > count) {
+            board.unmakeMove();
+            moveCount--;
+        }
+    }
+
+    // go [depth N] [nodes N] [movetime MS] [wtime/btime/winc/binc MS] [movestogo N] [infinite] [ponder]
+    private void go() {
+        SearchLimits limits = new SearchLimits().withMultiPv(multiPv);
+        boolean infinite = false;
+        boolean ponder = false;
+        long time = 0;
+        long increment = 0;
+        int movesToGo = 0;
+        boolean white = board.getCurrentTurn() == Color.WHITE;
+
+        while (input.next()) {
+            if (input.is("depth") && input.next()) {
+                limits.withDepth(input.intValue());
+            } else if (input.is("nodes") && input.next()) {
+                limits.withNodes(input.longValue());
+            } else if (input.is("movetime") && input.next()) {
+                limits.withMoveTime(input.longValue());
+            } else if (input.is("infinite")) {
+                infinite = true;
+            } else if (input.is("ponder")) {
+                ponder = true;
+            } else if (input.is(white ? "wtime" : "btime") && input.next()) {
+                time = input.longValue();
+            } else if (input.is(white ? "winc" : "binc") && input.next()) {
+                increment = input.longValue();
+            } else if (input.is("movestogo") && input.next()) {
+                movesToGo = input.intValue();
+            }
+        }
+
+        if (!infinite && time > 0) {
+            limits.withClock(time, increment, movesToGo).withMoveOverhead(moveOverhead);
+        }
+        limits.withPonder(ponder);
+
+        waitingForStop = infinite;
+        pondering = ponder;
+        String fen = positionFen;
+        int[] moves = Arrays.copyOf(positionMoves, moveCount);
+        stopRequested = false;
+        searchThread = new Thread(() -> {
+            SearchInfo result = engine.search(fen, moves, moves.length, limits, this::sendInfo);
+            // "go infinite" must not answer before "stop", even if the search ran out of depth;
+            // nor may a pondering search before "ponderhit" or "stop"
+            while ((waitingForStop || pondering) && !stopRequested) {
+                sleepQuietly();
+            }
+            int[] pv = result.getPv();
+            send("bestmove " + (result.getBestMove() == Move.NONE ? "0000" : Move.toString(result.getBestMove()))
+                + (pv.length > 1 ? " ponder " + Move.toString(pv[1]) : ""));
+        }, "chess-uci-search");
+        searchThread.start();
+    }
+
+    // The opponent played the move pondered on: the search goes on, now against the clock
+    private void ponderHit() {
+        Thread thread = searchThread;
+        if (thread == null || !pondering) return;
+        pondering = false; // A search that already ended answers now
+        // Retried: "ponderhit" may arrive before the search has started pondering
+        while (thread.isAlive() && !engine.ponderHit()) {
+            try {
+                thread.join(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void awaitSearch() {
+        Thread thread = searchThread;
+        if (thread == null || waitingForStop || pondering) return;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void stopSearch() {
+        Thread thread = searchThread;
+        if (thread == null) return;
+        stopRequested = true;
+        // stop() is repeated: it may arrive before the search has reset its flag
+        while (thread.isAlive()) {
+            engine.stop();
+            try {
+                thread.join(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        searchThread = null;
+    }
+
+    // --- Output ---
+
+    private void sendInfo(SearchInfo info) {
+        synchronized (out) {
+            line.setLength(0);
+            line.append("info depth ").append(info.getDepth());
+            if (multiPv > 1) line.append(" multipv ").append(info.getMultiPv());
+            if (info.isMate()) {
+                line.append(" score mate ").append(info.getMateIn());
+            } else {
+                line.append(" score cp ").append(info.getScore());
+            }
+            line.append(" nodes ").append(info.getNodes())
+                .append(" nps ").append(info.getNodesPerSecond())
+                .append(" time ").append(info.getTimeMillis())
+                .append(" hashfull ").append(info.getHashfull())
+                .append(" pv");
+            for (int move : info.getPv()) {
+                line.append(' ').append(Move.toString(move));
+            }
+            out.println(line);
+            out.flush();
+        }
+    }
+
+    private void send(String text) {
+        synchronized (out) {
+            out.println(text);
+            out.flush();
+        }
+    }
+
+    private static void sleepQuietly() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
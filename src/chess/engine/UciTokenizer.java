@@ -0,0 +1,186 @@
+package chess.engine;
+
+import chess.core.Move;
+import chess.core.PieceType;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads UCI commands line by line and splits them into whitespace-separated tokens
+ * without creating objects: lines go into a reused byte buffer, tokens are offsets into
+ * it, and keywords, numbers and moves are compared and parsed in place. Only callers
+ * that need text (a FEN string, an option name) turn a token into a String.
+ * <p>
+ * Not thread-safe.
+ */
+public final class UciTokenizer {
+
+    private static final int MAX_TOKENS = 4096; // "position ... moves" lists every move of the game
+
+    private final InputStream in;
+    private final byte[] readBuffer = new byte[8192];
+    private int readPos;
+    private int readLimit;
+
+    private byte[] line = new byte[1024];
+    private int lineLength;
+    private final int[] tokenStart = new int[MAX_TOKENS];
+    private final int[] tokenEnd = new int[MAX_TOKENS];
+    private int tokenCount;
+    private int cursor; // Next token to return
+
+    public UciTokenizer(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads the next non-blank line.
+     * @return false at the end of the input
+     */
+    public boolean nextLine() throws IOException {
+        do {
+            lineLength = 0;
+            int b;
+            while ((b = read()) != '\n') {
+                if (b < 0) {
+                    if (lineLength == 0) return false;
+                    break;
+                }
+                if (lineLength == line.length) line = Arrays.copyOf(line, line.length * 2);
+                line[lineLength++] = (byte) b;
+            }
+            split();
+        } while (tokenCount == 0);
+        return true;
+    }
+
+    /** @return true if the current line has another token. */
+    public boolean hasNext() {
+        return cursor < tokenCount;
+    }
+
+    /** Advances to the next token; {@link #is}, {@link #intValue} etc. look at it. */
+    public boolean next() {
+        if (cursor >= tokenCount) return false;
+        cursor++;
+        return true;
+    }
+
+    /** @return true if the current token equals the keyword (ASCII, case-sensitive). */
+    public boolean is(String keyword) {
+        int i = cursor - 1;
+        if (i < 0) return false;
+        int length = tokenEnd[i] - tokenStart[i];
+        if (length != keyword.length()) return false;
+        for (int k = 0; k < length; k++) {
+            if (line[tokenStart[i] + k] != keyword.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    /** @return The current token as a long; an invalid number gives 0 (UCI ignores bad input). */
+    public long longValue() {
+        int i = cursor - 1;
+        int pos = tokenStart[i];
+        boolean negative = pos < tokenEnd[i] && line[pos] == '-';
+        if (negative) pos++;
+        long value = 0;
+        for (; pos < tokenEnd[i]; pos++) {
+            int digit = line[pos] - '0';
+            if (digit < 0 || digit > 9) return 0;
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /** @return The current token as an int (see {@link #longValue()}). */
+    public int intValue() {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, longValue()));
+    }
+
+    /**
+     * Parses the current token as a move in coordinate notation ("e2e4", "e7e8q").
+     * @return The packed move without flags, or {@link Move#NONE} if it is malformed
+     */
+    public int move() {
+        int i = cursor - 1;
+        int pos = tokenStart[i];
+        int length = tokenEnd[i] - pos;
+        if (length != 4 && length != 5) return Move.NONE;
+        int from = square(line[pos], line[pos + 1]);
+        int to = square(line[pos + 2], line[pos + 3]);
+        if (from < 0 || to < 0) return Move.NONE;
+        if (length == 4) return Move.of(from, to);
+
+        PieceType promotion;
+        switch (line[pos + 4] | 0x20) { // Lower case
+            case 'q': promotion = PieceType.QUEEN; break;
+            case 'r': promotion = PieceType.ROOK; break;
+            case 'b': promotion = PieceType.BISHOP; break;
+            case 'n': promotion = PieceType.KNIGHT; break;
+            default: return Move.NONE;
+        }
+        return Move.of(from, to, promotion);
+    }
+
+    /** @return The current token as a String (allocates). */
+    public String text() {
+        int i = cursor - 1;
+        return new String(line, tokenStart[i], tokenEnd[i] - tokenStart[i], StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Joins tokens from the current one up to (excluding) the first token equal to stop,
+     * leaving that token current; e.g. the six fields of a FEN before "moves".
+     * @return The joined text (allocates); empty if the current token is already stop
+     */
+    public String textUntil(String stop) {
+        int first = cursor - 1;
+        while (!is(stop) && next()) {
+            // Advance
+        }
+        int last = is(stop) ? cursor - 2 : cursor - 1;
+        if (last < first) return "";
+        return new String(line, tokenStart[first], tokenEnd[last] - tokenStart[first], StandardCharsets.US_ASCII);
+    }
+
+    // --- Internals ---
+
+    private int read() throws IOException {
+        if (readPos == readLimit) {
+            readLimit = in.read(readBuffer, 0, readBuffer.length);
+            readPos = 0;
+            if (readLimit <= 0) {
+                readLimit = 0;
+                return -1;
+            }
+        }
+        return readBuffer[readPos++] & 0xFF;
+    }
+
+    private void split() {
+        tokenCount = 0;
+        cursor = 0;
+        int pos = 0;
+        while (pos < lineLength && tokenCount < MAX_TOKENS) {
+            while (pos < lineLength && isBlank(line[pos])) pos++;
+            if (pos == lineLength) break;
+            tokenStart[tokenCount] = pos;
+            while (pos < lineLength && !isBlank(line[pos])) pos++;
+            tokenEnd[tokenCount++] = pos;
+        }
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static int square(byte file, byte rank) {
+        int col = file - 'a';
+        int row = '8' - rank;
+        if (col < 0 || col > 7 || row < 0 || row > 7) return -1;
+        return row * 8 + col;
+    }
+}
@@ -0,0 +1,81 @@
+package chess.gui;
+
+import java.awt.*;
+import javax.swing.*;
+
+/**
+ * AnalysisPanel shows the engine's view of the position below the move list.
+ *
+ * Responsibilities:
+ * - Switch background analysis on and off.
+ * - Show the search depth and the best lines with their evaluation.
+ *
+ * The panel never hears from the search thread. A Swing timer polls the Analyzer
+ * {@link #REFRESH_MILLIS} apart and repaints only when a newer analysis was published,
+ * so however fast lines complete, the EDT sees at most one update per tick.
+*/
+public class AnalysisPanel extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int REFRESH_MILLIS = 100; // 10 updates per second at most
+
+    private final JCheckBox enabledBox = new JCheckBox("Analysis");
+    private final JLabel depthLabel = new JLabel(" ");
+    private final JLabel[] lineLabels;
+    private final Timer refreshTimer = new Timer(REFRESH_MILLIS, e -> refresh());
+    private Analyzer.Analysis shown; // The analysis on screen, to skip ticks without news
+
+    // Constructor
+    public AnalysisPanel(int lineCount) {
+        setOpaque(false);
+        setLayout(new GridLayout(lineCount + 1, 1));
+        setBorder(BorderFactory.createEmptyBorder(0, 20, 10, 20));
+
+        enabledBox.setFont(new Font("Courier New", Font.BOLD, 16));
+        enabledBox.setForeground(Color.YELLOW);
+        enabledBox.setOpaque(false);
+        enabledBox.setFocusable(false);
+        enabledBox.addActionListener(e -> setAnalysisEnabled(enabledBox.isSelected()));
+        depthLabel.setFont(new Font("Courier New", Font.PLAIN, 14));
+        depthLabel.setForeground(Color.LIGHT_GRAY);
+
+        JPanel header = new JPanel(new BorderLayout());
+        header.setOpaque(false);
+        header.add(enabledBox, BorderLayout.WEST);
+        header.add(depthLabel, BorderLayout.EAST);
+        add(header);
+
+        lineLabels = new JLabel[lineCount];
+        for (int i = 0; i < lineCount; i++) {
+            lineLabels[i] = new JLabel(" ");
+            lineLabels[i].setFont(new Font("Courier New", Font.PLAIN, 14));
+            lineLabels[i].setForeground(Color.WHITE);
+            add(lineLabels[i]);
+        }
+    }
+
+    private void setAnalysisEnabled(boolean enabled) {
+        ChessGUI.setAnalysisEnabled(enabled);
+        if (enabled) {
+            refreshTimer.start();
+        } else {
+            refreshTimer.stop();
+        }
+        refresh();
+    }
+
+    // Called by the timer on the EDT: shows the latest analysis if it changed
+    private void refresh() {
+        Analyzer.Analysis analysis = ChessGUI.getAnalyzer().getLatest();
+        if (analysis == shown) return;
+        shown = analysis;
+
+        boolean enabled = enabledBox.isSelected();
+        depthLabel.setText(enabled && analysis.getDepth() > 0 ? "depth " + analysis.getDepth() : " ");
+        for (int i = 0; i < lineLabels.length; i++) {
+            String line = i < analysis.getLineCount() ? analysis.getLine(i) : null;
+            lineLabels[i].setText(enabled && line != null ? line : " ");
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package chess.gui;
+
+import chess.core.ChessBoard;
+import chess.core.Color;
+import chess.core.Fen;
+import chess.core.Notation;
+import chess.engine.Engine;
+import chess.engine.SearchInfo;
+import chess.engine.SearchLimits;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Analyzer searches the position on the board in the background, without a limit,
+ * reporting the best few lines as iterative deepening goes deeper.
+ *
+ * Responsibilities:
+ * - Run the engine on its own daemon thread, restarted for every new position.
+ * - Turn each completed line into text (score from White's view, moves in SAN) on that thread.
+ * - Publish the lines found so far as an immutable {@link Analysis}.
+ *
+ * Readers poll {@link #getLatest()} whenever they like (the SidePanel does at a fixed
+ * rate), so a search finishing many lines per second costs the EDT nothing extra:
+ * updates in between simply replace each other.
+*/
+public class Analyzer {
+
+    public static final int DEFAULT_LINES = 3;
+    private static final int PV_MOVES = 8; // Moves shown per line
+
+    /** The state of an analysis: search depth and one text per line, best first. */
+    public static final class Analysis {
+        private final int depth;
+        private final String[] lines;
+
+        Analysis(int depth, String[] lines) {
+            this.depth = depth;
+            this.lines = lines;
+        }
+
+        /** @return Depth of the newest line, 0 before the first iteration completes. */
+        public int getDepth() {
+            return depth;
+        }
+
+        /** @return Number of lines (some may still be null early in the search). */
+        public int getLineCount() {
+            return lines.length;
+        }
+
+        /** @return Line {@code index} (0 = best), e.g. "+0.35  e4 e5 Nf3", or null if not found yet. */
+        public String getLine(int index) {
+            return lines[index];
+        }
+    }
+
+    private final Engine engine = new Engine();
+    private final int lineCount;
+    private final Analysis empty;
+    private final AtomicReference<Analysis> latest;
+    private Thread thread;
+
+    /**
+     * @param lineCount Number of best lines to show
+     */
+    public Analyzer(int lineCount) {
+        this.lineCount = lineCount;
+        this.empty = new Analysis(0, new String[lineCount]);
+        this.latest = new AtomicReference<>(empty);
+    }
+
+    /**
+     * Stops any running analysis and starts on a new position.
+     * @param startFen The start position of the game
+     * @param moves The packed moves played from it (for repetition detection)
+     * @param chess960 Whether the game uses Chess960 castling
+     */
+    public synchronized void analyze(String startFen, int[] moves, boolean chess960) {
+        stop();
+        engine.setChess960(chess960);
+        int[] played = moves.clone();
+        thread = new Thread(() -> run(startFen, played, chess960), "chess-analysis");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Stops the running analysis, if any, and clears its lines. */
+    public synchronized void stop() {
+        Thread running = thread;
+        if (running != null) {
+            // stop() is repeated: it may arrive before the search has reset its flag
+            while (running.isAlive()) {
+                engine.stop();
+                try {
+                    running.join(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            thread = null;
+        }
+        latest.set(empty);
+    }
+
+    /** @return The lines found so far; safe to call from any thread. */
+    public Analysis getLatest() {
+        return latest.get();
+    }
+
+    // --- Search thread ---
+
+    private void run(String startFen, int[] moves, boolean chess960) {
+        ChessBoard board = Fen.parse(startFen, chess960);
+        for (int move : moves) {
+            board.makeMove(move);
+        }
+        boolean whiteToMove = board.getCurrentTurn() == Color.WHITE;
+        SearchLimits limits = SearchLimits.infinite().withMultiPv(lineCount);
+        engine.search(startFen, moves, moves.length, limits, info -> {
+            Analysis previous = latest.get();
+            String[] lines = Arrays.copyOf(previous.lines, lineCount);
+            lines[info.getMultiPv() - 1] = describe(board, info, whiteToMove);
+            latest.set(new Analysis(info.getDepth(), lines));
+        });
+    }
+
+    // "+0.35  e4 e5 Nf3" or "#-3  Qh4+ ..." from White's point of view
+    private static String describe(ChessBoard board, SearchInfo info, boolean whiteToMove) {
+        StringBuilder sb = new StringBuilder(64);
+        if (info.isMate()) {
+            sb.append('#').append(whiteToMove ? info.getMateIn() : -info.getMateIn());
+        } else {
+            int score = whiteToMove ? info.getScore() : -info.getScore();
+            sb.append(score >= 0 ? "+" : "-")
+              .append(Math.abs(score) / 100).append('.')
+              .append(String.format("%02d", Math.abs(score) % 100));
+        }
+        sb.append(' ');
+        int[] pv = info.getPv();
+        int shown = Math.min(pv.length, PV_MOVES);
+        for (int i = 0; i < shown; i++) {
+            sb.append(' ').append(Notation.toSan(board, pv[i]));
+            board.makeMove(pv[i]);
+        }
+        for (int i = 0; i < shown; i++) {
+            board.unmakeMove();
+        }
+        if (pv.length > shown) sb.append(" ...");
+        return sb.toString();
+    }
+}
@@ -3,6 +3,8 @@ package chess.gui;
 import chess.core.ChessBoard;
 import chess.core.Piece;
 import chess.core.Position;
+import chess.util.BoardRefreshEvent;
+import chess.util.Metrics;
 import java.awt.*;
 import javax.swing.*;
 
@@ -60,8 +62,22 @@ public class BoardPanel extends JPanel {
         refreshBoard();
     }
 
-    //
+    // Updates every tile from the model
     public void refreshBoard() {
+        if (!Metrics.ENABLED) {
+            updateTiles();
+            return;
+        }
+        BoardRefreshEvent event = new BoardRefreshEvent();
+        event.begin();
+        long start = System.nanoTime();
+        updateTiles();
+        Metrics.record(Metrics.Op.BOARD_REFRESH, start);
+        event.tiles = ROWS * COLS;
+        event.commit();
+    }
+
+    private void updateTiles() {
         for (int row = 0; row < ROWS; row++) {
             for (int col = 0; col < COLS; col++) {
                 Position pos = new Position(row, col);
@@ -71,4 +87,10 @@ public class BoardPanel extends JPanel {
             }
         }
     }
+
+    @Override
+    protected void paintChildren(Graphics g) {
+        super.paintChildren(g);
+        if (ChessGUI.STARTUP_EXIT) ChessGUI.boardPainted(); // Tiles are on screen: startup is over
+    }
 }
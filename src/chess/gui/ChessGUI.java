@@ -1,11 +1,21 @@
 package chess.gui;
 
+import chess.core.AttackMap;
+import chess.core.BoardSnapshot;
 import chess.core.ChessBoard;
+import chess.core.GameStatus;
+import chess.core.LegalMoveCache;
+import chess.core.Move;
+import chess.core.MoveHistory;
+import chess.core.Notation;
 import chess.core.Piece;
+import chess.core.PieceType;
 import chess.core.Position;
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import javax.swing.*;
 
 /**
@@ -19,7 +29,7 @@ import javax.swing.*;
  * - Handle basic window settings ~ size, layout
  * 
  * Future improvements: 
- * - Add menus (e.g. Restart, Undo, Help).
+ * - Add menus (e.g. Restart, Help).
  * - Connect GUI to game logic
  */
 
@@ -33,23 +43,74 @@ public class ChessGUI {
 	private static Piece selectedPiece = null;
 	private static List<chess.core.Position> highlightedSquares = new ArrayList<>();
 	private static ChessBoard modelBoard = new ChessBoard();
+	private static MoveHistory history = new MoveHistory(modelBoard); // All moves go through here
+	// Published after every move, for threads other than the EDT (which owns modelBoard)
+	private static final AtomicReference<BoardSnapshot> position = new AtomicReference<>(modelBoard.snapshot());
+	private static LegalMoveCache moveCache = new LegalMoveCache(4096);
+	private static GameStatus gameStatus = GameStatus.ONGOING;
 	private static BoardPanel boardPanelReference;
 	private static SidePanel sidePanelReference;
+	private static Analyzer analyzer; // Created when first needed: its engine holds a 16 MB table
+	private static boolean analysisEnabled = false;
+	private static boolean showThreats = false;
+	private static AttackMap attackMap; // Built for the position it names, reused until that changes
+	static Supplier<PieceType> promotionChooser = ChessGUI::askPromotion; // Replaced by SessionReplay
+	// -Dchess.startup.exit=true: print the time to the first painted frame and quit (StartupBenchmark)
+	static final boolean STARTUP_EXIT = Boolean.getBoolean("chess.startup.exit");
+	private static boolean firstFramePainted = false;
 
 
 	// main method
 	public static void main(String[] args) {
+		// Icons and the tables behind the first click load on their own thread,
+		// while the EDT builds the window
+		Thread warmUp = new Thread(ChessGUI::warmUp, "chess-startup");
+		warmUp.setDaemon(true);
+		warmUp.start();
+
 		// Swing apps should run on the Event Dispatch Thread for thread safety.
 		SwingUtilities.invokeLater(() -> {
 			new ChessGUI().createAndShowGUI();
 		});
 	}
+
+	/**
+	 * Startup work that does not need the EDT: decodes the piece images and runs the
+	 * move generator, attack tables and SAN writer once on a private board, so their
+	 * classes and tables are ready before the first frame asks for them.
+	 */
+	private static void warmUp() {
+		PieceIcons.preload();
+		ChessBoard board = new ChessBoard();
+		int[] moves = new int[256];
+		int count = board.generateLegalMoves(moves);
+		for (int i = 0; i < count; i++) {
+			Notation.toSan(board, moves[i]);
+		}
+		AttackMap.of(board.snapshot());
+		AttackMap.exchange(board.snapshot(), 0);
+	}
+
+	/**
+	 * Called by BoardPanel after it paints, with -Dchess.startup.exit only. The first call
+	 * prints the milliseconds since the JVM started and exits, once the EDT has handled
+	 * what was queued behind the paint (the window then takes input).
+	 */
+	static void boardPainted() {
+		if (firstFramePainted) return;
+		firstFramePainted = true;
+		SwingUtilities.invokeLater(() -> {
+			long jvmStart = java.lang.management.ManagementFactory.getRuntimeMXBean().getStartTime();
+			System.out.println("first-frame-ms " + (System.currentTimeMillis() - jvmStart));
+			System.exit(0);
+		});
+	}
 	
 	/**
 	 * Sets up displays the main game window.
 	 * Adds the chessboard panel to the JFrame.
 	*/
-	private void createAndShowGUI() {
+	void createAndShowGUI() {
 		JFrame frame = new JFrame("Chess in Java");
 		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 		frame.setSize(WINDOW_WIDTH, WINDOW_HEIGHT);
@@ -72,9 +133,10 @@ public class ChessGUI {
 	}
 
 	/** Handle tile click: 
-	 * - select a piece or move selected piece if pos is a legal move; 
+	 * - select a piece of the side to move, or move the selected piece if pos is a legal move; 
 	 * - updates selection/highlightedSquares
-	 * - and may call modelBoard.movePiece(...). 
+	 * - and may play the move through the move history, then shows the new game status. 
+	 * Clicks are ignored once the game is over.
 	 * 
 	 * @param pos clicked tile (non-null) 
 	 */
@@ -82,31 +144,167 @@ public class ChessGUI {
 		Piece piece = modelBoard.getPiece(pos);
 
 		if (selectedPiece == null) {
-			if (piece != null) {
+			if (piece != null && piece.getColor() == modelBoard.getCurrentTurn() && !gameStatus.isGameOver()) {
 				selectedPiece = piece;
 				selectedTile = pos;
-				highlightedSquares = piece.getLegalMoves(modelBoard);
+				highlightedSquares = moveCache.getLegalMoves(modelBoard, pos);
 				if (boardPanelReference != null) {
 					boardPanelReference.refreshBoard();
 				}
 			}
 		} else {
 			if (highlightedSquares.contains(pos)) {
-				modelBoard.movePiece(selectedTile, pos);
-				modelBoard.switchTurn();
-				if (sidePanelReference != null) {
-					sidePanelReference.updateTurn(modelBoard.getCurrentTurn());
+				int move = Move.of(selectedTile, pos);
+				if (selectedPiece.getType() == PieceType.PAWN && (pos.getRow() == 0 || pos.getRow() == 7)) {
+					move = Move.of(selectedTile.getIndex(), pos.getIndex(), choosePromotion());
 				}
+				if (history.play(move) && SessionRecorder.ENABLED) {
+					SessionRecorder.move(history.getMove(history.getCurrentPly() - 1));
+				}
+				positionChanged();
 			}
-			selectedPiece = null;
-			selectedTile = null;
-			highlightedSquares.clear();
-			if (boardPanelReference != null) {
-				boardPanelReference.refreshBoard();
-			}
+			clearSelection();
+		}
+	}
+
+	/** Takes the last move back (Undo button). */
+	public static void undoMove() {
+		if (history.undo()) {
+			if (SessionRecorder.ENABLED) SessionRecorder.undo();
+			positionChanged();
+			clearSelection();
 		}
 	}
 
+	/** Plays the last move taken back again (Redo button). */
+	public static void redoMove() {
+		if (history.redo()) {
+			if (SessionRecorder.ENABLED) SessionRecorder.redo();
+			positionChanged();
+			clearSelection();
+		}
+	}
+
+	// After a move, undo or redo: publishes the position and updates the status and side panel
+	private static void positionChanged() {
+		position.set(modelBoard.snapshot());
+		gameStatus = modelBoard.getGameStatus();
+		if (sidePanelReference != null) {
+			sidePanelReference.updateTurn(modelBoard.getCurrentTurn());
+			sidePanelReference.updateStatus(gameStatus);
+			sidePanelReference.updateMoves(history);
+		}
+		if (analysisEnabled) {
+			startAnalysis();
+		}
+	}
+
+	/**
+	 * Turns the background analysis of the current position on or off (Analysis box).
+	 * While on, every move, undo or redo restarts it on the new position.
+	 */
+	public static void setAnalysisEnabled(boolean enabled) {
+		analysisEnabled = enabled;
+		if (enabled) {
+			startAnalysis();
+		} else if (analyzer != null) {
+			analyzer.stop();
+		}
+	}
+
+	/** Turns the threat overlay (hanging pieces) on or off and redraws the board. */
+	public static void setShowThreats(boolean show) {
+		showThreats = show;
+		if (SessionRecorder.ENABLED) SessionRecorder.threats(show);
+		if (boardPanelReference != null) {
+			boardPanelReference.refreshBoard();
+		}
+	}
+
+	public static boolean isShowThreats() {
+		return showThreats;
+	}
+
+	/**
+	 * Returns who attacks what in the current position. The map is built once per
+	 * position (keyed by its hash), so all 64 tiles painting from it cost one build.
+	 * @return The attack map of the latest published snapshot
+	 */
+	public static AttackMap getAttackMap() {
+		BoardSnapshot current = position.get();
+		AttackMap map = attackMap;
+		if (map == null || map.getZobristHash() != current.getZobristHash()) {
+			map = AttackMap.of(current);
+			attackMap = map;
+		}
+		return map;
+	}
+
+	public static Analyzer getAnalyzer() {
+		if (analyzer == null) {
+			analyzer = new Analyzer(Analyzer.DEFAULT_LINES);
+		}
+		return analyzer;
+	}
+
+	private static void startAnalysis() {
+		int[] moves = new int[history.getCurrentPly()];
+		for (int ply = 0; ply < moves.length; ply++) {
+			moves[ply] = history.getMove(ply);
+		}
+		getAnalyzer().analyze(history.getStartFen(), moves, modelBoard.getCastlingRules().isChess960());
+	}
+
+	/**
+	 * Wires the panels without opening a window, for headless replay.
+	 */
+	static void attachPanels(BoardPanel boardPanel, SidePanel sidePanel) {
+		boardPanelReference = boardPanel;
+		sidePanelReference = sidePanel;
+	}
+
+	static BoardPanel getBoardPanel() {
+		return boardPanelReference;
+	}
+
+	/** Takes every move back and forgets them, so a replayed session starts like a fresh game. */
+	static void resetGame() {
+		while (history.undo()) {
+			// Back to the first position
+		}
+		history.clear();
+		showThreats = false;
+		positionChanged();
+		clearSelection();
+	}
+
+	private static void clearSelection() {
+		selectedPiece = null;
+		selectedTile = null;
+		highlightedSquares.clear();
+		if (boardPanelReference != null) {
+			boardPanelReference.refreshBoard();
+		}
+	}
+
+
+	private static PieceType choosePromotion() {
+		PieceType type = promotionChooser.get();
+		if (SessionRecorder.ENABLED) SessionRecorder.promotion(type);
+		return type;
+	}
+
+	/**
+	 * Asks which piece a pawn promotes to. Closing the dialog picks the Queen.
+	 * @return The chosen piece type
+	 */
+	private static PieceType askPromotion() {
+		PieceType[] choices = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
+		String[] labels = {"Queen", "Rook", "Bishop", "Knight"};
+		int choice = JOptionPane.showOptionDialog(boardPanelReference, "Promote pawn to:", "Promotion",
+				JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, labels, labels[0]);
+		return choice < 0 ? PieceType.QUEEN : choices[choice];
+	}
 
 	/**
 	 * Checks whether a specific board position is currently highlighted in the GUI.
@@ -124,5 +322,14 @@ public class ChessGUI {
 		return modelBoard;
 	}
 
+	/**
+	 * Returns the position after the last move. Unlike the model board this may be read
+	 * from any thread, e.g. by a background search.
+	 * @return The latest published snapshot
+	 */
+	public static BoardSnapshot getPositionSnapshot() {
+		return position.get();
+	}
+
 
 }
@@ -0,0 +1,55 @@
+package chess.gui;
+
+import chess.core.Color;
+import chess.core.PieceType;
+import java.net.URL;
+import javax.swing.ImageIcon;
+
+/**
+ * PieceIcons loads the piece images from /pieces on the classpath, each one once.
+ *
+ * Responsibilities:
+ * - Hand out one shared ImageIcon per color and piece type, loaded on first use.
+ * - Remember missing images, so the warning is printed once and not on every refresh.
+ * - Let startup load all twelve off the EDT while the window is being built.
+*/
+public final class PieceIcons {
+
+    private static final ImageIcon MISSING = new ImageIcon();
+    private static final ImageIcon[] ICONS = new ImageIcon[2 * 6]; // [color * 6 + type]
+
+    private PieceIcons() {
+    }
+
+    /**
+     * @return The icon of a piece, or null if its image is not on the classpath
+     */
+    public static synchronized ImageIcon get(Color color, PieceType type) {
+        int index = color.ordinal() * 6 + type.ordinal();
+        ImageIcon icon = ICONS[index];
+        if (icon == null) {
+            icon = load(color, type);
+            ICONS[index] = icon;
+        }
+        return icon == MISSING ? null : icon;
+    }
+
+    /** Loads every icon now; called from the startup thread. */
+    public static void preload() {
+        for (Color color : Color.values()) {
+            for (PieceType type : PieceType.values()) {
+                get(color, type);
+            }
+        }
+    }
+
+    private static ImageIcon load(Color color, PieceType type) {
+        String iconPath = "/pieces/" + color.toString().toLowerCase() + "_" + type.toString().toLowerCase() + ".png";
+        URL iconURL = PieceIcons.class.getResource(iconPath);
+        if (iconURL == null) {
+            System.out.println("Missing icon: " + iconPath + " (resource not found)!");
+            return MISSING;
+        }
+        return new ImageIcon(iconURL);
+    }
+}
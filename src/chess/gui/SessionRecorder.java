@@ -0,0 +1,87 @@
+package chess.gui;
+
+import chess.core.Move;
+import chess.core.PieceType;
+import chess.core.Position;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * SessionRecorder writes what the user does in the GUI to a trace file, so the exact
+ * same interaction can be replayed later by {@link SessionReplay}.
+ *
+ * Enable with {@code -Dchess.record=<file>}. Like {@code Metrics.ENABLED}, the flag is a
+ * static final constant, so the hooks cost nothing when recording is off.
+ *
+ * One event per line: microseconds since the session started, the event, its argument.
+ * <pre>
+ *   # chess session v1
+ *   1532011 CLICK e2
+ *   1710240 CLICK e4
+ *   1710902 MOVE e2e4
+ *   5230113 UNDO
+ * </pre>
+ * CLICK comes from the tile mouse handler; MOVE, PROMOTE, UNDO, REDO and THREATS from
+ * ChessGUI, once they have taken effect. Replay feeds the input events (CLICK, PROMOTE,
+ * UNDO, REDO, THREATS) back in and uses MOVE to check that the game went the same way.
+ * Lines are flushed as they are written, so a trace survives a crash.
+*/
+public final class SessionRecorder {
+
+    /** True when started with -Dchess.record=&lt;file&gt;. */
+    public static final boolean ENABLED = System.getProperty("chess.record") != null;
+
+    static final String HEADER = "# chess session v1";
+
+    private static final long START = System.nanoTime();
+    private static Writer out;
+
+    private SessionRecorder() {
+    }
+
+    /** A tile was clicked. */
+    public static void click(Position pos) {
+        record("CLICK", pos.toAlgebraic());
+    }
+
+    static void move(int move) {
+        record("MOVE", Move.toString(move));
+    }
+
+    static void promotion(PieceType type) {
+        record("PROMOTE", type.getShortName());
+    }
+
+    static void undo() {
+        record("UNDO", null);
+    }
+
+    static void redo() {
+        record("REDO", null);
+    }
+
+    static void threats(boolean show) {
+        record("THREATS", show ? "1" : "0");
+    }
+
+    private static synchronized void record(String event, String argument) {
+        if (!ENABLED) return;
+        long micros = (System.nanoTime() - START) / 1000;
+        try {
+            if (out == null) {
+                out = new BufferedWriter(Files.newBufferedWriter(Paths.get(System.getProperty("chess.record")),
+                    StandardCharsets.UTF_8));
+                out.write(HEADER + "\n");
+            }
+            out.write(micros + " " + event + (argument != null ? " " + argument : "") + "\n");
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package chess.gui;
+
+import chess.core.Fen;
+import chess.core.Move;
+import chess.core.PieceType;
+import chess.core.Position;
+import chess.util.LatencyHistogram;
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+
+/**
+ * SessionReplay plays a trace written by {@link SessionRecorder} back into the GUI as
+ * fast as possible and reports what each event cost, so two builds can be compared on
+ * exactly the same interaction.
+ *
+ * Responsibilities:
+ * - Feed clicks, promotion choices, undo/redo and overlay switches to ChessGUI on the EDT.
+ * - Time each event from dispatch until the board and side panel are laid out and
+ *   painted again, and count the bytes the EDT allocated meanwhile.
+ * - Check the recorded MOVE events against the moves actually played (the replay must
+ *   be deterministic, or the numbers compare different work).
+ *
+ * Headless mode (the default) builds the panels without a window and paints them into
+ * an offscreen image; {@code swing} opens the normal window and paints it on screen.
+ * Recorded timestamps are ignored: events follow each other immediately.
+ *
+ * Usage: {@code java chess.gui.SessionReplay <session.txt> [headless|swing] [warmups] [runs]}
+ * (defaults: headless, 3 warm-up passes, 5 measured passes).
+*/
+public class SessionReplay {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final int WIDTH = 1200;
+    private static final int HEIGHT = 800;
+
+    /** One line of a trace. */
+    private static final class Event {
+        final int line;
+        final long micros;
+        final String kind;
+        final String argument;
+
+        Event(int line, long micros, String kind, String argument) {
+            this.line = line;
+            this.micros = micros;
+            this.kind = kind;
+            this.argument = argument;
+        }
+    }
+
+    private final List<Event> events;
+    private final boolean swing;
+    private JComponent boardView;
+    private JComponent sideView;
+    private BufferedImage canvas;
+    private PieceType nextPromotion = PieceType.QUEEN;
+
+    // Per event kind (CLICK, UNDO, REDO, THREATS), in the order first seen
+    private final List<String> kinds = new ArrayList<>();
+    private final List<LatencyHistogram> latencies = new ArrayList<>();
+    private final List<long[]> allocations = new ArrayList<>(); // {total bytes, events}
+
+    public SessionReplay(List<String> lines, boolean swing) {
+        this.events = parse(lines);
+        this.swing = swing;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: SessionReplay <session.txt> [headless|swing] [warmups] [runs]");
+            System.exit(1);
+        }
+        Path trace = Paths.get(args[0]);
+        boolean swing = args.length > 1 && args[1].equals("swing");
+        int warmups = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int runs = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        SessionReplay replay = new SessionReplay(Files.readAllLines(trace, StandardCharsets.UTF_8), swing);
+        replay.open();
+        for (int i = 0; i < warmups; i++) {
+            replay.run(false);
+        }
+        long start = System.nanoTime();
+        String result = null;
+        for (int i = 0; i < runs; i++) {
+            result = replay.run(true);
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / Math.max(1, runs);
+        System.out.println(replay.report());
+        System.out.printf("%d events per pass (recorded over %.1f s), %.2f ms per pass, %s mode%n",
+            replay.events.size(), replay.recordedSeconds(), millis, swing ? "swing" : "headless");
+        System.out.println(result);
+        System.exit(0);
+    }
+
+    // --- Setup ---
+
+    /** Builds the GUI, in a window or offscreen. */
+    public void open() throws InterruptedException, InvocationTargetException {
+        ChessGUI.promotionChooser = () -> nextPromotion;
+        SwingUtilities.invokeAndWait(() -> {
+            if (swing) {
+                new ChessGUI().createAndShowGUI();
+                boardView = (JComponent) SwingUtilities.getRootPane(ChessGUI.getBoardPanel());
+                sideView = null; // The root pane covers both panels
+            } else {
+                ChessBoardWithCoords board = new ChessBoardWithCoords();
+                SidePanel side = new SidePanel();
+                ChessGUI.attachPanels(board.getBoardPanel(), side);
+                board.setSize(WIDTH - side.getPreferredSize().width, HEIGHT);
+                side.setSize(side.getPreferredSize().width, HEIGHT);
+                boardView = board;
+                sideView = side;
+                canvas = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+            }
+        });
+    }
+
+    /**
+     * Replays the whole session once, from a fresh game.
+     * @param measure Whether to record latencies (false for warm-up passes)
+     * @return "replay OK" with the final position, or where the game went differently
+     */
+    public String run(boolean measure) throws InterruptedException, InvocationTargetException {
+        SwingUtilities.invokeAndWait(ChessGUI::resetGame);
+        for (int i = 0; i < events.size(); i++) {
+            Event event = events.get(i);
+            switch (event.kind) {
+                case "MOVE": {
+                    int played = ChessGUI.getPositionSnapshot().getLastMove();
+                    if (played == Move.NONE || !Move.toString(played).equals(event.argument)) {
+                        return "replay DIVERGED at line " + event.line + ": recorded " + event.argument
+                            + ", played " + (played == Move.NONE ? "nothing" : Move.toString(played));
+                    }
+                    break;
+                }
+                case "PROMOTE":
+                    break; // Answered by the CLICK before it
+                default: {
+                    Event next = i + 1 < events.size() ? events.get(i + 1) : null;
+                    nextPromotion = next != null && next.kind.equals("PROMOTE") ? promotionType(next) : PieceType.QUEEN;
+                    SwingUtilities.invokeAndWait(() -> dispatch(event, measure));
+                }
+            }
+        }
+        return "replay OK, final position " + Fen.toFen(ChessGUI.getModalChessBoard());
+    }
+
+    // On the EDT: the event, then layout and paint, timed together
+    private void dispatch(Event event, boolean measure) {
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        switch (event.kind) {
+            case "CLICK":
+                ChessGUI.handleTileClicked(square(event));
+                break;
+            case "UNDO":
+                ChessGUI.undoMove();
+                break;
+            case "REDO":
+                ChessGUI.redoMove();
+                break;
+            case "THREATS":
+                ChessGUI.setShowThreats(event.argument.equals("1"));
+                break;
+            default:
+                throw new IllegalArgumentException("Line " + event.line + ": unknown event " + event.kind);
+        }
+        render(boardView);
+        if (sideView != null) render(sideView);
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        if (!measure) return;
+        int kind = kinds.indexOf(event.kind);
+        if (kind < 0) {
+            kinds.add(event.kind);
+            latencies.add(new LatencyHistogram());
+            allocations.add(new long[2]);
+            kind = kinds.size() - 1;
+        }
+        latencies.get(kind).record(elapsed);
+        allocations.get(kind)[0] += allocated;
+        allocations.get(kind)[1]++;
+    }
+
+    private void render(JComponent view) {
+        if (swing) {
+            view.validate();
+            view.paintImmediately(0, 0, view.getWidth(), view.getHeight());
+        } else {
+            layOut(view);
+            Graphics g = canvas.getGraphics();
+            view.paint(g);
+            g.dispose();
+        }
+    }
+
+    // validate() skips components without a native peer, so headless panels are laid out by hand
+    private static void layOut(Container container) {
+        container.doLayout();
+        for (Component child : container.getComponents()) {
+            if (child instanceof Container) layOut((Container) child);
+        }
+    }
+
+    // --- Report ---
+
+    /** @return Latency percentiles and allocation per event kind, as a table. */
+    public String report() {
+        StringBuilder sb = new StringBuilder(String.format("%-10s %8s %10s %10s %10s %12s%n",
+            "event", "count", "p50us", "p99us", "maxus", "alloc/event"));
+        for (int i = 0; i < kinds.size(); i++) {
+            LatencyHistogram h = latencies.get(i);
+            long[] alloc = allocations.get(i);
+            sb.append(String.format("%-10s %8d %10.1f %10.1f %10.1f %11.1fK%n", kinds.get(i), h.getCount(),
+                h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(99) / 1000.0, h.getMax() / 1000.0,
+                alloc[0] / 1024.0 / alloc[1]));
+        }
+        return sb.toString();
+    }
+
+    private double recordedSeconds() {
+        return events.isEmpty() ? 0 : events.get(events.size() - 1).micros / 1e6;
+    }
+
+    // --- Parsing ---
+
+    private static List<Event> parse(List<String> lines) {
+        if (lines.isEmpty() || !lines.get(0).equals(SessionRecorder.HEADER)) {
+            throw new IllegalArgumentException("Not a session trace (missing \"" + SessionRecorder.HEADER + "\")");
+        }
+        List<Event> events = new ArrayList<>();
+        for (int i = 1; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] parts = line.split(" ");
+            if (parts.length < 2) throw new IllegalArgumentException("Line " + (i + 1) + ": " + line);
+            events.add(new Event(i + 1, Long.parseLong(parts[0]), parts[1], parts.length > 2 ? parts[2] : null));
+        }
+        return events;
+    }
+
+    private static Position square(Event event) {
+        String name = event.argument;
+        if (name == null || name.length() != 2) throw new IllegalArgumentException("Line " + event.line + ": bad square " + name);
+        int col = name.charAt(0) - 'a';
+        int row = '8' - name.charAt(1);
+        return Position.of(row * 8 + col);
+    }
+
+    private static PieceType promotionType(Event event) {
+        for (PieceType type : PieceType.values()) {
+            if (type.getShortName().equals(event.argument)) return type;
+        }
+        throw new IllegalArgumentException("Line " + event.line + ": bad promotion " + event.argument);
+    }
+
+    private static long allocatedBytes() {
+        return THREADS instanceof com.sun.management.ThreadMXBean
+            ? ((com.sun.management.ThreadMXBean) THREADS).getCurrentThreadAllocatedBytes() : 0;
+    }
+}
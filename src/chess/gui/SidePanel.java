@@ -1,5 +1,7 @@
 package chess.gui;
 
+import chess.core.GameStatus;
+import chess.core.MoveHistory;
 import java.awt.*;
 import javax.swing.*;
 
@@ -9,10 +11,19 @@ import javax.swing.*;
  * Responsibilities:
  * - Display captured pieces.
  * - Show current player's turn.
- * - Provide buttons for game actions (e.g. Restart, Undo).
+ * - List the moves played, in SAN.
+ * - Show the background analysis (see AnalysisPanel).
+ * - Provide buttons for game actions (Undo, Redo) and the threat overlay switch.
 */
 public class SidePanel extends JPanel {
     private JLabel turnLabel;
+    private JLabel statusLabel;
+    private final DefaultListModel<String> moveRows = new DefaultListModel<>(); // One row per full move
+    private final JList<String> moveList = new JList<>(moveRows);
+    private final JButton undoButton = new JButton("Undo");
+    private final JButton redoButton = new JButton("Redo");
+    private final JCheckBox threatsBox = new JCheckBox("Threats");
+    private final AnalysisPanel analysisPanel = new AnalysisPanel(Analyzer.DEFAULT_LINES);
 
     // Constructor
     public SidePanel() {
@@ -30,11 +41,86 @@ public class SidePanel extends JPanel {
         turnLabel = new JLabel("Turn: White", SwingConstants.CENTER);
         turnLabel.setFont(new Font("Courier New", Font.BOLD, 20));
         turnLabel.setForeground(Color.WHITE);
-        add(turnLabel, BorderLayout.CENTER);
+
+        // Move list
+        moveList.setFont(new Font("Courier New", Font.PLAIN, 16));
+        moveList.setBackground(new Color(0x1F2937));
+        moveList.setForeground(Color.WHITE);
+        moveList.setFocusable(false);
+        JScrollPane moveScroll = new JScrollPane(moveList);
+        moveScroll.setBorder(BorderFactory.createEmptyBorder(10, 20, 10, 20));
+        moveScroll.setOpaque(false);
+        moveScroll.getViewport().setBackground(new Color(0x111827));
+
+        JPanel center = new JPanel(new BorderLayout());
+        center.setOpaque(false);
+        center.add(turnLabel, BorderLayout.NORTH);
+        center.add(moveScroll, BorderLayout.CENTER);
+        center.add(analysisPanel, BorderLayout.SOUTH);
+        add(center, BorderLayout.CENTER);
+
+        statusLabel = new JLabel(" ", SwingConstants.CENTER);
+        statusLabel.setFont(new Font("Courier New", Font.BOLD, 20));
+        statusLabel.setForeground(Color.ORANGE);
+
+        // Undo / Redo
+        undoButton.addActionListener(e -> ChessGUI.undoMove());
+        redoButton.addActionListener(e -> ChessGUI.redoMove());
+        undoButton.setEnabled(false);
+        redoButton.setEnabled(false);
+        threatsBox.addActionListener(e -> ChessGUI.setShowThreats(threatsBox.isSelected()));
+        threatsBox.setForeground(Color.WHITE);
+        threatsBox.setOpaque(false);
+        threatsBox.setFocusable(false);
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
+        buttons.setOpaque(false);
+        buttons.add(undoButton);
+        buttons.add(redoButton);
+        buttons.add(threatsBox);
+
+        JPanel south = new JPanel(new BorderLayout());
+        south.setOpaque(false);
+        south.add(statusLabel, BorderLayout.NORTH);
+        south.add(buttons, BorderLayout.SOUTH);
+        add(south, BorderLayout.SOUTH);
     }
 
     public void updateTurn(chess.core.Color color) {
         turnLabel.setText("Turn: " + (color == chess.core.Color.WHITE ? "White" : "Black"));
     }
+
+    /**
+     * Shows why the game ended; nothing is shown while it is still going on.
+     * @param status The status after the last move
+     */
+    public void updateStatus(GameStatus status) {
+        statusLabel.setText(status.isGameOver() ? status.getDescription() : " ");
+    }
+
+    /**
+     * Lists the moves on the board, "1. e4 e5" per row, and enables Undo/Redo. Rows that
+     * did not change are kept, so only the SAN of new moves is ever rendered.
+     * @param history The game's move history
+     */
+    public void updateMoves(MoveHistory history) {
+        int plies = history.getCurrentPly();
+        int rows = (plies + 1) / 2;
+        while (moveRows.size() > rows) {
+            moveRows.remove(moveRows.size() - 1);
+        }
+        // The last kept row may have lost or gained its Black move
+        for (int row = Math.max(0, moveRows.size() - 1); row < rows; row++) {
+            String text = (row + 1) + ". " + history.getSan(row * 2);
+            if (row * 2 + 1 < plies) text += " " + history.getSan(row * 2 + 1);
+            if (row < moveRows.size()) {
+                if (!text.equals(moveRows.get(row))) moveRows.set(row, text);
+            } else {
+                moveRows.addElement(text);
+            }
+        }
+        if (rows > 0) moveList.ensureIndexIsVisible(rows - 1);
+        undoButton.setEnabled(history.canUndo());
+        redoButton.setEnabled(history.canRedo());
+    }
     
 }
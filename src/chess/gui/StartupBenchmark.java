@@ -0,0 +1,103 @@
+package chess.gui;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * StartupBenchmark measures how long the GUI takes from launching the JVM until the
+ * board is painted and the window takes input (time to first interactive frame).
+ *
+ * Responsibilities:
+ * - Start ChessGUI in fresh JVMs with -Dchess.startup.exit=true, which makes it print
+ *   "first-frame-ms N" after its first board paint and exit.
+ * - Run the same launch with a class data sharing (CDS) archive, when one is given,
+ *   so the two can be compared side by side.
+ * - Report min / median / max per variant.
+ *
+ * Each run is a cold start of a new process; only the OS file cache stays warm, so the
+ * first run of each variant is dropped. The child JVMs get this JVM's class path, which
+ * must also hold the piece images (/pieces). A display is needed: the window really opens.
+ *
+ * Usage: {@code java chess.gui.StartupBenchmark [runs] [archive.jsa]} (default 10 runs).
+ * scripts/build-cds.sh builds the jar and the archive.
+*/
+public class StartupBenchmark {
+
+    private final int runs;
+
+    public StartupBenchmark(int runs) {
+        this.runs = runs;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        String archive = args.length > 1 ? args[1] : null;
+        if (archive != null && !Files.isRegularFile(Paths.get(archive))) {
+            System.err.println("Usage: StartupBenchmark [runs] [archive.jsa] (no archive at " + archive + ")");
+            System.exit(1);
+        }
+
+        StartupBenchmark benchmark = new StartupBenchmark(runs);
+        System.out.println(benchmark.measure("default", new ArrayList<>()));
+        if (archive != null) {
+            List<String> options = new ArrayList<>();
+            options.add("-XX:SharedArchiveFile=" + archive);
+            System.out.println(benchmark.measure("cds", options));
+        }
+    }
+
+    /**
+     * Launches the GUI {@code runs + 1} times and times each start.
+     * @param name Label of the variant in the report
+     * @param jvmOptions Extra options for the child JVMs
+     * @return One report line
+     */
+    public String measure(String name, List<String> jvmOptions) throws IOException, InterruptedException {
+        long[] millis = new long[runs];
+        launch(jvmOptions); // Warms the file cache, not counted
+        for (int i = 0; i < runs; i++) {
+            millis[i] = launch(jvmOptions);
+        }
+        Arrays.sort(millis);
+        return String.format("%-8s runs %3d   min %5d ms   median %5d ms   max %5d ms",
+            name, runs, millis[0], millis[runs / 2], millis[runs - 1]);
+    }
+
+    // One cold start; returns the child's first-frame-ms
+    private static long launch(List<String> jvmOptions) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-Dchess.startup.exit=true");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ChessGUI.class.getName());
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        long millis = -1;
+        StringBuilder output = new StringBuilder();
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("first-frame-ms ")) {
+                    millis = Long.parseLong(line.substring("first-frame-ms ".length()).trim());
+                } else {
+                    output.append(line).append('\n');
+                }
+            }
+        }
+        process.waitFor();
+        if (millis < 0) {
+            throw new IllegalStateException("GUI exited without painting a frame:\n" + output);
+        }
+        return millis;
+    }
+}
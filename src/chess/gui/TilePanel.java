@@ -1,6 +1,8 @@
 package chess.gui;
 
+import chess.core.AttackMap;
 import chess.core.Piece;
+import chess.core.PieceType;
 import java.awt.*;
 import javax.swing.*;
 
@@ -10,6 +12,7 @@ import javax.swing.*;
  * Responsibilities:
  * - Render the tile with appropriate color.
  * - Optionally display a chess piece.
+ * - Mark a hanging piece when the threat overlay is on.
  * 
  * Future improvements:
  * - Add functionality to highlight the tile.
@@ -37,40 +40,22 @@ public class TilePanel extends JPanel {
         this.addMouseListener(new java.awt.event.MouseAdapter() {
             @Override
             public void mousePressed(java.awt.event.MouseEvent e) {
+                if (SessionRecorder.ENABLED) SessionRecorder.click(tilePosition);
                 chess.gui.ChessGUI.handleTileClicked(tilePosition);
             }
         });
     }
 
     /** 
-     * Renders a chess piece from /assets/pieces
+     * Renders a chess piece from /assets/pieces (images are loaded once, see {@link PieceIcons})
      */
     public void setPieceIcon(Piece piece) {
         this.removeAll();
 
-        if (piece == null) {
-            revalidate();
-            repaint();
-            return;
-        }
-
-        // Load image path
-        String iconPath = "/pieces/" 
-            + piece.getColor().toString().toLowerCase() + "_"
-            + piece.getType().toString().toLowerCase() + ".png";
-
-        //
-        try {
-            java.net.URL iconURL = getClass().getResource(iconPath);
-            if (iconURL == null) {
-                System.out.println("Missing icon: " + iconPath + " (resource not found)!");
-                return;
-            }
-            ImageIcon icon = new ImageIcon(iconURL);
+        ImageIcon icon = piece == null ? null : PieceIcons.get(piece.getColor(), piece.getType());
+        if (icon != null) {
             pieceLabel.setIcon(icon);
             this.add(pieceLabel, BorderLayout.CENTER);
-        } catch (Exception e) {
-            System.out.println("Missing icon: " + iconPath);
         }
 
         revalidate();
@@ -85,6 +70,24 @@ public class TilePanel extends JPanel {
             g.setColor(new Color(255, 255, 0, 120));
             g.fillRect(0, 0, getWidth(), getHeight());
         }
+
+        if (ChessGUI.isShowThreats()) {
+            paintThreat(g, ChessGUI.getAttackMap());
+        }
+    }
+
+    // Hanging piece: red tint plus the cheapest piece that takes it, e.g. "xP"
+    private void paintThreat(Graphics g, AttackMap map) {
+        int square = tilePosition.getIndex();
+        if (!map.isHanging(square)) return;
+        g.setColor(new Color(220, 38, 38, 110));
+        g.fillRect(0, 0, getWidth(), getHeight());
+
+        chess.core.Color owner = ChessGUI.getPositionSnapshot().getColor(square);
+        PieceType attacker = map.getLowestAttacker(owner.opposite(), square);
+        g.setColor(Color.WHITE);
+        g.setFont(new Font("Courier New", Font.BOLD, 14));
+        g.drawString("x" + attacker.getShortName(), 4, 14);
     }
 
 }
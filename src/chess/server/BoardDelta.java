@@ -0,0 +1,61 @@
+package chess.server;
+
+import chess.core.GameStatus;
+import chess.core.Move;
+
+/**
+ * One change of a hosted game, as sent to spectators: the move just played, not the
+ * board. A spectator who holds the position before it applies the move with
+ * {@link chess.core.ChessBoard#makeMove} and can check the result against the hash.
+ * <p>
+ * Immutable; one instance is shared by every subscriber of the game.
+ */
+public final class BoardDelta {
+
+    private final int ply;
+    private final int move;
+    private final long zobristHash;
+    private final GameStatus status;
+    private final long createdNanos;
+
+    /**
+     * @param ply Number of plies played once the move is made (1 for the first move)
+     * @param move The packed move, with its special-move flags
+     * @param zobristHash Hash of the position after the move
+     * @param status Game status after the move
+     */
+    public BoardDelta(int ply, int move, long zobristHash, GameStatus status) {
+        this.ply = ply;
+        this.move = move;
+        this.zobristHash = zobristHash;
+        this.status = status;
+        this.createdNanos = System.nanoTime();
+    }
+
+    public int getPly() {
+        return ply;
+    }
+
+    public int getMove() {
+        return move;
+    }
+
+    public long getZobristHash() {
+        return zobristHash;
+    }
+
+    public GameStatus getStatus() {
+        return status;
+    }
+
+    /** @return {@link System#nanoTime()} when the move was played, for latency measurements. */
+    public long getCreatedNanos() {
+        return createdNanos;
+    }
+
+    /** @return The protocol line, e.g. "DELTA 12 e1g1 ONGOING". */
+    @Override
+    public String toString() {
+        return "DELTA " + ply + " " + Move.toString(move) + " " + status;
+    }
+}
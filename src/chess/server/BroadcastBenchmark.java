@@ -0,0 +1,183 @@
+package chess.server;
+
+import chess.util.LatencyHistogram;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spectator fan-out benchmark for {@link GameServer}.
+ * <p>
+ * For each spectator count, one connection plays a game of random legal moves while
+ * that many other connections WATCH it. Every spectator timestamps each DELTA line as
+ * it arrives; the latency reported is from just before the player sent the MOVE to
+ * that moment, so it includes the broadcast tick (up to
+ * {@value GameServer#BROADCAST_TICK_MILLIS} ms) and the socket round trip. Player and
+ * spectators run in this JVM, so their clocks agree.
+ * <p>
+ * Usage: {@code java chess.server.BroadcastBenchmark [spectators] [moves] [port]}
+ * (defaults: 1,10,100,1000 spectators, 200 moves, port 5555) against a running server.
+ */
+public class BroadcastBenchmark {
+
+    private final int port;
+
+    public BroadcastBenchmark(int port) {
+        this.port = port;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String counts = args.length > 0 ? args[0] : "1,10,100,1000";
+        int moves = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : GameServer.DEFAULT_PORT;
+
+        BroadcastBenchmark benchmark = new BroadcastBenchmark(port);
+        for (String count : counts.split(",")) {
+            System.out.println(benchmark.run(Integer.parseInt(count.trim()), moves));
+        }
+    }
+
+    /**
+     * Plays one watched game.
+     * @param spectators Number of watching connections
+     * @param moves Plies to play (fewer if the game ends first)
+     * @return One report line
+     */
+    public String run(int spectators, int moves) throws Exception {
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder delivered = new LongAdder();
+        AtomicLongArray sentNanos = new AtomicLongArray(moves + 1); // [ply]
+        CountDownLatch watching = new CountDownLatch(spectators);
+        CountDownLatch done = new CountDownLatch(spectators);
+        ExecutorService workers = SessionThreads.newPerTaskExecutor("chess-watch");
+
+        try (Connection player = new Connection(port)) {
+            long id = player.newGame();
+            for (int i = 0; i < spectators; i++) {
+                workers.execute(() -> {
+                    try {
+                        watch(id, sentNanos, latency, delivered, watching);
+                    } catch (IOException e) {
+                        System.err.println("Spectator failed: " + e.getMessage());
+                        watching.countDown();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            watching.await();
+
+            int played = play(player, id, moves, sentNanos);
+            player.request("END " + id); // Closes the broadcast: every spectator gets WATCH END
+            player.request("QUIT");
+            done.await();
+            workers.shutdown();
+
+            long expected = (long) played * spectators;
+            return String.format("spectators %5d   moves %4d   delivered %8d/%d   p50 %6.2f ms   p99 %6.2f ms   max %6.2f ms",
+                spectators, played, delivered.sum(), expected,
+                latency.getValueAtPercentile(50) / 1e6,
+                latency.getValueAtPercentile(99) / 1e6,
+                latency.getMax() / 1e6);
+        }
+    }
+
+    // Plays random legal moves; returns the number played
+    private static int play(Connection player, long id, int moves, AtomicLongArray sentNanos) throws IOException {
+        SplittableRandom random = new SplittableRandom(id);
+        int ply = 0;
+        while (ply < moves) {
+            List<String> legal = player.legalMoves(id);
+            if (legal.isEmpty()) break;
+            String move = legal.get(random.nextInt(legal.size()));
+            sentNanos.set(ply + 1, System.nanoTime());
+            String reply = player.request("MOVE " + id + " " + move);
+            if (!reply.startsWith("OK")) {
+                throw new IOException("Server rejected a listed legal move " + move + ": " + reply);
+            }
+            ply++;
+        }
+        return ply;
+    }
+
+    // One spectator: reads the stream until WATCH END
+    private void watch(long id, AtomicLongArray sentNanos, LatencyHistogram latency, LongAdder delivered,
+                       CountDownLatch watching) throws IOException {
+        try (Connection conn = new Connection(port)) {
+            String reply = conn.request("WATCH " + id);
+            watching.countDown();
+            if (!reply.startsWith("WATCHING")) throw new IOException("Unexpected reply " + reply);
+
+            String line;
+            while ((line = conn.readLine()) != null && !line.equals("WATCH END")) {
+                long now = System.nanoTime();
+                if (!line.startsWith("DELTA ")) continue; // RESYNC: counted as missed moves
+                int ply = Integer.parseInt(line.split(" ")[1]);
+                if (ply < sentNanos.length()) {
+                    latency.record(now - sentNanos.get(ply));
+                    delivered.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * A blocking request/response client connection that can also read a stream.
+     */
+    private static final class Connection implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final Writer out;
+
+        Connection(int port) throws IOException {
+            socket = new Socket("localhost", port);
+            socket.setTcpNoDelay(true);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII));
+        }
+
+        String request(String line) throws IOException {
+            out.write(line);
+            out.write('\n');
+            out.flush();
+            String reply = in.readLine();
+            if (reply == null) throw new IOException("Server closed the connection");
+            return reply;
+        }
+
+        String readLine() throws IOException {
+            return in.readLine();
+        }
+
+        long newGame() throws IOException {
+            String reply = request("NEW");
+            return Long.parseLong(reply.substring("GAME ".length()));
+        }
+
+        List<String> legalMoves(long id) throws IOException {
+            String reply = request("MOVES " + id);
+            List<String> moves = new ArrayList<>();
+            for (String token : reply.split(" ")) {
+                if (!token.equals("MOVES")) moves.add(token);
+            }
+            return moves;
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
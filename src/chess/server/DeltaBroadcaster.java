@@ -0,0 +1,218 @@
+package chess.server;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fans the moves of one game out to any number of spectators, in batches.
+ * <p>
+ * Two lock-free rings connect the three parties:
+ * <ol>
+ *   <li>The game (under its own lock, so one producer at a time) appends each
+ *       {@link BoardDelta} to a pending ring.</li>
+ *   <li>Once per tick, {@link #tick()} drains the pending deltas into one immutable
+ *       {@link Batch} and publishes it in the batch ring by advancing a single volatile
+ *       sequence, then wakes the subscribers waiting for it.</li>
+ *   <li>Every {@link Subscription} reads the batch ring at its own pace with its own
+ *       cursor. Nothing is copied or queued per subscriber, so a tick costs the same for
+ *       ten spectators as for ten thousand, apart from the wake-ups.</li>
+ * </ol>
+ * A subscriber that falls more than the ring's capacity behind has missed batches; it
+ * gets a {@link Batch#isResync() resync} batch instead and must fetch the position again
+ * (e.g. from the game's snapshot). Batching trades up to one tick of latency for far
+ * fewer wake-ups and writes when moves come quickly.
+ */
+public final class DeltaBroadcaster {
+
+    /** Batches kept for subscribers that read late. */
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final int PENDING_CAPACITY = 1024;
+    private static final BoardDelta[] NO_DELTAS = new BoardDelta[0];
+
+    /** The deltas of one tick, in move order. Shared by all subscribers: read-only. */
+    public static final class Batch {
+        private final long sequence;
+        private final List<BoardDelta> deltas;
+        private final boolean resync;
+        private final boolean closed;
+
+        Batch(long sequence, BoardDelta[] deltas, boolean resync, boolean closed) {
+            this.sequence = sequence;
+            this.deltas = Collections.unmodifiableList(Arrays.asList(deltas));
+            this.resync = resync;
+            this.closed = closed;
+        }
+
+        public List<BoardDelta> getDeltas() {
+            return deltas;
+        }
+
+        /** @return Whether batches were missed; the subscriber has to reload the position. */
+        public boolean isResync() {
+            return resync;
+        }
+
+        /** @return Whether the game has gone (no batch follows). */
+        public boolean isClosed() {
+            return closed;
+        }
+    }
+
+    // --- Game -> tick: single-producer single-consumer ring ---
+    private final BoardDelta[] pending = new BoardDelta[PENDING_CAPACITY];
+    private final AtomicLong pendingWritten = new AtomicLong(); // Next slot the game writes
+    private final AtomicLong pendingRead = new AtomicLong();    // Next slot tick() reads
+
+    // --- Tick -> subscribers: single-producer broadcast ring ---
+    private final Batch[] batches;
+    private final int mask;
+    private volatile long published = -1; // Sequence of the newest batch
+    private final ConcurrentLinkedQueue<Subscription> waiting = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private volatile boolean closed;
+
+    public DeltaBroadcaster() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /** @param capacity Batches kept for late readers (rounded up to a power of two) */
+    public DeltaBroadcaster(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.batches = new Batch[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Queues a delta for the next tick. Called by one thread at a time (the game's lock
+     * holder); waits only if a full ring of deltas arrived within one tick.
+     */
+    public void publish(BoardDelta delta) {
+        long slot = pendingWritten.get();
+        while (slot - pendingRead.get() >= PENDING_CAPACITY) {
+            Thread.yield();
+        }
+        pending[(int) (slot % PENDING_CAPACITY)] = delta;
+        pendingWritten.lazySet(slot + 1); // Publishes the slot to the tick thread
+    }
+
+    /**
+     * Publishes everything queued since the last tick as one batch and wakes the
+     * waiting subscribers. Called periodically, e.g. by the server's broadcast thread;
+     * only this and {@link #close()} publish, and they are serialized.
+     * @return Number of deltas published
+     */
+    public synchronized int tick() {
+        long read = pendingRead.get();
+        long written = pendingWritten.get();
+        int count = (int) (written - read);
+        if (count == 0 || closed) return 0;
+        BoardDelta[] deltas = new BoardDelta[count];
+        for (int i = 0; i < count; i++) {
+            int slot = (int) ((read + i) % PENDING_CAPACITY);
+            deltas[i] = pending[slot];
+            pending[slot] = null;
+        }
+        pendingRead.lazySet(written); // Frees the slots for publish()
+        publishBatch(deltas, false);
+        return count;
+    }
+
+    /** Ends the broadcast: subscribers receive a closed batch after the pending moves. */
+    public synchronized void close() {
+        if (closed) return;
+        tick();
+        closed = true;
+        publishBatch(NO_DELTAS, true);
+    }
+
+    /** @return A cursor that receives every batch published from now on. */
+    public Subscription subscribe() {
+        subscribers.incrementAndGet();
+        return new Subscription(published + 1);
+    }
+
+    /** @return Number of open subscriptions. */
+    public int getSubscriberCount() {
+        return subscribers.get();
+    }
+
+    /**
+     * One spectator's read position in the batch ring. Used by one thread.
+     */
+    public final class Subscription implements AutoCloseable {
+        private long next;
+        private boolean open = true;
+        private volatile Thread waiter;
+        private volatile boolean queued; // In the waiting queue; cleared by the publisher
+
+        private Subscription(long next) {
+            this.next = next;
+        }
+
+        /** @return The next batch, or null if none has been published yet. */
+        public Batch poll() {
+            long newest = published;
+            if (next > newest) return null;
+            if (newest - next >= batches.length) return resync(newest);
+            Batch batch = batches[(int) (next & mask)];
+            if (batch == null || batch.sequence != next) return resync(published); // Overwritten meanwhile
+            next++;
+            return batch;
+        }
+
+        /**
+         * Waits for the next batch.
+         * @param timeoutNanos Longest wait
+         * @return The batch, or null on timeout
+         */
+        public Batch take(long timeoutNanos) throws InterruptedException {
+            long deadline = System.nanoTime() + timeoutNanos;
+            while (true) {
+                Batch batch = poll();
+                if (batch != null) return batch;
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) return null;
+                waiter = Thread.currentThread();
+                if (!queued) { // At most one entry per subscriber, however often it times out
+                    queued = true;
+                    waiting.add(this);
+                }
+                // A batch published before we were queued wakes no one; look again
+                if (next <= published) continue;
+                LockSupport.parkNanos(this, remaining);
+                if (Thread.interrupted()) throw new InterruptedException();
+            }
+        }
+
+        private Batch resync(long newest) {
+            next = newest + 1;
+            return new Batch(newest, NO_DELTAS, true, closed);
+        }
+
+        @Override
+        public void close() {
+            if (open) {
+                open = false;
+                subscribers.decrementAndGet();
+            }
+        }
+    }
+
+    // --- Internals ---
+
+    private void publishBatch(BoardDelta[] deltas, boolean last) {
+        long sequence = published + 1;
+        batches[(int) (sequence & mask)] = new Batch(sequence, deltas, false, last);
+        published = sequence; // Volatile write: makes the slot visible to readers
+        Subscription subscription;
+        while ((subscription = waiting.poll()) != null) {
+            subscription.queued = false;
+            LockSupport.unpark(subscription.waiter);
+        }
+    }
+}
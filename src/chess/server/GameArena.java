@@ -0,0 +1,86 @@
+package chess.server;
+
+import chess.core.ChessBoard;
+import chess.core.CompactBoardCodec;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Off-heap storage for idle games.
+ * <p>
+ * Positions are stored as {@link CompactBoardCodec} records in fixed 32-byte slots of
+ * direct ByteBuffers, allocated one chunk at a time. A million parked games cost 32 MB
+ * outside the Java heap and no objects at all for the garbage collector to trace.
+ * Freed slots are recycled through a primitive free list.
+ */
+public class GameArena {
+
+    private static final int SLOT_SIZE = CompactBoardCodec.ENCODED_SIZE;
+    private static final int SLOTS_PER_CHUNK = 1 << 16; // 2 MB per chunk
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private int[] freeSlots = new int[256];
+    private int freeCount;
+    private int nextSlot;
+
+    /**
+     * Encodes a board into a free slot.
+     * @param board The position to park
+     * @return The slot number, needed to load or free it later
+     */
+    public int store(ChessBoard board) {
+        int slot = allocate();
+        CompactBoardCodec.encode(board, chunkFor(slot), offsetOf(slot));
+        return slot;
+    }
+
+    /**
+     * Decodes the position held in a slot. The slot stays allocated.
+     * @param slot A slot returned by {@link #store(ChessBoard)}
+     * @return A new board holding the stored position
+     */
+    public ChessBoard load(int slot) {
+        return CompactBoardCodec.decode(chunkFor(slot), offsetOf(slot));
+    }
+
+    /** Returns a slot to the free list. */
+    public synchronized void free(int slot) {
+        if (freeCount == freeSlots.length) {
+            int[] grown = new int[freeSlots.length * 2];
+            System.arraycopy(freeSlots, 0, grown, 0, freeCount);
+            freeSlots = grown;
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    /** @return Number of slots currently holding a game. */
+    public synchronized int size() {
+        return nextSlot - freeCount;
+    }
+
+    /** @return Bytes of direct memory reserved by this arena. */
+    public synchronized long reservedBytes() {
+        return (long) chunks.size() * SLOTS_PER_CHUNK * SLOT_SIZE;
+    }
+
+    private synchronized int allocate() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (nextSlot == chunks.size() * SLOTS_PER_CHUNK) {
+            chunks.add(ByteBuffer.allocateDirect(SLOTS_PER_CHUNK * SLOT_SIZE));
+        }
+        return nextSlot++;
+    }
+
+    // Chunks are only ever appended, so reading the list under the lock is enough;
+    // the slot bytes themselves are owned by whoever holds the slot number.
+    private synchronized ByteBuffer chunkFor(int slot) {
+        return chunks.get(slot / SLOTS_PER_CHUNK);
+    }
+
+    private static int offsetOf(int slot) {
+        return (slot % SLOTS_PER_CHUNK) * SLOT_SIZE;
+    }
+}
@@ -0,0 +1,239 @@
+package chess.server;
+
+import chess.core.ChessBoard;
+import chess.core.LegalMoveCache;
+import chess.storage.GameJournal;
+import chess.storage.RecoveredGame;
+import chess.util.LatencyHistogram;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless game server hosting many concurrent games over a line-based TCP protocol.
+ * <p>
+ * Each accepted connection is served by its own {@link GameSession} on a dedicated
+ * (virtual, where available) thread. Games live in a shared registry and can be used
+ * from any connection that knows their id. A background sweeper parks games that have
+ * been idle for a while into an off-heap {@link GameArena}.
+ * <p>
+ * Spectators (WATCH) receive the moves of a game as they are played: every
+ * {@value #BROADCAST_TICK_MILLIS} ms a broadcast thread hands the new moves of each watched
+ * game to its {@link DeltaBroadcaster}.
+ * <p>
+ * With a journal directory, games survive restarts: moves are appended to a
+ * {@link GameJournal} and a move is only acknowledged once its group commit is durable.
+ * <p>
+ * Usage: {@code java chess.server.GameServer [port] [idleSeconds] [journalDir]}
+ * (default port 5555, bound to localhost; games idle for 30 seconds are parked;
+ * no journal).
+ */
+public class GameServer {
+
+    public static final int DEFAULT_PORT = 5555;
+
+    /** Positions whose legal moves are kept for MOVES and MOVE requests (about 600 bytes each). */
+    public static final int MOVE_CACHE_CAPACITY = 65536;
+
+    /** Interval at which the moves of watched games are sent to their spectators. */
+    public static final int BROADCAST_TICK_MILLIS = 20;
+
+    private final int port;
+    private final long idleNanos;
+    private final GameArena arena = new GameArena();
+    private final LegalMoveCache moveCache = new LegalMoveCache(MOVE_CACHE_CAPACITY);
+    private final GameJournal journal;
+    private final ConcurrentHashMap<Long, ServerGame> games = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, DeltaBroadcaster> broadcasters = new ConcurrentHashMap<>(); // Watched games only
+    private final AtomicLong nextGameId = new AtomicLong(1);
+
+    // Server-side statistics reported by the STATS command
+    private final LatencyHistogram validationLatency = new LatencyHistogram();
+    private final LongAdder movesPlayed = new LongAdder();
+    private final LongAdder movesRejected = new LongAdder();
+
+    private volatile ServerSocket serverSocket;
+
+    /**
+     * @param port TCP port on localhost
+     * @param idleSeconds Idle time after which a game is parked off-heap
+     * @param journal Journal to persist games in, or null
+     */
+    public GameServer(int port, int idleSeconds, GameJournal journal) throws IOException {
+        this.port = port;
+        this.idleNanos = TimeUnit.SECONDS.toNanos(idleSeconds);
+        this.journal = journal;
+
+        if (journal != null) {
+            for (RecoveredGame recovered : journal.recover().values()) {
+                long id = recovered.getId();
+                games.put(id, new ServerGame(id, arena, moveCache, journal, recovered.getBoard(), recovered.getPlyCount()));
+                if (id >= nextGameId.get()) nextGameId.set(id + 1);
+            }
+            journal.startFlusher();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int idleSeconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        GameJournal journal = args.length > 2 ? new GameJournal(Paths.get(args[2])) : null;
+        GameServer server = new GameServer(port, idleSeconds, journal);
+        System.out.println("Chess server listening on localhost:" + port
+            + ", " + server.games.size() + " games recovered"
+            + (SessionThreads.usesVirtualThreads() ? " (virtual threads)" : " (platform threads)"));
+        server.serve();
+    }
+
+    /**
+     * Accepts connections until {@link #stop()} is called.
+     * Blocks the calling thread.
+     */
+    public void serve() throws IOException {
+        ExecutorService sessions = SessionThreads.newPerTaskExecutor("chess-session");
+        ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "chess-idle-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::parkIdleGames, 1, 1, TimeUnit.SECONDS);
+        ScheduledExecutorService broadcast = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "chess-broadcast");
+            thread.setDaemon(true);
+            return thread;
+        });
+        broadcast.scheduleAtFixedRate(this::tickBroadcasters, BROADCAST_TICK_MILLIS, BROADCAST_TICK_MILLIS,
+            TimeUnit.MILLISECONDS);
+
+        try (ServerSocket socket = new ServerSocket()) {
+            socket.setReuseAddress(true);
+            socket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 4096);
+            serverSocket = socket;
+
+            while (!socket.isClosed()) {
+                Socket client;
+                try {
+                    client = socket.accept();
+                } catch (IOException e) {
+                    if (socket.isClosed()) break; // stop() was called
+                    throw e;
+                }
+                client.setTcpNoDelay(true);
+                sessions.execute(new GameSession(this, client));
+            }
+        } finally {
+            sweeper.shutdownNow();
+            broadcast.shutdownNow();
+            sessions.shutdown();
+            if (journal != null) journal.close();
+        }
+    }
+
+    /** Closes the listening socket; open sessions finish when their clients disconnect. */
+    public void stop() throws IOException {
+        ServerSocket socket = serverSocket;
+        if (socket != null) socket.close();
+    }
+
+    /** @return A new game in the starting position. */
+    public ServerGame createGame() {
+        return register(new ServerGame(nextGameId.getAndIncrement(), arena, moveCache, journal));
+    }
+
+    /**
+     * @param number The Chess960 start position, 0..959
+     * @return A new Chess960 game
+     * @throws IllegalArgumentException if the number is out of range
+     */
+    public ServerGame createChess960Game(int number) {
+        ChessBoard start = ChessBoard.empty();
+        start.setupChess960(number);
+        return register(new ServerGame(nextGameId.getAndIncrement(), arena, moveCache, journal, start));
+    }
+
+    private ServerGame register(ServerGame game) {
+        games.put(game.getId(), game);
+        return game;
+    }
+
+    /** @return The game with this id, or null if it does not exist. */
+    public ServerGame getGame(long id) {
+        return games.get(id);
+    }
+
+    /** Removes a finished game from the registry; its spectators are told it has gone. */
+    public void endGame(long id) {
+        ServerGame game = games.remove(id);
+        if (game != null) game.release();
+        DeltaBroadcaster broadcaster = broadcasters.remove(id);
+        if (broadcaster != null) broadcaster.close();
+    }
+
+    /**
+     * Subscribes a spectator to a game's moves, batched per broadcast tick.
+     * @return The subscription; close it when the spectator leaves
+     */
+    public DeltaBroadcaster.Subscription watch(ServerGame game) {
+        return game.watch(() -> broadcasters.computeIfAbsent(game.getId(), id -> new DeltaBroadcaster()));
+    }
+
+    /** Publishes the moves of the last tick to the spectators of every watched game. */
+    void tickBroadcasters() {
+        for (DeltaBroadcaster broadcaster : broadcasters.values()) {
+            broadcaster.tick();
+        }
+    }
+
+    /** Parks every game that has been idle for longer than the configured threshold. */
+    void parkIdleGames() {
+        for (ServerGame game : games.values()) {
+            game.parkIfIdle(idleNanos);
+        }
+    }
+
+    /**
+     * Blocks until a journal record is durable; returns at once when running without a journal.
+     * @param sequence Sequence number of a {@link ServerGame.MoveResult}
+     */
+    void awaitDurable(long sequence) {
+        if (journal == null) return;
+        try {
+            journal.awaitDurable(sequence);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Records the outcome and duration of one move validation. */
+    void recordMove(boolean accepted, long elapsedNanos) {
+        validationLatency.record(elapsedNanos);
+        if (accepted) {
+            movesPlayed.increment();
+        } else {
+            movesRejected.increment();
+        }
+    }
+
+    /** @return A one-line summary of the server-side counters. */
+    String statsLine() {
+        return "STATS games=" + games.size()
+            + " parked=" + arena.size()
+            + " watched=" + broadcasters.size()
+            + " moves=" + movesPlayed.sum()
+            + " rejected=" + movesRejected.sum()
+            + " cacheHitRate=" + String.format("%.3f", moveCache.getHitRate())
+            + " p50us=" + validationLatency.getValueAtPercentile(50) / 1000.0
+            + " p99us=" + validationLatency.getValueAtPercentile(99) / 1000.0
+            + " maxus=" + validationLatency.getMax() / 1000.0;
+    }
+}
@@ -0,0 +1,292 @@
+package chess.server;
+
+import chess.core.BoardSnapshot;
+import chess.core.GameStatus;
+import chess.core.Move;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves one client connection. Every request is a single line and gets exactly
+ * one response line, except WATCH, which turns the connection into a stream.
+ * <p>
+ * Protocol:
+ * <pre>
+ *   NEW [&lt;n&gt;]           -> GAME &lt;id&gt; (with n: Chess960 start position n, 0..959)
+ *   MOVES &lt;id&gt;         -> MOVES [e2e4 g1f3 ...]
+ *   MOVE &lt;id&gt; &lt;e7e8q&gt;  -> OK &lt;WHITE|BLACK&gt; &lt;status&gt; | ILLEGAL
+ *   BOARD &lt;id&gt;         -> BOARD &lt;rows separated by '/'&gt;
+ *   END &lt;id&gt;           -> ENDED
+ *   STATS               -> STATS games=.. moves=.. p99us=..
+ *   WATCH &lt;id&gt;         -> WATCHING &lt;id&gt; &lt;ply&gt; &lt;rows&gt;, then a stream of
+ *                          DELTA &lt;ply&gt; &lt;e2e4&gt; &lt;status&gt;
+ *                          RESYNC &lt;ply&gt; &lt;rows&gt;
+ *                          WATCH END
+ *   UNWATCH             -> (while watching) ends the stream with WATCH END
+ *   QUIT                -> BYE (connection is closed)
+ * </pre>
+ * The status after a move is a {@link GameStatus} name such as ONGOING or CHECKMATE;
+ * once the game is over MOVES lists nothing and every MOVE is ILLEGAL.
+ * Malformed requests are answered with {@code ERROR <reason>}.
+ * <p>
+ * A spectator applies each DELTA to the position it has (rows as in BOARD), skipping
+ * deltas of a ply it already has. RESYNC replaces the position: the spectator fell too
+ * far behind and missed moves. The stream ends with WATCH END when the game is over,
+ * has been ended or the client sends UNWATCH; the connection then takes requests again.
+ * Other requests sent while watching are dropped. Closing the connection while watching
+ * ends the watch at once, even if the game is quiet.
+ */
+public class GameSession implements Runnable {
+
+    /** How often a watching session checks for UNWATCH while no moves come. */
+    static final int WATCH_POLL_MILLIS = 250;
+
+    // Request lines read ahead by a session's line reader; a full queue stalls the reader
+    private static final int PENDING_LINES = 64;
+    // Queued by the line reader at end of input; compared by identity
+    private static final String END_OF_INPUT = new String();
+    private static final ExecutorService LINE_READERS = SessionThreads.newPerTaskExecutor("chess-line-reader");
+
+    private final GameServer server;
+    private final Socket socket;
+    private BlockingQueue<String> lines; // null until the first WATCH, see nextLine
+    private boolean inputClosed;
+
+    public GameSession(GameServer server, Socket socket) {
+        this.server = server;
+        this.socket = socket;
+    }
+
+    @Override
+    public void run() {
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+             Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.US_ASCII))) {
+
+            String line;
+            while ((line = nextLine(in)) != null) {
+                line = line.trim();
+                if (line.startsWith("WATCH ")) {
+                    watch(line.split(" "), in, out);
+                    continue;
+                }
+                String response = handle(line);
+                out.write(response);
+                out.write('\n');
+                out.flush();
+                if (response.equals("BYE")) break;
+            }
+        } catch (IOException e) {
+            // Client went away; nothing to clean up beyond the socket
+        }
+    }
+
+    /**
+     * Executes a single request line.
+     * @param line The request without its line terminator
+     * @return The response line
+     */
+    String handle(String line) {
+        String[] parts = line.split(" ");
+        String command = parts[0];
+
+        try {
+            switch (command) {
+                case "NEW":
+                    return "GAME " + (parts.length > 1
+                        ? server.createChess960Game(Integer.parseInt(parts[1])) : server.createGame()).getId();
+                case "MOVES":
+                    return movesResponse(requireGame(parts));
+                case "MOVE":
+                    return moveResponse(requireGame(parts), parts);
+                case "BOARD":
+                    return "BOARD " + requireGame(parts).getSnapshot().toString().trim().replace('\n', '/');
+                case "END":
+                    server.endGame(parseId(parts));
+                    return "ENDED";
+                case "STATS":
+                    return server.statsLine();
+                case "QUIT":
+                    return "BYE";
+                default:
+                    return "ERROR unknown command " + command;
+            }
+        } catch (IllegalArgumentException e) {
+            return "ERROR " + e.getMessage();
+        } catch (UncheckedIOException e) {
+            return "ERROR journal " + e.getCause().getMessage();
+        }
+    }
+
+    /**
+     * Reads the next request line. Until the first WATCH this reads {@code in} directly;
+     * from then on a line reader owns {@code in} and queues its lines, so a watching
+     * session can look for UNWATCH or end of input without blocking between deltas.
+     * @return The line, or null at end of input
+     */
+    private String nextLine(BufferedReader in) throws IOException {
+        if (inputClosed) return null;
+        if (lines == null) return in.readLine();
+        try {
+            return checkEnd(lines.take());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    // Hands the reading of `in` over to a line reader; no-op if one is running already
+    private void startLineReader(BufferedReader in) {
+        if (lines != null) return;
+        BlockingQueue<String> queue = new ArrayBlockingQueue<>(PENDING_LINES);
+        lines = queue;
+        LINE_READERS.execute(() -> {
+            try {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    queue.put(line);
+                }
+            } catch (IOException e) {
+                // Connection closed, also when the session ends; same as end of input
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                queue.put(END_OF_INPUT);
+            } catch (InterruptedException e) {
+                // Executor shutting down
+            }
+        });
+    }
+
+    private String checkEnd(String line) {
+        if (line == END_OF_INPUT) {
+            inputClosed = true;
+            return null;
+        }
+        return line;
+    }
+
+    /**
+     * Streams a game's moves to the client until the watch ends (see the class comment).
+     * Blocks this session's thread; a write to a client that went away ends it, and so
+     * does the client closing its side of the connection.
+     */
+    void watch(String[] parts, BufferedReader in, Writer out) throws IOException {
+        ServerGame game;
+        try {
+            game = requireGame(parts);
+        } catch (IllegalArgumentException e) {
+            writeLine(out, "ERROR " + e.getMessage());
+            return;
+        }
+        startLineReader(in);
+        try (DeltaBroadcaster.Subscription subscription = server.watch(game)) {
+            // Subscribed first: every later move arrives as a delta, any already in the
+            // position below is skipped by the client by its ply
+            writeLine(out, positionLine("WATCHING " + game.getId(), game));
+            boolean over = game.getStatus().isGameOver();
+            while (!over) {
+                DeltaBroadcaster.Batch batch;
+                try {
+                    batch = subscription.take(TimeUnit.MILLISECONDS.toNanos(WATCH_POLL_MILLIS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                // See whether the client wants to stop or went away; other lines are dropped
+                boolean unwatch = false;
+                String line;
+                while (!unwatch && (line = lines.poll()) != null) {
+                    if (checkEnd(line) == null) return;
+                    unwatch = line.trim().equals("UNWATCH");
+                }
+                if (unwatch) break;
+                if (batch == null) continue; // Quiet game
+                if (batch.isResync()) {
+                    writeLine(out, positionLine("RESYNC", game));
+                    over = game.getStatus().isGameOver();
+                } else if (!batch.getDeltas().isEmpty()) {
+                    for (BoardDelta delta : batch.getDeltas()) {
+                        out.write(delta.toString());
+                        out.write('\n');
+                        over = delta.getStatus().isGameOver();
+                    }
+                    out.flush(); // One write per batch, not per move
+                }
+                if (batch.isClosed()) break;
+            }
+            writeLine(out, "WATCH END");
+        }
+    }
+
+    private String movesResponse(ServerGame game) {
+        List<String> moves = game.legalMoves();
+        StringBuilder sb = new StringBuilder("MOVES");
+        for (String move : moves) {
+            sb.append(' ').append(move);
+        }
+        return sb.toString();
+    }
+
+    private String moveResponse(ServerGame game, String[] parts) {
+        if (parts.length < 3) {
+            throw new IllegalArgumentException("expected MOVE <id> <from><to>[promotion]");
+        }
+        int move = Move.parse(parts[2]);
+
+        long start = System.nanoTime();
+        ServerGame.MoveResult result = game.tryMove(move);
+        server.recordMove(result != null, System.nanoTime() - start);
+        if (result == null) return "ILLEGAL";
+
+        // Acknowledge only once the move is on disk (outside the game lock, so the
+        // opponent's session is not blocked while the batch is forced)
+        server.awaitDurable(result.getSequence());
+        return "OK " + result.getTurn() + " " + result.getStatus();
+    }
+
+    // "<prefix> <ply> <rows>" for a consistent ply and position
+    private static String positionLine(String prefix, ServerGame game) {
+        int ply;
+        BoardSnapshot position;
+        do { // The snapshot is read outside the game lock: retry if a move came in between
+            ply = game.getPlyCount();
+            position = game.getSnapshot();
+        } while (ply != game.getPlyCount());
+        return prefix + " " + ply + " " + position.toString().trim().replace('\n', '/');
+    }
+
+    private static void writeLine(Writer out, String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+        out.flush();
+    }
+
+    private ServerGame requireGame(String[] parts) {
+        ServerGame game = server.getGame(parseId(parts));
+        if (game == null) {
+            throw new IllegalArgumentException("no such game " + parts[1]);
+        }
+        return game;
+    }
+
+    private static long parseId(String[] parts) {
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("missing game id");
+        }
+        return Long.parseLong(parts[1]); // NumberFormatException is an IllegalArgumentException
+    }
+}
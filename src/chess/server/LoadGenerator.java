@@ -0,0 +1,187 @@
+package chess.server;
+
+import chess.util.LatencyHistogram;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load-generator client for {@link GameServer}.
+ * <p>
+ * Opens a number of connections and keeps the requested number of games running
+ * across them, playing random legal moves. Each game that ends (no legal moves or the
+ * ply limit) is immediately replaced by a new one, so the concurrency stays constant.
+ * At the end it prints moves/sec, client round-trip percentiles and the server's own
+ * move-validation percentiles.
+ * <p>
+ * Usage: {@code java chess.server.LoadGenerator [games] [connections] [seconds] [port]}
+ * (defaults: 10000 games, 1000 connections, 30 seconds, port 5555).
+ */
+public class LoadGenerator {
+
+    private static final int MAX_PLIES_PER_GAME = 200;
+
+    private final int port;
+    private final LatencyHistogram moveRoundTrip = new LatencyHistogram();
+    private final LongAdder movesPlayed = new LongAdder();
+    private final LongAdder gamesFinished = new LongAdder();
+
+    public LoadGenerator(int port) {
+        this.port = port;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int port = args.length > 3 ? Integer.parseInt(args[3]) : GameServer.DEFAULT_PORT;
+
+        new LoadGenerator(port).run(games, Math.min(connections, games), seconds);
+    }
+
+    /**
+     * Runs the load test and prints the report.
+     * @param games Number of concurrently running games
+     * @param connections Number of TCP connections the games are spread over
+     * @param seconds Measurement duration
+     */
+    public void run(int games, int connections, int seconds) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch done = new CountDownLatch(connections);
+        ExecutorService workers = SessionThreads.newPerTaskExecutor("chess-load");
+
+        for (int i = 0; i < connections; i++) {
+            // Spread the remainder so the total is exactly "games"
+            int gamesOnConnection = games / connections + (i < games % connections ? 1 : 0);
+            long seed = i;
+            workers.execute(() -> {
+                try {
+                    driveConnection(gamesOnConnection, deadline, seed);
+                } catch (IOException e) {
+                    System.err.println("Connection failed: " + e.getMessage());
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        done.await();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        workers.shutdown();
+
+        System.out.printf("games=%d connections=%d elapsed=%.1fs%n", games, connections, elapsed);
+        System.out.printf("moves=%d (%.0f moves/sec), finished games=%d%n",
+            movesPlayed.sum(), movesPlayed.sum() / elapsed, gamesFinished.sum());
+        System.out.printf("client move round-trip: p50=%.1fus p99=%.1fus max=%.1fus%n",
+            moveRoundTrip.getValueAtPercentile(50) / 1000.0,
+            moveRoundTrip.getValueAtPercentile(99) / 1000.0,
+            moveRoundTrip.getMax() / 1000.0);
+        System.out.println("server " + queryServerStats());
+    }
+
+    /**
+     * Plays a fixed set of games round-robin over one connection until the deadline.
+     */
+    private void driveConnection(int gameCount, long deadline, long seed) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+
+        try (Connection conn = new Connection(port)) {
+            long[] ids = new long[gameCount];
+            int[] plies = new int[gameCount];
+            for (int g = 0; g < gameCount; g++) {
+                ids[g] = conn.newGame();
+            }
+
+            while (System.nanoTime() < deadline) {
+                for (int g = 0; g < gameCount && System.nanoTime() < deadline; g++) {
+                    List<String> moves = conn.legalMoves(ids[g]);
+
+                    if (moves.isEmpty() || plies[g] >= MAX_PLIES_PER_GAME) {
+                        conn.request("END " + ids[g]);
+                        ids[g] = conn.newGame();
+                        plies[g] = 0;
+                        gamesFinished.increment();
+                        continue;
+                    }
+
+                    String move = moves.get(random.nextInt(moves.size()));
+                    long start = System.nanoTime();
+                    String reply = conn.request("MOVE " + ids[g] + " " + move);
+                    moveRoundTrip.record(System.nanoTime() - start);
+
+                    if (!reply.startsWith("OK")) {
+                        throw new IOException("Server rejected a listed legal move " + move + ": " + reply);
+                    }
+                    plies[g]++;
+                    movesPlayed.increment();
+                }
+            }
+            conn.request("QUIT");
+        }
+    }
+
+    private String queryServerStats() {
+        try (Connection conn = new Connection(port)) {
+            return conn.request("STATS");
+        } catch (IOException e) {
+            return "stats unavailable: " + e.getMessage();
+        }
+    }
+
+    /**
+     * A blocking request/response client connection.
+     */
+    private static final class Connection implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final Writer out;
+
+        Connection(int port) throws IOException {
+            socket = new Socket("localhost", port);
+            socket.setTcpNoDelay(true);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII));
+        }
+
+        String request(String line) throws IOException {
+            out.write(line);
+            out.write('\n');
+            out.flush();
+            String reply = in.readLine();
+            if (reply == null) throw new IOException("Server closed the connection");
+            return reply;
+        }
+
+        long newGame() throws IOException {
+            String reply = request("NEW");
+            return Long.parseLong(reply.substring("GAME ".length()));
+        }
+
+        List<String> legalMoves(long id) throws IOException {
+            String reply = request("MOVES " + id);
+            List<String> moves = new ArrayList<>();
+            for (String token : reply.split(" ")) {
+                if (!token.equals("MOVES")) moves.add(token);
+            }
+            return moves;
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package chess.server;
+
+import chess.core.BoardSnapshot;
+import chess.core.ChessBoard;
+import chess.core.GameStatus;
+import chess.core.LegalMoveCache;
+import chess.core.Move;
+import chess.storage.GameJournal;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * The state of one hosted game.
+ * <p>
+ * A game is its {@link ChessBoard} plus a ply counter. All access goes through
+ * the synchronized methods below, so several sessions may safely share a game
+ * (e.g. two players on separate connections).
+ * <p>
+ * Readers that only look at the position (spectators, board listings) use
+ * {@link #getSnapshot()} instead: every move publishes an immutable {@link BoardSnapshot},
+ * which is read without taking the game's lock and without un-parking it.
+ * <p>
+ * Games that sit idle can be parked in a {@link GameArena}: the board is encoded into a
+ * 32-byte off-heap slot and dropped, and transparently decoded again on the next access.
+ * <p>
+ * Spectators follow a game through its {@link DeltaBroadcaster}, which every move feeds
+ * with a {@link BoardDelta} once a first spectator has asked for it.
+ * <p>
+ * When the server runs with a {@link GameJournal}, every played move is appended to it,
+ * with a full checkpoint every {@value #CHECKPOINT_INTERVAL} plies to keep replay short.
+ * <p>
+ * Sessions may still hold a game after the server has ended and {@link #release() released}
+ * it: from then on it takes no moves, lists none and only its last snapshot is read.
+ */
+public class ServerGame {
+
+    /** Plies between two journal checkpoints of the same game. */
+    public static final int CHECKPOINT_INTERVAL = 64;
+
+    private final long id;
+    private final GameArena arena;
+    private final LegalMoveCache moveCache; // Shared by all games of the server
+    private final GameJournal journal; // null when running without persistence
+    private ChessBoard board; // null while parked
+    private int arenaSlot = -1;
+    private int plyCount;
+    private GameStatus status; // Evaluated once per move
+    private final AtomicReference<BoardSnapshot> snapshot = new AtomicReference<>(); // Published per move
+    private long lastAccessNanos = System.nanoTime();
+    private DeltaBroadcaster broadcaster; // null until someone watches
+    private boolean ended; // Released: the board (or arena slot) must not be touched again
+
+    /**
+     * Creates a game in the starting position.
+     * @param id The game id
+     * @param arena Where the game is parked while idle
+     * @param moveCache Cache answering move listings and validation
+     * @param journal Journal for moves, or null
+     */
+    public ServerGame(long id, GameArena arena, LegalMoveCache moveCache, GameJournal journal) {
+        this(id, arena, moveCache, journal, new ChessBoard());
+    }
+
+    /**
+     * Creates a game in a given start position, e.g. a Chess960 layout.
+     * @param id The game id
+     * @param arena Where the game is parked while idle
+     * @param moveCache Cache answering move listings and validation
+     * @param journal Journal for moves, or null
+     * @param start The position before the first move
+     */
+    public ServerGame(long id, GameArena arena, LegalMoveCache moveCache, GameJournal journal, ChessBoard start) {
+        this(id, arena, moveCache, journal, start, 0);
+        if (journal != null) {
+            try {
+                journal.appendCheckpoint(id, 0, board);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Resumes a game, e.g. one rebuilt from the journal after a restart.
+     */
+    public ServerGame(long id, GameArena arena, LegalMoveCache moveCache, GameJournal journal,
+            ChessBoard board, int plyCount) {
+        this.id = id;
+        this.arena = arena;
+        this.moveCache = moveCache;
+        this.journal = journal;
+        this.board = board;
+        this.plyCount = plyCount;
+        this.status = board.getGameStatus();
+        this.snapshot.set(board.snapshot());
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Lock-free read of the current position.
+     * @return The position after the last move played
+     */
+    public BoardSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /** @return Number of half-moves played so far. */
+    public synchronized int getPlyCount() {
+        return plyCount;
+    }
+
+    /** @return The side to move. */
+    public chess.core.Color getCurrentTurn() {
+        return snapshot.get().getSideToMove();
+    }
+
+    /**
+     * @return Whether the game is over, as of the last move. The repetition history
+     *         does not survive parking, so repetitions are counted from the last unpark.
+     */
+    public synchronized GameStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Validates and plays a move for the side to move. Moves in a finished or released
+     * game are illegal.
+     * @param move A packed move; a pawn reaching the last rank without a promotion
+     *             piece promotes to a Queen
+     * @return null if the move was illegal; otherwise the position right after the move
+     *         and the journal sequence number to wait on for durability
+     * @throws UncheckedIOException if the journal cannot be written
+     */
+    public synchronized MoveResult tryMove(int move) {
+        if (ended) return null;
+        ChessBoard board = board();
+        if (status.isGameOver() || !moveCache.isLegal(board, move)) {
+            return null;
+        }
+        board.makeMove(move);
+        plyCount++;
+        status = board.getGameStatus();
+        BoardSnapshot position = board.snapshot();
+        snapshot.set(position);
+        if (broadcaster != null) {
+            broadcaster.publish(new BoardDelta(plyCount, position.getLastMove(), position.getZobristHash(), status));
+        }
+
+        if (journal == null) return new MoveResult(0, board.getCurrentTurn(), status);
+        try {
+            long sequence = journal.appendMove(id, plyCount, move);
+            if (plyCount % CHECKPOINT_INTERVAL == 0) {
+                sequence = journal.appendCheckpoint(id, plyCount, board);
+            }
+            return new MoveResult(sequence, board.getCurrentTurn(), status);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Subscribes a spectator to the moves played from now on. A position read after this
+     * call may already contain some of them; their deltas have a ply at or below its
+     * {@link #getPlyCount()} and are skipped.
+     * @param broadcasterFactory Creates (and registers) the game's broadcaster on first use
+     * @return A new subscription; already closed if the game has been released
+     */
+    public synchronized DeltaBroadcaster.Subscription watch(Supplier<DeltaBroadcaster> broadcasterFactory) {
+        if (ended) { // Not registered with the server: nothing will ever be published
+            DeltaBroadcaster closed = new DeltaBroadcaster();
+            DeltaBroadcaster.Subscription subscription = closed.subscribe();
+            closed.close();
+            return subscription;
+        }
+        if (broadcaster == null) broadcaster = broadcasterFactory.get();
+        return broadcaster.subscribe();
+    }
+
+    /**
+     * Lists every legal move of the side to move in coordinate notation (e.g. "e2e4",
+     * or "e7e8n" for each promotion piece).
+     * @return The moves, empty if the game is over or released
+     */
+    public synchronized List<String> legalMoves() {
+        List<String> moves = new ArrayList<>();
+        if (ended || status.isGameOver()) return moves;
+        ChessBoard board = board();
+
+        int[] packed = new int[ChessBoard.MAX_MOVES];
+        int count = moveCache.getLegalMoves(board, packed);
+        for (int i = 0; i < count; i++) {
+            moves.add(Move.toString(packed[i]));
+        }
+        return moves;
+    }
+
+    /**
+     * Moves the board into the arena if the game has not been touched for a while.
+     * @param idleNanos Minimum idle time before parking
+     * @return true if the game was parked by this call
+     */
+    public synchronized boolean parkIfIdle(long idleNanos) {
+        if (ended || board == null || System.nanoTime() - lastAccessNanos < idleNanos) {
+            return false;
+        }
+        arenaSlot = arena.store(board);
+        board = null;
+        return true;
+    }
+
+    /** @return true if the game currently lives in the arena (never once released). */
+    public synchronized boolean isParked() {
+        return !ended && board == null;
+    }
+
+    /**
+     * Releases the arena slot of a game that is being discarded, journals its end and
+     * ends its broadcast. Later calls do nothing.
+     */
+    public synchronized void release() {
+        if (ended) return;
+        ended = true;
+        if (broadcaster != null) broadcaster.close();
+        if (journal != null) {
+            try {
+                journal.appendEnd(id, plyCount);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (arenaSlot >= 0) {
+            arena.free(arenaSlot);
+            arenaSlot = -1;
+        }
+        board = null;
+    }
+
+    // Returns the live board, un-parking it first if needed. Caller holds the lock and
+    // has checked that the game is not ended.
+    private ChessBoard board() {
+        if (board == null) {
+            board = arena.load(arenaSlot);
+            arena.free(arenaSlot);
+            arenaSlot = -1;
+        }
+        lastAccessNanos = System.nanoTime();
+        return board;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return ended ? snapshot.get().toString() : board().toString();
+    }
+
+    /**
+     * The outcome of a legal {@link #tryMove}, read while the game was still locked:
+     * a later move by the opponent does not show up here.
+     */
+    public static final class MoveResult {
+
+        private final long sequence;
+        private final chess.core.Color turn;
+        private final GameStatus status;
+
+        MoveResult(long sequence, chess.core.Color turn, GameStatus status) {
+            this.sequence = sequence;
+            this.turn = turn;
+            this.status = status;
+        }
+
+        /** @return Journal sequence number of the move record (0 without a journal). */
+        public long getSequence() {
+            return sequence;
+        }
+
+        /** @return The side to move after the move. */
+        public chess.core.Color getTurn() {
+            return turn;
+        }
+
+        /** @return The game status after the move. */
+        public GameStatus getStatus() {
+            return status;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package chess.server;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the "one thread per session" executors used by the server and the load generator.
+ * <p>
+ * On a JDK with virtual threads (21+) every task gets its own virtual thread. The project
+ * itself still targets Java 17, so the virtual-thread factory is looked up reflectively and
+ * we fall back to a cached pool of daemon platform threads when it is not available.
+ */
+public final class SessionThreads {
+
+    private SessionThreads() {
+    }
+
+    /**
+     * @param name Prefix for platform thread names (used only by the fallback).
+     * @return An executor that starts a new thread for every submitted task.
+     */
+    public static ExecutorService newPerTaskExecutor(String name) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(daemonFactory(name));
+        }
+    }
+
+    /** @return true if sessions run on virtual threads in this JVM. */
+    public static boolean usesVirtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static ThreadFactory daemonFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return task -> {
+            // Small stacks: sessions are shallow loops, and we may run thousands of them
+            Thread thread = new Thread(null, task, name + "-" + counter.incrementAndGet(), 256 * 1024);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
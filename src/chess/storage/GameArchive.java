@@ -0,0 +1,366 @@
+package chess.storage;
+
+import chess.core.ChessBoard;
+import chess.core.Fen;
+import chess.core.Move;
+import chess.util.IntList;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-only archive of games with an index of every position they reached, so that
+ * "which games went through this position, and what was played next" is answered from
+ * memory-mapped files without loading any game onto the heap.
+ * <p>
+ * An archive is a directory written by {@link GameArchiveBuilder}. All numbers are
+ * big-endian; every file starts with a 16-byte header (magic, version, count, extra):
+ * <pre>
+ *   games.dat          per game: u16 plies | result &lt;&lt; 14, then plies x u16 move
+ *   games.idx          header extra = index block bits; then u64 offset in games.dat per game id
+ *   positions-NNNN.idx 16-byte entries sorted by (hash, game id, ply):
+ *     bytes  0..7   Zobrist hash of the position (ChessBoard.getZobristHash)
+ *     bytes  8..11  game id
+ *     bytes 12..13  ply at which the game was in the position | result &lt;&lt; 14
+ *     bytes 14..15  move played next (15 bits, see {@link Move}), 0 after the last move
+ * </pre>
+ * Moves are stored without their flags; {@link ChessBoard#makeMove(int)} recognizes
+ * castling and en passant from the position. Results use the {@code RESULT_} codes.
+ * <p>
+ * The position index is split by the top bits of the hash into blocks of a few million
+ * entries, each its own sorted file, so no mapping comes near the 2 GB limit of a
+ * {@code MappedByteBuffer} however many games there are, and a query binary-searches
+ * exactly one block. games.dat is mapped as a whole and limited to 2 GB (about ten
+ * million games).
+ * <p>
+ * Usage: {@code java chess.storage.GameArchive <dir> [fen]} prints the statistics of a
+ * position (default: the starting position) and the average query time.
+ */
+public class GameArchive implements AutoCloseable {
+
+    public static final int RESULT_UNKNOWN = 0;
+    public static final int RESULT_WHITE_WINS = 1;
+    public static final int RESULT_BLACK_WINS = 2;
+    public static final int RESULT_DRAW = 3;
+
+    static final int GAMES_MAGIC = 0x43484741;     // "CHGA"
+    static final int INDEX_MAGIC = 0x43484749;     // "CHGI"
+    static final int POSITIONS_MAGIC = 0x43485049; // "CHPI"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int ENTRY_SIZE = 16;
+    static final int MOVE_MASK = 0x7FFF;
+    static final int PLY_MASK = 0x3FFF;
+    static final int RESULT_SHIFT = 14;
+
+    private final List<FileChannel> channels = new ArrayList<>();
+    private final MappedByteBuffer games;
+    private final MappedByteBuffer offsets;
+    private final MappedByteBuffer[] blocks;
+    private final int[] blockSizes;
+    private final int blockBits;
+    private final int gameCount;
+
+    /**
+     * Maps an archive directory.
+     * @param directory A directory produced by {@link GameArchiveBuilder}
+     * @throws IOException if a file cannot be read or is not part of an archive
+     */
+    public GameArchive(Path directory) throws IOException {
+        try {
+            games = map(directory.resolve(GameArchiveBuilder.GAMES_FILE), GAMES_MAGIC);
+            Path indexFile = directory.resolve(GameArchiveBuilder.INDEX_FILE);
+            offsets = map(indexFile, INDEX_MAGIC);
+            gameCount = offsets.getInt(8);
+            checkSize(offsets, gameCount, Long.BYTES, indexFile);
+            blockBits = offsets.getInt(12);
+            if (blockBits < 0 || blockBits > 16) {
+                throw new IOException("Bad index block bits " + blockBits + ": " + indexFile);
+            }
+            blocks = new MappedByteBuffer[1 << blockBits];
+            blockSizes = new int[blocks.length];
+            for (int i = 0; i < blocks.length; i++) {
+                Path blockFile = directory.resolve(GameArchiveBuilder.blockFile(i));
+                blocks[i] = map(blockFile, POSITIONS_MAGIC);
+                blockSizes[i] = blocks[i].getInt(8);
+                checkSize(blocks[i], blockSizes[i], ENTRY_SIZE, blockFile);
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: GameArchive <dir> [fen]");
+            System.exit(1);
+        }
+        try (GameArchive archive = new GameArchive(Paths.get(args[0]))) {
+            ChessBoard board = args.length > 1
+                ? Fen.parse(String.join(" ", Arrays.copyOfRange(args, 1, args.length)))
+                : new ChessBoard();
+            PositionStats stats = archive.query(board.getZobristHash(), 10);
+            System.out.println(archive.size() + " games; position reached in " + stats.getGameCount() + " games");
+            for (MoveStats move : stats.getMoves()) {
+                System.out.printf("  %-6s %8d games  +%d =%d -%d%n", Move.toString(move.getMove()), move.getGames(),
+                    move.getWhiteWins(), move.getDraws(), move.getBlackWins());
+            }
+            int[] ids = stats.getGameIds();
+            System.out.println("  first game ids: " + Arrays.toString(ids));
+
+            int queries = 100_000;
+            long hash = board.getZobristHash();
+            long sink = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                sink += archive.countGames(hash ^ (i & 1) * 0x9E3779B97F4A7C15L); // Mix hits and misses
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%.1f us per count query (%d)%n", elapsed / 1000.0 / queries, sink & 1);
+        }
+    }
+
+    /** @return Number of games in the archive; ids are 0 .. size() - 1. */
+    public int size() {
+        return gameCount;
+    }
+
+    // --- Games ---
+
+    /** @return Number of moves (plies) stored for a game. */
+    public int getPlyCount(int gameId) {
+        return (games.getShort(offset(gameId)) & 0xFFFF) & PLY_MASK;
+    }
+
+    /** @return One of the {@code RESULT_} codes. */
+    public int getResult(int gameId) {
+        return (games.getShort(offset(gameId)) & 0xFFFF) >>> RESULT_SHIFT;
+    }
+
+    /** @return Move {@code ply} (0-based) of a game, packed without flags. */
+    public int getMove(int gameId, int ply) {
+        return games.getShort(offset(gameId) + 2 + ply * 2) & MOVE_MASK;
+    }
+
+    /** @return All moves of a game; the only call here that copies a game onto the heap. */
+    public int[] getMoves(int gameId) {
+        int[] moves = new int[getPlyCount(gameId)];
+        for (int ply = 0; ply < moves.length; ply++) {
+            moves[ply] = getMove(gameId, ply);
+        }
+        return moves;
+    }
+
+    /**
+     * Replays a game up to a ply onto a board.
+     * @param board Receives the position; it is reset to the starting position first
+     * @param gameId The game
+     * @param plies Number of moves to play
+     */
+    public void replay(ChessBoard board, int gameId, int plies) {
+        Fen.setup(board, Fen.START_POSITION);
+        for (int ply = 0; ply < plies; ply++) {
+            board.makeMove(getMove(gameId, ply));
+        }
+    }
+
+    private int offset(int gameId) {
+        if (gameId < 0 || gameId >= gameCount) throw new IndexOutOfBoundsException("Game " + gameId + ", size " + gameCount);
+        return (int) offsets.getLong(HEADER_SIZE + gameId * 8);
+    }
+
+    // --- Positions ---
+
+    /**
+     * Counts the games that reached a position (a game reaching it twice counts once).
+     * @param hash Zobrist hash of the position
+     */
+    public int countGames(long hash) {
+        MappedByteBuffer block = blocks[block(hash)];
+        int end = blockSizes[block(hash)];
+        int count = 0;
+        int lastGame = -1;
+        for (int i = find(block, end, hash); i < end && hashAt(block, i) == hash; i++) {
+            int game = gameAt(block, i);
+            if (game != lastGame) count++;
+            lastGame = game;
+        }
+        return count;
+    }
+
+    /**
+     * Looks a position up: which games reached it and what was played from it.
+     * @param hash Zobrist hash of the position
+     * @param maxGameIds How many game ids to return at most (the lowest ids); counts and
+     *                   move statistics always cover all games
+     * @return The statistics, with no games if the position never occurred
+     */
+    public PositionStats query(long hash, int maxGameIds) {
+        int b = block(hash);
+        MappedByteBuffer block = blocks[b];
+        int end = blockSizes[b];
+        IntList ids = new IntList(Math.min(maxGameIds, 64));
+        List<MoveStats> moves = new ArrayList<>();
+        int count = 0;
+        int lastGame = -1;
+        for (int i = find(block, end, hash); i < end && hashAt(block, i) == hash; i++) {
+            int game = gameAt(block, i);
+            if (game == lastGame) continue; // Same game again (repetition): count its first visit only
+            lastGame = game;
+            count++;
+            if (ids.size() < maxGameIds) ids.add(game);
+
+            int info = block.getShort(HEADER_SIZE + i * ENTRY_SIZE + 12) & 0xFFFF;
+            int move = block.getShort(HEADER_SIZE + i * ENTRY_SIZE + 14) & MOVE_MASK;
+            if (move != Move.NONE) statsFor(moves, move).add(info >>> RESULT_SHIFT);
+        }
+        moves.sort((x, y) -> Integer.compare(y.games, x.games));
+        return new PositionStats(count, ids.toArray(), moves);
+    }
+
+    /** Same as {@link #query(long, int)} for the board's current position. */
+    public PositionStats query(ChessBoard board, int maxGameIds) {
+        return query(board.getZobristHash(), maxGameIds);
+    }
+
+    private static MoveStats statsFor(List<MoveStats> moves, int move) {
+        for (MoveStats stats : moves) {
+            if (stats.move == move) return stats;
+        }
+        MoveStats stats = new MoveStats(move);
+        moves.add(stats);
+        return stats;
+    }
+
+    // First entry with the hash (or the insertion point), by signed comparison as written
+    private static int find(MappedByteBuffer block, int size, long hash) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (hashAt(block, mid) < hash) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int block(long hash) {
+        return blockBits == 0 ? 0 : (int) (hash >>> (64 - blockBits));
+    }
+
+    private static long hashAt(MappedByteBuffer block, int i) {
+        return block.getLong(HEADER_SIZE + i * ENTRY_SIZE);
+    }
+
+    private static int gameAt(MappedByteBuffer block, int i) {
+        return block.getInt(HEADER_SIZE + i * ENTRY_SIZE + 8);
+    }
+
+    private MappedByteBuffer map(Path file, int magic) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        channels.add(channel);
+        if (channel.size() > Integer.MAX_VALUE) throw new IOException("Archive files larger than 2 GB are not supported: " + file);
+        MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (map.capacity() < HEADER_SIZE || map.getInt(0) != magic || map.getInt(4) != VERSION) {
+            throw new IOException("Not a game archive file (or wrong version): " + file);
+        }
+        return map;
+    }
+
+    // A header count that does not match the file size means a truncated or damaged file
+    private static void checkSize(MappedByteBuffer map, int count, int entrySize, Path file) throws IOException {
+        if (count < 0 || HEADER_SIZE + (long) count * entrySize != map.capacity()) {
+            throw new IOException("Truncated game archive file: header says " + count + " entries, file has "
+                + map.capacity() + " bytes: " + file);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (FileChannel channel : channels) {
+            channel.close(); // The mappings themselves are released when garbage collected
+        }
+        channels.clear();
+    }
+
+    // --- Results ---
+
+    /** The games that reached a position and the moves played from it, most frequent first. */
+    public static final class PositionStats {
+        private final int gameCount;
+        private final int[] gameIds;
+        private final List<MoveStats> moves;
+
+        PositionStats(int gameCount, int[] gameIds, List<MoveStats> moves) {
+            this.gameCount = gameCount;
+            this.gameIds = gameIds;
+            this.moves = moves;
+        }
+
+        /** @return Number of games that reached the position. */
+        public int getGameCount() {
+            return gameCount;
+        }
+
+        /** @return The lowest ids of those games, ascending, up to the requested maximum. */
+        public int[] getGameIds() {
+            return gameIds.clone();
+        }
+
+        /** @return One entry per move played from the position, most games first. */
+        public List<MoveStats> getMoves() {
+            return moves;
+        }
+    }
+
+    /** How often a move was played from a position, and how those games ended. */
+    public static final class MoveStats {
+        private final int move;
+        private int games;
+        private int whiteWins;
+        private int blackWins;
+        private int draws;
+
+        MoveStats(int move) {
+            this.move = move;
+        }
+
+        void add(int result) {
+            games++;
+            if (result == RESULT_WHITE_WINS) whiteWins++;
+            else if (result == RESULT_BLACK_WINS) blackWins++;
+            else if (result == RESULT_DRAW) draws++;
+        }
+
+        /** @return The packed move, without flags. */
+        public int getMove() {
+            return move;
+        }
+
+        public int getGames() {
+            return games;
+        }
+
+        public int getWhiteWins() {
+            return whiteWins;
+        }
+
+        public int getBlackWins() {
+            return blackWins;
+        }
+
+        public int getDraws() {
+            return draws;
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package chess.storage;
+
+import chess.core.ChessBoard;
+import chess.core.Fen;
+import chess.core.Move;
+import chess.core.Notation;
+import chess.util.PgnReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Writes a {@link GameArchive}: compact games first, then the position index.
+ * <p>
+ * Games are added one at a time (from PGN, or as packed moves); SAN is resolved by
+ * replaying each game on a {@link ChessBoard} and the moves are appended to games.dat.
+ * Games that do not start from the standard position (a FEN tag) are skipped, and a
+ * game stops at the first move the board cannot play.
+ * <p>
+ * {@link #finish()} then builds the index from games.dat on all cores, in three
+ * parallel passes over chunks of {@link #CHUNK} games, each replayed on its own board:
+ * <ol>
+ *   <li>count how many positions of each chunk fall into each index block,</li>
+ *   <li>replay again and write every entry straight to its final slot in the mapped
+ *       block file (the counts give each chunk its own range in every block),</li>
+ *   <li>sort each block in place, one block per task.</li>
+ * </ol>
+ * Memory stays at the counts plus one block per worker, whatever the number of games.
+ * <p>
+ * Usage: {@code java chess.storage.GameArchiveBuilder <outDir> <games.pgn>...}
+ */
+public class GameArchiveBuilder {
+
+    static final String GAMES_FILE = "games.dat";
+    static final String INDEX_FILE = "games.idx";
+    static final int BLOCK_ENTRIES = 1 << 22; // Target entries per index block (64 MB)
+    private static final int MAX_BLOCK_BITS = 16;
+    private static final int CHUNK = 4096;    // Games per parallel task
+
+    private final Path directory;
+    private final FileChannel gamesChannel;
+    private final ByteBuffer buf = ByteBuffer.allocate(256 * 1024);
+    private long gamesSize = GameArchive.HEADER_SIZE;
+    private long[] offsets = new long[1024];
+    private int gameCount;
+    private int gamesSkipped;
+    private int gamesTruncated;
+
+    /**
+     * Starts a new archive, replacing any archive in the directory.
+     * @param directory Created if missing
+     */
+    public GameArchiveBuilder(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        gamesChannel = FileChannel.open(directory.resolve(GAMES_FILE), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        buf.putInt(GameArchive.GAMES_MAGIC).putInt(GameArchive.VERSION).putInt(0).putInt(0);
+    }
+
+    static String blockFile(int block) {
+        return String.format("positions-%04d.idx", block);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: GameArchiveBuilder <outDir> <games.pgn>...");
+            System.exit(1);
+        }
+        GameArchiveBuilder builder = new GameArchiveBuilder(Paths.get(args[0]));
+        long start = System.nanoTime();
+        for (int i = 1; i < args.length; i++) {
+            builder.addPgn(Paths.get(args[i]));
+        }
+        long imported = System.nanoTime();
+        long entries = builder.finish();
+        long indexed = System.nanoTime();
+        System.out.printf("Games: %d (%d skipped, %d stopped early), positions indexed: %d%n",
+            builder.gameCount, builder.gamesSkipped, builder.gamesTruncated, entries);
+        System.out.printf("Import %.2f s, index %.2f s on %d cores%n", (imported - start) / 1e9,
+            (indexed - imported) / 1e9, Runtime.getRuntime().availableProcessors());
+    }
+
+    /** Adds every game of a PGN file. */
+    public void addPgn(Path pgn) throws IOException {
+        try (PgnReader reader = new PgnReader(Files.newBufferedReader(pgn, StandardCharsets.ISO_8859_1))) {
+            ChessBoard board = new ChessBoard();
+            int[] moves = new int[GameArchive.PLY_MASK];
+            PgnReader.Game game;
+            while ((game = reader.next()) != null) {
+                if (game.getTag("FEN") != null) {
+                    gamesSkipped++;
+                    continue;
+                }
+                Fen.setup(board, Fen.START_POSITION);
+                int plies = Math.min(game.getMoves().size(), moves.length);
+                int count = 0;
+                while (count < plies) {
+                    int move = Notation.parseSan(board, game.getMoves().get(count));
+                    if (move == Move.NONE) break;
+                    board.makeMove(move);
+                    moves[count++] = move;
+                }
+                if (count < game.getMoves().size()) gamesTruncated++;
+                addGame(moves, count, result(game.getResult()));
+            }
+        }
+    }
+
+    /**
+     * Appends a game from the standard starting position.
+     * @param moves Legal packed moves (flags are dropped)
+     * @param plies Number of moves to use from the array
+     * @param result One of the {@code GameArchive.RESULT_} codes
+     * @return The game's id
+     */
+    public int addGame(int[] moves, int plies, int result) throws IOException {
+        if (plies > GameArchive.PLY_MASK) throw new IllegalArgumentException("Game too long: " + plies + " plies");
+        int size = 2 + plies * 2;
+        if (gamesSize + size > Integer.MAX_VALUE) throw new IOException("Archive full: games.dat would exceed 2 GB");
+        if (buf.remaining() < size) drain(buf, gamesChannel);
+
+        buf.putShort((short) (plies | result << GameArchive.RESULT_SHIFT));
+        for (int ply = 0; ply < plies; ply++) {
+            buf.putShort((short) (moves[ply] & GameArchive.MOVE_MASK));
+        }
+        if (gameCount == offsets.length) offsets = Arrays.copyOf(offsets, gameCount * 2);
+        offsets[gameCount] = gamesSize;
+        gamesSize += size;
+        return gameCount++;
+    }
+
+    /**
+     * Completes games.dat and games.idx and builds the position index.
+     * @return Number of index entries (positions over all games)
+     */
+    public long finish() throws IOException {
+        drain(buf, gamesChannel);
+        buf.putInt(GameArchive.GAMES_MAGIC).putInt(GameArchive.VERSION).putInt(gameCount).putInt(0);
+        buf.flip();
+        gamesChannel.write(buf, 0);
+        buf.clear();
+        gamesChannel.close();
+
+        try (FileChannel channel = FileChannel.open(directory.resolve(INDEX_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            buf.putInt(GameArchive.INDEX_MAGIC).putInt(GameArchive.VERSION).putInt(gameCount).putInt(0);
+            for (int i = 0; i < gameCount; i++) {
+                if (buf.remaining() < 8) drain(buf, channel);
+                buf.putLong(offsets[i]);
+            }
+            drain(buf, channel);
+        }
+        return buildIndex(directory);
+    }
+
+    // --- Index ---
+
+    /**
+     * (Re)builds the position index of an archive from its games.dat and games.idx.
+     * @return Number of index entries
+     */
+    public static long buildIndex(Path directory) throws IOException {
+        List<FileChannel> channels = new ArrayList<>();
+        try {
+            MappedByteBuffer games = mapReadOnly(directory.resolve(GAMES_FILE), channels);
+            MappedByteBuffer offsets = mapReadOnly(directory.resolve(INDEX_FILE), channels);
+            int gameCount = offsets.getInt(8);
+            GameSource source = new GameSource(games, offsets);
+
+            long total = 0;
+            for (int game = 0; game < gameCount; game++) {
+                total += source.plies(game) + 1;
+            }
+            int blockBits = 0;
+            while (blockBits < MAX_BLOCK_BITS && (total >> blockBits) > BLOCK_ENTRIES) blockBits++;
+            int blockCount = 1 << blockBits;
+            int shift = 64 - blockBits;
+            int chunks = (gameCount + CHUNK - 1) / CHUNK;
+
+            // Pass 1: entries per chunk and block
+            int[][] slots = new int[chunks][blockCount];
+            IntStream.range(0, chunks).parallel().forEach(chunk ->
+                source.replay(chunk, (hash, game, info, move) -> slots[chunk][block(hash, shift)]++));
+
+            // Each chunk's first slot in every block
+            int[] blockSizes = new int[blockCount];
+            for (int block = 0; block < blockCount; block++) {
+                long next = 0;
+                for (int chunk = 0; chunk < chunks; chunk++) {
+                    int count = slots[chunk][block];
+                    slots[chunk][block] = (int) next;
+                    next += count;
+                }
+                if (next > (Integer.MAX_VALUE - GameArchive.HEADER_SIZE) / GameArchive.ENTRY_SIZE) {
+                    throw new IOException("Index block too large: " + next + " entries");
+                }
+                blockSizes[block] = (int) next;
+            }
+
+            try (DirectoryStream<Path> old = Files.newDirectoryStream(directory, "positions-*.idx")) {
+                for (Path file : old) Files.delete(file);
+            }
+            MappedByteBuffer[] blocks = new MappedByteBuffer[blockCount];
+            for (int block = 0; block < blockCount; block++) {
+                FileChannel channel = FileChannel.open(directory.resolve(blockFile(block)), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                channels.add(channel);
+                blocks[block] = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    GameArchive.HEADER_SIZE + (long) blockSizes[block] * GameArchive.ENTRY_SIZE);
+                blocks[block].putInt(0, GameArchive.POSITIONS_MAGIC).putInt(4, GameArchive.VERSION)
+                    .putInt(8, blockSizes[block]).putInt(12, blockBits);
+            }
+
+            // Pass 2: every chunk fills its own ranges, so the tasks never share a slot
+            IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                int[] next = slots[chunk];
+                source.replay(chunk, (hash, game, info, move) -> {
+                    int block = block(hash, shift);
+                    int at = GameArchive.HEADER_SIZE + next[block]++ * GameArchive.ENTRY_SIZE;
+                    blocks[block].putLong(at, hash).putInt(at + 8, game)
+                        .putShort(at + 12, (short) info).putShort(at + 14, (short) move);
+                });
+            });
+
+            // Pass 3: sort every block by (hash, game, ply)
+            IntStream.range(0, blockCount).parallel().forEach(block -> sortBlock(blocks[block], blockSizes[block]));
+
+            for (MappedByteBuffer block : blocks) {
+                block.force();
+            }
+            try (FileChannel index = FileChannel.open(directory.resolve(INDEX_FILE), StandardOpenOption.WRITE)) {
+                ByteBuffer bits = ByteBuffer.allocate(4).putInt(0, blockBits);
+                index.write(bits, 12);
+            }
+            return total;
+        } finally {
+            for (FileChannel channel : channels) {
+                channel.close();
+            }
+        }
+    }
+
+    private static int block(long hash, int shift) {
+        return shift == 64 ? 0 : (int) (hash >>> shift);
+    }
+
+    private static void sortBlock(MappedByteBuffer block, int size) {
+        long[] hashes = new long[size];
+        long[] rest = new long[size]; // game << 32 | info << 16 | move: orders by game, then ply
+        for (int i = 0; i < size; i++) {
+            int at = GameArchive.HEADER_SIZE + i * GameArchive.ENTRY_SIZE;
+            hashes[i] = block.getLong(at);
+            rest[i] = block.getLong(at + 8);
+        }
+        sort(hashes, rest, 0, size);
+        for (int i = 0; i < size; i++) {
+            int at = GameArchive.HEADER_SIZE + i * GameArchive.ENTRY_SIZE;
+            block.putLong(at, hashes[i]).putLong(at + 8, rest[i]);
+        }
+    }
+
+    // Quicksort of (key, value) pairs; keys compare signed, as GameArchive searches them
+    static void sort(long[] keys, long[] values, int from, int to) {
+        while (to - from > 16) {
+            int mid = (from + to) >>> 1;
+            if (less(keys, values, mid, from)) swap(keys, values, mid, from);
+            if (less(keys, values, to - 1, from)) swap(keys, values, to - 1, from);
+            if (less(keys, values, to - 1, mid)) swap(keys, values, to - 1, mid);
+            long pivotKey = keys[mid];
+            long pivotValue = values[mid];
+            int i = from;
+            int j = to - 1;
+            while (i <= j) {
+                while (compare(keys[i], values[i], pivotKey, pivotValue) < 0) i++;
+                while (compare(keys[j], values[j], pivotKey, pivotValue) > 0) j--;
+                if (i <= j) swap(keys, values, i++, j--);
+            }
+            // Recurse into the smaller side, loop on the larger
+            if (j + 1 - from < to - i) {
+                sort(keys, values, from, j + 1);
+                from = i;
+            } else {
+                sort(keys, values, i, to);
+                to = j + 1;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            for (int j = i; j > from && less(keys, values, j, j - 1); j--) {
+                swap(keys, values, j, j - 1);
+            }
+        }
+    }
+
+    private static int compare(long key, long value, long otherKey, long otherValue) {
+        int byKey = Long.compare(key, otherKey);
+        return byKey != 0 ? byKey : Long.compare(value, otherValue);
+    }
+
+    private static boolean less(long[] keys, long[] values, int a, int b) {
+        return compare(keys[a], values[a], keys[b], values[b]) < 0;
+    }
+
+    private static void swap(long[] keys, long[] values, int a, int b) {
+        long key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        long value = values[a];
+        values[a] = values[b];
+        values[b] = value;
+    }
+
+    /** Receives every position of a replayed chunk. */
+    private interface EntrySink {
+        void accept(long hash, int game, int info, int move);
+    }
+
+    /** Replays the games of games.dat; used by several threads at once (reads only). */
+    private static final class GameSource {
+        private final MappedByteBuffer games;
+        private final MappedByteBuffer offsets;
+        private final int gameCount;
+
+        GameSource(MappedByteBuffer games, MappedByteBuffer offsets) {
+            this.games = games;
+            this.offsets = offsets;
+            this.gameCount = offsets.getInt(8);
+        }
+
+        int plies(int game) {
+            return (games.getShort(offset(game)) & 0xFFFF) & GameArchive.PLY_MASK;
+        }
+
+        private int offset(int game) {
+            return (int) offsets.getLong(GameArchive.HEADER_SIZE + game * 8);
+        }
+
+        // Every position of every game in the chunk, start and final position included
+        void replay(int chunk, EntrySink sink) {
+            ChessBoard board = new ChessBoard();
+            int end = Math.min(gameCount, (chunk + 1) * CHUNK);
+            for (int game = chunk * CHUNK; game < end; game++) {
+                int at = offset(game);
+                int header = games.getShort(at) & 0xFFFF;
+                int plies = header & GameArchive.PLY_MASK;
+                int result = header & ~GameArchive.PLY_MASK;
+                Fen.setup(board, Fen.START_POSITION);
+                for (int ply = 0; ply <= plies; ply++) {
+                    int move = ply < plies ? games.getShort(at + 2 + ply * 2) & GameArchive.MOVE_MASK : Move.NONE;
+                    sink.accept(board.getZobristHash(), game, ply | result, move);
+                    if (move != Move.NONE) board.makeMove(move);
+                }
+            }
+        }
+    }
+
+    private static MappedByteBuffer mapReadOnly(Path file, List<FileChannel> channels) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        channels.add(channel);
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    private static void drain(ByteBuffer buf, FileChannel channel) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+        buf.clear();
+    }
+
+    private static int result(String result) {
+        switch (result) {
+            case "1-0": return GameArchive.RESULT_WHITE_WINS;
+            case "0-1": return GameArchive.RESULT_BLACK_WINS;
+            case "1/2-1/2": return GameArchive.RESULT_DRAW;
+            default: return GameArchive.RESULT_UNKNOWN;
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package chess.storage;
+
+import chess.core.ChessBoard;
+import chess.core.CompactBoardCodec;
+import chess.core.Move;
+import chess.util.IntList;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped journal of game events with group commit.
+ * <p>
+ * Every event is a fixed 64-byte record in a segment file ({@code journal-NNNNNN.log})
+ * that is memory-mapped as a whole:
+ * <pre>
+ *   byte   0      record type (0 = never written, see the TYPE_ constants)
+ *   bytes  4..7   CRC32 of byte 0 and bytes 8..63
+ *   bytes  8..15  game id
+ *   bytes 16..19  ply number of the game after this record
+ *   bytes 20..23  packed {@link Move} (MOVE records)
+ *   bytes 24..55  {@link CompactBoardCodec} position (CHECKPOINT records)
+ * </pre>
+ * Appending only copies 64 bytes into the mapping. A single flusher thread makes records
+ * durable with one {@code force()} per batch: callers that need durability wait in
+ * {@link #awaitDurable(long)} and are released together when the batch covering their
+ * record has been forced, so thousands of moves per second need only a handful of fsyncs.
+ * <p>
+ * On restart {@link #recover()} scans all segments and rebuilds every open game from its
+ * latest checkpoint plus the moves that follow it. The first unwritten or torn (bad CRC)
+ * record marks where a crash cut the journal off. A full segment is forced before its
+ * successor is created, but the new file may still reach the disk before the old segment's
+ * last pages do; so a segment may also end early if no later segment holds a valid record
+ * (those empty segments are then deleted). A bad record followed by valid ones is
+ * corruption, and recovery fails rather than silently dropping the history after it.
+ */
+public class GameJournal implements AutoCloseable {
+
+    public static final byte TYPE_CHECKPOINT = 1;
+    public static final byte TYPE_MOVE = 2;
+    public static final byte TYPE_END = 3;
+
+    static final int RECORD_SIZE = 64;
+    private static final int CRC_OFFSET = 4;
+    private static final int GAME_OFFSET = 8;
+    private static final int PLY_OFFSET = 16;
+    private static final int MOVE_OFFSET = 20;
+    private static final int STATE_OFFSET = 24;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final int DEFAULT_RECORDS_PER_SEGMENT = 1 << 18; // 16 MB segments
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final List<Segment> segments = new ArrayList<>();
+
+    // Guards appends and the sequence counters below
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pendingRecords = lock.newCondition();
+    private final Condition batchForced = lock.newCondition();
+
+    private long nextSequence;    // sequence number of the next record to append
+    private long durableSequence; // every record below this has been forced
+    private boolean closed;
+    private Thread flusher;
+
+    private final CRC32 crc = new CRC32(); // only used under the lock
+    private final ByteBuffer scratch = ByteBuffer.allocate(RECORD_SIZE);
+
+    /**
+     * Opens (or creates) a journal directory. Call {@link #recover()} before appending.
+     * @param directory The directory holding the segment files
+     */
+    public GameJournal(Path directory) throws IOException {
+        this(directory, DEFAULT_RECORDS_PER_SEGMENT);
+    }
+
+    public GameJournal(Path directory, int recordsPerSegment) throws IOException {
+        this.directory = directory;
+        this.recordsPerSegment = recordsPerSegment;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Replays the journal and positions the writer after the last valid record.
+     * @return The open (not ended) games keyed by id
+     * @throws IOException if a bad record is followed by valid ones
+     */
+    public Map<Long, RecoveredGame> recover() throws IOException {
+        Map<Long, byte[]> checkpoints = new HashMap<>();
+        Map<Long, IntList> movesSinceCheckpoint = new HashMap<>();
+        Map<Long, Integer> plies = new HashMap<>();
+
+        lock.lock();
+        try {
+            List<Path> files = listSegmentFiles();
+            for (int f = 0; f < files.size(); f++) {
+                Path file = files.get(f);
+                Segment segment = openSegment(file, nextSequence);
+                segments.add(segment);
+
+                int slot = 0;
+                for (; slot < segment.capacity; slot++) {
+                    int offset = slot * RECORD_SIZE;
+                    byte type = segment.buffer.get(offset);
+                    if (type < TYPE_CHECKPOINT || type > TYPE_END || !hasValidCrc(segment.buffer, offset)) {
+                        if (holdsNoRecords(files.subList(f + 1, files.size()))) break; // Torn tail
+                        throw new IOException("Corrupt journal record " + slot + " in " + file
+                            + (type == 0 ? ": unwritten" : ": bad checksum or type " + type));
+                    }
+
+                    long gameId = segment.buffer.getLong(offset + GAME_OFFSET);
+                    plies.put(gameId, segment.buffer.getInt(offset + PLY_OFFSET));
+                    if (type == TYPE_CHECKPOINT) {
+                        byte[] state = new byte[CompactBoardCodec.ENCODED_SIZE];
+                        segment.buffer.get(offset + STATE_OFFSET, state);
+                        checkpoints.put(gameId, state);
+                        movesSinceCheckpoint.put(gameId, new IntList());
+                    } else if (type == TYPE_MOVE) {
+                        IntList moves = movesSinceCheckpoint.get(gameId);
+                        if (moves != null) moves.add(segment.buffer.getInt(offset + MOVE_OFFSET));
+                    } else if (type == TYPE_END) {
+                        checkpoints.remove(gameId);
+                        movesSinceCheckpoint.remove(gameId);
+                        plies.remove(gameId);
+                    }
+                }
+                nextSequence = segment.baseSequence + slot;
+
+                if (slot < segment.capacity) {
+                    // Anything after the first bad record is garbage from a crash; wipe it
+                    // so stale bytes never look valid after the writer overwrites part of it.
+                    for (int i = slot * RECORD_SIZE; i < segment.capacity * RECORD_SIZE; i++) {
+                        segment.buffer.put(i, (byte) 0);
+                    }
+                    segment.buffer.force();
+                    // The later segments hold nothing valid: drop them so the writer
+                    // continues in this one and later files are numbered after it
+                    for (Path later : files.subList(f + 1, files.size())) {
+                        Files.delete(later);
+                    }
+                    break;
+                }
+            }
+            durableSequence = nextSequence;
+        } finally {
+            lock.unlock();
+        }
+
+        Map<Long, RecoveredGame> games = new HashMap<>();
+        for (Map.Entry<Long, byte[]> entry : checkpoints.entrySet()) {
+            long gameId = entry.getKey();
+            ChessBoard board = CompactBoardCodec.decode(entry.getValue());
+            IntList moves = movesSinceCheckpoint.get(gameId);
+            for (int i = 0; i < moves.size(); i++) {
+                board.makeMove(moves.get(i));
+            }
+            games.put(gameId, new RecoveredGame(gameId, board, plies.get(gameId)));
+        }
+        return games;
+    }
+
+    /** Starts the background thread that performs group commits. */
+    public void startFlusher() {
+        flusher = new Thread(this::flushLoop, "chess-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Appends a full snapshot of a game; replay starts from the latest one.
+     * @return The record's sequence number, for {@link #awaitDurable(long)}
+     */
+    public long appendCheckpoint(long gameId, int ply, ChessBoard board) throws IOException {
+        lock.lock();
+        try {
+            clearState();
+            CompactBoardCodec.encode(board, scratch, STATE_OFFSET);
+            return append(TYPE_CHECKPOINT, gameId, ply, Move.NONE);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends a played move.
+     * @return The record's sequence number, for {@link #awaitDurable(long)}
+     */
+    public long appendMove(long gameId, int ply, int move) throws IOException {
+        lock.lock();
+        try {
+            clearState();
+            return append(TYPE_MOVE, gameId, ply, move);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks a game as finished so recovery no longer restores it.
+     * @return The record's sequence number, for {@link #awaitDurable(long)}
+     */
+    public long appendEnd(long gameId, int ply) throws IOException {
+        lock.lock();
+        try {
+            clearState();
+            return append(TYPE_END, gameId, ply, Move.NONE);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until the record with the given sequence number has been forced to disk.
+     * Requires {@link #startFlusher()}.
+     */
+    public void awaitDurable(long sequence) throws InterruptedException {
+        lock.lock();
+        try {
+            while (durableSequence <= sequence && !closed) {
+                batchForced.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Stops the flusher after a final force and releases the segment files. */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            pendingRecords.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        lock.lock();
+        try {
+            forceRange(durableSequence, nextSequence);
+            durableSequence = nextSequence;
+            batchForced.signalAll();
+            for (Segment segment : segments) {
+                segment.channel.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Fills the record header and copies the scratch record into the mapping. Caller holds the lock.
+    private long append(byte type, long gameId, int ply, int move) throws IOException {
+        if (closed) throw new IOException("Journal is closed");
+
+        scratch.put(0, type);
+        scratch.putLong(GAME_OFFSET, gameId);
+        scratch.putInt(PLY_OFFSET, ply);
+        scratch.putInt(MOVE_OFFSET, move);
+        scratch.putInt(CRC_OFFSET, checksum(scratch.array()));
+
+        long sequence = nextSequence;
+        Segment segment = segmentFor(sequence);
+        segment.buffer.put((int) (sequence - segment.baseSequence) * RECORD_SIZE, scratch.array());
+        nextSequence++;
+        pendingRecords.signal();
+        return sequence;
+    }
+
+    private void clearState() {
+        for (int i = STATE_OFFSET; i < RECORD_SIZE; i++) {
+            scratch.put(i, (byte) 0);
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            long from;
+            long to;
+            lock.lock();
+            try {
+                while (durableSequence == nextSequence && !closed) {
+                    pendingRecords.awaitUninterruptibly();
+                }
+                if (closed) return;
+                from = durableSequence;
+                to = nextSequence;
+            } finally {
+                lock.unlock();
+            }
+
+            // Forcing happens outside the lock: writers keep appending into the next batch meanwhile
+            forceRange(from, to);
+
+            lock.lock();
+            try {
+                durableSequence = to;
+                batchForced.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Forces the bytes of records [from, to), which may span several segments
+    private void forceRange(long from, long to) {
+        long sequence = from;
+        while (sequence < to) {
+            Segment segment;
+            lock.lock();
+            try {
+                segment = segmentFor(sequence);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                lock.unlock();
+            }
+            long end = Math.min(to, segment.baseSequence + segment.capacity);
+            int offset = (int) (sequence - segment.baseSequence) * RECORD_SIZE;
+            segment.buffer.force(offset, (int) (end - sequence) * RECORD_SIZE);
+            sequence = end;
+        }
+    }
+
+    // Finds the segment holding a sequence number, creating the next one when the last is full
+    private Segment segmentFor(long sequence) throws IOException {
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            Segment segment = segments.get(i);
+            if (sequence >= segment.baseSequence) {
+                if (sequence < segment.baseSequence + segment.capacity) return segment;
+                break;
+            }
+        }
+        long base = 0;
+        if (!segments.isEmpty()) {
+            // The full segment must be on disk before its successor exists (see recover)
+            last().buffer.force();
+            base = last().baseSequence + last().capacity;
+        }
+        // Numbered after the highest existing file, which need not be segments.size()
+        List<Path> existing = listSegmentFiles();
+        int number = existing.isEmpty() ? 0 : segmentNumber(existing.get(existing.size() - 1)) + 1;
+        Path file = directory.resolve(String.format(SEGMENT_PREFIX + "%06d" + SEGMENT_SUFFIX, number));
+        Segment segment = createSegment(file, base);
+        segments.add(segment);
+        return segment;
+    }
+
+    private Segment last() {
+        return segments.get(segments.size() - 1);
+    }
+
+    private Segment createSegment(Path file, long baseSequence) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Mapping past the end grows the file; the new bytes read as zero (= unwritten)
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * RECORD_SIZE);
+        return new Segment(channel, buffer, baseSequence, recordsPerSegment);
+    }
+
+    private Segment openSegment(Path file, long baseSequence) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int capacity = (int) (channel.size() / RECORD_SIZE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE);
+        return new Segment(channel, buffer, baseSequence, capacity);
+    }
+
+    // true if none of the segment files holds a valid record. Caller holds the lock.
+    private boolean holdsNoRecords(List<Path> files) throws IOException {
+        for (Path file : files) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                int capacity = (int) (channel.size() / RECORD_SIZE);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, (long) capacity * RECORD_SIZE);
+                for (int slot = 0; slot < capacity; slot++) {
+                    int offset = slot * RECORD_SIZE;
+                    byte type = buffer.get(offset);
+                    if (type >= TYPE_CHECKPOINT && type <= TYPE_END && hasValidCrc(buffer, offset)) return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // The segment files in creation order, i.e. by number
+    private List<Path> listSegmentFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : stream) {
+                if (segmentNumber(file) >= 0) files.add(file);
+            }
+        }
+        files.sort(Comparator.comparingInt(GameJournal::segmentNumber));
+        return files;
+    }
+
+    // The number in "journal-NNNNNN.log", or -1 for other names
+    private static int segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+
+    private boolean hasValidCrc(ByteBuffer buffer, int offset) {
+        byte[] record = new byte[RECORD_SIZE];
+        buffer.get(offset, record);
+        return checksum(record) == buffer.getInt(offset + CRC_OFFSET);
+    }
+
+    // CRC32 of the type byte and bytes 8..63 of a record. Caller holds the lock.
+    private int checksum(byte[] record) {
+        crc.reset();
+        crc.update(record[0]);
+        crc.update(record, GAME_OFFSET, RECORD_SIZE - GAME_OFFSET);
+        return (int) crc.getValue();
+    }
+
+    /** One mapped segment file. */
+    private static final class Segment {
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        final long baseSequence;
+        final int capacity;
+
+        Segment(FileChannel channel, MappedByteBuffer buffer, long baseSequence, int capacity) {
+            this.channel = channel;
+            this.buffer = buffer;
+            this.baseSequence = baseSequence;
+            this.capacity = capacity;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package chess.storage;
+
+import chess.core.ChessBoard;
+import chess.core.Fen;
+import chess.core.Move;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Recovery check: simulates a power loss that left a full segment's last records
+ * unwritten while its successor file already exists. Recovery must treat that as a
+ * torn tail when the successor holds nothing valid, and as corruption when it does.
+ * <p>
+ * Run with {@code java chess.storage.GameJournalTest}; the exit status is 1 on a failure.
+ */
+public class GameJournalTest {
+
+    private static final int RECORDS_PER_SEGMENT = 4;
+    private static final long GAME_ID = 7;
+    private static final String[] MOVES = {"e2e4", "e7e5", "g1f3", "b8c6"};
+
+    public static void main(String[] args) throws IOException {
+        int failures = 0;
+
+        // Segment 0: checkpoint, e2e4, e7e5, g1f3; segment 1: b8c6. Losing the last two
+        // records of segment 0 and all of segment 1 leaves the game after e2e4.
+        Path directory = writeJournal();
+        try {
+            zeroRecords(directory.resolve("journal-000000.log"), 2, RECORDS_PER_SEGMENT);
+            zeroRecords(directory.resolve("journal-000001.log"), 0, RECORDS_PER_SEGMENT);
+            try (GameJournal journal = new GameJournal(directory, RECORDS_PER_SEGMENT)) {
+                Map<Long, RecoveredGame> games = journal.recover();
+                RecoveredGame game = games.get(GAME_ID);
+                ChessBoard expected = new ChessBoard();
+                expected.makeMove(Move.parse(MOVES[0]));
+                boolean ok = game != null && game.getPlyCount() == 1
+                    && Fen.toFen(game.getBoard()).equals(Fen.toFen(expected))
+                    && !Files.exists(directory.resolve("journal-000001.log"));
+                // The writer continues in segment 0, right after the last valid record
+                ok &= journal.appendMove(GAME_ID, 2, Move.parse(MOVES[1])) == 2;
+                if (!ok) failures++;
+                System.out.println("Torn tail before an empty segment: " + (ok ? "OK" : "FAIL"));
+            }
+        } finally {
+            delete(directory);
+        }
+
+        // The same hole followed by a valid record is corruption
+        directory = writeJournal();
+        try {
+            zeroRecords(directory.resolve("journal-000000.log"), 2, RECORDS_PER_SEGMENT);
+            boolean ok;
+            try (GameJournal journal = new GameJournal(directory, RECORDS_PER_SEGMENT)) {
+                journal.recover();
+                ok = false;
+            } catch (IOException e) {
+                ok = e.getMessage().startsWith("Corrupt journal record 2");
+            }
+            if (!ok) failures++;
+            System.out.println("Hole before a valid record: " + (ok ? "OK" : "FAIL"));
+        } finally {
+            delete(directory);
+        }
+
+        System.out.println(failures == 0 ? "Journal recovery checks pass" : failures + " journal failure(s)");
+        if (failures > 0) System.exit(1);
+    }
+
+    private static Path writeJournal() throws IOException {
+        Path directory = Files.createTempDirectory("chess-journal-test");
+        try (GameJournal journal = new GameJournal(directory, RECORDS_PER_SEGMENT)) {
+            journal.recover();
+            ChessBoard board = new ChessBoard();
+            journal.appendCheckpoint(GAME_ID, 0, board);
+            for (int ply = 1; ply <= MOVES.length; ply++) {
+                journal.appendMove(GAME_ID, ply, Move.parse(MOVES[ply - 1]));
+            }
+        }
+        return directory;
+    }
+
+    // Overwrites records [from, to) of a segment file with zeros
+    private static void zeroRecords(Path file, int from, int to) throws IOException {
+        try (RandomAccessFile out = new RandomAccessFile(file.toFile(), "rw")) {
+            out.seek((long) from * GameJournal.RECORD_SIZE);
+            out.write(new byte[(to - from) * GameJournal.RECORD_SIZE]);
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package chess.storage;
+
+import chess.core.ChessBoard;
+
+/**
+ * A game rebuilt by {@link GameJournal#recover()}.
+ */
+public class RecoveredGame {
+
+    private final long id;
+    private final ChessBoard board;
+    private final int plyCount;
+
+    public RecoveredGame(long id, ChessBoard board, int plyCount) {
+        this.id = id;
+        this.board = board;
+        this.plyCount = plyCount;
+    }
+
+    /** @return The game id used in the journal. */
+    public long getId() {
+        return id;
+    }
+
+    /** @return The position after the last journaled move. */
+    public ChessBoard getBoard() {
+        return board;
+    }
+
+    /** @return Number of half-moves played in the game. */
+    public int getPlyCount() {
+        return plyCount;
+    }
+}
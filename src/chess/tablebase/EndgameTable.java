@@ -0,0 +1,195 @@
+package chess.tablebase;
+
+import chess.core.PieceType;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * One distance-to-mate table, e.g. "KQK" or "KBNK".
+ * <p>
+ * Tables are always stored from the point of view of the strong side as White: White has
+ * its King plus {@link #getPieces()}, Black only its King. White pawns move towards row 0.
+ * A position is indexed by its piece squares (0..63, row * 8 + col):
+ * <pre>
+ *   index = (((whiteKing * 64 + blackKing) * 64 + piece1) * 64 + piece2) ...
+ * </pre>
+ * with the extra pieces in PieceType order. Each index has one byte per side to move:
+ * 0 = draw, {@link #ILLEGAL} = not a legal position, otherwise the number of plies until
+ * Black is mated, plus one.
+ * <p>
+ * File layout: magic, version, piece count (ints), one byte per piece type ordinal padded
+ * to 8 bytes, then the White-to-move and the Black-to-move tables.
+ */
+final class EndgameTable {
+
+    static final int MAGIC = 0x43485442; // "CHTB"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 20;
+
+    static final byte ILLEGAL = (byte) 0xFF;
+    static final int MAX_PIECES = 2;
+    /** Bound of {@link #materialKey}: two bits per piece type. */
+    static final int MATERIAL_KEYS = 1 << (2 * PieceType.values().length);
+
+    private final PieceType[] pieces;
+    private final ByteBuffer whiteToMove;
+    private final ByteBuffer blackToMove;
+
+    EndgameTable(PieceType[] pieces, ByteBuffer whiteToMove, ByteBuffer blackToMove) {
+        this.pieces = pieces;
+        this.whiteToMove = whiteToMove;
+        this.blackToMove = blackToMove;
+    }
+
+    /** @return The strong side's pieces besides its King, in PieceType order. */
+    PieceType[] getPieces() {
+        return pieces;
+    }
+
+    /** @return Number of indexed positions per side to move. */
+    int size() {
+        return whiteToMove.capacity();
+    }
+
+    /** @return The raw byte for a White-to-move position. */
+    int whiteToMove(int index) {
+        return whiteToMove.get(index) & 0xFF;
+    }
+
+    /** @return The raw byte for a Black-to-move position. */
+    int blackToMove(int index) {
+        return blackToMove.get(index) & 0xFF;
+    }
+
+    /**
+     * Computes the index of a position whose extra pieces may be listed in any order.
+     * @param whiteKing Square of the strong King
+     * @param blackKing Square of the lone King
+     * @param types Types of the extra pieces (same multiset as this table's)
+     * @param squares Their squares, parallel to types
+     */
+    int indexOf(int whiteKing, int blackKing, PieceType[] types, int[] squares) {
+        if (types.length == 2 && types[0].ordinal() > types[1].ordinal()) {
+            return indexOf(whiteKing, blackKing, squares[1], squares[0]);
+        }
+        return indexOf(whiteKing, blackKing, types.length > 0 ? squares[0] : 0, types.length > 1 ? squares[1] : 0);
+    }
+
+    /**
+     * Computes the index of a position whose extra pieces are in this table's order.
+     * @param first Square of the first extra piece (ignored without extra pieces)
+     * @param second Square of the second one (ignored with fewer than two)
+     */
+    int indexOf(int whiteKing, int blackKing, int first, int second) {
+        int index = whiteKing * 64 + blackKing;
+        if (pieces.length > 0) index = index * 64 + first;
+        if (pieces.length > 1) index = index * 64 + second;
+        return index;
+    }
+
+    /**
+     * @return A number identifying the multiset of pieces: two bits of count per
+     *         PieceType ordinal, below {@link #MATERIAL_KEYS}
+     */
+    static int materialKey(PieceType[] pieces) {
+        int key = 0;
+        for (PieceType type : pieces) {
+            key += materialKeyOf(type);
+        }
+        return key;
+    }
+
+    /** @return The material key of a single piece; keys of several pieces add up. */
+    static int materialKeyOf(PieceType type) {
+        return 1 << (2 * type.ordinal());
+    }
+
+    /** @return Canonical name such as "KQK" or "KBNK". */
+    static String signature(PieceType[] pieces) {
+        StringBuilder sb = new StringBuilder("K");
+        for (PieceType type : pieces) {
+            sb.append(type.getShortName());
+        }
+        return sb.append('K').toString();
+    }
+
+    /**
+     * Parses a signature like "KRK" or "KNBK" (any order) into canonical piece types.
+     * @throws IllegalArgumentException for unsupported material
+     */
+    static PieceType[] parseSignature(String signature) {
+        String s = signature.toUpperCase();
+        if (s.length() < 2 || s.charAt(0) != 'K' || s.charAt(s.length() - 1) != 'K') {
+            throw new IllegalArgumentException("Signature must look like K..K: " + signature);
+        }
+        PieceType[] pieces = new PieceType[s.length() - 2];
+        if (pieces.length > MAX_PIECES) {
+            throw new IllegalArgumentException("At most " + MAX_PIECES + " extra pieces: " + signature);
+        }
+        for (int i = 0; i < pieces.length; i++) {
+            pieces[i] = typeFor(s.charAt(i + 1));
+        }
+        return canonical(pieces);
+    }
+
+    /** @return A sorted copy of the piece types (the table's canonical order). */
+    static PieceType[] canonical(PieceType[] pieces) {
+        PieceType[] sorted = pieces.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static PieceType typeFor(char letter) {
+        for (PieceType type : PieceType.values()) {
+            if (type != PieceType.KING && type.getShortName().charAt(0) == letter) return type;
+        }
+        throw new IllegalArgumentException("Unknown piece letter: " + letter);
+    }
+
+    /** Writes the table to a file. */
+    void write(Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(pieces.length);
+        for (int i = 0; i < 8; i++) {
+            header.put(i < pieces.length ? (byte) pieces[i].ordinal() : 0);
+        }
+        header.flip();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (ByteBuffer part : new ByteBuffer[] {header, whiteToMove.duplicate(), blackToMove.duplicate()}) {
+                part.rewind();
+                while (part.hasRemaining()) {
+                    channel.write(part);
+                }
+            }
+        }
+    }
+
+    /** Memory-maps a table file written by {@link #write(Path)}. */
+    static EndgameTable map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+                throw new IOException("Not an endgame table: " + file);
+            }
+            int count = map.getInt(8);
+            PieceType[] pieces = new PieceType[count];
+            for (int i = 0; i < count; i++) {
+                pieces[i] = PieceType.values()[map.get(12 + i)];
+            }
+            int size = 1 << (6 * (count + 2));
+            if (map.capacity() != HEADER_SIZE + 2L * size) {
+                throw new IOException("Truncated endgame table: " + file);
+            }
+            ByteBuffer white = map.slice(HEADER_SIZE, size);
+            ByteBuffer black = map.slice(HEADER_SIZE + size, size);
+            return new EndgameTable(pieces, white, black);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package chess.tablebase;
+
+import chess.core.ChessBoard;
+import chess.core.Color;
+import chess.core.PieceType;
+import chess.core.Position;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Probes endgame tables written by {@link TablebaseGenerator}.
+ * <p>
+ * Table files are memory-mapped on first use (a missing file is looked for only once).
+ * Afterwards a probe allocates nothing: it walks the strong side's piece list for an
+ * integer material key, fetches the table from an array by that key, computes the
+ * index and reads a single byte. Positions where Black holds the extra pieces are
+ * mirrored vertically and colour-swapped, so one table serves both sides.
+ * <p>
+ * {@link #probeWdl} gives the outcome for the side to move, {@link #probeDtm} the
+ * number of plies until mate (with best play by both sides) when the outcome is decided.
+ */
+public class Tablebase {
+
+    /** File name suffix of table files, e.g. "KQK.tb". */
+    public static final String FILE_SUFFIX = ".tb";
+
+    /** Returned when no table covers the position, or its table holds it as illegal. */
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+
+    public static final int WIN = 1;
+    public static final int DRAW = 0;
+    public static final int LOSS = -1;
+
+    private final Path directory;
+    // By material key; MISSING once a table was looked for and not found
+    private final AtomicReferenceArray<EndgameTable> tables = new AtomicReferenceArray<>(EndgameTable.MATERIAL_KEYS);
+    private static final EndgameTable MISSING = new EndgameTable(new PieceType[0], null, null);
+
+    /**
+     * @param directory Directory holding the table files
+     */
+    public Tablebase(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @param board Any position; castling rights are ignored
+     * @return {@link #WIN} or {@link #LOSS} for the side to move, {@link #DRAW}, or
+     *         {@link #NOT_FOUND} if no table covers the position or it is illegal (e.g.
+     *         the side not to move is in check)
+     */
+    public int probeWdl(ChessBoard board) {
+        int raw = probeRaw(board);
+        if (raw == NOT_FOUND) return NOT_FOUND;
+        if (raw == 0) return DRAW;
+        return raw > 0 ? WIN : LOSS;
+    }
+
+    /**
+     * @param board Any position; castling rights are ignored
+     * @return Plies until mate for a decided position (0 if the side to move is already
+     *         mated), 0 for a draw, or {@link #NOT_FOUND}
+     */
+    public int probeDtm(ChessBoard board) {
+        int raw = probeRaw(board);
+        if (raw == NOT_FOUND || raw == 0) return raw;
+        return Math.abs(raw) - 1;
+    }
+
+    // Table byte (plies + 1) signed by the side to move's outcome, 0 for draws
+    private int probeRaw(ChessBoard board) {
+        // One side must be a lone King; the other has at most MAX_PIECES more
+        int whiteExtras = board.getPieceListSize(Color.WHITE) - 1;
+        int blackExtras = board.getPieceListSize(Color.BLACK) - 1;
+        if (whiteExtras > 0 && blackExtras > 0) return NOT_FOUND;
+        Color strong = blackExtras > 0 ? Color.BLACK : Color.WHITE;
+        int extras = Math.max(whiteExtras, blackExtras);
+        if (extras > EndgameTable.MAX_PIECES) return NOT_FOUND;
+        int strongKing = board.getKingSquare(strong);
+        int loneKing = board.getKingSquare(strong.opposite());
+        if (strongKing < 0 || loneKing < 0) return NOT_FOUND;
+
+        // Walk the strong side's piece list for the material key and the extra pieces,
+        // ordered by type as in the table
+        int key = 0;
+        int first = 0;
+        int second = 0;
+        int firstType = -1;
+        for (int i = 0, found = 0; i < board.getPieceListSize(strong); i++) {
+            int sq = board.getPieceSquare(strong, i);
+            if (sq == strongKing) continue;
+            PieceType type = board.getPiece(Position.of(sq)).getType();
+            if (type == PieceType.KING) return NOT_FOUND; // A second King
+            key += EndgameTable.materialKeyOf(type);
+            if (found++ == 0) {
+                first = sq;
+                firstType = type.ordinal();
+            } else if (type.ordinal() < firstType) {
+                second = first;
+                first = sq;
+            } else {
+                second = sq;
+            }
+        }
+
+        EndgameTable table = table(key);
+        if (table == null) return NOT_FOUND;
+
+        // Normalize so the strong side is White
+        boolean mirrored = strong == Color.BLACK;
+        int index = mirrored
+            ? table.indexOf(mirror(strongKing), mirror(loneKing), mirror(first), mirror(second))
+            : table.indexOf(strongKing, loneKing, first, second);
+        boolean strongToMove = board.getCurrentTurn() == strong;
+        int value = strongToMove ? table.whiteToMove(index) : table.blackToMove(index);
+        if (value == (EndgameTable.ILLEGAL & 0xFF)) return NOT_FOUND;
+        if (value == 0) return 0;
+        return strongToMove ? value : -value;
+    }
+
+    // The table for a material key, mapped on first use; null if there is no such file
+    private EndgameTable table(int key) {
+        EndgameTable table = tables.get(key);
+        if (table != null) return table == MISSING ? null : table;
+        synchronized (tables) {
+            table = tables.get(key);
+            if (table == null) {
+                table = load(key);
+                tables.set(key, table);
+            }
+        }
+        return table == MISSING ? null : table;
+    }
+
+    private EndgameTable load(int key) {
+        PieceType[] pieces = new PieceType[EndgameTable.MAX_PIECES];
+        int count = 0;
+        for (PieceType type : PieceType.values()) {
+            for (int n = (key >> (2 * type.ordinal())) & 3; n > 0; n--) {
+                pieces[count++] = type;
+            }
+        }
+        Path file = directory.resolve(EndgameTable.signature(Arrays.copyOf(pieces, count)) + FILE_SUFFIX);
+        if (!Files.exists(file)) return MISSING;
+        try {
+            return EndgameTable.map(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Vertical mirror: row r becomes row 7 - r
+    private static int mirror(int square) {
+        return square ^ 56;
+    }
+}
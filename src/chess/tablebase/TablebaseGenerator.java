@@ -0,0 +1,573 @@
+package chess.tablebase;
+
+import chess.core.PieceType;
+import chess.util.IntList;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Generates distance-to-mate tables for King + up to two pieces against a lone King
+ * (KQK, KRK, KPK, KBNK, KQRK, ...) by retrograde analysis.
+ * <p>
+ * Generation works backwards from the mates:
+ * <ol>
+ *   <li>Every position is classified once: illegal, Black mated or stalemated, and for
+ *       Black to move the number of King moves that are not yet known to lose. Captures
+ *       and promotions leave the table; their results are looked up in the smaller
+ *       tables, which are generated first (recursively).</li>
+ *   <li>Level by level (d = 0, 1, 2, ... plies to mate), the positions resolved at level
+ *       d are un-moved: a White un-move finds White-to-move positions that win in d + 1;
+ *       a Black un-move decrements the counter of the predecessor, which is lost as soon
+ *       as no escaping move is left.</li>
+ * </ol>
+ * The classification pass and each level's frontier are processed in parallel; shared
+ * bytes are updated with compare-and-set, so the result does not depend on scheduling.
+ * <p>
+ * Usage: {@code java chess.tablebase.TablebaseGenerator <outDir> [KQK KRK KPK KBNK ...]}
+ */
+public class TablebaseGenerator {
+
+    private static final PieceType[] PROMOTIONS = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
+    private static final int MAX_DTM = 253; // stored as d + 1, and 0xFF means illegal
+    private static final int CHUNK = 1 << 14;
+
+    // "remaining" marker for Black-to-move positions that can never be lost
+    private static final byte ESCAPES = Byte.MIN_VALUE;
+
+    private static final VarHandle BYTES = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final int[][] KING_STEPS = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+    private static final int[][] KNIGHT_STEPS = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+    private static final int[][] STRAIGHT = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    private static final int[][] DIAGONAL = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            KING_ATTACKS[sq] = stepMask(sq, KING_STEPS);
+            KNIGHT_ATTACKS[sq] = stepMask(sq, KNIGHT_STEPS);
+        }
+    }
+
+    private final Path outDir;
+    private final Map<String, EndgameTable> tables = new HashMap<>();
+
+    public TablebaseGenerator(Path outDir) {
+        this.outDir = outDir;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: TablebaseGenerator <outDir> [KQK KRK KPK KBNK ...]");
+            System.exit(1);
+        }
+        Path outDir = Paths.get(args[0]);
+        Files.createDirectories(outDir);
+        String[] signatures = args.length > 1
+            ? Arrays.copyOfRange(args, 1, args.length)
+            : new String[] {"KQK", "KRK", "KPK", "KBNK"};
+
+        TablebaseGenerator generator = new TablebaseGenerator(outDir);
+        for (String signature : signatures) {
+            generator.generate(signature);
+        }
+    }
+
+    /**
+     * Generates a table and everything it depends on; tables already on disk are reused.
+     * @param signature e.g. "KBNK"
+     * @throws IllegalArgumentException for unsupported material
+     */
+    public synchronized void generate(String signature) throws IOException {
+        generate(EndgameTable.parseSignature(signature));
+    }
+
+    private EndgameTable generate(PieceType[] pieces) throws IOException {
+        String signature = EndgameTable.signature(pieces);
+        EndgameTable table = tables.get(signature);
+        if (table != null) return table;
+
+        Path file = outDir.resolve(signature + Tablebase.FILE_SUFFIX);
+        if (Files.exists(file)) {
+            table = EndgameTable.map(file);
+        } else {
+            long start = System.nanoTime();
+            table = new Builder(pieces).build();
+            table.write(file);
+            System.out.printf("%s: %d positions in %.1fs%n", signature, 2L * table.size(),
+                (System.nanoTime() - start) / 1e9);
+        }
+        tables.put(signature, table);
+        return table;
+    }
+
+    /**
+     * State of one table under construction.
+     */
+    private final class Builder {
+        private final PieceType[] pieces;
+        private final int count;
+        private final int size;
+
+        private final byte[] whiteToMove;
+        private final byte[] blackToMove;
+        private final byte[] remaining; // Black-to-move: escaping moves still unresolved
+        private final byte[] exitMax;   // Black-to-move: longest mate among captures, + 1
+
+        // Tables reached by captures (index = captured piece) and promotions
+        private final EndgameTable[] afterCapture;
+        private final EndgameTable[][] afterPromotion;
+
+        // levels[d] = positions resolved at d plies to mate (even d: Black to move)
+        private final IntList[] levels = new IntList[MAX_DTM + 1];
+        private final IntList[] promotionSeeds = new IntList[MAX_DTM + 1];
+
+        Builder(PieceType[] pieces) throws IOException {
+            this.pieces = pieces;
+            this.count = pieces.length;
+            this.size = 1 << (6 * (count + 2));
+            this.whiteToMove = new byte[size];
+            this.blackToMove = new byte[size];
+            this.remaining = new byte[size];
+            this.exitMax = new byte[size];
+
+            afterCapture = new EndgameTable[count];
+            afterPromotion = new EndgameTable[count][];
+            for (int i = 0; i < count; i++) {
+                afterCapture[i] = generate(without(pieces, i));
+                if (pieces[i] == PieceType.PAWN) {
+                    afterPromotion[i] = new EndgameTable[PROMOTIONS.length];
+                    for (int p = 0; p < PROMOTIONS.length; p++) {
+                        PieceType[] promoted = pieces.clone();
+                        promoted[i] = PROMOTIONS[p];
+                        afterPromotion[i][p] = generate(EndgameTable.canonical(promoted));
+                    }
+                }
+            }
+            for (int d = 0; d <= MAX_DTM; d++) {
+                levels[d] = new IntList();
+                promotionSeeds[d] = new IntList();
+            }
+        }
+
+        EndgameTable build() {
+            IntStream.range(0, (size + CHUNK - 1) / CHUNK).parallel().forEach(this::classifyChunk);
+
+            for (int d = 0; d < MAX_DTM; d++) {
+                if ((d & 1) == 1) seedPromotions(d);
+                IntList frontier = levels[d];
+                if (frontier.isEmpty() && !anyLevelAfter(d)) break;
+
+                int[] positions = frontier.toArray();
+                int level = d;
+                IntStream.range(0, (positions.length + CHUNK - 1) / CHUNK).parallel().forEach(chunk -> {
+                    LevelBuffer out = new LevelBuffer();
+                    int end = Math.min(positions.length, (chunk + 1) * CHUNK);
+                    for (int i = chunk * CHUNK; i < end; i++) {
+                        if ((level & 1) == 0) {
+                            unmoveWhite(positions[i], level, out);
+                        } else {
+                            unmoveBlack(positions[i], level, out);
+                        }
+                    }
+                    out.flush();
+                });
+            }
+            return new EndgameTable(pieces, ByteBuffer.wrap(whiteToMove), ByteBuffer.wrap(blackToMove));
+        }
+
+        // ------------------------------------------------------------
+        // ---- Classification ----------------------------------------
+        // ------------------------------------------------------------
+
+        private void classifyChunk(int chunk) {
+            int[] squares = new int[count];
+            LevelBuffer out = new LevelBuffer();
+            int end = Math.min(size, (chunk + 1) * CHUNK);
+            for (int index = chunk * CHUNK; index < end; index++) {
+                classify(index, squares, out);
+            }
+            out.flush();
+        }
+
+        private void classify(int index, int[] squares, LevelBuffer out) {
+            int wk = decode(index, squares);
+            int bk = (index >>> (6 * count)) & 63;
+
+            if (!isPlausible(wk, bk, squares)) {
+                whiteToMove[index] = EndgameTable.ILLEGAL;
+                blackToMove[index] = EndgameTable.ILLEGAL;
+                return;
+            }
+
+            long occupied = occupancy(wk, bk, squares);
+            boolean blackInCheck = attackedByWhite(bk, occupied, wk, squares, -1);
+
+            // White to move: illegal if Black is in check; promotions leave the table
+            if (blackInCheck) {
+                whiteToMove[index] = EndgameTable.ILLEGAL;
+            } else {
+                int best = bestPromotion(wk, bk, squares, occupied);
+                if (best >= 0) out.seed(best + 1, index);
+            }
+
+            // Black to move: count King moves, resolve captures through smaller tables
+            int moves = 0;
+            int longestCapture = -1;
+            boolean escapes = false;
+            long vacated = occupied & ~(1L << bk);
+
+            for (long targets = KING_ATTACKS[bk] & ~KING_ATTACKS[wk] & ~(1L << wk); targets != 0; targets &= targets - 1) {
+                int to = Long.numberOfTrailingZeros(targets);
+                int captured = pieceOn(to, squares);
+
+                if (captured < 0) {
+                    if (!attackedByWhite(to, vacated, wk, squares, -1)) moves++;
+                    continue;
+                }
+                if (attackedByWhite(to, vacated, wk, squares, captured)) continue; // Protected piece
+
+                int result = afterCaptureWhiteToMove(wk, to, squares, captured);
+                if (result == 0) {
+                    escapes = true;
+                } else {
+                    longestCapture = Math.max(longestCapture, result - 1);
+                }
+            }
+
+            if (moves == 0 && longestCapture < 0 && !escapes) {
+                if (blackInCheck) {
+                    blackToMove[index] = 1; // Mated: 0 plies
+                    out.add(0, index);
+                }
+                remaining[index] = ESCAPES; // Stalemate (draw) or already resolved
+            } else if (escapes) {
+                remaining[index] = ESCAPES;
+            } else if (moves == 0) {
+                // Every move is a capture into a lost smaller ending
+                int d = longestCapture + 1;
+                blackToMove[index] = (byte) (d + 1);
+                remaining[index] = ESCAPES;
+                out.add(d, index);
+            } else {
+                remaining[index] = (byte) moves;
+                exitMax[index] = (byte) (longestCapture + 1);
+            }
+        }
+
+        // Shortest win through a promotion, in plies after the promotion, or -1
+        private int bestPromotion(int wk, int bk, int[] squares, long occupied) {
+            int best = -1;
+            for (int i = 0; i < count; i++) {
+                int from = squares[i];
+                if (pieces[i] != PieceType.PAWN || (from >>> 3) != 1) continue;
+                int to = from - 8;
+                if ((occupied & (1L << to)) != 0) continue;
+
+                for (int p = 0; p < PROMOTIONS.length; p++) {
+                    PieceType[] types = pieces.clone();
+                    int[] moved = squares.clone();
+                    types[i] = PROMOTIONS[p];
+                    moved[i] = to;
+                    EndgameTable table = afterPromotion[i][p];
+                    int value = table.blackToMove(table.indexOf(wk, bk, types, moved));
+                    if (value != 0 && value != 0xFF && (best < 0 || value - 1 < best)) {
+                        best = value - 1;
+                    }
+                }
+            }
+            return best;
+        }
+
+        private int afterCaptureWhiteToMove(int wk, int bk, int[] squares, int captured) {
+            PieceType[] types = new PieceType[count - 1];
+            int[] rest = new int[count - 1];
+            for (int i = 0, j = 0; i < count; i++) {
+                if (i == captured) continue;
+                types[j] = pieces[i];
+                rest[j++] = squares[i];
+            }
+            EndgameTable table = afterCapture[captured];
+            return table.whiteToMove(table.indexOf(wk, bk, types, rest));
+        }
+
+        private void seedPromotions(int level) {
+            int[] seeds = promotionSeeds[level].toArray();
+            for (int index : seeds) {
+                if (BYTES.compareAndSet(whiteToMove, index, (byte) 0, (byte) (level + 1))) {
+                    levels[level].add(index);
+                }
+            }
+        }
+
+        private boolean anyLevelAfter(int d) {
+            for (int i = d + 1; i <= MAX_DTM; i++) {
+                if (!levels[i].isEmpty() || !promotionSeeds[i].isEmpty()) return true;
+            }
+            return false;
+        }
+
+        // ------------------------------------------------------------
+        // ---- Un-moves ----------------------------------------------
+        // ------------------------------------------------------------
+
+        // Black to move, mated in d: every White move into it wins in d + 1
+        private void unmoveWhite(int index, int d, LevelBuffer out) {
+            int[] squares = new int[count];
+            int wk = decode(index, squares);
+            int bk = (index >>> (6 * count)) & 63;
+            long occupied = occupancy(wk, bk, squares);
+
+            // King
+            for (long from = KING_ATTACKS[wk] & ~occupied & ~KING_ATTACKS[bk]; from != 0; from &= from - 1) {
+                resolveWhite(withWhiteKing(index, Long.numberOfTrailingZeros(from)), d, out);
+            }
+
+            for (int i = 0; i < count; i++) {
+                int sq = squares[i];
+                switch (pieces[i]) {
+                    case KNIGHT:
+                        for (long from = KNIGHT_ATTACKS[sq] & ~occupied; from != 0; from &= from - 1) {
+                            resolveWhite(withPiece(index, i, Long.numberOfTrailingZeros(from)), d, out);
+                        }
+                        break;
+                    case BISHOP:
+                        unmoveSlider(index, i, sq, occupied, DIAGONAL, d, out);
+                        break;
+                    case ROOK:
+                        unmoveSlider(index, i, sq, occupied, STRAIGHT, d, out);
+                        break;
+                    case QUEEN:
+                        unmoveSlider(index, i, sq, occupied, DIAGONAL, d, out);
+                        unmoveSlider(index, i, sq, occupied, STRAIGHT, d, out);
+                        break;
+                    case PAWN:
+                        // White pawns move towards row 0: they came from one row higher
+                        int row = sq >>> 3;
+                        if (row < 6 && (occupied & (1L << (sq + 8))) == 0) {
+                            resolveWhite(withPiece(index, i, sq + 8), d, out);
+                            if (row == 4 && (occupied & (1L << (sq + 16))) == 0) {
+                                resolveWhite(withPiece(index, i, sq + 16), d, out);
+                            }
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        private void unmoveSlider(int index, int piece, int sq, long occupied, int[][] directions, int d, LevelBuffer out) {
+            for (int[] dir : directions) {
+                int row = (sq >>> 3) + dir[0];
+                int col = (sq & 7) + dir[1];
+                while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+                    int from = row * 8 + col;
+                    if ((occupied & (1L << from)) != 0) break;
+                    resolveWhite(withPiece(index, piece, from), d, out);
+                    row += dir[0];
+                    col += dir[1];
+                }
+            }
+        }
+
+        private void resolveWhite(int predecessor, int d, LevelBuffer out) {
+            // Only legal White-to-move positions that are still unresolved
+            if (BYTES.compareAndSet(whiteToMove, predecessor, (byte) 0, (byte) (d + 2))) {
+                out.add(d + 1, predecessor);
+            }
+        }
+
+        // White to move, wins in d: one more Black move into it is refuted
+        private void unmoveBlack(int index, int d, LevelBuffer out) {
+            int[] squares = new int[count];
+            int wk = decode(index, squares);
+            int bk = (index >>> (6 * count)) & 63;
+            long occupied = occupancy(wk, bk, squares);
+
+            for (long from = KING_ATTACKS[bk] & ~occupied & ~KING_ATTACKS[wk]; from != 0; from &= from - 1) {
+                int predecessor = withBlackKing(index, Long.numberOfTrailingZeros(from));
+                if (blackToMove[predecessor] == EndgameTable.ILLEGAL) continue;
+
+                while (true) {
+                    byte left = (byte) BYTES.getVolatile(remaining, predecessor);
+                    if (left <= 0) break; // Escapes, or already resolved
+                    if (BYTES.compareAndSet(remaining, predecessor, left, (byte) (left - 1))) {
+                        if (left == 1) {
+                            int dtm = Math.max(d, (exitMax[predecessor] & 0xFF) - 1) + 1;
+                            blackToMove[predecessor] = (byte) (dtm + 1);
+                            out.add(dtm, predecessor);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        // ------------------------------------------------------------
+        // ---- Index helpers -----------------------------------------
+        // ------------------------------------------------------------
+
+        // Extracts the extra pieces' squares and returns the White King square
+        private int decode(int index, int[] squares) {
+            for (int i = count - 1, shift = 0; i >= 0; i--, shift += 6) {
+                squares[i] = (index >>> shift) & 63;
+            }
+            return index >>> (6 * (count + 1));
+        }
+
+        private int withWhiteKing(int index, int square) {
+            int shift = 6 * (count + 1);
+            return (index & ~(63 << shift)) | (square << shift);
+        }
+
+        private int withBlackKing(int index, int square) {
+            int shift = 6 * count;
+            return (index & ~(63 << shift)) | (square << shift);
+        }
+
+        private int withPiece(int index, int piece, int square) {
+            int shift = 6 * (count - 1 - piece);
+            return (index & ~(63 << shift)) | (square << shift);
+        }
+
+        private int pieceOn(int square, int[] squares) {
+            for (int i = 0; i < count; i++) {
+                if (squares[i] == square) return i;
+            }
+            return -1;
+        }
+
+        // Distinct squares, Kings apart, no pawns on the first or last row
+        private boolean isPlausible(int wk, int bk, int[] squares) {
+            if (wk == bk || (KING_ATTACKS[wk] & (1L << bk)) != 0) return false;
+            for (int i = 0; i < count; i++) {
+                int sq = squares[i];
+                if (sq == wk || sq == bk) return false;
+                for (int j = 0; j < i; j++) {
+                    if (squares[j] == sq) return false;
+                }
+                int row = sq >>> 3;
+                if (pieces[i] == PieceType.PAWN && (row == 0 || row == 7)) return false;
+            }
+            return true;
+        }
+
+        private long occupancy(int wk, int bk, int[] squares) {
+            long occupied = (1L << wk) | (1L << bk);
+            for (int sq : squares) {
+                occupied |= 1L << sq;
+            }
+            return occupied;
+        }
+
+        // Is the square attacked by White, ignoring the piece "skip" (just captured)?
+        private boolean attackedByWhite(int square, long occupied, int wk, int[] squares, int skip) {
+            if ((KING_ATTACKS[wk] & (1L << square)) != 0) return true;
+            for (int i = 0; i < count; i++) {
+                if (i == skip) continue;
+                int sq = squares[i];
+                switch (pieces[i]) {
+                    case KNIGHT:
+                        if ((KNIGHT_ATTACKS[sq] & (1L << square)) != 0) return true;
+                        break;
+                    case BISHOP:
+                        if (slides(sq, square, occupied, DIAGONAL)) return true;
+                        break;
+                    case ROOK:
+                        if (slides(sq, square, occupied, STRAIGHT)) return true;
+                        break;
+                    case QUEEN:
+                        if (slides(sq, square, occupied, DIAGONAL) || slides(sq, square, occupied, STRAIGHT)) return true;
+                        break;
+                    case PAWN:
+                        int row = sq >>> 3;
+                        int col = sq & 7;
+                        if (row > 0 && (square >>> 3) == row - 1 && Math.abs((square & 7) - col) == 1) return true;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Collects new level entries per worker and publishes them in one synchronized step.
+         */
+        private final class LevelBuffer {
+            private final Map<Integer, IntList> pending = new HashMap<>();
+            private final Map<Integer, IntList> seeds = new HashMap<>();
+
+            void add(int level, int index) {
+                pending.computeIfAbsent(level, l -> new IntList()).add(index);
+            }
+
+            void seed(int level, int index) {
+                seeds.computeIfAbsent(level, l -> new IntList()).add(index);
+            }
+
+            void flush() {
+                publish(pending, levels);
+                publish(seeds, promotionSeeds);
+            }
+
+            private void publish(Map<Integer, IntList> source, IntList[] target) {
+                for (Map.Entry<Integer, IntList> entry : source.entrySet()) {
+                    int level = entry.getKey();
+                    if (level > MAX_DTM) continue; // Beyond what a byte can hold: left as draw
+                    IntList list = entry.getValue();
+                    synchronized (target[level]) {
+                        for (int i = 0; i < list.size(); i++) {
+                            target[level].add(list.get(i));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static PieceType[] without(PieceType[] pieces, int skip) {
+        PieceType[] rest = new PieceType[pieces.length - 1];
+        for (int i = 0, j = 0; i < pieces.length; i++) {
+            if (i != skip) rest[j++] = pieces[i];
+        }
+        return rest;
+    }
+
+    // True if a slider on "from" reaches "target" along one of the directions
+    private static boolean slides(int from, int target, long occupied, int[][] directions) {
+        for (int[] dir : directions) {
+            int row = (from >>> 3) + dir[0];
+            int col = (from & 7) + dir[1];
+            while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+                int sq = row * 8 + col;
+                if (sq == target) return true;
+                if ((occupied & (1L << sq)) != 0) break;
+                row += dir[0];
+                col += dir[1];
+            }
+        }
+        return false;
+    }
+
+    private static long stepMask(int sq, int[][] steps) {
+        long mask = 0;
+        for (int[] step : steps) {
+            int row = (sq >>> 3) + step[0];
+            int col = (sq & 7) + step[1];
+            if (row >= 0 && row < 8 && col >= 0 && col < 8) mask |= 1L << (row * 8 + col);
+        }
+        return mask;
+    }
+}
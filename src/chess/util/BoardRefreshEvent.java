@@ -0,0 +1,21 @@
+package chess.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for one repaint pass of the Swing board (emitted when {@link Metrics#ENABLED}).
+ */
+@Name("chess.BoardRefresh")
+@Label("Board Refresh")
+@Category("Chess")
+@Description("The GUI updating all tiles from the model")
+public class BoardRefreshEvent extends Event {
+
+    @Label("Tiles")
+    @Description("Number of tiles updated")
+    public int tiles;
+}
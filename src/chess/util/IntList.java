@@ -0,0 +1,70 @@
+package chess.util;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive ints, used wherever boxing every element into an
+ * Integer would create needless garbage (move lists, histories, journals).
+ */
+public class IntList {
+
+    private int[] values;
+    private int size;
+
+    public IntList() {
+        this(16);
+    }
+
+    public IntList(int initialCapacity) {
+        values = new int[Math.max(1, initialCapacity)];
+    }
+
+    /** Appends a value, growing the backing array if necessary. */
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    /** @return The value at index (0 <= index < size). */
+    public int get(int index) {
+        if (index >= size) throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        return values[index];
+    }
+
+    /** Replaces the value at index (0 <= index < size). */
+    public void set(int index, int value) {
+        if (index >= size) throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        values[index] = value;
+    }
+
+    /** Removes and returns the last value. */
+    public int removeLast() {
+        if (size == 0) throw new IllegalStateException("List is empty");
+        return values[--size];
+    }
+
+    /** Drops every value from index on; the capacity is kept. */
+    public void truncate(int newSize) {
+        if (newSize < 0 || newSize > size) throw new IndexOutOfBoundsException("Size " + newSize);
+        size = newSize;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /** @return A copy of the values as an exact-length array. */
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,88 @@
+package chess.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size, thread-safe latency histogram with log-linear buckets
+ * (in the spirit of HdrHistogram).
+ * <p>
+ * Every power of two is split into 16 linear sub-buckets, so any recorded value is
+ * reported within ~6% of its true value. Recording is a couple of bit operations and
+ * one atomic increment; nothing is allocated after construction.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Records a single value (typically nanoseconds). Negative values count as 0.
+     * @param value The measured value
+     */
+    public void record(long value) {
+        counts.incrementAndGet(indexFor(Math.max(0, value)));
+    }
+
+    /** @return The total number of recorded values. */
+    public long getCount() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Returns the value at the given percentile.
+     * @param percentile 0.0 to 100.0
+     * @return The (upper bound of the) bucket holding that percentile, or 0 if empty
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = getCount();
+        if (total == 0) return 0;
+
+        long rank = (long) Math.ceil(percentile / 100.0 * total);
+        if (rank < 1) rank = 1;
+
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return highestValueIn(i);
+        }
+        return highestValueIn(BUCKETS - 1);
+    }
+
+    /** @return The upper bound of the highest non-empty bucket, or 0 if empty. */
+    public long getMax() {
+        for (int i = BUCKETS - 1; i >= 0; i--) {
+            if (counts.get(i) != 0) return highestValueIn(i);
+        }
+        return 0;
+    }
+
+    /** Clears all recorded values. */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    // Values below SUB_BUCKETS map 1:1, larger ones to (exponent, top 4 mantissa bits)
+    private static int indexFor(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long highestValueIn(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = index / SUB_BUCKETS - 1;
+        long base = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return base + (1L << shift) - 1;
+    }
+}
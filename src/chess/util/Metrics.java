@@ -0,0 +1,192 @@
+package chess.util;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Opt-in timing of the engine's hot paths: a call count and a latency histogram per
+ * {@link Op}, readable through JMX (one MXBean per operation, under "chess:type=Metrics")
+ * and dumpable to a text file.
+ * <p>
+ * Enable with {@code -Dchess.metrics=true}; with {@code -Dchess.metrics.dump=<file>} the
+ * table is also written when the JVM exits. The flag is a static final constant, so
+ * instrumented code follows one pattern that costs a single (JIT-eliminated) branch and
+ * no allocation when metrics are off:
+ * <pre>
+ *   if (!Metrics.ENABLED) return doWork();
+ *   long start = System.nanoTime();
+ *   Result result = doWork();
+ *   Metrics.record(Metrics.Op.SOMETHING, start);
+ *   return result;
+ * </pre>
+ * Times are inclusive: an operation that calls another is charged for both.
+ * The JFR events (MoveEvent, SearchEvent, BoardRefreshEvent) are emitted under the same flag.
+ */
+public final class Metrics {
+
+    /** True when started with -Dchess.metrics=true. */
+    public static final boolean ENABLED = Boolean.getBoolean("chess.metrics");
+
+    /** Instrumented operations. */
+    public enum Op {
+        LEGAL_MOVES("legalMoves"),        // ChessBoard.getLegalMoves(Position)
+        GENERATE_MOVES("generateMoves"),  // ChessBoard.generateLegalMoves
+        SQUARE_ATTACKED("squareAttacked"),
+        MOVE_PIECE("movePiece"),
+        MAKE_MOVE("makeMove"),
+        BOARD_REFRESH("boardRefresh"),    // BoardPanel.refreshBoard
+        SEARCH("search");
+
+        private final String metricName;
+
+        Op(String metricName) {
+            this.metricName = metricName;
+        }
+
+        /** @return The name used in JMX and dumps, e.g. "squareAttacked". */
+        public String getMetricName() {
+            return metricName;
+        }
+    }
+
+    private static final Op[] OPS = Op.values();
+    private static final LatencyHistogram[] LATENCIES = new LatencyHistogram[OPS.length];
+
+    static {
+        for (int i = 0; i < OPS.length; i++) {
+            LATENCIES[i] = new LatencyHistogram();
+        }
+        if (ENABLED) {
+            registerMBeans();
+            String dumpFile = System.getProperty("chess.metrics.dump");
+            if (dumpFile != null) {
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> dumpQuietly(Paths.get(dumpFile)), "chess-metrics-dump"));
+            }
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Records one call of an operation. Only call this when {@link #ENABLED}.
+     * @param op The operation
+     * @param startNanos System.nanoTime() taken when the call began
+     */
+    public static void record(Op op, long startNanos) {
+        LATENCIES[op.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    /** @return Number of recorded calls of the operation. */
+    public static long getCount(Op op) {
+        return LATENCIES[op.ordinal()].getCount();
+    }
+
+    /** @return The latency histogram of the operation, in nanoseconds. */
+    public static LatencyHistogram getLatencies(Op op) {
+        return LATENCIES[op.ordinal()];
+    }
+
+    /** Clears all operations. */
+    public static void reset() {
+        for (LatencyHistogram histogram : LATENCIES) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Writes one line per operation: count and latency percentiles in microseconds.
+     * @param file Destination (overwritten)
+     */
+    public static void dump(Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(report());
+        }
+    }
+
+    /** @return The same table as {@link #dump(Path)}, as text. */
+    public static String report() {
+        StringWriter text = new StringWriter();
+        PrintWriter out = new PrintWriter(text);
+        out.printf("%-16s %12s %10s %10s %10s %10s%n", "operation", "count", "p50us", "p99us", "p99.9us", "maxus");
+        for (Op op : OPS) {
+            LatencyHistogram h = LATENCIES[op.ordinal()];
+            out.printf("%-16s %12d %10.3f %10.3f %10.3f %10.3f%n", op.getMetricName(), h.getCount(),
+                h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(99) / 1000.0,
+                h.getValueAtPercentile(99.9) / 1000.0, h.getMax() / 1000.0);
+        }
+        out.flush();
+        return text.toString();
+    }
+
+    private static void dumpQuietly(Path file) {
+        try {
+            dump(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (Op op : OPS) {
+            try {
+                ObjectName name = new ObjectName("chess:type=Metrics,name=" + op.getMetricName());
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(new OperationMetrics(op), name);
+                }
+            } catch (Exception e) {
+                System.err.println("Metrics: could not register " + op.getMetricName() + " with JMX: " + e);
+            }
+        }
+    }
+
+    // JMX view of one operation
+    private static final class OperationMetrics implements OperationMetricsMXBean {
+        private final LatencyHistogram histogram;
+
+        OperationMetrics(Op op) {
+            this.histogram = LATENCIES[op.ordinal()];
+        }
+
+        @Override
+        public long getCount() {
+            return histogram.getCount();
+        }
+
+        @Override
+        public double getP50Micros() {
+            return histogram.getValueAtPercentile(50) / 1000.0;
+        }
+
+        @Override
+        public double getP99Micros() {
+            return histogram.getValueAtPercentile(99) / 1000.0;
+        }
+
+        @Override
+        public double getP999Micros() {
+            return histogram.getValueAtPercentile(99.9) / 1000.0;
+        }
+
+        @Override
+        public double getMaxMicros() {
+            return histogram.getMax() / 1000.0;
+        }
+
+        @Override
+        public void reset() {
+            histogram.reset();
+        }
+    }
+}
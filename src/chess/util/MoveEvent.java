@@ -0,0 +1,25 @@
+package chess.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for a move played with ChessBoard.makeMove (emitted when {@link Metrics#ENABLED}).
+ */
+@Name("chess.Move")
+@Label("Move")
+@Category("Chess")
+@Description("A move played on a board")
+public class MoveEvent extends Event {
+
+    @Label("Move")
+    @Description("Coordinate notation, e.g. e2e4")
+    public String move;
+
+    @Label("Ply")
+    @Description("Number of moves on the board's undo stack after this one")
+    public int ply;
+}
@@ -0,0 +1,26 @@
+package chess.util;
+
+/**
+ * JMX view of one instrumented operation, registered by {@link Metrics} as
+ * "chess:type=Metrics,name=&lt;operation&gt;" when metrics are enabled.
+ */
+public interface OperationMetricsMXBean {
+
+    /** @return Number of recorded calls. */
+    long getCount();
+
+    /** @return Median latency in microseconds. */
+    double getP50Micros();
+
+    /** @return 99th percentile latency in microseconds. */
+    double getP99Micros();
+
+    /** @return 99.9th percentile latency in microseconds. */
+    double getP999Micros();
+
+    /** @return Highest latency in microseconds. */
+    double getMaxMicros();
+
+    /** Clears the recorded calls. */
+    void reset();
+}
@@ -0,0 +1,156 @@
+package chess.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams games out of a PGN file, one at a time.
+ * <p>
+ * Only the main line is kept: comments, variations, NAGs and move numbers are skipped.
+ * Moves are returned as SAN text; resolving them needs a board (see chess.core.Notation).
+ */
+public class PgnReader implements AutoCloseable {
+
+    private final BufferedReader in;
+    private String pendingLine; // first header line of the next game, read ahead
+
+    public PgnReader(Reader reader) {
+        this.in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    }
+
+    /**
+     * Reads the next game.
+     * @return The game, or null at end of input
+     */
+    public Game next() throws IOException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        StringBuilder movetext = new StringBuilder();
+        boolean inMoves = false;
+
+        String line = pendingLine != null ? pendingLine : in.readLine();
+        pendingLine = null;
+
+        for (; line != null; line = in.readLine()) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("[")) {
+                if (inMoves) {
+                    pendingLine = line; // Header of the following game
+                    break;
+                }
+                parseTag(trimmed, tags);
+            } else if (!trimmed.isEmpty() && !trimmed.startsWith("%")) {
+                inMoves = true;
+                movetext.append(trimmed).append('\n');
+            }
+        }
+
+        if (tags.isEmpty() && movetext.length() == 0) return null;
+        return new Game(tags, parseMovetext(movetext));
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private static void parseTag(String line, Map<String, String> tags) {
+        int space = line.indexOf(' ');
+        int open = line.indexOf('"');
+        int close = line.lastIndexOf('"');
+        if (space < 0 || open < 0 || close <= open) return;
+        tags.put(line.substring(1, space), line.substring(open + 1, close));
+    }
+
+    // Splits movetext into SAN tokens, dropping everything that is not a main-line move
+    private static List<String> parseMovetext(CharSequence text) {
+        List<String> moves = new ArrayList<>();
+        int depth = 0;       // nesting of (variations)
+        boolean inComment = false;      // inside {braces}
+        boolean inLineComment = false;  // after ';' up to the end of the line
+        StringBuilder token = new StringBuilder();
+
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (inLineComment) {
+                if (c == '\n') inLineComment = false;
+                continue;
+            }
+            if (inComment) {
+                if (c == '}') inComment = false;
+                continue;
+            }
+            if (c == '{' || c == '(' || c == ')' || Character.isWhitespace(c)) {
+                if (depth == 0) addMoveToken(token, moves);
+                token.setLength(0);
+                if (c == '{') inComment = true;
+                if (c == '(') depth++;
+                if (c == ')') depth--;
+                continue;
+            }
+            if (c == ';') {
+                if (depth == 0) addMoveToken(token, moves);
+                token.setLength(0);
+                inLineComment = true;
+                continue;
+            }
+            token.append(c);
+        }
+        return moves;
+    }
+
+    private static void addMoveToken(StringBuilder token, List<String> moves) {
+        if (token.length() == 0) return;
+        String text = token.toString();
+        if (text.equals("1-0") || text.equals("0-1") || text.equals("1/2-1/2") || text.equals("*")) return;
+
+        // "12." / "12..." prefixes may be glued to the move ("12.e4"); digits alone
+        // without dots are not stripped so "0-0" castling survives
+        int digits = 0;
+        while (digits < text.length() && Character.isDigit(text.charAt(digits))) {
+            digits++;
+        }
+        int dots = digits;
+        while (dots < text.length() && text.charAt(dots) == '.') {
+            dots++;
+        }
+        if (digits == text.length()) return; // A bare move number
+        if (dots > digits) text = text.substring(dots);
+
+        if (text.isEmpty() || text.startsWith("$")) return;
+        moves.add(text);
+    }
+
+    /**
+     * One game: its header tags and main-line SAN moves.
+     */
+    public static class Game {
+        private final Map<String, String> tags;
+        private final List<String> moves;
+
+        public Game(Map<String, String> tags, List<String> moves) {
+            this.tags = tags;
+            this.moves = moves;
+        }
+
+        /** @return The value of a header tag, or null. */
+        public String getTag(String name) {
+            return tags.get(name);
+        }
+
+        /** @return The main-line moves in SAN. */
+        public List<String> getMoves() {
+            return moves;
+        }
+
+        /** @return "1-0", "0-1", "1/2-1/2" or "*". */
+        public String getResult() {
+            String result = tags.get("Result");
+            return result == null ? "*" : result;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package chess.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for one search of an engine or solver (emitted when {@link Metrics#ENABLED}).
+ */
+@Name("chess.Search")
+@Label("Search")
+@Category("Chess")
+@Description("One search of an engine or solver")
+public class SearchEvent extends Event {
+
+    @Label("Depth")
+    @Description("Deepest completed iteration")
+    public int depth;
+
+    @Label("Nodes")
+    public long nodes;
+
+    @Label("Best Move")
+    public String bestMove;
+
+    @Label("Score")
+    @Description("Score of the best move in centipawns, from the side to move")
+    public int score;
+}